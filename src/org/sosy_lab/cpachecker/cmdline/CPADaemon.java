@@ -0,0 +1,362 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cmdline;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.CharSource;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.configuration.TimeSpanOption;
+import org.sosy_lab.common.log.BasicLogManager;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.log.LoggingOptions;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.cmdline.CmdLineArguments.InvalidCmdlineArgumentException;
+import org.sosy_lab.cpachecker.cmdline.Output.ExitException;
+import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.util.Pair;
+
+/**
+ * Runs CPAchecker as a long-running process that accepts analysis tasks over a local socket. For
+ * many small tasks, starting a new JVM (including class loading and JIT compilation) and reading
+ * the configuration files dominate the run time, which is avoided by the daemon.
+ *
+ * <p>A client connects to the port of the daemon on the loopback interface, sends the token from
+ * the token file of the daemon (readable only by the user running the daemon) and then the
+ * command-line arguments of the task (as for {@link CPAMain}) in UTF-8, one per line and
+ * terminated by an empty line, and receives everything that the analysis writes to stdout and
+ * stderr. The last line sent by the daemon is "exit status" followed by the exit code that
+ * CPAchecker would have returned. Relative paths are resolved against the working directory of the
+ * daemon.
+ *
+ * <p>Tasks are run one after another, because CPAchecker has global state. Configuration files are
+ * read only once and reused as long as they are not modified (included files are read for each
+ * task), but each task gets its own {@link Configuration} instance. Optionally, also the automata
+ * of specification files are reused, cf. {@link Specification#enableAutomatonCache()}. If a task
+ * runs out of memory, or does not terminate within a grace period after a shutdown of the task was
+ * requested (e.g., because of a resource limit), the task is reported as failed and the daemon
+ * terminates.
+ */
+@Options(prefix = "daemon")
+public final class CPADaemon {
+
+  @Option(
+      secure = true,
+      description =
+          "Port on the loopback interface on which tasks are accepted, 0 for any free port.")
+  @IntegerOption(min = 0, max = 65535)
+  private int port = 0;
+
+  @Option(
+      secure = true,
+      description =
+          "Reuse the automata parsed from specification files for later tasks. This is only"
+              + " correct if the specifications do not refer to declarations of the programs.")
+  private boolean cacheSpecificationAutomata = false;
+
+  @Option(
+      secure = true,
+      description =
+          "File to which a random token is written at startup. Clients have to send this token"
+              + " before their task. The file is readable only by the user running the daemon.")
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private Path tokenFile = Paths.get(".cpachecker-daemon-token");
+
+  @Option(
+      secure = true,
+      description =
+          "Terminate the daemon if a task is still running this long after a shutdown of the"
+              + " task was requested (use seconds or specify a unit).")
+  @TimeSpanOption(codeUnit = TimeUnit.MILLISECONDS, defaultUserUnit = TimeUnit.SECONDS, min = 1)
+  private TimeSpan shutdownGracePeriod = TimeSpan.ofSeconds(10);
+
+  private static final int TOKEN_BYTES = 32;
+
+  private final LogManager logger;
+
+  /** Contents of configuration files, with the time of the last modification of the file. */
+  private final Map<Path, Pair<FileTime, String>> configurationFiles = new HashMap<>();
+
+  private byte[] token;
+
+  private int taskCount = 0;
+
+  @VisibleForTesting
+  CPADaemon(Configuration pConfig, LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+  }
+
+  @SuppressWarnings("resource") // We don't close LogManager
+  public static void main(String[] args) {
+    // CPAchecker uses American English for output,
+    // so make sure numbers are formatted appropriately.
+    Locale.setDefault(Locale.US);
+
+    CPADaemon daemon;
+    try {
+      Configuration config =
+          Configuration.builder().setOptions(CmdLineArguments.processArguments(args)).build();
+      LogManager logger = BasicLogManager.create(new LoggingOptions(config));
+      daemon = new CPADaemon(config, logger);
+    } catch (InvalidCmdlineArgumentException e) {
+      throw Output.fatalError("Could not process command line arguments: %s", e.getMessage());
+    } catch (InvalidConfigurationException e) {
+      throw Output.fatalError("Invalid configuration: %s", e.getMessage());
+    }
+
+    try {
+      daemon.writeToken();
+      daemon.serve();
+    } catch (IOException e) {
+      throw Output.fatalError("Could not accept tasks: %s", e.getMessage());
+    }
+
+    // a task ran out of memory or hangs, the state of the JVM is unknown
+    System.exit(CPAMain.ERROR_EXIT_CODE);
+  }
+
+  /** Create a new token and write it to the token file, which only the owner may read. */
+  private void writeToken() throws IOException {
+    token = new byte[TOKEN_BYTES];
+    new SecureRandom().nextBytes(token);
+
+    // never write the token to an existing file, which might be readable by others
+    Files.deleteIfExists(tokenFile);
+    try {
+      Files.createFile(
+          tokenFile,
+          PosixFilePermissions.asFileAttribute(
+              EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+    } catch (UnsupportedOperationException e) {
+      throw new IOException("Cannot restrict the access to the token file " + tokenFile, e);
+    }
+    Files.write(
+        tokenFile, BaseEncoding.base16().encode(token).getBytes(StandardCharsets.US_ASCII));
+    tokenFile.toFile().deleteOnExit();
+  }
+
+  /** Handle tasks until a task runs out of memory or hangs. */
+  private void serve() throws IOException {
+    if (cacheSpecificationAutomata) {
+      Specification.enableAutomatonCache();
+    }
+
+    final PrintStream stdout = System.out;
+    final PrintStream stderr = System.err;
+    try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+      logger.log(
+          Level.INFO,
+          "Accepting tasks on port",
+          serverSocket.getLocalPort(),
+          "with the token from",
+          tokenFile);
+      Output.keepJvmAlive();
+
+      boolean terminate = false;
+      while (!terminate) {
+        try (Socket socket = serverSocket.accept()) {
+          terminate = !handleTask(socket);
+        } catch (IOException e) {
+          logger.logUserException(Level.WARNING, e, "Could not communicate with client");
+        } finally {
+          System.setOut(stdout);
+          System.setErr(stderr);
+        }
+      }
+    }
+  }
+
+  /**
+   * Run the task sent by the client.
+   *
+   * @return false if the task ran out of memory or hangs and the daemon should terminate
+   */
+  @SuppressWarnings("checkstyle:IllegalInstantiation") // output stream of the task
+  private boolean handleTask(Socket pSocket) throws IOException {
+    // not closed, this would close the socket
+    BufferedReader input =
+        new BufferedReader(new InputStreamReader(pSocket.getInputStream(), StandardCharsets.UTF_8));
+    PrintStream output = new PrintStream(pSocket.getOutputStream(), true, StandardCharsets.UTF_8);
+    if (!isAuthenticated(input.readLine())) {
+      logger.log(Level.WARNING, "Rejected client with invalid token");
+      output.println("invalid token");
+      return true;
+    }
+
+    List<String> args = readArguments(input);
+    taskCount++;
+    logger.logf(Level.INFO, "Starting task %d with arguments %s", taskCount, args);
+
+    int status = 0;
+    boolean terminate = false;
+    ShutdownWatchdog watchdog = new ShutdownWatchdog(shutdownGracePeriod);
+    // run in a separate thread, such that the daemon can give up on a task that hangs
+    FutureTask<Void> task =
+        new FutureTask<>(
+            () -> {
+              CPAMain.runAnalysis(
+                  args.toArray(new String[0]), this::loadConfigurationFile, false, watchdog);
+              return null;
+            });
+    System.setOut(output);
+    System.setErr(output);
+    try {
+      Thread taskThread = new Thread(task, "CPAchecker task " + taskCount);
+      taskThread.start();
+      if (!awaitTask(task, watchdog)) {
+        output.println("Task did not terminate after shutdown request, terminating the daemon.");
+        logger.logf(
+            Level.SEVERE,
+            "Task %d did not terminate within %s after shutdown request, it is hanging at%n%s",
+            taskCount,
+            shutdownGracePeriod,
+            Joiner.on('\n').join(taskThread.getStackTrace()));
+        status = CPAMain.ERROR_EXIT_CODE;
+        terminate = true;
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ExitException) {
+        status = ((ExitException) cause).getStatus();
+      } else if (cause instanceof OutOfMemoryError) {
+        // the memory of the task is free again, but other threads might have failed, too
+        output.println("Out of memory, terminating the daemon.");
+        logger.logUserException(Level.SEVERE, cause, "Task " + taskCount + " ran out of memory");
+        status = CPAMain.ERROR_EXIT_CODE;
+        terminate = true;
+      } else {
+        // the daemon should survive bugs in single tasks
+        cause.printStackTrace(output);
+        logger.logUserException(Level.WARNING, cause, "Task " + taskCount + " failed");
+        status = CPAMain.ERROR_EXIT_CODE;
+      }
+    }
+
+    output.println("exit status " + status);
+    output.flush();
+    logger.logf(Level.INFO, "Finished task %d with exit status %d", taskCount, status);
+    return !terminate;
+  }
+
+  /**
+   * Wait until the given task is finished.
+   *
+   * @return false if the task did not terminate within the grace period after a shutdown request
+   * @throws ExecutionException if the task failed
+   */
+  private static boolean awaitTask(Future<?> pTask, ShutdownWatchdog pWatchdog)
+      throws ExecutionException {
+    while (!pWatchdog.isOverdue()) {
+      try {
+        Uninterruptibles.getUninterruptibly(pTask, 1, TimeUnit.SECONDS);
+        return true;
+      } catch (TimeoutException e) {
+        // check the watchdog and continue waiting
+      }
+    }
+    return false;
+  }
+
+  private boolean isAuthenticated(String pToken) {
+    if (pToken == null) {
+      return false;
+    }
+    byte[] clientToken;
+    try {
+      clientToken = BaseEncoding.base16().decode(pToken.trim().toUpperCase(Locale.US));
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    return MessageDigest.isEqual(token, clientToken);
+  }
+
+  private static List<String> readArguments(BufferedReader pInput) throws IOException {
+    List<String> args = new ArrayList<>();
+    String line;
+    while ((line = pInput.readLine()) != null && !line.isEmpty()) {
+      args.add(line);
+    }
+    return args;
+  }
+
+  /**
+   * Load a configuration file into the builder of a task. Only the contents of the file are cached,
+   * such that each task gets its own configuration, which tracks the options used by this task.
+   */
+  @VisibleForTesting
+  void loadConfigurationFile(ConfigurationBuilder pBuilder, Path pFile)
+      throws IOException, InvalidConfigurationException {
+    Path file = pFile.toAbsolutePath().normalize();
+    FileTime lastModified = Files.getLastModifiedTime(file);
+    Pair<FileTime, String> cached = configurationFiles.get(file);
+    if (cached == null || !cached.getFirst().equals(lastModified)) {
+      cached = Pair.of(lastModified, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+      configurationFiles.put(file, cached);
+    }
+
+    Path directory = file.getParent();
+    pBuilder.loadFromSource(
+        CharSource.wrap(cached.getSecond()),
+        directory == null ? "" : directory.toString(),
+        file.toString());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cmdline;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.log.LogManager;
+
+@SuppressWarnings("deprecation") // for Configuration.getProperty()
+public class CPADaemonTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private CPADaemon daemon;
+  private Path configFile;
+
+  @Before
+  public void setUp() throws Exception {
+    daemon = new CPADaemon(Configuration.defaultConfiguration(), LogManager.createTestLogManager());
+    configFile = tempFolder.getRoot().toPath().resolve("test.properties");
+  }
+
+  private void writeConfigFile(String pValue, FileTime pLastModified) throws Exception {
+    Files.write(
+        configFile, ImmutableList.of("analysis.machineModel = " + pValue), StandardCharsets.UTF_8);
+    Files.setLastModifiedTime(configFile, pLastModified);
+  }
+
+  private String loadMachineModel() throws Exception {
+    ConfigurationBuilder builder = Configuration.builder();
+    daemon.loadConfigurationFile(builder, configFile);
+    return builder.build().getProperty("analysis.machineModel");
+  }
+
+  @Test
+  public void testUnmodifiedFileIsCached() throws Exception {
+    FileTime lastModified = FileTime.fromMillis(1_000_000);
+    writeConfigFile("LINUX32", lastModified);
+    assertThat(loadMachineModel()).isEqualTo("LINUX32");
+
+    // the daemon only notices modifications of the file by its time of modification
+    writeConfigFile("LINUX64", lastModified);
+    assertThat(loadMachineModel()).isEqualTo("LINUX32");
+  }
+
+  @Test
+  public void testModifiedFileIsReadAgain() throws Exception {
+    writeConfigFile("LINUX32", FileTime.fromMillis(1_000_000));
+    assertThat(loadMachineModel()).isEqualTo("LINUX32");
+
+    writeConfigFile("LINUX64", FileTime.fromMillis(2_000_000));
+    assertThat(loadMachineModel()).isEqualTo("LINUX64");
+  }
+
+  @Test
+  public void testEachTaskGetsOwnConfiguration() throws Exception {
+    writeConfigFile("LINUX32", FileTime.fromMillis(1_000_000));
+    ConfigurationBuilder first = Configuration.builder();
+    daemon.loadConfigurationFile(first, configFile);
+    ConfigurationBuilder second = Configuration.builder();
+    daemon.loadConfigurationFile(second, configFile);
+
+    assertThat(first.build()).isNotSameInstanceAs(second.build());
+  }
+}
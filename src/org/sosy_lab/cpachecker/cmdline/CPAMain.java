@@ -91,13 +91,13 @@ import org.sosy_lab.cpachecker.util.PropertyFileParser.InvalidPropertyFileExcept
 import org.sosy_lab.cpachecker.util.SpecificationProperty;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
 import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
+import org.sosy_lab.cpachecker.util.resources.MemoryPressureGovernor;
 import org.sosy_lab.cpachecker.util.resources.ResourceLimitChecker;
 
 public class CPAMain {
 
   static final int ERROR_EXIT_CODE = 1;
 
-  @SuppressWarnings("resource") // We don't close LogManager
   public static void main(String[] args) {
     // CPAchecker uses American English for output,
     // so make sure numbers are formatted appropriately.
@@ -108,6 +108,32 @@ public class CPAMain {
       args = new String[] {"-help"};
     }
 
+    runAnalysis(args, ConfigurationBuilder::loadFromFile, true, null);
+  }
+
+  /** Loads a configuration file (including all files it includes) into a builder. */
+  @FunctionalInterface
+  interface ConfigurationFileLoader {
+    void loadInto(ConfigurationBuilder pBuilder, Path pFile)
+        throws IOException, InvalidConfigurationException;
+  }
+
+  /**
+   * Run the analysis that is described by the given command-line arguments and print its result.
+   *
+   * @param pConfigurationLoader used for loading the configuration files given on the command line
+   * @param pStandalone whether this is the only analysis in this JVM. Only then a shutdown hook is
+   *     registered and the JVM is terminated forcefully if the analysis does not terminate after a
+   *     shutdown request.
+   * @param pWatchdog if not null, it is notified about shutdown requests for the analysis and
+   *     about the termination of the analysis
+   */
+  @SuppressWarnings("resource") // We don't close LogManager
+  static void runAnalysis(
+      String[] args,
+      ConfigurationFileLoader pConfigurationLoader,
+      boolean pStandalone,
+      @Nullable ShutdownWatchdog pWatchdog) {
     // initialize various components
     Configuration cpaConfig = null;
     LoggingOptions logOptions;
@@ -115,7 +141,7 @@ public class CPAMain {
     Set<SpecificationProperty> properties = null;
     try {
       try {
-        Config p = createConfiguration(args);
+        Config p = createConfiguration(args, pConfigurationLoader);
         cpaConfig = p.configuration;
         outputDirectory = p.outputPath;
         properties = p.properties;
@@ -142,6 +168,7 @@ public class CPAMain {
     CPAchecker cpachecker = null;
     ProofGenerator proofGenerator = null;
     ResourceLimitChecker limits = null;
+    MemoryPressureGovernor memoryGovernor = null;
     ReportGenerator reportGenerator = null;
     MainOptions options = new MainOptions();
     try {
@@ -156,6 +183,9 @@ public class CPAMain {
 
       limits = ResourceLimitChecker.fromConfiguration(cpaConfig, logManager, shutdownManager);
       limits.start();
+      memoryGovernor =
+          MemoryPressureGovernor.fromConfiguration(cpaConfig, logManager, shutdownManager);
+      memoryGovernor.start();
 
       cpachecker = new CPAchecker(cpaConfig, logManager, shutdownManager);
       if (options.doPCC) {
@@ -165,34 +195,60 @@ public class CPAMain {
           new ReportGenerator(cpaConfig, logManager, logOptions.getOutputFile(), options.programs);
     } catch (InvalidConfigurationException e) {
       logManager.logUserException(Level.SEVERE, e, "Invalid configuration");
-      System.exit(ERROR_EXIT_CODE);
-      return;
+      if (limits != null) {
+        limits.cancel();
+      }
+      if (memoryGovernor != null) {
+        memoryGovernor.cancel();
+      }
+      throw Output.exit(ERROR_EXIT_CODE);
     }
 
-    // This is for shutting down when Ctrl+C is caught.
-    ShutdownHook shutdownHook = new ShutdownHook(shutdownManager);
-    Runtime.getRuntime().addShutdownHook(shutdownHook);
+    ShutdownHook shutdownHook = null;
+    ShutdownRequestListener forcedExitOnShutdown = null;
+    if (pStandalone) {
+      // This is for shutting down when Ctrl+C is caught.
+      shutdownHook = new ShutdownHook(shutdownManager);
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+      // This is for actually forcing a termination when CPAchecker
+      // fails to shutdown within some time.
+      forcedExitOnShutdown =
+          ForceTerminationOnShutdown.createShutdownListener(logManager, shutdownHook);
+      shutdownNotifier.register(forcedExitOnShutdown);
+    }
+    if (pWatchdog != null) {
+      shutdownNotifier.register(pWatchdog);
+    }
 
-    // This is for actually forcing a termination when CPAchecker
-    // fails to shutdown within some time.
-    ShutdownRequestListener forcedExitOnShutdown =
-        ForceTerminationOnShutdown.createShutdownListener(logManager, shutdownHook);
-    shutdownNotifier.register(forcedExitOnShutdown);
+    CPAcheckerResult result;
+    try {
+      // run analysis
+      result = cpachecker.run(options.programs, properties);
 
-    // run analysis
-    CPAcheckerResult result = cpachecker.run(options.programs, properties);
+      // generated proof (if enabled)
+      if (proofGenerator != null) {
+        proofGenerator.generateProof(result);
+      }
 
-    // generated proof (if enabled)
-    if (proofGenerator != null) {
-      proofGenerator.generateProof(result);
+    } finally {
+      // We want to print the statistics completely now that we have come so far,
+      // so we disable all the limits. This is also necessary if the analysis failed,
+      // because the limits must not affect later analyses in the same JVM (daemon mode).
+      limits.cancel();
+      memoryGovernor.cancel();
     }
 
-    // We want to print the statistics completely now that we have come so far,
-    // so we disable all the limits, shutdown hooks, etc.
-    shutdownHook.disable();
-    shutdownNotifier.unregister(forcedExitOnShutdown);
-    ForceTerminationOnShutdown.cancelPendingTermination();
-    limits.cancel();
+    // Similarly, disable the shutdown hooks etc.
+    if (pStandalone) {
+      shutdownHook.disable();
+      shutdownNotifier.unregister(forcedExitOnShutdown);
+      ForceTerminationOnShutdown.cancelPendingTermination();
+    }
+    if (pWatchdog != null) {
+      shutdownNotifier.unregister(pWatchdog);
+      pWatchdog.analysisTerminated();
+    }
     Thread.interrupted(); // clear interrupted flag
 
     try {
@@ -312,7 +368,8 @@ public class CPAMain {
    *
    * @return A Configuration object, the output directory, and the specification properties.
    */
-  private static Config createConfiguration(String[] args)
+  private static Config createConfiguration(
+      String[] args, ConfigurationFileLoader pConfigurationLoader)
       throws InvalidConfigurationException, InvalidCmdlineArgumentException, IOException,
           InterruptedException {
     // if there are some command line arguments, process them
@@ -336,7 +393,7 @@ public class CPAMain {
     configBuilder.setOptions(EXTERN_OPTION_DEFAULTS);
     if (configFile != null) {
       configBuilder.setOption(APPROACH_NAME_OPTION, extractApproachNameFromConfigName(configFile));
-      configBuilder.loadFromFile(configFile);
+      pConfigurationLoader.loadInto(configBuilder, Paths.get(configFile));
     }
     configBuilder.setOptions(cmdLineOptions);
 
@@ -367,7 +424,8 @@ public class CPAMain {
     config.inject(options);
 
     // Switch to appropriate config depending on property (if necessary)
-    config = handlePropertyOptions(config, options, cmdLineOptions, properties);
+    config =
+        handlePropertyOptions(config, options, cmdLineOptions, properties, pConfigurationLoader);
 
     if (options.printUsedOptions) {
       config.dumpUsedOptionsTo(System.out);
@@ -469,7 +527,8 @@ public class CPAMain {
       Configuration config,
       BootstrapOptions options,
       Map<String, String> cmdLineOptions,
-      Set<SpecificationProperty> pProperties)
+      Set<SpecificationProperty> pProperties,
+      ConfigurationFileLoader pConfigurationLoader)
       throws InvalidConfigurationException, IOException {
     Set<Property> properties =
         transformedImmutableSetCopy(pProperties, SpecificationProperty::getProperty);
@@ -522,8 +581,9 @@ public class CPAMain {
     }
 
     if (alternateConfigFile != null) {
-      return Configuration.builder()
-          .loadFromFile(alternateConfigFile)
+      ConfigurationBuilder alternateConfigBuilder = Configuration.builder();
+      pConfigurationLoader.loadInto(alternateConfigBuilder, alternateConfigFile);
+      return alternateConfigBuilder
           .setOptions(cmdLineOptions)
           .clearOption("memorysafety.config")
           .clearOption("memorycleanup.config")
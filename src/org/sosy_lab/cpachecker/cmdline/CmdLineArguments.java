@@ -29,7 +29,6 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.net.URISyntaxException;
@@ -197,7 +196,6 @@ class CmdLineArguments {
           }.withDescription("set an option directly"),
           new CmdLineArgument("-printOptions") {
 
-            @SuppressFBWarnings("DM_EXIT")
             @Override
             void apply0(
                 Map<String, String> properties, String pCurrentArg, Iterator<String> argsIt) {
@@ -208,7 +206,7 @@ class CmdLineArguments {
               }
               PrintStream out = System.out;
               OptionCollector.collectOptions(verbose, true, out);
-              System.exit(0);
+              throw Output.exit(0);
             }
           }.withDescription("print all possible options on StdOut"),
           new PropertyAddingCmdLineArgument("-printUsedOptions")
@@ -218,22 +216,20 @@ class CmdLineArguments {
               .withDescription("print all used options"),
           new CmdLineArgument("-version") {
 
-            @SuppressFBWarnings("DM_EXIT")
             @Override
             void apply0(
                 Map<String, String> pProperties, String pCurrentArg, Iterator<String> pArgsIt) {
               printVersion(System.out);
-              System.exit(0);
+              throw Output.exit(0);
             }
           }.withDescription("print version number"),
           new CmdLineArgument("-h", "-help") {
 
-            @SuppressFBWarnings("DM_EXIT")
             @Override
             void apply0(
                 Map<String, String> pProperties, String pCurrentArg, Iterator<String> pArgsIt) {
               printHelp(System.out);
-              System.exit(0);
+              throw Output.exit(0);
             }
           }.withDescription("print help message"));
 
@@ -27,14 +27,55 @@ import org.checkerframework.dataflow.qual.TerminatesExecution;
 /** Utilities for output while we do not yet have a logger */
 class Output {
 
-  private static final PrintStream ERROR_OUTPUT = System.err;
-
   private static final boolean USE_COLORS =
       (System.console() != null) && !System.getProperty("os.name", "").startsWith("Windows");
   private static final String ERROR_COLOR = "\033[31;1m"; // bold red
   private static final String WARNING_COLOR = "\033[1m"; // bold
   private static final String REGULAR_COLOR = "\033[m";
 
+  /** Thrown by {@link #exit(int)} instead of terminating the JVM, cf. {@link #keepJvmAlive()}. */
+  static final class ExitException extends RuntimeException {
+
+    private static final long serialVersionUID = 4913287306519823741L;
+
+    private final int status;
+
+    private ExitException(int pStatus) {
+      super("Exit with status " + pStatus);
+      status = pStatus;
+    }
+
+    int getStatus() {
+      return status;
+    }
+  }
+
+  private static volatile boolean keepJvmAlive = false;
+
+  /**
+   * Let {@link #exit(int)} and all fatal errors throw an {@link ExitException} instead of
+   * terminating the JVM. This is used if several analyses run in the same JVM, like in {@link
+   * CPADaemon}.
+   */
+  static void keepJvmAlive() {
+    keepJvmAlive = true;
+  }
+
+  /**
+   * Terminate the process with the given status (or throw an {@link ExitException} if {@link
+   * #keepJvmAlive()} was called).
+   *
+   * @return never, this is just so that <code>throw exit(...);</code> can be written
+   */
+  @TerminatesExecution
+  static RuntimeException exit(int status) {
+    if (keepJvmAlive) {
+      throw new ExitException(status);
+    }
+    System.exit(status);
+    return new RuntimeException("never reached");
+  }
+
   /**
    * Output an error message and terminate process with error code.
    *
@@ -44,8 +85,7 @@ class Output {
   @FormatMethod
   static RuntimeException fatalError(String msg, Object... args) {
     coloredOutput(ERROR_COLOR, msg, args);
-    System.exit(CPAMain.ERROR_EXIT_CODE);
-    return new RuntimeException("never reached");
+    throw exit(CPAMain.ERROR_EXIT_CODE);
   }
 
   /**
@@ -57,32 +97,33 @@ class Output {
   @FormatMethod
   static RuntimeException fatalErrorWithHelptext(String msg, Object... args) {
     coloredOutput(ERROR_COLOR, msg, args);
-    CmdLineArguments.printHelp(ERROR_OUTPUT);
-    System.exit(CPAMain.ERROR_EXIT_CODE);
-    return new RuntimeException("never reached");
+    CmdLineArguments.printHelp(System.err);
+    throw exit(CPAMain.ERROR_EXIT_CODE);
   }
 
   /** Output a warning. */
   @FormatMethod
   static void warning(String msg, Object... args) {
     coloredOutput(WARNING_COLOR, msg, args);
-    ERROR_OUTPUT.println();
+    System.err.println();
   }
 
   @FormatMethod
   private static void coloredOutput(String color, @FormatString String msg, Object... args) {
-    ERROR_OUTPUT.println();
+    // not stored in a constant, because CPADaemon redirects the output of each analysis
+    PrintStream errorOutput = System.err;
+    errorOutput.println();
 
     if (USE_COLORS) {
-      ERROR_OUTPUT.print(color);
+      errorOutput.print(color);
     }
 
-    ERROR_OUTPUT.printf(msg, args);
+    errorOutput.printf(msg, args);
 
     if (USE_COLORS) {
-      ERROR_OUTPUT.print(REGULAR_COLOR); // regular color
+      errorOutput.print(REGULAR_COLOR); // regular color
     }
 
-    ERROR_OUTPUT.println();
+    errorOutput.println();
   }
 }
@@ -0,0 +1,52 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cmdline;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cmdline.Output.ExitException;
+
+public class OutputTest {
+
+  // Output.keepJvmAlive() cannot be undone, so without it exit() would terminate the test JVM.
+
+  @Test
+  public void testExit() {
+    Output.keepJvmAlive();
+
+    ExitException e = assertThrows(ExitException.class, () -> Output.exit(3));
+    assertThat(e.getStatus()).isEqualTo(3);
+  }
+
+  @Test
+  public void testFatalError() {
+    Output.keepJvmAlive();
+
+    ExitException e =
+        assertThrows(ExitException.class, () -> Output.fatalError("Test error %d", 42));
+    assertThat(e.getStatus()).isEqualTo(CPAMain.ERROR_EXIT_CODE);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cmdline;
+
+import com.google.common.base.Stopwatch;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
+import org.sosy_lab.common.time.TimeSpan;
+
+/**
+ * Observes whether an analysis that does not run standalone terminates in time after a shutdown
+ * was requested. In contrast to {@link ForceTerminationOnShutdown}, this class does not terminate
+ * the JVM itself, but lets its owner decide what to do with an analysis that hangs.
+ */
+final class ShutdownWatchdog implements ShutdownRequestListener {
+
+  private final TimeSpan gracePeriod;
+
+  private volatile @Nullable Stopwatch sinceShutdownRequest = null;
+  private volatile boolean terminated = false;
+
+  ShutdownWatchdog(TimeSpan pGracePeriod) {
+    gracePeriod = pGracePeriod;
+  }
+
+  @Override
+  public synchronized void shutdownRequested(String pReason) {
+    if (sinceShutdownRequest == null) {
+      sinceShutdownRequest = Stopwatch.createStarted();
+    }
+  }
+
+  /**
+   * Signal that the analysis has terminated after a shutdown request, e.g., before it prints its
+   * statistics, which should not be limited by the grace period.
+   */
+  void analysisTerminated() {
+    terminated = true;
+  }
+
+  /**
+   * Whether a shutdown was requested more than the grace period ago and the analysis did not
+   * terminate since.
+   */
+  boolean isOverdue() {
+    Stopwatch stopwatch = sinceShutdownRequest;
+    return !terminated
+        && stopwatch != null
+        && stopwatch.elapsed(TimeUnit.MILLISECONDS) > gracePeriod.asMillis();
+  }
+}
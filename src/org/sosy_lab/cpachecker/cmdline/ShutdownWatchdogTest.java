@@ -0,0 +1,66 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cmdline;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.sosy_lab.common.time.TimeSpan;
+
+public class ShutdownWatchdogTest {
+
+  private static final TimeSpan GRACE_PERIOD = TimeSpan.ofMillis(10);
+
+  @Test
+  public void testNoShutdownRequest() throws InterruptedException {
+    ShutdownWatchdog watchdog = new ShutdownWatchdog(GRACE_PERIOD);
+    TimeUnit.MILLISECONDS.sleep(50);
+    assertThat(watchdog.isOverdue()).isFalse();
+  }
+
+  @Test
+  public void testHangingAnalysis() throws InterruptedException {
+    ShutdownWatchdog watchdog = new ShutdownWatchdog(GRACE_PERIOD);
+    watchdog.shutdownRequested("test");
+    TimeUnit.MILLISECONDS.sleep(50);
+    assertThat(watchdog.isOverdue()).isTrue();
+  }
+
+  @Test
+  public void testWithinGracePeriod() {
+    ShutdownWatchdog watchdog = new ShutdownWatchdog(TimeSpan.ofSeconds(100));
+    watchdog.shutdownRequested("test");
+    assertThat(watchdog.isOverdue()).isFalse();
+  }
+
+  @Test
+  public void testTerminatedAnalysis() throws InterruptedException {
+    ShutdownWatchdog watchdog = new ShutdownWatchdog(GRACE_PERIOD);
+    watchdog.shutdownRequested("test");
+    watchdog.analysisTerminated();
+    TimeUnit.MILLISECONDS.sleep(50);
+    assertThat(watchdog.isOverdue()).isFalse();
+  }
+}
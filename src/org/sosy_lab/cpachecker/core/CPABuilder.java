@@ -23,6 +23,8 @@
  */
 package org.sosy_lab.cpachecker.core;
 
+import static com.google.common.collect.FluentIterable.from;
+
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
@@ -41,6 +43,7 @@ import org.sosy_lab.common.Classes;
 import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -52,6 +55,8 @@ import org.sosy_lab.cpachecker.core.reachedset.AggregatedReachedSets;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
 import org.sosy_lab.cpachecker.cpa.automaton.Automaton;
 import org.sosy_lab.cpachecker.cpa.automaton.ControlAutomatonCPA;
+import org.sosy_lab.cpachecker.cpa.automaton.InvalidAutomatonException;
+import org.sosy_lab.cpachecker.cpa.automaton.ObserverAutomatonProduct;
 import org.sosy_lab.cpachecker.cpa.composite.CompositeCPA;
 import org.sosy_lab.cpachecker.cpa.location.LocationCPA;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
@@ -69,6 +74,24 @@ public class CPABuilder {
       description="CPA to use (see doc/Configuration.md for more documentation on this)")
   private String cpaName = CompositeCPA.class.getCanonicalName();
 
+  @Option(
+      secure = true,
+      name = "specification.composeObserverAutomata",
+      description =
+          "Compose all specification automata whose transitions depend only on the CFA edges "
+              + "into a single product automaton. Automata that cannot be composed "
+              + "are used as separate CPAs.")
+  private boolean composeObserverAutomata = false;
+
+  @Option(
+      secure = true,
+      name = "specification.maxProductAutomatonStates",
+      description =
+          "Maximal number of states of the product of the specification automata. "
+              + "If the product would be larger, the automata are used as separate CPAs.")
+  @IntegerOption(min = 1)
+  private int maxProductAutomatonStates = 10000;
+
   private final Configuration config;
   private final LogManager logger;
   private final ShutdownNotifier shutdownNotifier;
@@ -100,6 +123,9 @@ public class CPABuilder {
     Set<String> usedAliases = new HashSet<>();
 
     List<Automaton> specAutomata = specification.getSpecificationAutomata();
+    if (composeObserverAutomata && cfa != null) {
+      specAutomata = composeSpecificationAutomata(specAutomata, cfa);
+    }
     List<ConfigurableProgramAnalysis> cpas =
         new ArrayList<>(specAutomata.size() + additionalAutomata.size());
 
@@ -132,6 +158,40 @@ public class CPABuilder {
     return cpa;
   }
 
+  /**
+   * Replaces all composable automata by their product, if there are at least two of them.
+   *
+   * @see ObserverAutomatonProduct
+   */
+  private List<Automaton> composeSpecificationAutomata(List<Automaton> pAutomata, CFA pCfa) {
+    List<Automaton> composable =
+        from(pAutomata).filter(ObserverAutomatonProduct::isComposable).toList();
+    if (composable.size() < 2) {
+      return pAutomata;
+    }
+
+    Automaton product;
+    try {
+      product =
+          ObserverAutomatonProduct.compose(composable, pCfa, maxProductAutomatonStates, logger);
+    } catch (InvalidAutomatonException e) {
+      logger.logUserException(
+          Level.INFO, e, "Could not compose specification automata, using them separately");
+      return pAutomata;
+    }
+    logger.logf(
+        Level.INFO,
+        "Composed specification automata %s into %s with %d states.",
+        from(composable).transform(Automaton::getName),
+        product.getName(),
+        product.getNumberOfStates());
+
+    return ImmutableList.<Automaton>builder()
+        .add(product)
+        .addAll(from(pAutomata).filter(a -> !composable.contains(a)))
+        .build();
+  }
+
   private ConfigurableProgramAnalysis buildCPAs(
       String optionValue,
       String optionName,
@@ -97,6 +97,7 @@ import org.sosy_lab.cpachecker.util.SpecificationProperty;
 import org.sosy_lab.cpachecker.util.automaton.TargetLocationProvider;
 import org.sosy_lab.cpachecker.util.automaton.TargetLocationProviderImpl;
 import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents;
 
 @Options
 public class CPAchecker {
@@ -322,6 +323,7 @@ public class CPAchecker {
     shutdownNotifier = pShutdownManager.getNotifier();
 
     config.inject(this);
+    AnalysisEvents.configure(config);
     factory =
         new CoreComponentsFactory(
             pConfiguration, pLogManager, shutdownNotifier, new AggregatedReachedSets());
@@ -542,6 +544,7 @@ public class CPAchecker {
     mxbean.register();
 
     stats.startAnalysisTimer();
+    stats.startSnapshots(reached);
     try {
       int counterExampleCount = 0;
       do {
@@ -566,6 +569,7 @@ public class CPAchecker {
 
     } finally {
       stats.stopAnalysisTimer();
+      stats.stopSnapshots();
 
       // unregister management interface for CPAchecker
       mxbean.unregister();
@@ -148,6 +148,7 @@ class MainCPAStatistics implements Statistics {
   private final @Nullable MemoryStatistics memStats;
   private final @Nullable CExpressionInvariantExporter cExpressionInvariantExporter;
   private Thread memStatsThread;
+  private final StatisticsSnapshots snapshots;
 
   private final Timer programTime = new Timer();
   final Timer creationTime = new Timer();
@@ -169,6 +170,7 @@ class MainCPAStatistics implements Statistics {
     pConfig.inject(this);
 
     subStats = new ArrayList<>();
+    snapshots = new StatisticsSnapshots(pConfig, pLogger, subStats);
 
     if (monitorMemoryUsage) {
       memStats = new MemoryStatistics(pLogger);
@@ -236,6 +238,16 @@ class MainCPAStatistics implements Statistics {
     }
   }
 
+  /** Start taking periodic snapshots of the statistics, if enabled. */
+  void startSnapshots(ReachedSet pReached) {
+    snapshots.start(pReached);
+  }
+
+  /** Take a last snapshot of the statistics and stop taking snapshots. */
+  void stopSnapshots() {
+    snapshots.close();
+  }
+
   void stopAnalysisTimer() {
     analysisTime.stop();
     programTime.stop();
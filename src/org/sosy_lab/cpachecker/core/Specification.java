@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.core;
 import static java.util.stream.Collectors.joining;
 import static org.sosy_lab.common.collect.Collections3.transformedImmutableSetCopy;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
@@ -34,17 +35,26 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CParser;
 import org.sosy_lab.cpachecker.cfa.CProgramScope;
 import org.sosy_lab.cpachecker.cfa.DummyScope;
+import org.sosy_lab.cpachecker.cfa.Language;
+import org.sosy_lab.cpachecker.cfa.parser.Parsers.EclipseCParserOptions;
 import org.sosy_lab.cpachecker.cfa.parser.Scope;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cpa.automaton.Automaton;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonGraphmlParser;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonParser;
@@ -62,9 +72,79 @@ import org.sosy_lab.cpachecker.util.ltl.formulas.LabelledFormula;
  */
 public final class Specification {
 
+  /**
+   * Identifies the automata parsed from a specification file in {@link #automatonCache}. Of the
+   * configuration, only the options of the C parser (which parses the C expressions in automata)
+   * are part of the key, because the automaton parser does not read any other options.
+   */
+  private static final class AutomatonFileKey {
+    private final Path file;
+    private final FileTime lastModified;
+    private final Language language;
+    private final MachineModel machineModel;
+    private final ImmutableList<Object> parserOptions;
+
+    private AutomatonFileKey(
+        Path pFile,
+        FileTime pLastModified,
+        Language pLanguage,
+        MachineModel pMachineModel,
+        ImmutableList<Object> pParserOptions) {
+      file = pFile;
+      lastModified = pLastModified;
+      language = pLanguage;
+      machineModel = pMachineModel;
+      parserOptions = pParserOptions;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(file, lastModified, language, machineModel, parserOptions);
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (this == pObj) {
+        return true;
+      }
+      if (!(pObj instanceof AutomatonFileKey)) {
+        return false;
+      }
+      AutomatonFileKey other = (AutomatonFileKey) pObj;
+      return file.equals(other.file)
+          && lastModified.equals(other.lastModified)
+          && language == other.language
+          && machineModel == other.machineModel
+          && parserOptions.equals(other.parserOptions);
+    }
+  }
+
+  /** Automata parsed from specification files, null if caching is disabled (the default). */
+  private static volatile @Nullable Map<AutomatonFileKey, ImmutableList<Automaton>>
+      automatonCache = null;
+
   private final Set<SpecificationProperty> properties;
   private final ImmutableListMultimap<Path, Automaton> pathToSpecificationAutomata;
 
+  /**
+   * Reuse the automata parsed from a specification file for all later analyses in this JVM, as
+   * long as the file is not modified and the program has the same language and machine model.
+   * Modifications of included files are not noticed. This is only correct if the specification
+   * does not refer to declarations of the analyzed program, because they are resolved only once
+   * in the program for which the file was parsed first.
+   */
+  public static synchronized void enableAutomatonCache() {
+    if (automatonCache == null) {
+      automatonCache = new ConcurrentHashMap<>();
+    }
+  }
+
+  /** Disable the cache of {@link #enableAutomatonCache()} again and forget all cached automata. */
+  @VisibleForTesting
+  static synchronized void disableAutomatonCache() {
+    automatonCache = null;
+  }
+
   public static Specification alwaysSatisfied() {
     return new Specification(ImmutableList.of());
   }
@@ -149,15 +229,7 @@ public final class Specification {
         automata = graphmlParser.parseAutomatonFile(specFile, properties);
 
       } else {
-        automata =
-            AutomatonParser.parseAutomatonFile(
-                specFile,
-                config,
-                logger,
-                cfa.getMachineModel(),
-                scope,
-                cfa.getLanguage(),
-                pShutdownNotifier);
+        automata = parseAutomatonFile(specFile, cfa, scope, config, logger, pShutdownNotifier);
       }
 
       if (automata.isEmpty()) {
@@ -177,6 +249,73 @@ public final class Specification {
     return new Specification(pProperties, multiplePropertiesBuilder.build());
   }
 
+  private static List<Automaton> parseAutomatonFile(
+      Path pSpecFile,
+      CFA pCfa,
+      Scope pScope,
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    Map<AutomatonFileKey, ImmutableList<Automaton>> cache = automatonCache;
+    if (cache == null) {
+      return AutomatonParser.parseAutomatonFile(
+          pSpecFile,
+          pConfig,
+          pLogger,
+          pCfa.getMachineModel(),
+          pScope,
+          pCfa.getLanguage(),
+          pShutdownNotifier);
+    }
+
+    AutomatonFileKey key;
+    try {
+      key =
+          new AutomatonFileKey(
+              pSpecFile.toAbsolutePath().normalize(),
+              Files.getLastModifiedTime(pSpecFile),
+              pCfa.getLanguage(),
+              pCfa.getMachineModel(),
+              getParserOptions(pConfig, pCfa.getLanguage()));
+    } catch (IOException e) {
+      throw new InvalidConfigurationException(
+          "Could not load automaton from file " + e.getMessage(), e);
+    }
+
+    ImmutableList<Automaton> automata = cache.get(key);
+    if (automata == null) {
+      automata =
+          ImmutableList.copyOf(
+              AutomatonParser.parseAutomatonFile(
+                  pSpecFile,
+                  pConfig,
+                  pLogger,
+                  pCfa.getMachineModel(),
+                  pScope,
+                  pCfa.getLanguage(),
+                  pShutdownNotifier));
+      cache.put(key, automata);
+    } else {
+      pLogger.log(Level.FINE, "Reusing automata that were already parsed from", pSpecFile);
+    }
+    return automata;
+  }
+
+  /** The values of the options of the C parser that can change the parsed automata. */
+  private static ImmutableList<Object> getParserOptions(Configuration pConfig, Language pLanguage)
+      throws InvalidConfigurationException {
+    if (pLanguage != Language.C) {
+      return ImmutableList.of();
+    }
+    EclipseCParserOptions options = (EclipseCParserOptions) CParser.Factory.getOptions(pConfig);
+    return ImmutableList.of(
+        options.getDialect(),
+        options.initializeAllVariables(),
+        options.simplifyPointerExpressions(),
+        options.simplifyConstExpressions());
+  }
+
   public static Specification combine(final Specification pSpec1, final Specification pSpec2) {
     return new Specification(
         ImmutableSet.<SpecificationProperty>builder()
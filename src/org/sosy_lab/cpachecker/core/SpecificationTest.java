@@ -0,0 +1,121 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cpa.automaton.Automaton;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class SpecificationTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private Path specFile;
+  private CFA cfa;
+
+  @Before
+  public void setUp() throws Exception {
+    specFile = tempFolder.getRoot().toPath().resolve("ErrorLabel.spc");
+    Files.copy(Paths.get("config", "specification", "ErrorLabel.spc"), specFile);
+    cfa = TestDataTools.makeCFA("void main() {", "  int x = 0;", "}");
+    Specification.enableAutomatonCache();
+  }
+
+  @After
+  public void tearDown() {
+    Specification.disableAutomatonCache();
+  }
+
+  private ImmutableList<Automaton> parse(Configuration pConfig) throws Exception {
+    Specification spec =
+        Specification.fromFiles(
+            ImmutableSet.of(),
+            ImmutableList.of(specFile),
+            cfa,
+            pConfig,
+            logger,
+            ShutdownNotifier.createDummy());
+    return spec.getPathToSpecificationAutomata().get(specFile);
+  }
+
+  @Test
+  public void testSameFileIsParsedOnce() throws Exception {
+    Configuration config = TestDataTools.configurationForTest().build();
+    ImmutableList<Automaton> first = parse(config);
+    ImmutableList<Automaton> second = parse(config);
+
+    assertThat(first).isNotEmpty();
+    assertThat(second).hasSize(first.size());
+    for (int i = 0; i < first.size(); i++) {
+      assertThat(second.get(i)).isSameInstanceAs(first.get(i));
+    }
+  }
+
+  @Test
+  public void testModifiedFileIsParsedAgain() throws Exception {
+    Configuration config = TestDataTools.configurationForTest().build();
+    ImmutableList<Automaton> first = parse(config);
+
+    FileTime lastModified = Files.getLastModifiedTime(specFile);
+    Files.setLastModifiedTime(specFile, FileTime.fromMillis(lastModified.toMillis() + 1000));
+    ImmutableList<Automaton> second = parse(config);
+
+    assertThat(second.get(0)).isNotSameInstanceAs(first.get(0));
+  }
+
+  @Test
+  public void testOtherParserOptionsParseAgain() throws Exception {
+    ImmutableList<Automaton> first = parse(TestDataTools.configurationForTest().build());
+    ImmutableList<Automaton> second =
+        parse(TestDataTools.configurationForTest().setOption("parser.dialect", "C99").build());
+
+    assertThat(second.get(0)).isNotSameInstanceAs(first.get(0));
+  }
+
+  @Test
+  public void testWithoutCache() throws Exception {
+    Specification.disableAutomatonCache();
+    Configuration config = TestDataTools.configurationForTest().build();
+
+    assertThat(parse(config).get(0)).isNotSameInstanceAs(parse(config).get(0));
+  }
+}
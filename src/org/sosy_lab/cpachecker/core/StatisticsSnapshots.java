@@ -0,0 +1,335 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.JSON;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.configuration.TimeSpanOption;
+import org.sosy_lab.common.io.IO;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
+
+/**
+ * Periodic snapshots of the statistics while the analysis is running, such that long-running
+ * analyses can be observed and their statistics are not lost if they are killed.
+ *
+ * <p>A snapshot contains the size of the reached set, the memory usage, the values of {@link
+ * ReachedSet#getStatistics()}, and the values of {@link Statistics#getSnapshot()} of all
+ * registered statistics. Only statistics that override {@link Statistics#getSnapshot()} contribute
+ * values (currently the CPA algorithm, the CEGAR algorithm, the PredicateCPA, and the
+ * ValueAnalysisCPA). Statistics that are computed only from the final reached set, like those of
+ * the ARGCPA, are not part of the snapshots.
+ *
+ * <p>The snapshots are collected by a separate thread, the analysis itself is not stopped.
+ * Snapshots are written as a time series to a file, with one JSON object per line or with one CSV
+ * line per value. Optionally, the latest values are served as JSON by an HTTP server on the
+ * loopback interface, which responds with status 500 if a snapshot could not be taken.
+ */
+@Options(prefix = "statistics.snapshots")
+final class StatisticsSnapshots implements AutoCloseable {
+
+  enum Format {
+    /** One JSON object per snapshot and line. */
+    JSON,
+    /** One line "time,group,name,value" per value of a snapshot. */
+    CSV,
+  }
+
+  @Option(
+      secure = true,
+      description =
+          "interval for taking snapshots of the statistics while the analysis is running"
+              + " (use seconds or specify a unit; 0 to disable)")
+  @TimeSpanOption(codeUnit = TimeUnit.MILLISECONDS, defaultUserUnit = TimeUnit.SECONDS, min = 0)
+  private TimeSpan interval = TimeSpan.ofSeconds(0);
+
+  @Option(secure = true, description = "write the statistics snapshots to this file")
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private @Nullable Path file = Paths.get("StatisticsSnapshots.txt");
+
+  @Option(secure = true, description = "format of the file with statistics snapshots")
+  private Format format = Format.JSON;
+
+  @Option(
+      description =
+          "port of an HTTP server on the loopback interface that serves the current statistics"
+              + " snapshot as JSON (-1 to disable, 0 for any free port)")
+  @IntegerOption(min = -1, max = 65535)
+  private int httpPort = -1;
+
+  private static final Joiner CSV_JOINER = Joiner.on(',');
+
+  private final LogManager logger;
+  private final Collection<Statistics> statistics;
+  private final long startTime = System.currentTimeMillis();
+
+  private @Nullable ReachedSet reached = null;
+  private @Nullable ScheduledExecutorService scheduler = null;
+  private @Nullable Writer output = null;
+  private @Nullable HttpServer server = null;
+
+  StatisticsSnapshots(
+      Configuration pConfig, LogManager pLogger, Collection<Statistics> pStatistics)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+    statistics = pStatistics;
+  }
+
+  /** Start taking snapshots for the given reached set, if enabled. */
+  synchronized void start(ReachedSet pReached) {
+    reached = pReached;
+
+    if (!interval.isEmpty() && file != null) {
+      try {
+        output = IO.openOutputFile(file, StandardCharsets.UTF_8);
+        if (format == Format.CSV) {
+          output.write("time,group,name,value\n");
+        }
+      } catch (IOException e) {
+        logger.logUserException(
+            Level.WARNING, e, "Could not write statistics snapshots to file");
+        output = null;
+      }
+    }
+
+    if (output != null) {
+      scheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("CPAchecker statistics snapshots")
+                  .build());
+      long millis = interval.asMillis();
+      scheduler.scheduleAtFixedRate(
+          this::writeSnapshotSafely, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    if (httpPort >= 0) {
+      try {
+        server =
+            HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), httpPort), 0);
+        server.createContext("/", this::handleRequest);
+        server.start();
+        InetSocketAddress address = server.getAddress();
+        logger.logf(
+            Level.INFO,
+            "Serving statistics snapshots at http://%s:%d/",
+            address.getHostString(),
+            address.getPort());
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not start server for statistics");
+        server = null;
+      }
+    }
+  }
+
+  /** Return the address of the HTTP server, if it is running. */
+  @VisibleForTesting
+  synchronized @Nullable InetSocketAddress getServerAddress() {
+    return server == null ? null : server.getAddress();
+  }
+
+  /** Take a last snapshot and stop taking further snapshots. */
+  @Override
+  public synchronized void close() {
+    if (server != null) {
+      server.stop(0);
+      server = null;
+    }
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+    if (output != null) {
+      writeSnapshotSafely();
+      try {
+        output.close();
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not write statistics snapshots to file");
+      }
+      output = null;
+    }
+  }
+
+  /**
+   * Write a snapshot, but only log unexpected exceptions, because the analysis should continue and
+   * the executor would suppress all further snapshots if the periodic task threw an exception.
+   */
+  private synchronized void writeSnapshotSafely() {
+    try {
+      writeSnapshot();
+    } catch (RuntimeException e) {
+      logger.logException(Level.WARNING, e, "Could not take statistics snapshot");
+    }
+  }
+
+  private synchronized void writeSnapshot() {
+    if (output == null) {
+      return;
+    }
+    Map<String, Map<String, Object>> snapshot = takeSnapshot();
+    long time = System.currentTimeMillis() - startTime;
+    try {
+      if (format == Format.JSON) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("time", time);
+        line.putAll(snapshot);
+        JSON.writeJSONString(line, output);
+        output.write('\n');
+      } else {
+        for (Map.Entry<String, Map<String, Object>> group : snapshot.entrySet()) {
+          for (Map.Entry<String, Object> value : group.getValue().entrySet()) {
+            output.write(
+                CSV_JOINER.join(
+                    time,
+                    escapeCsv(group.getKey()),
+                    escapeCsv(value.getKey()),
+                    escapeCsv(value.getValue().toString())));
+            output.write('\n');
+          }
+        }
+      }
+      output.flush();
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write statistics snapshots to file");
+      output = null;
+    }
+  }
+
+  private void handleRequest(HttpExchange pExchange) throws IOException {
+    int status = 200;
+    StringBuilder response = new StringBuilder();
+    try {
+      Map<String, Object> snapshot = new LinkedHashMap<>();
+      snapshot.put("time", System.currentTimeMillis() - startTime);
+      synchronized (this) {
+        snapshot.putAll(takeSnapshot());
+      }
+      JSON.writeJSONString(snapshot, response);
+    } catch (RuntimeException e) {
+      // the server would otherwise close the connection without any response
+      logger.logDebugException(e, "Could not take statistics snapshot");
+      status = 500;
+      response.setLength(0);
+      JSON.writeJSONString(
+          ImmutableMap.of("error", Strings.nullToEmpty(e.getMessage())), response);
+    }
+    byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+    pExchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    pExchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream body = pExchange.getResponseBody()) {
+      body.write(bytes);
+    }
+  }
+
+  /** Collect the current values, grouped by the name of the statistics. */
+  private Map<String, Map<String, Object>> takeSnapshot() {
+    Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+
+    Map<String, Object> general = new LinkedHashMap<>();
+    Runtime runtime = Runtime.getRuntime();
+    general.put("Used heap memory (MB)", (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+    if (reached != null) {
+      // the size of the reached set can be read concurrently, as in CPAcheckerBean
+      general.put("Size of reached set", reached.size());
+      try {
+        for (AbstractStatValue value : reached.getStatistics().values()) {
+          general.put(value.getTitle(), value.toString());
+        }
+      } catch (ConcurrentModificationException e) {
+        // reached set was changed while reading, ignore its statistics for this snapshot
+      }
+    }
+    result.put("CPAchecker", general);
+
+    for (Statistics stats : ImmutableList.copyOf(statistics)) {
+      Map<String, Object> values;
+      try {
+        values = stats.getSnapshot();
+      } catch (RuntimeException e) {
+        // statistics are not synchronized, just skip them for this snapshot
+        logger.logDebugException(e, "Could not take snapshot of statistics");
+        continue;
+      }
+      if (!values.isEmpty()) {
+        String name = stats.getName();
+        if (Strings.isNullOrEmpty(name)) {
+          name = stats.getClass().getSimpleName();
+        }
+        Map<String, Object> group = result.computeIfAbsent(name, k -> new LinkedHashMap<>());
+        values.forEach((key, value) -> group.put(key, toJsonValue(value)));
+      }
+    }
+    return result;
+  }
+
+  private static Object toJsonValue(Object pValue) {
+    if (pValue instanceof Number || pValue instanceof Boolean) {
+      return pValue;
+    }
+    return pValue.toString();
+  }
+
+  private static String escapeCsv(String pValue) {
+    if (pValue.contains(",") || pValue.contains("\"") || pValue.contains("\n")) {
+      return "\"" + pValue.replace("\"", "\"\"") + "\"";
+    }
+    return pValue;
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.converters.FileTypeConverter;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+
+public class StatisticsSnapshotsTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private static final Statistics STUB_STATISTICS =
+      new Statistics() {
+        @Override
+        public void printStatistics(
+            PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {}
+
+        @Override
+        public String getName() {
+          return "Stub";
+        }
+
+        @Override
+        public Map<String, Object> getSnapshot() {
+          return ImmutableMap.of("Count", 5, "Text", "a,b");
+        }
+      };
+
+  private static final Statistics FAILING_STATISTICS =
+      new Statistics() {
+        @Override
+        public void printStatistics(
+            PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {}
+
+        @Override
+        public String getName() {
+          return "Failing";
+        }
+
+        @Override
+        public Map<String, Object> getSnapshot() {
+          throw new IllegalStateException("concurrent access");
+        }
+      };
+
+  private Path file;
+
+  private StatisticsSnapshots createSnapshots(String pFormat, String pInterval) throws Exception {
+    return createSnapshots(pFormat, pInterval, -1);
+  }
+
+  private StatisticsSnapshots createSnapshots(String pFormat, String pInterval, int pHttpPort)
+      throws Exception {
+    file = tempFolder.getRoot().toPath().resolve("snapshots.txt");
+    FileTypeConverter fileTypeConverter =
+        FileTypeConverter.create(
+            Configuration.builder()
+                .setOption("rootDirectory", tempFolder.getRoot().toString())
+                .build());
+    Configuration config =
+        Configuration.builder()
+            .addConverter(FileOption.class, fileTypeConverter)
+            .setOption("statistics.snapshots.interval", pInterval)
+            .setOption("statistics.snapshots.file", file.toAbsolutePath().toString())
+            .setOption("statistics.snapshots.format", pFormat)
+            .setOption("statistics.snapshots.httpPort", Integer.toString(pHttpPort))
+            .build();
+    return new StatisticsSnapshots(
+        config, logger, ImmutableList.of(STUB_STATISTICS, FAILING_STATISTICS));
+  }
+
+  private static ReachedSet mockReachedSet(int pSize) {
+    ReachedSet reached = mock(ReachedSet.class);
+    when(reached.size()).thenReturn(pSize);
+    when(reached.getStatistics()).thenReturn(ImmutableMap.of());
+    return reached;
+  }
+
+  private List<String> readLines() throws Exception {
+    return Files.readAllLines(file, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testJsonOutput() throws Exception {
+    try (StatisticsSnapshots snapshots = createSnapshots("JSON", "1h")) {
+      snapshots.start(mockReachedSet(3));
+    }
+
+    // the last snapshot is written when closing
+    List<String> lines = readLines();
+    assertThat(lines).hasSize(1);
+    String line = lines.get(0);
+    assertThat(line).startsWith("{\"time\":");
+    assertThat(line).contains("\"Size of reached set\":3");
+    assertThat(line).contains("\"Stub\":{\"Count\":5,\"Text\":\"a,b\"}");
+    assertThat(line).doesNotContain("Failing");
+  }
+
+  @Test
+  public void testCsvOutput() throws Exception {
+    try (StatisticsSnapshots snapshots = createSnapshots("CSV", "1h")) {
+      snapshots.start(mockReachedSet(3));
+    }
+
+    List<String> lines = readLines();
+    assertThat(lines.get(0)).isEqualTo("time,group,name,value");
+    assertThat(lines).hasSize(5);
+    assertThat(lines.get(1)).matches("\\d+,CPAchecker,Used heap memory \\(MB\\),\\d+");
+    assertThat(lines.get(2)).matches("\\d+,CPAchecker,Size of reached set,3");
+    assertThat(lines.get(3)).matches("\\d+,Stub,Count,5");
+    assertThat(lines.get(4)).matches("\\d+,Stub,Text,\"a,b\"");
+  }
+
+  @Test
+  public void testExceptionDoesNotStopSnapshots() throws Exception {
+    ReachedSet reached = mock(ReachedSet.class);
+    when(reached.size()).thenThrow(new IllegalStateException()).thenReturn(3);
+    when(reached.getStatistics()).thenReturn(ImmutableMap.of());
+
+    try (StatisticsSnapshots snapshots = createSnapshots("CSV", "1ms")) {
+      snapshots.start(reached);
+
+      // the first snapshot fails, but later ones are still taken
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      while (readLines().stream().noneMatch(l -> l.endsWith(",Size of reached set,3"))) {
+        assertThat(stopwatch.elapsed(TimeUnit.SECONDS)).isLessThan(30L);
+        Thread.sleep(10);
+      }
+    }
+  }
+
+  private static HttpURLConnection request(StatisticsSnapshots pSnapshots) throws Exception {
+    InetSocketAddress address = pSnapshots.getServerAddress();
+    assertThat(address).isNotNull();
+    URL url = new URL("http", address.getHostString(), address.getPort(), "/");
+    return (HttpURLConnection) url.openConnection();
+  }
+
+  @Test
+  public void testHttpServer() throws Exception {
+    try (StatisticsSnapshots snapshots = createSnapshots("JSON", "0", 0)) {
+      snapshots.start(mockReachedSet(3));
+
+      HttpURLConnection connection = request(snapshots);
+      assertThat(connection.getResponseCode()).isEqualTo(200);
+      try (InputStream body = connection.getInputStream()) {
+        String response = new String(ByteStreams.toByteArray(body), StandardCharsets.UTF_8);
+        assertThat(response).contains("\"Size of reached set\":3");
+        assertThat(response).contains("\"Stub\":{\"Count\":5,\"Text\":\"a,b\"}");
+      }
+    }
+  }
+
+  @Test
+  public void testHttpServerReportsFailedSnapshot() throws Exception {
+    ReachedSet reached = mock(ReachedSet.class);
+    when(reached.size()).thenThrow(new ConcurrentModificationException());
+
+    try (StatisticsSnapshots snapshots = createSnapshots("JSON", "0", 0)) {
+      snapshots.start(reached);
+
+      HttpURLConnection connection = request(snapshots);
+      assertThat(connection.getResponseCode()).isEqualTo(500);
+    }
+  }
+}
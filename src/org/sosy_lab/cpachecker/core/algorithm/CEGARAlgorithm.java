@@ -28,10 +28,12 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.isTargetState;
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.div;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.PrintStream;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
@@ -58,8 +60,12 @@ import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.value.refiner.UnsoundRefiner;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.RefinementFailedException;
+import org.sosy_lab.cpachecker.util.CPAs;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents.RefinementEvent;
 
-public class CEGARAlgorithm implements Algorithm, StatisticsProvider, ReachedSetUpdater {
+public class CEGARAlgorithm
+    implements Algorithm, StatisticsProvider, ReachedSetUpdater, AutoCloseable {
 
   private static class CEGARStatistics implements Statistics {
 
@@ -82,6 +88,19 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider, ReachedSet
       return "CEGAR algorithm";
     }
 
+    @Override
+    public Map<String, Object> getSnapshot() {
+      return ImmutableMap.of(
+          "Number of CEGAR refinements",
+          countRefinements,
+          "Number of successful refinements",
+          countSuccessfulRefinements,
+          "Number of failed refinements",
+          countFailedRefinements,
+          "Time for refinements (ms)",
+          refinementTimer.getSumTime().asMillis());
+    }
+
     @Override
     public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
 
@@ -304,7 +323,8 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider, ReachedSet
     sizeOfReachedSetBeforeRefinement = reached.size();
 
     stats.refinementTimer.start();
-    boolean refinementResult;
+    RefinementEvent event = AnalysisEvents.begin(RefinementEvent::new);
+    boolean refinementResult = false;
     try {
       refinementResult = mRefiner.performRefinement(reached);
 
@@ -313,6 +333,7 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider, ReachedSet
       throw e;
     } finally {
       stats.refinementTimer.stop();
+      AnalysisEvents.commit(event, mRefiner.getClass().getSimpleName(), refinementResult);
     }
 
     logger.log(Level.FINE, "Refinement successful:", refinementResult);
@@ -359,4 +380,10 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider, ReachedSet
     }
   }
 
+  @Override
+  public void close() {
+    CPAs.closeIfPossible(mRefiner, logger);
+    CPAs.closeIfPossible(algorithm, logger);
+  }
+
 }
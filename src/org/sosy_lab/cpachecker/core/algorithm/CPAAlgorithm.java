@@ -24,6 +24,7 @@
 package org.sosy_lab.cpachecker.core.algorithm;
 
 import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableMap;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -65,6 +66,11 @@ import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents.MergeEvent;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents.PrecisionAdjustmentEvent;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents.StopEvent;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents.TransferEvent;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatHist;
 import org.sosy_lab.cpachecker.util.statistics.StatInt;
@@ -137,6 +143,22 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       return "CPA algorithm";
     }
 
+    @Override
+    public Map<String, Object> getSnapshot() {
+      return ImmutableMap.<String, Object>builder()
+          .put("Number of iterations", countIterations)
+          .put("Max size of waitlist", maxWaitlistSize)
+          .put("Number of computed successors", countSuccessors)
+          .put("Number of times merged", countMerge)
+          .put("Number of times stopped", countStop)
+          .put("Total time for CPA algorithm (ms)", totalTimer.getSumTime().asMillis())
+          .put("Time for precision adjustment (ms)", precisionTimer.getSumTime().asMillis())
+          .put("Time for transfer relation (ms)", transferTimer.getSumTime().asMillis())
+          .put("Time for merge operator (ms)", mergeTimer.getSumTime().asMillis())
+          .put("Time for stop operator (ms)", stopTimer.getSumTime().asMillis())
+          .build();
+    }
+
     @Override
     public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
       out.println("Number of iterations:            " + countIterations);
@@ -328,11 +350,13 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     }
 
     stats.transferTimer.start();
+    TransferEvent transferEvent = AnalysisEvents.begin(TransferEvent::new);
     Collection<? extends AbstractState> successors;
     try {
       successors = transferRelation.getAbstractSuccessors(state, precision);
     } finally {
       stats.transferTimer.stop();
+      AnalysisEvents.commit(transferEvent, state);
     }
     // TODO When we have a nice way to mark the analysis result as incomplete,
     // we could continue analysis on a CPATransferException with the next state from waitlist.
@@ -349,6 +373,8 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       logger.log(Level.ALL, "Successor of", state, "\nis", successor);
 
       stats.precisionTimer.start();
+      PrecisionAdjustmentEvent precisionEvent =
+          AnalysisEvents.begin(PrecisionAdjustmentEvent::new);
       PrecisionAdjustmentResult precAdjustmentResult;
       try {
         Optional<PrecisionAdjustmentResult> precAdjustmentOptional =
@@ -360,6 +386,7 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         precAdjustmentResult = precAdjustmentOptional.orElseThrow();
       } finally {
         stats.precisionTimer.stop();
+        AnalysisEvents.commit(precisionEvent, successor);
       }
 
       successor = precAdjustmentResult.abstractState();
@@ -368,11 +395,13 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
       if (action == Action.BREAK) {
         stats.stopTimer.start();
+        StopEvent stopEvent = AnalysisEvents.begin(StopEvent::new);
         boolean stop;
         try {
           stop = stopOperator.stop(successor, reachedSet.getReached(successor), successorPrecision);
         } finally {
           stats.stopTimer.stop();
+          AnalysisEvents.commit(stopEvent, successor);
         }
 
         if (AbstractStates.isTargetState(successor) && stop) {
@@ -407,6 +436,7 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       // merge operator won't do anything (i.e., it is merge-sep).
       if (mergeOperator != MergeSepOperator.getInstance() && !reached.isEmpty()) {
         stats.mergeTimer.start();
+        MergeEvent mergeEvent = AnalysisEvents.begin(MergeEvent::new);
         try {
           List<AbstractState> toRemove = new ArrayList<>();
           List<Pair<AbstractState, Precision>> toAdd = new ArrayList<>();
@@ -441,15 +471,18 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
         } finally {
           stats.mergeTimer.stop();
+          AnalysisEvents.commit(mergeEvent, successor);
         }
       }
 
       stats.stopTimer.start();
+      StopEvent stopEvent = AnalysisEvents.begin(StopEvent::new);
       boolean stop;
       try {
         stop = stopOperator.stop(successor, reached, successorPrecision);
       } finally {
         stats.stopTimer.stop();
+        AnalysisEvents.commit(stopEvent, successor);
       }
 
       if (stop) {
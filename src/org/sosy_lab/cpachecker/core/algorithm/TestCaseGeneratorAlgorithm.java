@@ -50,6 +50,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiPredicate;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.Appender;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.UniqueIdGenerator;
@@ -98,7 +99,8 @@ import org.sosy_lab.cpachecker.util.testcase.TestCaseExporter;
 import org.sosy_lab.cpachecker.util.testcase.XMLTestCaseExport;
 
 @Options(prefix = "testcase")
-public class TestCaseGeneratorAlgorithm implements ProgressReportingAlgorithm, StatisticsProvider {
+public class TestCaseGeneratorAlgorithm
+    implements ProgressReportingAlgorithm, StatisticsProvider, AutoCloseable {
 
   private static enum FormatType {
     HARNESS,
@@ -150,6 +152,17 @@ public class TestCaseGeneratorAlgorithm implements ProgressReportingAlgorithm, S
   @Option(secure = true,  description = "when generating tests covering error call stop as soon as generated one test case and report false (only possible in combination with error call property specification")
   private boolean reportCoveredErrorCallAsError = false;
 
+  @Option(
+    secure = true,
+    name = "batch",
+    description =
+        "after a test case was generated for a test target, use the solver to cover further "
+            + "uncovered test targets that leave the path of this test case, and write test cases "
+            + "for them without a new run of the analysis "
+            + "(test harnesses are only written for targets found by the analysis)"
+  )
+  private boolean coverTargetsAlongPaths = false;
+
   private final Algorithm algorithm;
   private final AssumptionToEdgeAllocator assumptionToEdgeAllocator;
   private final ConfigurableProgramAnalysis cpa;
@@ -160,6 +173,7 @@ public class TestCaseGeneratorAlgorithm implements ProgressReportingAlgorithm, S
   private final Set<CFAEdge> testTargets;
   private final SpecificationProperty specProp;
   private final String producerString;
+  private final @Nullable TestTargetBatchCoverage batchCoverage;
   private FileSystem zipFS = null;
   private double progress = 0;
 
@@ -187,6 +201,10 @@ public class TestCaseGeneratorAlgorithm implements ProgressReportingAlgorithm, S
         ((TestTargetTransferRelation) testTargetCpa.getTransferRelation()).getTestTargets();
     harnessExporter = new HarnessExporter(pConfig, logger, pCfa);
     producerString = CPAchecker.getVersion(pConfig);
+    batchCoverage =
+        coverTargetsAlongPaths
+            ? new TestTargetBatchCoverage(pConfig, logger, pShutdownNotifier, pCfa)
+            : null;
 
     Preconditions.checkState(
         !isZippedTestCaseWritingEnabled() || testCaseZip != null,
@@ -301,6 +319,12 @@ public class TestCaseGeneratorAlgorithm implements ProgressReportingAlgorithm, S
                   logger.log(Level.FINE, "Removing test target: " + targetEdge.toString());
                   testTargets.remove(targetEdge);
 
+                  if (batchCoverage != null
+                      && areTestsEnabled()
+                      && !shouldReportCoveredErrorCallAsError()) {
+                    coverTargetsAlongPath(argState);
+                  }
+
                   if (shouldReportCoveredErrorCallAsError()) {
                     addErrorStateWithViolatedProperty(pReached);
                     shouldReturnFalse = true;
@@ -356,7 +380,10 @@ public class TestCaseGeneratorAlgorithm implements ProgressReportingAlgorithm, S
         logger.log(Level.SEVERE, TestTargetProvider.getCoverageInfo());
       }
       closeZipFS();
-
+      if (batchCoverage != null) {
+        // release the solver after each run, algorithms wrapping this one need not close it
+        batchCoverage.close();
+      }
     }
 
     return AlgorithmStatus.NO_PROPERTY_CHECKED;
@@ -431,6 +458,52 @@ public class TestCaseGeneratorAlgorithm implements ProgressReportingAlgorithm, S
     }
   }
 
+  private void coverTargetsAlongPath(final ARGState pTarget) throws InterruptedException {
+    batchCoverage.coverTargetsAlongPath(
+        ARGUtils.getOnePathTo(pTarget),
+        testTargets,
+        (target, inputValues) -> {
+          logger.log(Level.FINE, "Removing test target covered along path: " + target);
+          if (testValueFile != null) {
+            writeTestValues(
+                testValueFile.getPath(id.getFreshId()),
+                TestCaseExporter.LINE_SEPARATED.convertToOutput(inputValues));
+          }
+          if (testXMLFile != null) {
+            writeTestValues(
+                testXMLFile.getPath(id.getFreshId()),
+                XMLTestCaseExport.XML_TEST_CASE.convertToOutput(inputValues));
+          }
+          progress++;
+        });
+  }
+
+  private void writeTestValues(final Path pFile, final String pTestValues) {
+    try {
+      if (zipTestCases) {
+        try (Writer writer = openZipEntry(pFile)) {
+          writer.write(pTestValues);
+        }
+      } else {
+        IO.writeFile(pFile, Charset.defaultCharset(), pTestValues);
+      }
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write test case to file");
+    }
+  }
+
+  /** Open a writer for a new entry in the zip file with the file name of the given path. */
+  private Writer openZipEntry(final Path pFile) throws IOException {
+    Path fileName = pFile.getFileName();
+    Path testFile =
+        zipFS.getPath(fileName != null ? fileName.toString() : id.getFreshId() + "test.txt");
+    return new OutputStreamWriter(
+        zipFS
+            .provider()
+            .newOutputStream(testFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE),
+        Charset.defaultCharset());
+  }
+
   private void writeTestCase(
       final Path pFile,
       final ARGPath pTargetPath,
@@ -444,15 +517,7 @@ public class TestCaseGeneratorAlgorithm implements ProgressReportingAlgorithm, S
       Optional<String> testOutput;
 
       if (zipTestCases) {
-        Path fileName = pFile.getFileName();
-        Path testFile =
-            zipFS.getPath(fileName != null ? fileName.toString() : id.getFreshId() + "test.txt");
-        try (Writer writer =
-            new OutputStreamWriter(
-                zipFS
-                    .provider()
-                    .newOutputStream(testFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE),
-                Charset.defaultCharset())) {
+        try (Writer writer = openZipEntry(pFile)) {
           switch (type) {
             case HARNESS:
               harnessExporter.writeHarness(
@@ -590,6 +655,17 @@ public class TestCaseGeneratorAlgorithm implements ProgressReportingAlgorithm, S
       ((StatisticsProvider) algorithm).collectStatistics(pStatsCollection);
     }
     pStatsCollection.add(TestTargetProvider.getTestTargetStatisitics(printTestTargetInfoInStats));
+    if (batchCoverage != null) {
+      pStatsCollection.add(batchCoverage);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (batchCoverage != null) {
+      batchCoverage.close();
+    }
+    CPAs.closeIfPossible(algorithm, logger);
   }
 
   @Override
@@ -0,0 +1,275 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import com.google.common.collect.ImmutableList;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.ast.AFunctionCall;
+import org.sosy_lab.cpachecker.cfa.model.AStatementEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.counterexample.CFAEdgeWithAssumptions;
+import org.sosy_lab.cpachecker.core.counterexample.CFAPathWithAssumptions;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.arg.path.ARGPath;
+import org.sosy_lab.cpachecker.cpa.arg.path.PathIterator;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.predicates.AssignmentToPathAllocator;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+import org.sosy_lab.cpachecker.util.testcase.TestCaseExporter;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+
+/**
+ * Covers further test targets along the path of an already generated test case without a new run
+ * of the analysis.
+ *
+ * <p>For every location on the path, each uncovered test target that leaves this location is
+ * checked with the solver: if the path prefix up to the location together with the target edge is
+ * satisfiable, the model yields the input values of a test case for this target. The path formula
+ * of the prefix is pushed onto a single prover stack edge by edge, thus all candidates along the
+ * same path share the solver work for their common prefix.
+ */
+@Options(prefix = "testcase.batch")
+final class TestTargetBatchCoverage implements Statistics, AutoCloseable {
+
+  /** Receives the input values of a test case for a newly covered test target. */
+  interface CoveredTargetConsumer {
+    void accept(CFAEdge pTarget, List<String> pInputValues);
+  }
+
+  @Option(
+      secure = true,
+      description =
+          "maximal number of solver queries for additional test targets per test case "
+              + "(-1 for no limit)")
+  private int maxQueriesPerPath = 100;
+
+  private final Configuration config;
+  private final CFA cfa;
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+  private final AssignmentToPathAllocator assignmentToPathAllocator;
+
+  // created on demand and released by close() after each run of the analysis
+  private @Nullable Solver solver;
+  private @Nullable PathFormulaManager pfmgr;
+
+  private final StatTimer batchTime = new StatTimer("Time for covering targets along paths");
+  private final StatCounter queries = new StatCounter("Number of solver queries for targets");
+  private final StatCounter coveredTargets =
+      new StatCounter("Number of targets covered along paths");
+
+  TestTargetBatchCoverage(
+      Configuration pConfig, LogManager pLogger, ShutdownNotifier pShutdownNotifier, CFA pCfa)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    config = pConfig;
+    cfa = pCfa;
+    logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+    assignmentToPathAllocator =
+        new AssignmentToPathAllocator(
+            pConfig, pShutdownNotifier, pLogger, pCfa.getMachineModel());
+    // fail early on invalid solver options
+    initSolver();
+  }
+
+  private void initSolver() throws InvalidConfigurationException {
+    if (solver == null) {
+      solver = Solver.create(config, logger, shutdownNotifier);
+      pfmgr =
+          new PathFormulaManagerImpl(
+              solver.getFormulaManager(),
+              config,
+              logger,
+              shutdownNotifier,
+              cfa,
+              AnalysisDirection.FORWARD);
+    }
+  }
+
+  /**
+   * Try to cover the given test targets along the given path. Each covered target is removed from
+   * the given set and reported to the consumer.
+   *
+   * @param pPath a feasible path, for which a test case was already generated
+   * @param pTestTargets the uncovered test targets, covered targets are removed
+   * @param pConsumer the consumer that writes the test cases
+   */
+  void coverTargetsAlongPath(
+      ARGPath pPath, Set<CFAEdge> pTestTargets, CoveredTargetConsumer pConsumer)
+      throws InterruptedException {
+    batchTime.start();
+    try {
+      initSolver();
+      try (ProverEnvironment prover =
+          solver.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+        coverTargetsAlongPath(prover, pPath, pTestTargets, pConsumer);
+      }
+    } catch (InvalidConfigurationException e) {
+      logger.logUserException(Level.WARNING, e, "Could not cover further test targets along path");
+    } catch (SolverException | CPATransferException e) {
+      logger.logDebugException(e, "Could not cover further test targets along path");
+    } finally {
+      batchTime.stop();
+    }
+  }
+
+  private void coverTargetsAlongPath(
+      ProverEnvironment pProver,
+      ARGPath pPath,
+      Set<CFAEdge> pTestTargets,
+      CoveredTargetConsumer pConsumer)
+      throws SolverException, CPATransferException, InterruptedException {
+    int remainingQueries = maxQueriesPerPath;
+    PathFormula pathFormula = pfmgr.makeEmptyPathFormula();
+    List<SSAMap> ssaMaps = new ArrayList<>(pPath.size());
+    PathIterator pathIt = pPath.fullPathIterator();
+
+    while (true) {
+      shutdownNotifier.shutdownIfNecessary();
+      CFAEdge pathEdge = pathIt.hasNext() ? pathIt.getOutgoingEdge() : null;
+
+      if (pathIt.isPositionWithState()) {
+        for (CFAEdge target : CFAUtils.leavingEdges(pathIt.getLocation())) {
+          if (remainingQueries == 0 || pTestTargets.isEmpty()) {
+            return;
+          }
+          if (target.equals(pathEdge) || !pTestTargets.contains(target)) {
+            continue;
+          }
+          remainingQueries--;
+          queries.inc();
+          Iterable<ValueAssignment> model =
+              getModelForTarget(
+                  pProver, pfmgr.makeAnd(pfmgr.makeEmptyPathFormula(pathFormula), target));
+          if (model != null) {
+            logger.log(Level.FINE, "Covered test target along path:", target);
+            pTestTargets.remove(target);
+            coveredTargets.inc();
+            pConsumer.accept(target, getInputValues(pathIt.getPrefixInclusive(), model, ssaMaps));
+          }
+        }
+      }
+
+      if (pathEdge == null) {
+        return;
+      }
+      // extend the prefix on the prover stack by the next edge of the path,
+      // the path formula only contains the formula of this edge, but the SSA map of the prefix
+      pathFormula = pfmgr.makeAnd(pfmgr.makeEmptyPathFormula(pathFormula), pathEdge);
+      pProver.push(pathFormula.getFormula());
+      ssaMaps.add(pathFormula.getSsa());
+      pathIt.advance();
+    }
+  }
+
+  /** Returns a model for the current prefix and the given target, or null if it is infeasible. */
+  private @Nullable Iterable<ValueAssignment> getModelForTarget(
+      ProverEnvironment pProver, PathFormula pTargetFormula)
+      throws SolverException, InterruptedException {
+    BooleanFormula targetFormula = pTargetFormula.getFormula();
+    pProver.push(targetFormula);
+    try {
+      if (pProver.isUnsat()) {
+        return null;
+      }
+      return pProver.getModelAssignments();
+    } finally {
+      pProver.pop();
+    }
+  }
+
+  /** Extract the return values of external functions along the prefix from the model. */
+  private List<String> getInputValues(
+      ARGPath pPrefix, Iterable<ValueAssignment> pModel, List<SSAMap> pSsaMaps)
+      throws InterruptedException {
+    CFAPathWithAssumptions assignments =
+        assignmentToPathAllocator.allocateAssignmentsToPath(pPrefix, pModel, pSsaMaps);
+    ImmutableList.Builder<String> values = ImmutableList.builder();
+    for (CFAEdgeWithAssumptions edgeWithAssumptions : assignments) {
+      CFAEdge edge = edgeWithAssumptions.getCFAEdge();
+      if (edge instanceof AStatementEdge
+          && ((AStatementEdge) edge).getStatement() instanceof AFunctionCall) {
+        TestCaseExporter.getReturnValueForExternalFunction(
+                (AFunctionCall) ((AStatementEdge) edge).getStatement(),
+                edge,
+                ImmutableList.of(edgeWithAssumptions),
+                cfa)
+            .ifPresent(values::add);
+      }
+    }
+    return values.build();
+  }
+
+  @Override
+  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+    StatisticsWriter.writingStatisticsTo(pOut)
+        .put(batchTime)
+        .put(queries)
+        .put(coveredTargets);
+  }
+
+  @Override
+  public String getName() {
+    return "Test generation along paths";
+  }
+
+  /** Release the solver, it is created again if further targets are to be covered. */
+  @Override
+  public void close() {
+    if (solver != null) {
+      solver.close();
+      solver = null;
+      pfmgr = null;
+    }
+  }
+}
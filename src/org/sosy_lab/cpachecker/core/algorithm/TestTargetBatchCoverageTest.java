@@ -0,0 +1,185 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.converters.FileTypeConverter;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+public class TestTargetBatchCoverageTest {
+
+  private static final String CONFIG_FILE =
+      "config/testCaseGeneration-predicateAnalysis.properties";
+
+  private static final String PROGRAM =
+      "test/programs/simple/explicit/symbolic/nondetAssign_false-unreach-label.c";
+
+  private static final Pattern COVERED_ALONG_PATHS_PATTERN =
+      Pattern.compile("^Number of targets covered along paths:\\s+(\\d+)");
+  private static final Pattern NUMBER_OF_COVERED_PATTERN =
+      Pattern.compile("^Number of covered test targets: (\\d+)$");
+  private static final Pattern NUMBER_OF_TARGETS_PATTERN =
+      Pattern.compile("^Number of total test targets: (\\d+)$");
+
+  private static final Pattern COVERED_TARGET_PATTERN =
+      Pattern.compile(
+          "^Removing test target( covered along path)?: (.*) \\(\\S+, FINE\\)$", Pattern.MULTILINE);
+
+  private static final Pattern TEST_VALUE_PATTERN = Pattern.compile("-?\\d+");
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /** The results of one run of the test-case generation. */
+  private static class TestGeneration {
+
+    private final String statistics;
+    private final ImmutableSet<String> coveredByAnalysis;
+    private final ImmutableSet<String> coveredAlongPaths;
+    private final ImmutableList<List<String>> testValues;
+
+    private TestGeneration(String pStatistics, String pLog, Path pOutputDirectory)
+        throws Exception {
+      statistics = pStatistics;
+
+      ImmutableSet.Builder<String> byAnalysis = ImmutableSet.builder();
+      ImmutableSet.Builder<String> alongPaths = ImmutableSet.builder();
+      Matcher matcher = COVERED_TARGET_PATTERN.matcher(pLog);
+      while (matcher.find()) {
+        (matcher.group(1) == null ? byAnalysis : alongPaths).add(matcher.group(2));
+      }
+      coveredByAnalysis = byAnalysis.build();
+      coveredAlongPaths = alongPaths.build();
+
+      ImmutableList.Builder<List<String>> values = ImmutableList.builder();
+      try (Stream<Path> files = Files.list(pOutputDirectory)) {
+        for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+          if (file.getFileName().toString().startsWith("testcase-")) {
+            values.add(Files.readAllLines(file, Charset.defaultCharset()));
+          }
+        }
+      }
+      testValues = values.build();
+    }
+
+    Set<String> getCoveredTargets() {
+      return ImmutableSet.<String>builder()
+          .addAll(coveredByAnalysis)
+          .addAll(coveredAlongPaths)
+          .build();
+    }
+  }
+
+  private TestGeneration generateTests(boolean pBatch) throws Exception {
+    Path outputDirectory = tempFolder.newFolder().toPath();
+    FileTypeConverter fileTypeConverter =
+        FileTypeConverter.create(
+            Configuration.builder().setOption("output.path", outputDirectory.toString()).build());
+    Configuration config =
+        Configuration.builder()
+            .addConverter(FileOption.class, fileTypeConverter)
+            .loadFromFile(CONFIG_FILE)
+            .setOption("testcase.batch", Boolean.toString(pBatch))
+            .setOption("testcase.values", "testcase-%d.txt")
+            .build();
+    TestResults results = CPATestRunner.run(config, PROGRAM, Level.FINE);
+
+    ByteArrayOutputStream statistics = new ByteArrayOutputStream();
+    @SuppressWarnings("checkstyle:IllegalInstantiation") // ok for statistics
+    PrintStream out = new PrintStream(statistics, true, StandardCharsets.UTF_8);
+    results.getCheckerResult().printStatistics(out);
+    return new TestGeneration(
+        statistics.toString(StandardCharsets.UTF_8), results.getLog(), outputDirectory);
+  }
+
+  private static int getNumber(String pStatistics, Pattern pPattern) {
+    for (String line : Splitter.on('\n').split(pStatistics)) {
+      Matcher matcher = pPattern.matcher(line.trim());
+      if (matcher.find()) {
+        return Integer.parseInt(matcher.group(1));
+      }
+    }
+    throw new AssertionError("missing statistics " + pPattern + " in:\n" + pStatistics);
+  }
+
+  @Test
+  public void testSameCoverageAsAnalysis() throws Exception {
+    TestGeneration sequential = generateTests(false);
+    TestGeneration batched = generateTests(true);
+
+    // the targets that were covered without a new run of the analysis
+    assertThat(getNumber(batched.statistics, COVERED_ALONG_PATHS_PATTERN)).isGreaterThan(0);
+    assertThat(batched.coveredAlongPaths)
+        .hasSize(getNumber(batched.statistics, COVERED_ALONG_PATHS_PATTERN));
+    assertThat(sequential.coveredAlongPaths).isEmpty();
+
+    // each target is covered only once, and the same targets are covered in both runs
+    assertThat(batched.coveredAlongPaths).containsNoneIn(batched.coveredByAnalysis);
+    assertThat(batched.getCoveredTargets())
+        .containsExactlyElementsIn(sequential.getCoveredTargets());
+    assertThat(batched.getCoveredTargets())
+        .hasSize(getNumber(batched.statistics, NUMBER_OF_COVERED_PATTERN));
+
+    assertThat(getNumber(batched.statistics, NUMBER_OF_COVERED_PATTERN))
+        .isEqualTo(getNumber(sequential.statistics, NUMBER_OF_COVERED_PATTERN));
+    assertThat(getNumber(batched.statistics, NUMBER_OF_TARGETS_PATTERN))
+        .isEqualTo(getNumber(sequential.statistics, NUMBER_OF_TARGETS_PATTERN));
+  }
+
+  @Test
+  public void testValuesAreWrittenForCoveredTargets() throws Exception {
+    TestGeneration batched = generateTests(true);
+
+    // one test case per covered target, also for those covered along paths
+    assertThat(batched.testValues).hasSize(batched.getCoveredTargets().size());
+    for (List<String> values : batched.testValues) {
+      // both nondeterministic values are read on each path to a target
+      assertThat(values).hasSize(2);
+      for (String value : values) {
+        assertThat(value).matches(TEST_VALUE_PATTERN);
+      }
+    }
+  }
+}
@@ -43,6 +43,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownManager;
 import org.sosy_lab.common.ShutdownNotifier;
@@ -74,6 +75,8 @@ import org.sosy_lab.cpachecker.cpa.arg.path.ARGPath;
 import org.sosy_lab.cpachecker.cpa.arg.path.ARGPathBuilder;
 import org.sosy_lab.cpachecker.cpa.arg.path.PathIterator;
 import org.sosy_lab.cpachecker.cpa.arg.witnessexport.WitnessExporter;
+import org.sosy_lab.cpachecker.cpa.automaton.Automata;
+import org.sosy_lab.cpachecker.cpa.automaton.Automaton;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonState;
 import org.sosy_lab.cpachecker.cpa.composite.CompositeState;
 import org.sosy_lab.cpachecker.cpa.location.LocationState;
@@ -134,10 +137,25 @@ public class CounterexampleCPAchecker implements CounterexampleChecker {
           "counterexample check should fully replace existing counterexamples with own ones, if available")
   private boolean replaceCexWithCexFromCheck = false;
 
+  @Option(
+      secure = true,
+      name = "inMemoryAutomaton",
+      description =
+          "build the path automaton for the counterexample check directly from the ARG and combine"
+              + " it with the already parsed specification, instead of exporting a witness to a"
+              + " file and parsing it again. A witness is still used if a path file is given or"
+              + " if the path cannot be represented by CFA edges.")
+  private boolean useInMemoryAutomaton = true;
+
   private final Function<ARGState, Optional<CounterexampleInfo>> getCounterexampleInfo;
 
   private WitnessExporter witnessExporter;
 
+  private final LogManager checkerLogger;
+
+  // loaded on the first counterexample check and reused for all further checks
+  private @Nullable Configuration checkerConfig = null;
+
   public CounterexampleCPAchecker(
       Configuration config,
       Specification pSpecification,
@@ -154,6 +172,7 @@ public class CounterexampleCPAchecker implements CounterexampleChecker {
     this.cfa = pCfa;
     getCounterexampleInfo = Objects.requireNonNull(pGetCounterexampleInfo);
     this.witnessExporter = new WitnessExporter(config, logger, specification, cfa);
+    checkerLogger = logger.withComponentName("CounterexampleCheck");
   }
 
   @Override
@@ -161,6 +180,22 @@ public class CounterexampleCPAchecker implements CounterexampleChecker {
       ARGState pErrorState, Set<ARGState> pErrorPathStates)
       throws CPAException, InterruptedException {
 
+    if (useInMemoryAutomaton && specFile == null) {
+      Optional<Automaton> pathAutomaton =
+          Automata.createPathAutomaton("CounterexampleToCheck", pRootState, pErrorPathStates);
+      if (pathAutomaton.isPresent()) {
+        Specification lSpecification =
+            Specification.combine(
+                specification,
+                Specification.fromAutomata(ImmutableList.of(pathAutomaton.orElseThrow())));
+        return checkCounterexample(pRootState, pErrorState, pErrorPathStates, lSpecification);
+      }
+      logger.log(
+          Level.FINE,
+          "Error path is not connected by CFA edges,",
+          "using a witness for the counterexample check.");
+    }
+
     try {
       if (specFile != null) {
         return checkCounterexample(pRootState, pErrorState, pErrorPathStates, specFile);
@@ -195,34 +230,51 @@ public class CounterexampleCPAchecker implements CounterexampleChecker {
           getCounterexampleInfo.apply(pErrorState).orElse(null));
     }
 
-    // We assume only one initial node for an analysis, even for mutli-threaded tasks.
-    CFANode entryNode = Iterables.getOnlyElement(extractLocations(pRootState));
-    LogManager lLogger = logger.withComponentName("CounterexampleCheck");
-
+    Specification lSpecification;
     try {
-      ConfigurationBuilder lConfigBuilder = Configuration.builder().loadFromFile(configFile);
-
-      for (String option : OVERWRITE_OPTIONS) {
-        lConfigBuilder.copyOptionFromIfPresent(config, option);
-      }
-
-      Configuration lConfig = lConfigBuilder.build();
-      ShutdownManager lShutdownManager = ShutdownManager.createWithParent(shutdownNotifier);
-      ResourceLimitChecker.fromConfiguration(lConfig, lLogger, lShutdownManager).start();
-
-      Specification lSpecification =
+      lSpecification =
           Specification.fromFiles(
               specification.getProperties(),
               Iterables.concat(specification.getSpecFiles(), Collections.singleton(automatonFile)),
               cfa,
-              lConfig,
-              lLogger,
+              getCheckerConfiguration(),
+              checkerLogger,
               shutdownNotifier);
+    } catch (InvalidConfigurationException e) {
+      throw new CounterexampleAnalysisFailed(
+          "Invalid configuration in counterexample-check config: " + e.getMessage(), e);
+    } catch (InterruptedException e) {
+      shutdownNotifier.shutdownIfNecessary();
+      throw new CounterexampleAnalysisFailed("Counterexample check aborted", e);
+    }
+
+    return checkCounterexample(pRootState, pErrorState, pErrorPathStates, lSpecification);
+  }
+
+  /**
+   * Check the counterexample with a separate analysis, which uses the given specification. The
+   * specification contains the automaton that restricts the analysis to the error path.
+   */
+  private boolean checkCounterexample(
+      ARGState pRootState,
+      ARGState pErrorState,
+      Set<ARGState> pErrorPathStates,
+      Specification pSpecification)
+      throws CPAException, InterruptedException {
+
+    // We assume only one initial node for an analysis, even for mutli-threaded tasks.
+    CFANode entryNode = Iterables.getOnlyElement(extractLocations(pRootState));
+
+    try {
+      Configuration lConfig = getCheckerConfiguration();
+      ShutdownManager lShutdownManager = ShutdownManager.createWithParent(shutdownNotifier);
+      ResourceLimitChecker.fromConfiguration(lConfig, checkerLogger, lShutdownManager).start();
+
       CoreComponentsFactory factory =
           new CoreComponentsFactory(
-              lConfig, lLogger, lShutdownManager.getNotifier(), new AggregatedReachedSets());
-      ConfigurableProgramAnalysis lCpas = factory.createCPA(cfa, lSpecification);
-      Algorithm lAlgorithm = factory.createAlgorithm(lCpas, cfa, lSpecification);
+              lConfig, checkerLogger, lShutdownManager.getNotifier(), new AggregatedReachedSets());
+      ConfigurableProgramAnalysis lCpas = factory.createCPA(cfa, pSpecification);
+      Algorithm lAlgorithm = factory.createAlgorithm(lCpas, cfa, pSpecification);
       ReachedSet lReached = factory.createReachedSet();
       lReached.add(
           lCpas.getInitialState(entryNode, StateSpacePartition.getDefaultPartition()),
@@ -231,8 +283,8 @@ public class CounterexampleCPAchecker implements CounterexampleChecker {
       lAlgorithm.run(lReached);
 
       lShutdownManager.requestShutdown("Analysis terminated");
-      CPAs.closeCpaIfPossible(lCpas, lLogger);
-      CPAs.closeIfPossible(lAlgorithm, lLogger);
+      CPAs.closeCpaIfPossible(lCpas, checkerLogger);
+      CPAs.closeIfPossible(lAlgorithm, checkerLogger);
 
       if (provideCEXInfoFromCEXCheck || replaceCexWithCexFromCheck) {
         AbstractState target = from(lReached).firstMatch(IS_TARGET_STATE).orNull();
@@ -262,14 +314,35 @@ public class CounterexampleCPAchecker implements CounterexampleChecker {
 
     } catch (InvalidConfigurationException e) {
       throw new CounterexampleAnalysisFailed("Invalid configuration in counterexample-check config: " + e.getMessage(), e);
-    } catch (IOException e) {
-      throw new CounterexampleAnalysisFailed(e.getMessage(), e);
     } catch (InterruptedException e) {
       shutdownNotifier.shutdownIfNecessary();
       throw new CounterexampleAnalysisFailed("Counterexample check aborted", e);
     }
   }
 
+  /**
+   * Returns the configuration for the counterexample checks, which is loaded from the config file
+   * only once.
+   */
+  private Configuration getCheckerConfiguration()
+      throws InvalidConfigurationException, CounterexampleAnalysisFailed {
+    if (checkerConfig == null) {
+      ConfigurationBuilder lConfigBuilder;
+      try {
+        lConfigBuilder = Configuration.builder().loadFromFile(configFile);
+      } catch (IOException e) {
+        throw new CounterexampleAnalysisFailed(e.getMessage(), e);
+      }
+
+      for (String option : OVERWRITE_OPTIONS) {
+        lConfigBuilder.copyOptionFromIfPresent(config, option);
+      }
+
+      checkerConfig = lConfigBuilder.build();
+    }
+    return checkerConfig;
+  }
+
   private void replaceCounterexampleInformation(
       final ARGState pStateForCounterexample, final CounterexampleInfo pNewInfo) {
 
@@ -0,0 +1,101 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.counterexamplecheck;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.logging.Level;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+/**
+ * Checks that the counterexample check gives the same verdict with the path automaton built in
+ * memory and with the path automaton read from a witness. The main analysis only tracks locations,
+ * so it reports every syntactically reachable error label.
+ */
+public class CounterexampleCPAcheckerTest {
+
+  private static final String FEASIBLE =
+      "test/programs/simple/globalVariableInitialValue_false-unreach-label.c";
+  private static final String INFEASIBLE =
+      "test/programs/simple/globalVariableInitialValue_true-unreach-label.c";
+
+  private static TestResults check(String pProgram, boolean pInMemoryAutomaton)
+      throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .setOptions(
+                ImmutableMap.<String, String>builder()
+                    .put("cpa", "cpa.arg.ARGCPA")
+                    .put("ARGCPA.cpa", "cpa.composite.CompositeCPA")
+                    .put(
+                        "CompositeCPA.cpas",
+                        "cpa.location.LocationCPA, cpa.callstack.CallstackCPA")
+                    .put("specification", "config/specification/ErrorLabel.spc")
+                    .put("analysis.checkCounterexamples", "true")
+                    .put("counterexample.checker", "CPACHECKER")
+                    .put(
+                        "counterexample.checker.config",
+                        "config/cex-checks/valueAnalysis-as-cex-check.properties")
+                    .put(
+                        "counterexample.checker.inMemoryAutomaton",
+                        Boolean.toString(pInMemoryAutomaton))
+                    .build())
+            .build();
+    // FINE shows whether the in-memory check falls back to a witness
+    TestResults results = CPATestRunner.run(config, pProgram, Level.FINE);
+    if (pInMemoryAutomaton) {
+      assertThat(results.getLog()).doesNotContain("using a witness");
+    }
+    return results;
+  }
+
+  @Test
+  public void testFeasibleCounterexample() throws Exception {
+    TestResults inMemory = check(FEASIBLE, true);
+    TestResults witness = check(FEASIBLE, false);
+
+    inMemory.assertIsUnsafe();
+    witness.assertIsUnsafe();
+    assertThat(inMemory.getLog()).contains("confirmed by counterexample check");
+    assertThat(witness.getLog()).contains("confirmed by counterexample check");
+  }
+
+  @Test
+  public void testInfeasibleCounterexample() throws Exception {
+    TestResults inMemory = check(INFEASIBLE, true);
+    TestResults witness = check(INFEASIBLE, false);
+
+    assertThat(inMemory.getLog()).contains("identified as infeasible");
+    assertThat(witness.getLog()).contains("identified as infeasible");
+    assertThat(inMemory.getCheckerResult().getResult()).isNotEqualTo(Result.FALSE);
+    assertThat(inMemory.getCheckerResult().getResult())
+        .isEqualTo(witness.getCheckerResult().getResult());
+  }
+}
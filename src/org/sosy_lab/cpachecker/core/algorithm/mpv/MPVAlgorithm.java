@@ -23,9 +23,13 @@
  */
 package org.sosy_lab.cpachecker.core.algorithm.mpv;
 
+import static com.google.common.collect.FluentIterable.from;
+
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
@@ -33,8 +37,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
@@ -77,6 +86,7 @@ import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CPAs;
 import org.sosy_lab.cpachecker.util.resources.ResourceLimitChecker;
 
 /**
@@ -234,6 +244,16 @@ public class MPVAlgorithm implements Algorithm, StatisticsProvider {
           "Ignore exceptions, which may be caused by checking of some properties, to successfully check the others.")
   private boolean ignoreInnerExceptions = false;
 
+  @Option(
+      secure = true,
+      name = "parallelPartitions",
+      description =
+          "Number of partitions, which are checked in parallel "
+              + "(1 to check partitions sequentially, -1 to use all available processors). "
+              + "Each partition is checked with its own CPA instance, its CPU time is measured "
+              + "per thread. Time limits of partitions are adjusted when they are started.")
+  private int parallelPartitions = 1;
+
   private final MPVStatistics stats;
   private final ConfigurableProgramAnalysis cpa;
   private final LogManager logger;
@@ -259,6 +279,12 @@ public class MPVAlgorithm implements Algorithm, StatisticsProvider {
     specification = pSpecification;
     cfa = pCfa;
     config.inject(this);
+    if (parallelPartitions == -1) {
+      parallelPartitions = Runtime.getRuntime().availableProcessors();
+    } else if (parallelPartitions < 1) {
+      throw new InvalidConfigurationException(
+          "Invalid number of parallel partitions: " + parallelPartitions);
+    }
     multipleProperties =
         new MultipleProperties(
             specification.getPathToSpecificationAutomata(), propertySeparator, findAllViolations);
@@ -357,6 +383,10 @@ public class MPVAlgorithm implements Algorithm, StatisticsProvider {
         ImmutableList<Partition> partitions = partitioningOperator.createPartitions();
         int partitionNumber = 0;
         logger.log(Level.FINER, "Using the following partitions of properties:", partitions);
+        if (parallelPartitions > 1) {
+          status = status.update(checkPartitionsInParallel(partitions, mainFunction));
+          continue;
+        }
         // Check each partition of properties
         for (Partition partition : partitions) {
           int numberOfProperties = partition.getNumberOfProperties();
@@ -365,7 +395,11 @@ public class MPVAlgorithm implements Algorithm, StatisticsProvider {
             continue;
           }
           stats.partitions.add(partition);
-          adjustTimeLimit(partition, partitions.size(), partitionNumber);
+          adjustTimeLimit(
+              partition,
+              partitions.size() - partitionNumber,
+              partitionNumber == 0,
+              TimeSpan.empty());
           partitionNumber++;
           ShutdownManager shutdownManager = ShutdownManager.createWithParent(shutdownNotifier);
           // Limit resources for partition
@@ -420,8 +454,20 @@ public class MPVAlgorithm implements Algorithm, StatisticsProvider {
     return status;
   }
 
+  /**
+   * Adjust the time limit of the given partition before its analysis is started.
+   *
+   * @param remainingPartitions the number of partitions, which are not started yet, including the
+   *     given one
+   * @param isFirstPartition whether the given partition is the first one of the iteration
+   * @param reservedCpuTime CPU time, which is reserved for partitions that are currently running,
+   *     but was not accounted to their properties yet
+   */
   private void adjustTimeLimit(
-      Partition partition, int overallPartitions, int currentPartitionNumber) {
+      Partition partition,
+      int remainingPartitions,
+      boolean isFirstPartition,
+      TimeSpan reservedCpuTime) {
     if (limitsAdjustmentStrategy.equals(LimitAdjustmentStrategy.NONE)) {
       // Do not change the specified time limit
       return;
@@ -430,11 +476,11 @@ public class MPVAlgorithm implements Algorithm, StatisticsProvider {
       // Ignore intermediate steps
       return;
     }
-    TimeSpan overallSpentCpuTime = stats.getCurrentCpuTime();
+    TimeSpan overallSpentCpuTime = TimeSpan.sum(stats.getCurrentCpuTime(), reservedCpuTime);
     TimeSpan overallCpuTimeLimit =
         cpuTimePerProperty.multiply(multipleProperties.getNumberOfProperties());
     if (overallCpuTimeLimit.compareTo(overallSpentCpuTime) <= 0
-        || overallPartitions <= currentPartitionNumber) {
+        || remainingPartitions <= 0) {
       // Do nothing in case of bad args - should be unreachable
       return;
     }
@@ -443,7 +489,7 @@ public class MPVAlgorithm implements Algorithm, StatisticsProvider {
       case DISTRIBUTE_REMAINING:
         adjustedTimeLimit =
             TimeSpan.difference(overallCpuTimeLimit, overallSpentCpuTime)
-                .divide(overallPartitions - currentPartitionNumber);
+                .divide(remainingPartitions);
         break;
       case DISTRIBUTE_BY_PROPERTY:
         if (partition.getNumberOfProperties() == 1) {
@@ -459,7 +505,7 @@ public class MPVAlgorithm implements Algorithm, StatisticsProvider {
       default:
         break;
     }
-    if (currentPartitionNumber == 0) {
+    if (isFirstPartition) {
       adjustedTimeLimit =
           TimeSpan.ofMillis(Math.round(firstPartitionFactor * adjustedTimeLimit.asMillis()));
     }
@@ -482,15 +528,8 @@ public class MPVAlgorithm implements Algorithm, StatisticsProvider {
       }
       stats.iterationNumber++;
 
-      ConfigurationBuilder innerConfigBuilder = Configuration.builder();
-      innerConfigBuilder.copyFrom(config);
-      innerConfigBuilder.clearOption("analysis.algorithm.MPV"); // to prevent infinite recursion
-      Configuration singleConfig = innerConfigBuilder.build();
-      CoreComponentsFactory coreComponents =
-          new CoreComponentsFactory(
-              singleConfig, logger, shutdownManager.getNotifier(), new AggregatedReachedSets());
-
-      return coreComponents.createAlgorithm(cpa, cfa, specification);
+      return createInnerComponents(shutdownManager.getNotifier())
+          .createAlgorithm(cpa, cfa, specification);
     } catch (InvalidConfigurationException e) {
       // Should be unreachable, since configuration is already checked
       throw new CPAException("Cannot create configuration for inner algorithm", e);
@@ -499,6 +538,214 @@ public class MPVAlgorithm implements Algorithm, StatisticsProvider {
     }
   }
 
+  private CoreComponentsFactory createInnerComponents(ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    ConfigurationBuilder innerConfigBuilder = Configuration.builder();
+    innerConfigBuilder.copyFrom(config);
+    innerConfigBuilder.clearOption("analysis.algorithm.MPV"); // to prevent infinite recursion
+    Configuration singleConfig = innerConfigBuilder.build();
+    return new CoreComponentsFactory(
+        singleConfig, logger, pShutdownNotifier, new AggregatedReachedSets());
+  }
+
+  /**
+   * Check all partitions of one iteration in parallel. Each partition is checked in its own thread
+   * with its own CPA and reached set, only the CFA and the specification are shared. Time limits
+   * are adjusted when a partition is started, thus resources, which were not spent by already
+   * finished partitions, are distributed between the partitions that are started later.
+   */
+  private AlgorithmStatus checkPartitionsInParallel(
+      ImmutableList<Partition> partitions, CFANode mainFunction)
+      throws CPAException, InterruptedException {
+    ImmutableList<Partition> nonEmptyPartitions =
+        from(partitions).filter(p -> p.getNumberOfProperties() > 0).toList();
+    if (nonEmptyPartitions.isEmpty()) {
+      return AlgorithmStatus.SOUND_AND_PRECISE;
+    }
+    ParallelIteration iteration = new ParallelIteration(nonEmptyPartitions.size());
+    ShutdownManager iterationShutdownManager = ShutdownManager.createWithParent(shutdownNotifier);
+    ExecutorService pool =
+        Executors.newFixedThreadPool(
+            Math.min(parallelPartitions, nonEmptyPartitions.size()),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("mpv-partition-%d").build());
+    List<Future<AlgorithmStatus>> futures = new ArrayList<>(nonEmptyPartitions.size());
+
+    AlgorithmStatus status = AlgorithmStatus.SOUND_AND_PRECISE;
+    try {
+      for (Partition partition : nonEmptyPartitions) {
+        futures.add(
+            pool.submit(
+                () ->
+                    checkPartition(
+                        partition, mainFunction, iteration, iterationShutdownManager.getNotifier())));
+      }
+      for (Future<AlgorithmStatus> future : futures) {
+        status = status.update(future.get());
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, CPAException.class);
+      Throwables.throwIfInstanceOf(cause, InterruptedException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new AssertionError("unexpected exception during partition checking", cause);
+    } finally {
+      // stop remaining partitions in case of an exception
+      iterationShutdownManager.requestShutdown("Checking of partitions was aborted");
+      futures.forEach(f -> f.cancel(true));
+      pool.shutdownNow();
+    }
+    return status;
+  }
+
+  /** Check a single partition in the current thread, it is called by the thread pool. */
+  private AlgorithmStatus checkPartition(
+      Partition partition,
+      CFANode mainFunction,
+      ParallelIteration iteration,
+      ShutdownNotifier iterationShutdownNotifier)
+      throws CPAException, InterruptedException {
+    int iterationNumber;
+    synchronized (multipleProperties) {
+      stats.partitions.add(partition);
+      adjustTimeLimit(
+          partition,
+          iteration.getRemainingPartitions(),
+          iteration.isFirstPartition(),
+          iteration.getReservedCpuTime());
+      iteration.partitionStarted(partition);
+      iterationNumber = stats.iterationNumber++;
+    }
+
+    ShutdownManager shutdownManager = ShutdownManager.createWithParent(iterationShutdownNotifier);
+    CoreComponentsFactory coreComponents;
+    ReachedSet reached;
+    try {
+      coreComponents = createInnerComponents(shutdownManager.getNotifier());
+      reached = coreComponents.createReachedSet();
+    } catch (InvalidConfigurationException e) {
+      // Should be unreachable, since configuration is already checked
+      throw new CPAException("Cannot create configuration for inner algorithm", e);
+    }
+
+    // Limit resources for partition, only the CPU time of this thread is considered
+    ResourceLimitChecker limits =
+        ResourceLimitChecker.createThreadCpuTimeLimitChecker(
+            logger, shutdownManager, partition.getTimeLimit(), Thread.currentThread());
+    limits.start();
+    partition.startAnalysisInCurrentThread();
+
+    AlgorithmStatus status = AlgorithmStatus.SOUND_AND_PRECISE;
+    ConfigurableProgramAnalysis partitionCpa = null;
+    try {
+      partitionCpa = coreComponents.createCPA(cfa, specification);
+      Algorithm algorithm = coreComponents.createAlgorithm(partitionCpa, cfa, specification);
+      reached.add(
+          partitionCpa.getInitialState(mainFunction, StateSpacePartition.getDefaultPartition()),
+          partitionCpa.getInitialPrecision(
+              mainFunction, StateSpacePartition.getDefaultPartition()));
+      synchronized (multipleProperties) {
+        multipleProperties.setTargetProperties(partition.getProperties(), reached);
+      }
+      logger.log(
+          Level.INFO,
+          "Iteration",
+          iterationNumber,
+          ": checking partition",
+          partition,
+          "with",
+          partition.getNumberOfProperties(),
+          "properties");
+      boolean isChecked;
+      do {
+        status = status.update(algorithm.run(reached));
+        synchronized (multipleProperties) {
+          isChecked = partition.isChecked(reached);
+        }
+      } while (!isChecked);
+    } catch (InterruptedException e) {
+      if (iterationShutdownNotifier.shouldShutdown()) {
+        // If interrupted by outer limit checker, by the user or by a failed partition, then stop
+        synchronized (multipleProperties) {
+          partition.stopAnalysisOnFailure(reached, "Interrupted");
+        }
+        throw e;
+      } else {
+        // If interrupted by inner limit checker, then continue the algorithm
+        logger.log(Level.INFO, "Partition has exhausted resource limitations:", e);
+        synchronized (multipleProperties) {
+          partition.stopAnalysisOnFailure(reached, "Inner time limit");
+        }
+      }
+    } catch (InvalidConfigurationException e) {
+      synchronized (multipleProperties) {
+        partition.stopAnalysisOnFailure(reached, e.getClass().getSimpleName());
+      }
+      // Should be unreachable, since configuration is already checked
+      throw new CPAException("Cannot create CPA for inner algorithm", e);
+    } catch (Exception e) {
+      synchronized (multipleProperties) {
+        partition.stopAnalysisOnFailure(reached, e.getClass().getSimpleName());
+      }
+      if (ignoreInnerExceptions) {
+        logger.log(Level.INFO, "Exception occured during partition checking:", e);
+      } else {
+        throw e;
+      }
+    } finally {
+      limits.cancel();
+      synchronized (multipleProperties) {
+        iteration.partitionFinished(partition);
+      }
+      if (partitionCpa != null) {
+        CPAs.closeCpaIfPossible(partitionCpa, logger);
+      }
+    }
+    return status;
+  }
+
+  /**
+   * Bookkeeping of the partitions of one iteration, which are checked in parallel. All accesses
+   * have to be synchronized on the checked properties.
+   */
+  private static class ParallelIteration {
+
+    private final int overallPartitions;
+    private int startedPartitions = 0;
+    // time limits of partitions, whose CPU time is not yet accounted to their properties
+    private final Map<Partition, TimeSpan> runningPartitions = new HashMap<>();
+
+    private ParallelIteration(int pOverallPartitions) {
+      overallPartitions = pOverallPartitions;
+    }
+
+    private int getRemainingPartitions() {
+      return overallPartitions - startedPartitions;
+    }
+
+    private boolean isFirstPartition() {
+      return startedPartitions == 0;
+    }
+
+    private TimeSpan getReservedCpuTime() {
+      TimeSpan reserved = TimeSpan.empty();
+      for (TimeSpan timeLimit : runningPartitions.values()) {
+        if (timeLimit.compareTo(TimeSpan.empty()) > 0) {
+          reserved = TimeSpan.sum(reserved, timeLimit);
+        }
+      }
+      return reserved;
+    }
+
+    private void partitionStarted(Partition partition) {
+      startedPartitions++;
+      runningPartitions.put(partition, partition.getTimeLimit());
+    }
+
+    private void partitionFinished(Partition partition) {
+      runningPartitions.remove(partition);
+    }
+  }
+
   @Override
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     pStatsCollection.add(stats);
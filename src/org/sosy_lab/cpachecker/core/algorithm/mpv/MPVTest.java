@@ -183,6 +183,13 @@ public class MPVTest {
     return builder.build();
   }
 
+  private Map<String, String> checkPartitionsInParallel(Map<String, String> config) {
+    return ImmutableMap.<String, String>builder()
+        .putAll(config)
+        .put("mpv.parallelPartitions", "2")
+        .build();
+  }
+
   private List<AbstractSingleProperty> parseResult(CPAcheckerResult result) {
     // Get property names with their results based on 'printResult'
     ImmutableList.Builder<AbstractSingleProperty> builder = ImmutableList.builder();
@@ -323,6 +330,26 @@ public class MPVTest {
     checkResults(results, BASIC_IDEAL_RESULTS, Result.FALSE);
   }
 
+  @Test
+  public void parallelSeparatePartitioning() throws Exception {
+    TestResults results =
+        CPATestRunner.run(
+            checkPartitionsInParallel(
+                createConfig(AUTOMATA_FILES, "AUTOMATON", "SeparatePartitioningOperator", false)),
+            SIMPLE_TEST);
+    checkResults(results, BASIC_IDEAL_RESULTS, Result.FALSE);
+  }
+
+  @Test
+  public void parallelRelevancePartitioning() throws Exception {
+    TestResults results =
+        CPATestRunner.run(
+            checkPartitionsInParallel(
+                createConfig(AUTOMATA_FILES, "AUTOMATON", "RelevancePartitioningOperator", false)),
+            SIMPLE_TEST);
+    checkResults(results, BASIC_IDEAL_RESULTS, Result.FALSE);
+  }
+
   @Test
   public void meaAllViolations() throws Exception {
     TestResults results =
@@ -354,6 +381,16 @@ public class MPVTest {
     checkResults(results, MEA_IDEAL_RESULTS, Result.FALSE);
   }
 
+  @Test
+  public void parallelMeaPartialResult() throws Exception {
+    TestResults results =
+        CPATestRunner.run(
+            checkPartitionsInParallel(
+                createConfig(AUTOMATA_FILES, "AUTOMATON", "SeparatePartitioningOperator", true)),
+            MEA_TEST);
+    checkResults(results, MEA_IDEAL_RESULTS, Result.FALSE);
+  }
+
   @Test
   public void innerTimeLimit() throws Exception {
     TestResults results =
@@ -19,7 +19,9 @@
  */
 package org.sosy_lab.cpachecker.core.algorithm.mpv.partition;
 
+import java.lang.management.ManagementFactory;
 import javax.management.JMException;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.cpachecker.core.algorithm.mpv.property.MultipleProperties;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
@@ -36,6 +38,8 @@ public final class Partition {
       isAssignUnknown; // whether treat analysis failure as Unknown for checked properties or not
   private long cpuTime = 0;
   private TimeSpan spentCpuTime = TimeSpan.ofNanos(-1);
+  // if set, only the CPU time of this thread is accounted to the partition
+  private @Nullable Thread analysisThread = null;
 
   public Partition(
       MultipleProperties pProperties, TimeSpan pPartitionTimeLimit, boolean pIsAssignUnknown) {
@@ -51,13 +55,31 @@ public final class Partition {
   /** Prepare partition for algorithm run. */
   public void startAnalysis() {
     try {
-      cpuTime = ProcessCpuTime.read();
+      cpuTime = readCpuTime();
     } catch (JMException | NoClassDefFoundError e) {
       // user was already warned in MainCPAStatistics
       cpuTime = -1;
     }
   }
 
+  /**
+   * Prepare partition for algorithm run in the current thread. Only the CPU time of this thread is
+   * accounted to the partition, which is required if several partitions are checked in parallel.
+   * The analysis of the partition has to be stopped in the same thread.
+   */
+  public void startAnalysisInCurrentThread() {
+    analysisThread = Thread.currentThread();
+    startAnalysis();
+  }
+
+  private long readCpuTime() throws JMException {
+    if (analysisThread != null) {
+      // returns -1 if measuring the CPU time of threads is disabled
+      return ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime();
+    }
+    return ProcessCpuTime.read();
+  }
+
   /** Stop checking of the partition on algorithm failure. */
   public void stopAnalysisOnFailure(ReachedSet reached, String reason) {
     if (isAssignUnknown) {
@@ -113,11 +135,12 @@ public final class Partition {
   }
 
   public TimeSpan getSpentCPUTime() {
-    if (spentCpuTime.asMillis() > 0) {
+    if (spentCpuTime.asMillis() > 0
+        || (analysisThread != null && analysisThread != Thread.currentThread())) {
       return spentCpuTime;
     }
     try {
-      long stopCpuTime = ProcessCpuTime.read();
+      long stopCpuTime = readCpuTime();
       if (cpuTime >= 0) {
         cpuTime = stopCpuTime - cpuTime;
       }
@@ -0,0 +1,138 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
+
+import static com.google.common.collect.FluentIterable.from;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.blocks.BlockPartitioning;
+import org.sosy_lab.cpachecker.core.algorithm.Algorithm.AlgorithmFactory;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+
+/**
+ * Scheduling data for the speculative analysis of leaf blocks, i.e., blocks that do not contain
+ * calls to other blocks. Such blocks are independent of all other blocks and can be analyzed with
+ * a caller-independent entry abstraction while the main analysis is still descending into the
+ * block tree. If the main analysis later reaches a leaf block with the same reduced entry, the
+ * cached result (or the already running reached-set executor) is reused.
+ *
+ * <p>Speculative analyses use their own shutdown notifier, such that they can be cancelled as soon
+ * as the main analysis terminates.
+ */
+class BlockSpeculation {
+
+  private final Queue<Block> pendingBlocks;
+  private final Precision initialPrecision;
+  private final ShutdownManager shutdownManager;
+  private final AlgorithmFactory algorithmFactory;
+  private final int numberOfThreads;
+
+  /** number of speculative executors that are created, but not yet finished or cancelled. */
+  private final AtomicInteger unfinishedAnalyses = new AtomicInteger(0);
+
+  /** only set by {@link #cancel()}, a shutdown of the whole analysis is not a cancellation. */
+  private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+  BlockSpeculation(
+      BlockPartitioning pPartitioning,
+      Precision pInitialPrecision,
+      ShutdownManager pShutdownManager,
+      AlgorithmFactory pAlgorithmFactory,
+      int pNumberOfThreads) {
+    pendingBlocks = new ConcurrentLinkedQueue<>(getLeafBlocks(pPartitioning));
+    initialPrecision = pInitialPrecision;
+    shutdownManager = pShutdownManager;
+    algorithmFactory = pAlgorithmFactory;
+    numberOfThreads = pNumberOfThreads;
+  }
+
+  /**
+   * Returns all blocks without nested blocks, ordered by the number of their call sites, such that
+   * the most frequently called functions are analyzed first.
+   */
+  private static ImmutableList<Block> getLeafBlocks(BlockPartitioning pPartitioning) {
+    Block mainBlock = pPartitioning.getMainBlock();
+    return from(pPartitioning.getBlocks())
+        .filter(b -> b != mainBlock && b.getCallNodes().size() == 1)
+        .filter(
+            b ->
+                !from(b.getNodes())
+                    .anyMatch(n -> pPartitioning.isCallNode(n) && !b.isCallNode(n)))
+        .toSortedList(
+            Comparator.comparingInt((Block b) -> -b.getCallNode().getNumEnteringEdges())
+                .thenComparingInt(b -> b.getCallNode().getNodeNumber()));
+  }
+
+  /**
+   * Returns the next block for speculative analysis, if some threads of the pool are idle.
+   *
+   * @param pActiveThreads the number of currently active threads of the pool.
+   */
+  @Nullable Block pollBlockIfIdle(int pActiveThreads) {
+    if (isCancelled() || pActiveThreads + unfinishedAnalyses.get() >= numberOfThreads) {
+      return null;
+    }
+    return pendingBlocks.poll();
+  }
+
+  void analysisStarted() {
+    unfinishedAnalyses.incrementAndGet();
+  }
+
+  void analysisFinished() {
+    unfinishedAnalyses.decrementAndGet();
+  }
+
+  Precision getInitialPrecision() {
+    return initialPrecision;
+  }
+
+  AlgorithmFactory getAlgorithmFactory() {
+    return algorithmFactory;
+  }
+
+  ShutdownNotifier getShutdownNotifier() {
+    return shutdownManager.getNotifier();
+  }
+
+  /** Stop all running speculative analyses and do not start new ones. */
+  void cancel() {
+    cancelled.set(true);
+    pendingBlocks.clear();
+    shutdownManager.requestShutdown("main analysis finished, speculative analyses are useless");
+  }
+
+  boolean isCancelled() {
+    return cancelled.get();
+  }
+}
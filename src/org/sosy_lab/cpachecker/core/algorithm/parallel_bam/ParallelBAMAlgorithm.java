@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
@@ -38,6 +39,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -54,6 +56,7 @@ import java.util.concurrent.atomic.LongAccumulator;
 import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.ShutdownManager;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
@@ -63,6 +66,7 @@ import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.io.IO;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.log.LogManagerWithoutDuplicates;
+import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.algorithm.Algorithm;
 import org.sosy_lab.cpachecker.core.algorithm.CPAAlgorithm.CPAAlgorithmFactory;
@@ -99,12 +103,20 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private Path runningRSESeriesFile = Paths.get("RSESeries.csv");
 
+  @Option(
+      description =
+          "analyze blocks without nested blocks (functions without callees) speculatively "
+              + "with their caller-independent entry abstraction, whenever threads are idle.",
+      secure = true)
+  private boolean speculativeLeafBlocks = false;
+
   private final ParallelBAMStatistics stats = new ParallelBAMStatistics();
   private final LogManager logger;
   private final LogManagerWithoutDuplicates oneTimeLogger;
   private final BAMCPAWithBreakOnMissingBlock bamcpa;
   private final AlgorithmFactory algorithmFactory;
   private final ShutdownNotifier shutdownNotifier;
+  private final Configuration config;
 
   public ParallelBAMAlgorithm(
       ConfigurableProgramAnalysis pCpa,
@@ -117,6 +129,7 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     logger = pLogger;
     oneTimeLogger = new LogManagerWithoutDuplicates(pLogger);
     shutdownNotifier = pShutdownNotifier;
+    config = pConfig;
     algorithmFactory = new CPAAlgorithmFactory(bamcpa, logger, pConfig, pShutdownNotifier);
   }
 
@@ -147,6 +160,10 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     final ExecutorService pool = Executors.newFixedThreadPool(numberOfCores, threadFactory);
     final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
     final AtomicBoolean terminateAnalysis = new AtomicBoolean(false);
+    stats.numberOfThreads = numberOfCores;
+
+    final BlockSpeculation speculation =
+        speculativeLeafBlocks ? createSpeculation(mainReachedSet, numberOfCores) : null;
 
     {
       int running = stats.numActiveThreads.get();
@@ -160,6 +177,7 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
             mainReachedSet,
             bamcpa.getBlockPartitioning().getMainBlock(),
             true,
+            false,
             reachedSetMapping,
             pool,
             algorithmFactory,
@@ -167,6 +185,7 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
             stats,
             errors,
             terminateAnalysis,
+            speculation,
             logger);
     reachedSetMapping.put(mainReachedSet, rse); // backwards reference
 
@@ -183,6 +202,10 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
       pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
 
     } finally {
+      if (speculation != null) {
+        // also after a target state or an error, the speculative analyses are useless
+        speculation.cancel();
+      }
       int maxAssassinations = 5;
       for (int i = 0; i < maxAssassinations && !pool.isTerminated(); i++) {
         // in case of problems we must kill the thread pool,
@@ -208,6 +231,10 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
       }
     }
 
+    if (speculation != null) {
+      discardUnfinishedSpeculations(reachedSetMapping);
+    }
+
     collectExceptions(reachedSetMapping, errors, mainReachedSet);
 
     //    assert targetStateFound
@@ -228,6 +255,40 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     return AlgorithmStatus.SOUND_AND_PRECISE.withSound(isSound);
   }
 
+  /**
+   * Remove all speculative reached-sets that were not finished from the mapping and from the BAM
+   * cache. Their executors were not executed after the cancellation, e.g., because the pool was
+   * shut down before.
+   */
+  private void discardUnfinishedSpeculations(
+      ConcurrentMap<ReachedSet, ReachedSetExecutor> pReachedSetMapping) {
+    for (Map.Entry<ReachedSet, ReachedSetExecutor> entry :
+        ImmutableList.copyOf(pReachedSetMapping.entrySet())) {
+      ReachedSetExecutor rse = entry.getValue();
+      if (rse.isSpeculative() && pReachedSetMapping.remove(entry.getKey(), rse)) {
+        rse.discardSpeculativeResult();
+      }
+    }
+  }
+
+  private BlockSpeculation createSpeculation(ReachedSet mainReachedSet, int numberOfCores) {
+    ShutdownManager speculationShutdown = ShutdownManager.createWithParent(shutdownNotifier);
+    AlgorithmFactory speculationAlgorithmFactory;
+    try {
+      speculationAlgorithmFactory =
+          new CPAAlgorithmFactory(bamcpa, logger, config, speculationShutdown.getNotifier());
+    } catch (InvalidConfigurationException e) {
+      // exception would already appear in the constructor
+      throw new AssertionError(e);
+    }
+    return new BlockSpeculation(
+        bamcpa.getBlockPartitioning(),
+        mainReachedSet.getPrecision(mainReachedSet.getFirstState()),
+        speculationShutdown,
+        speculationAlgorithmFactory,
+        numberOfCores);
+  }
+
   private int getNumberOfCores() {
     if (numberOfThreads > 0) {
       return numberOfThreads;
@@ -340,6 +401,10 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     final StatHist histActiveThreads = new StatHist("Active threads");
     final StatHist executionCounter = new StatHist("RSE execution counter");
     private final StatCounter unfinishedRSEcounter = new StatCounter("unfinished reached-sets");
+    final StatCounter cancelledSpeculations =
+        new StatCounter("cancelled speculative reached-sets");
+    final Set<ReachedSet> speculativeReachedSets = ConcurrentHashMap.newKeySet();
+    int numberOfThreads = 0;
 
     final StatisticsSeries<Integer> runningRSESeries =
         (runningRSESeriesFile == null) ? new NoopStatisticsSeries<>() : new StatisticsSeries<>();
@@ -354,6 +419,28 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
       StatisticsUtils.write(pOut, 0, 50, threadTime);
       StatisticsUtils.write(pOut, 1, 50, addingStatesTime);
       StatisticsUtils.write(pOut, 1, 50, terminationCheckTime);
+      StatisticsUtils.write(pOut, 0, 50, "idle thread time", getIdleThreadTime());
+
+      if (speculativeLeafBlocks) {
+        int numSpeculations = speculativeReachedSets.size();
+        // a speculative reached-set is used if an outer analysis registered its initial state
+        long usedSpeculations =
+            speculativeReachedSets
+                .stream()
+                .filter(
+                    rs ->
+                        !bamcpa.getData().getNonReducedInitialStates(rs.getFirstState()).isEmpty())
+                .count();
+        StatisticsUtils.write(pOut, 0, 50, "speculative reached-sets", numSpeculations);
+        StatisticsUtils.write(pOut, 1, 50, "used by other reached-sets", usedSpeculations);
+        StatisticsUtils.write(pOut, 1, 50, cancelledSpeculations);
+        StatisticsUtils.write(
+            pOut,
+            1,
+            50,
+            "speculation hit rate",
+            StatisticsUtils.toPercent(usedSpeculations, numSpeculations));
+      }
 
       if (runningRSESeriesFile != null) {
         try {
@@ -364,6 +451,16 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
       }
     }
 
+    /** The time in which threads of the pool did not execute any reached-set. */
+    private String getIdleThreadTime() {
+      TimeSpan available = wallTime.getSumTime().multiply(numberOfThreads);
+      TimeSpan used = threadTime.getSumTime();
+      if (available.compareTo(used) <= 0) {
+        return TimeSpan.empty().formatAs(TimeUnit.SECONDS);
+      }
+      return TimeSpan.difference(available, used).formatAs(TimeUnit.SECONDS);
+    }
+
     @Override
     public @Nullable String getName() {
       return "BAM-parallel";
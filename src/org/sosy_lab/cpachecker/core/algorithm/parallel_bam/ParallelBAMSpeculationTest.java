@@ -0,0 +1,73 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
+
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+/**
+ * Checks that the speculative analysis of leaf blocks does not change the result of the analysis.
+ * The analysis itself validates the BAM data, which includes the cached reached-sets.
+ */
+public class ParallelBAMSpeculationTest {
+
+  private static final String CONFIG_FILE = "config/valueAnalysis-parallelBam.properties";
+
+  private static final String PROGRAM_DIR = "test/programs/bam/";
+
+  private static TestResults verify(String pProgram, boolean pSpeculative) throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .loadFromFile(CONFIG_FILE)
+            .setOption("specification", "config/specification/sv-comp-reachability.spc")
+            .setOption("algorithm.parallelBam.numberOfThreads", "4")
+            .setOption(
+                "algorithm.parallelBam.speculativeLeafBlocks", Boolean.toString(pSpeculative))
+            .build();
+    return CPATestRunner.run(config, PROGRAM_DIR + pProgram);
+  }
+
+  @Test
+  public void testSafe() throws Exception {
+    verify("leafFunctions_true-unreach-call.c", false).assertIsSafe();
+    verify("leafFunctions_true-unreach-call.c", true).assertIsSafe();
+  }
+
+  @Test
+  public void testUnsafe() throws Exception {
+    verify("leafFunctions_false-unreach-call.c", false).assertIsUnsafe();
+    verify("leafFunctions_false-unreach-call.c", true).assertIsUnsafe();
+  }
+
+  @Test
+  public void testRepeatedUnsafe() throws Exception {
+    // the analysis stops at the target state while speculative analyses might still be running
+    for (int i = 0; i < 10; i++) {
+      verify("leafFunctions_false-unreach-call.c", true).assertIsUnsafe();
+    }
+  }
+}
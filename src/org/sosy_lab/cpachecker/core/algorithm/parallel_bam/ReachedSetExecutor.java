@@ -48,6 +48,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
@@ -67,6 +68,7 @@ import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
 import org.sosy_lab.cpachecker.exceptions.UnsupportedCodeException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
 /**
@@ -94,6 +96,16 @@ class ReachedSetExecutor {
   /** main reached-set is used for checking termination of the algorithm. */
   private final boolean isMainReachedSet;
 
+  /**
+   * A speculative reached-set is analyzed before any other reached-set depends on it. It does not
+   * terminate the analysis when finding a target state and it is cancelled when the main
+   * reached-set is finished.
+   */
+  private final boolean isSpeculative;
+
+  /** scheduling data for speculative analyses, or null if speculation is disabled. */
+  private final @Nullable BlockSpeculation speculation;
+
   /** important central data structure, shared over all threads, need to be synchronized. */
   private final ConcurrentMap<ReachedSet, ReachedSetExecutor> reachedSetMapping;
 
@@ -136,6 +148,7 @@ class ReachedSetExecutor {
       ReachedSet pRs,
       Block pBlock,
       boolean pIsMainReachedSet,
+      boolean pIsSpeculative,
       ConcurrentMap<ReachedSet, ReachedSetExecutor> pReachedSetMapping,
       ExecutorService pPool,
       AlgorithmFactory pAlgorithmFactory,
@@ -143,11 +156,15 @@ class ReachedSetExecutor {
       ParallelBAMStatistics pStats,
       List<Throwable> pErrors,
       AtomicBoolean pTerminateAnalysis,
+      @Nullable BlockSpeculation pSpeculation,
       LogManager pLogger) {
+    Preconditions.checkArgument(!pIsSpeculative || pSpeculation != null);
     bamcpa = pBamCpa;
     rs = pRs;
     block = pBlock;
     isMainReachedSet = pIsMainReachedSet;
+    isSpeculative = pIsSpeculative;
+    speculation = pSpeculation;
     reachedSetMapping = pReachedSetMapping;
     pool = pPool;
     algorithmFactory = pAlgorithmFactory;
@@ -254,8 +271,22 @@ class ReachedSetExecutor {
       handleTermination();
       terminationCheckTimer.stop();
 
+      if (speculation != null) {
+        startSpeculativeAnalyses();
+      }
+
       logger.logf(level, "%s :: exiting, targetStateFound=%s", this, targetStateFound);
 
+    } catch (InterruptedException e) {
+      if (isSpeculative && speculation.isCancelled()) {
+        // expected, the result of this reached-set is no longer needed
+        handleCancellation();
+      } else {
+        logger.logException(level, e, e.getClass().getName());
+        terminateAnalysis.set(true);
+        errors.add(e);
+        pool.shutdownNow();
+      }
     } catch (Throwable e) { // catch everything to avoid deadlocks after a problem.
       logger.logException(level, e, e.getClass().getName());
       terminateAnalysis.set(true);
@@ -276,13 +307,17 @@ class ReachedSetExecutor {
           endsWithTargetState,
           "when a target was found before, it should remain as target of the reached-set");
       Preconditions.checkState(
-          terminateAnalysis.get(),
+          isSpeculative || terminateAnalysis.get(),
           "when a target was found before, we want to stop further scheduling");
     }
 
     if (endsWithTargetState && !bamcpa.searchTargetStatesOnExit()) {
       targetStateFound = true;
-      terminateAnalysis.set(true);
+      if (!isSpeculative) {
+        // For a speculative reached-set, we do not know whether the entry is reachable.
+        // If it is, the target state is found via the cache in the depending reached-set.
+        terminateAnalysis.set(true);
+      }
     }
   }
 
@@ -338,6 +373,14 @@ class ReachedSetExecutor {
       stats.executionCounter.insertValue(execCounter);
       // no need to wait for this#waitingTask, we assume a error-free exit after this point.
 
+      if (isSpeculative) {
+        speculation.analysisFinished();
+      }
+      if (isMainReachedSet && speculation != null) {
+        // all other needed reached-sets are finished, remaining ones are speculative
+        speculation.cancel();
+      }
+
       if (reachedSetMapping.isEmpty()) {
         logger.logf(level, "%s :: all RSEs finished, shutdown threadpool", this);
         pool.shutdown();
@@ -348,6 +391,82 @@ class ReachedSetExecutor {
         level, "%s :: finished=%s, targetStateFound=%s", this, isFinished, targetStateFound);
   }
 
+  /** Cleanup of a speculative reached-set whose analysis was cancelled. */
+  private void handleCancellation() {
+    logger.logf(level, "%s :: speculative analysis cancelled", this);
+    if (reachedSetMapping.remove(rs) != null) {
+      discardSpeculativeResult();
+    }
+    if (reachedSetMapping.isEmpty()) {
+      logger.logf(level, "%s :: all RSEs finished, shutdown threadpool", this);
+      pool.shutdown();
+    }
+  }
+
+  boolean isSpeculative() {
+    return isSpeculative;
+  }
+
+  /**
+   * Remove the incomplete reached-set of a cancelled speculative analysis from the BAM cache, such
+   * that later lookups of the block do not use it. The caller has to remove this executor from the
+   * reached-set mapping.
+   */
+  void discardSpeculativeResult() {
+    Preconditions.checkState(isSpeculative);
+    stats.cancelledSpeculations.inc();
+    speculation.analysisFinished();
+    AbstractState root = rs.getFirstState();
+    bamcpa.getData().getCache().remove(root, rs.getPrecision(root), block, rs);
+  }
+
+  /**
+   * Create new speculative reached-sets for leaf blocks as long as some threads of the pool are
+   * idle. The entry of a leaf block is the caller-independent reduced initial state. If the main
+   * analysis already created a reached-set for this entry, there is nothing to do.
+   */
+  private void startSpeculativeAnalyses() throws InterruptedException {
+    Block leafBlock;
+    while (!terminateAnalysis.get()
+        && (leafBlock = speculation.pollBlockIfIdle(stats.numActiveThreads.get())) != null) {
+      Pair<AbstractState, Precision> entry =
+          bamcpa.getReducedInitialEntry(leafBlock, speculation.getInitialPrecision());
+      BAMDataManager data = bamcpa.getData();
+      final ReachedSet newRs;
+      synchronized (data) {
+        if (data.getCache().get(entry.getFirst(), entry.getSecond(), leafBlock) != null) {
+          continue;
+        }
+        newRs =
+            data.createAndRegisterNewReachedSet(entry.getFirst(), entry.getSecond(), leafBlock)
+                .getReachedSet();
+      }
+
+      ReachedSetExecutor speculativeRse =
+          new ReachedSetExecutor(
+              bamcpa,
+              newRs,
+              leafBlock,
+              false,
+              true,
+              reachedSetMapping,
+              pool,
+              speculation.getAlgorithmFactory(),
+              speculation.getShutdownNotifier(),
+              stats,
+              errors,
+              terminateAnalysis,
+              speculation,
+              logger);
+      if (reachedSetMapping.putIfAbsent(newRs, speculativeRse) == null) {
+        logger.logf(level, "%s :: register speculative RSE %s", this, id(newRs));
+        speculation.analysisStarted();
+        stats.speculativeReachedSets.add(newRs);
+        registerJob(speculativeRse, speculativeRse.asRunnable());
+      }
+    }
+  }
+
   private void updateCache() {
     if (isMainReachedSet) {
       // we do not cache main reached set, because it should not be used internally
@@ -505,6 +624,7 @@ class ReachedSetExecutor {
             newRs,
             pBsme.getBlock(),
             false, // mainReachedSet is never nested in another reached-set
+            false,
             reachedSetMapping,
             pool,
             algorithmFactory,
@@ -512,6 +632,7 @@ class ReachedSetExecutor {
             stats,
             errors,
             terminateAnalysis,
+            speculation,
             logger);
 
     // check whether we already have a matching RSE. If not use the new one.
@@ -519,6 +640,8 @@ class ReachedSetExecutor {
     if (subRse == null) { // there was an already existent RSE
       subRse = newSubRse;
       logger.logf(level, "%s :: register subRSE %s", this, id(newRs));
+    } else if (subRse.isSpeculative) {
+      logger.logf(level, "%s :: reuse speculative subRSE %s", this, id(newRs));
     }
     return subRse;
   }
@@ -26,8 +26,14 @@ package org.sosy_lab.cpachecker.core.algorithm.termination.lasso_analysis;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sosy_lab.java_smt.SolverContextFactory.Solvers.SMTINTERPOL;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Table;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import de.uni_freiburg.informatik.ultimate.core.lib.exceptions.ToolchainCanceledException;
 import de.uni_freiburg.informatik.ultimate.icfgtransformer.transformulatransformers.TermException;
 import de.uni_freiburg.informatik.ultimate.lassoranker.AnalysisType;
@@ -49,9 +55,20 @@ import de.uni_freiburg.informatik.ultimate.logic.SMTLIBException;
 import de.uni_freiburg.informatik.ultimate.logic.Script.LBool;
 import de.uni_freiburg.informatik.ultimate.logic.Term;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.IntegerOption;
@@ -64,6 +81,8 @@ import org.sosy_lab.cpachecker.cfa.ast.c.CVariableDeclaration;
 import org.sosy_lab.cpachecker.core.AnalysisDirection;
 import org.sosy_lab.cpachecker.core.algorithm.termination.lasso_analysis.RankingRelationBuilder.RankingRelationException;
 import org.sosy_lab.cpachecker.core.algorithm.termination.lasso_analysis.construction.LassoBuilder;
+import org.sosy_lab.cpachecker.core.algorithm.termination.lasso_analysis.construction.LassoBuilder.CanonicalStemAndLoop;
+import org.sosy_lab.cpachecker.core.algorithm.termination.lasso_analysis.construction.LassoBuilder.StemAndLoop;
 import org.sosy_lab.cpachecker.core.algorithm.termination.lasso_analysis.toolchain.LassoRankerToolchainStorage;
 import org.sosy_lab.cpachecker.core.counterexample.CounterexampleInfo;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
@@ -176,6 +195,23 @@ public class LassoAnalysis {
   @IntegerOption(min = 1)
   private int maxTemplateFunctions = 3;
 
+  @Option(
+    secure = true,
+    description =
+        "Reuse the result of a previous lasso analysis, if a stem and loop is found again "
+            + "that differs only in the SSA indices of its variables."
+  )
+  private boolean cacheResults = true;
+
+  @Option(
+    secure = true,
+    description =
+        "Number of threads used to synthesize (non-)termination arguments for the lassos "
+            + "of a single counterexample (-1 for one thread per available processor)."
+  )
+  @IntegerOption(min = -1)
+  private int threads = 1;
+
   private final LogManager logger;
   private final ShutdownNotifier shutdownNotifier;
   private final LassoAnalysisStatistics statistics;
@@ -195,6 +231,16 @@ public class LassoAnalysis {
 
   private final ImmutableList<RankingTemplate> rankingTemplates;
 
+  /**
+   * Results of previous analyses. The relevant variables are not part of the key, because they are
+   * determined by the loop.
+   */
+  private final Table<Loop, CanonicalStemAndLoop, LassoAnalysisResult> resultCache =
+      HashBasedTable.create();
+
+  /** Executes the synthesis for several lassos in parallel, null if only one thread is used. */
+  private final @Nullable ExecutorService synthesisPool;
+
   @SuppressWarnings({"resource", "unchecked"})
   public static LassoAnalysis create(
       LassoBuilder pLassoBuilder,
@@ -380,6 +426,24 @@ public class LassoAnalysis {
     toolchainStorage = new LassoRankerToolchainStorage(pLogger, pShutdownNotifier);
 
     rankingTemplates = createTemplates(maxTemplateFunctions);
+
+    if (threads == -1) {
+      threads = Runtime.getRuntime().availableProcessors();
+    } else if (threads == 0) {
+      throw new InvalidConfigurationException(
+          "Option termination.lassoAnalysis.threads needs to be positive or -1.");
+    }
+    if (threads > 1) {
+      synthesisPool =
+          Executors.newFixedThreadPool(
+              threads,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("lasso-analysis-%d")
+                  .build());
+    } else {
+      synthesisPool = null;
+    }
   }
 
   private static ImmutableList<RankingTemplate> createTemplates(int pMaxTemplateFunctions) {
@@ -396,7 +460,14 @@ public class LassoAnalysis {
 
   /** Frees all created resources and the solver context. */
   public void close() {
+    resultCache.clear();
     toolchainStorage.clear();
+    // executeInParallel() waits for its tasks, so the solver context should not be in use anymore
+    if (synthesisPool != null
+        && !MoreExecutors.shutdownAndAwaitTermination(synthesisPool, 1, TimeUnit.MINUTES)) {
+      logger.log(Level.WARNING, "Lasso analysis tasks did not terminate, not closing solver.");
+      return;
+    }
     solverContext.close();
   }
 
@@ -426,9 +497,21 @@ public class LassoAnalysis {
       Loop pLoop, CounterexampleInfo pCounterexample, Set<CVariableDeclaration> pRelevantVariables)
       throws CPATransferException, InterruptedException {
     Collection<Lasso> lassos;
+    @Nullable CanonicalStemAndLoop canonicalStemAndLoop = null;
     statistics.lassoConstructionStarted();
     try {
-      lassos = lassoBuilder.buildLasso(pCounterexample, pRelevantVariables);
+      StemAndLoop stemAndLoop = lassoBuilder.buildStemAndLoop(pCounterexample);
+      if (cacheResults) {
+        canonicalStemAndLoop = lassoBuilder.canonicalize(stemAndLoop);
+        LassoAnalysisResult cachedResult = resultCache.get(pLoop, canonicalStemAndLoop);
+        if (cachedResult != null) {
+          logger.log(Level.FINER, "Reusing result of previous analysis of the same lasso.");
+          statistics.lassoAnalysisResultReused();
+          return cachedResult;
+        }
+      }
+
+      lassos = lassoBuilder.buildLasso(stemAndLoop, pRelevantVariables);
       statistics.lassosConstructed(pLoop, lassos.size());
 
     } catch (TermException | SolverException e) {
@@ -439,7 +522,11 @@ public class LassoAnalysis {
     }
 
     try {
-      return checkTermination(pLoop, lassos, pRelevantVariables);
+      LassoAnalysisResult result = checkTermination(pLoop, lassos, pRelevantVariables);
+      if (canonicalStemAndLoop != null) {
+        resultCache.put(pLoop, canonicalStemAndLoop, result);
+      }
+      return result;
 
     } catch (IOException | SMTLIBException | TermException | SolverException e) {
       logger.logUserException(
@@ -456,6 +543,10 @@ public class LassoAnalysis {
       Loop pLoop, Collection<Lasso> lassos, Set<CVariableDeclaration> pRelevantVariables)
       throws IOException, SMTLIBException, TermException, InterruptedException, SolverException {
 
+    if (synthesisPool != null && lassos.size() > 1) {
+      return checkTerminationInParallel(pLoop, lassos, pRelevantVariables);
+    }
+
     LassoAnalysisResult result = LassoAnalysisResult.unknown();
 
     // Try to synthesize non-termination arguments first because it is much cheaper
@@ -463,11 +554,12 @@ public class LassoAnalysis {
     for (Lasso lasso : lassos) {
       shutdownNotifier.shutdownIfNecessary();
       logger.logf(Level.FINER, "Synthesizing non-termination argument for lasso:\n%s.", lasso);
-      LassoAnalysisResult resultFromLasso = synthesizeNonTerminationArgument(pLoop, lasso);
+      LassoAnalysisResult resultFromLasso = synthesizeNonTerminationArgument(lasso);
       result = result.update(resultFromLasso);
 
       // Stop and return result if non-termination could be proved.
       if (result.hasNonTerminationArgument()) {
+        statistics.synthesizedNonTerminationArgument(pLoop, result.getNonTerminationArgument());
         return result;
       }
     }
@@ -484,10 +576,124 @@ public class LassoAnalysis {
     return result;
   }
 
-  private LassoAnalysisResult synthesizeNonTerminationArgument(Loop pLoop, Lasso lasso)
-      throws IOException, SMTLIBException, TermException {
+  /**
+   * Same as {@link #checkTermination(Loop, Collection, Set)}, but the (non-)termination arguments
+   * for all lassos are synthesized in parallel. The results are combined in the order of the
+   * lassos, thus the result is the same as for the sequential analysis.
+   */
+  private LassoAnalysisResult checkTerminationInParallel(
+      Loop pLoop, Collection<Lasso> lassos, Set<CVariableDeclaration> pRelevantVariables)
+      throws IOException, SMTLIBException, TermException, InterruptedException, SolverException {
 
+    LassoAnalysisResult result = LassoAnalysisResult.unknown();
+
+    // The timers of the statistics cannot be started by several threads,
+    // so we measure the whole phase instead of each lasso.
+    List<Callable<LassoAnalysisResult>> nonTerminationTasks = new ArrayList<>(lassos.size());
+    for (Lasso lasso : lassos) {
+      nonTerminationTasks.add(() -> synthesizeNonTerminationArgument0(lasso));
+    }
     statistics.nonTerminationAnalysisOfLassoStarted();
+    try {
+      for (LassoAnalysisResult resultFromLasso : executeInParallel(nonTerminationTasks)) {
+        result = result.update(resultFromLasso);
+        if (result.hasNonTerminationArgument()) {
+          // only the argument of the returned result is recorded, like in the sequential analysis
+          statistics.synthesizedNonTerminationArgument(pLoop, result.getNonTerminationArgument());
+          return result;
+        }
+      }
+    } finally {
+      statistics.nonTerminationAnalysisOfLassoFinished();
+    }
+
+    List<Callable<LassoAnalysisResult>> terminationTasks = new ArrayList<>(lassos.size());
+    for (Lasso lasso : lassos) {
+      terminationTasks.add(() -> synthesizeTerminationArgument0(pLoop, lasso, pRelevantVariables));
+    }
+    statistics.terminationAnalysisOfLassoStarted();
+    try {
+      for (LassoAnalysisResult resultFromLasso : executeInParallel(terminationTasks)) {
+        result = result.update(resultFromLasso);
+      }
+    } finally {
+      statistics.terminationAnalysisOfLassoFinished();
+    }
+
+    return result;
+  }
+
+  /**
+   * Run the given tasks in the synthesis pool and wait for them. Even after an exception this
+   * method returns only after all tasks are finished, because they use the shared solver context.
+   */
+  private List<LassoAnalysisResult> executeInParallel(List<Callable<LassoAnalysisResult>> pTasks)
+      throws IOException, TermException, InterruptedException, SolverException {
+    AtomicBoolean aborted = new AtomicBoolean(false);
+    Set<Thread> runningWorkers = ConcurrentHashMap.newKeySet();
+    List<Future<LassoAnalysisResult>> futures = new ArrayList<>(pTasks.size());
+    boolean completed = false;
+    try {
+      for (Callable<LassoAnalysisResult> task : pTasks) {
+        futures.add(
+            synthesisPool.submit(
+                () -> {
+                  if (aborted.get()) {
+                    return LassoAnalysisResult.unknown();
+                  }
+                  runningWorkers.add(Thread.currentThread());
+                  try {
+                    return task.call();
+                  } finally {
+                    runningWorkers.remove(Thread.currentThread());
+                  }
+                }));
+      }
+      List<LassoAnalysisResult> results = new ArrayList<>(pTasks.size());
+      for (Future<LassoAnalysisResult> future : futures) {
+        results.add(future.get());
+      }
+      completed = true;
+      return results;
+
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, IOException.class);
+      Throwables.throwIfInstanceOf(cause, TermException.class);
+      Throwables.throwIfInstanceOf(cause, InterruptedException.class);
+      Throwables.throwIfInstanceOf(cause, SolverException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new AssertionError("unexpected exception during lasso analysis", cause);
+    } finally {
+      if (!completed) {
+        // Cancelling the futures would not wait for running tasks,
+        // so instead tell the tasks to abort and wait for them.
+        aborted.set(true);
+        runningWorkers.forEach(Thread::interrupt);
+        for (Future<LassoAnalysisResult> future : futures) {
+          try {
+            Uninterruptibles.getUninterruptibly(future);
+          } catch (ExecutionException e) {
+            // the first exception is already propagated
+          }
+        }
+      }
+    }
+  }
+
+  private LassoAnalysisResult synthesizeNonTerminationArgument(Lasso lasso)
+      throws IOException, SMTLIBException, TermException {
+    statistics.nonTerminationAnalysisOfLassoStarted();
+    try {
+      return synthesizeNonTerminationArgument0(lasso);
+    } finally {
+      statistics.nonTerminationAnalysisOfLassoFinished();
+    }
+  }
+
+  private LassoAnalysisResult synthesizeNonTerminationArgument0(Lasso lasso)
+      throws IOException, SMTLIBException, TermException {
+
     NonTerminationArgument nonTerminationArgument = null;
     try (NonTerminationArgumentSynthesizer nonTerminationArgumentSynthesizer =
         createNonTerminationArgumentSynthesizer(lasso)) {
@@ -496,44 +702,51 @@ public class LassoAnalysis {
       if (result.equals(LBool.SAT) && nonTerminationArgumentSynthesizer.synthesisSuccessful()) {
         nonTerminationArgument = nonTerminationArgumentSynthesizer.getArgument();
         logger.logf(Level.FINE, "Proved non-termination: %s", nonTerminationArgument);
-        statistics.synthesizedNonTerminationArgument(pLoop, nonTerminationArgument);
         return LassoAnalysisResult.fromNonTerminationArgument(nonTerminationArgument);
 
       } else {
         return LassoAnalysisResult.unknown();
       }
-
-    } finally {
-      statistics.nonTerminationAnalysisOfLassoFinished();
     }
   }
 
   private LassoAnalysisResult synthesizeTerminationArgument(
       Loop pLoop, Lasso lasso, Set<CVariableDeclaration> pRelevantVariables)
       throws IOException, SMTLIBException, TermException, InterruptedException, SolverException {
-
     statistics.terminationAnalysisOfLassoStarted();
     try {
-      for (RankingTemplate rankingTemplate : rankingTemplates) {
-        shutdownNotifier.shutdownIfNecessary();
+      return synthesizeTerminationArgument0(pLoop, lasso, pRelevantVariables);
+    } finally {
+      statistics.terminationAnalysisOfLassoFinished();
+    }
+  }
 
-        try (TerminationArgumentSynthesizer terminationArgumentSynthesizer =
-            createTerminationArgumentSynthesizer(lasso, rankingTemplate)) {
-          LBool result = null;
-          try {
-            result = terminationArgumentSynthesizer.synthesize();
-          } catch (AssertionError e) {
-            // Workaround for a bug in LassoRanker (terminationArgumentSynthesizer.synthesize()):
-            // An assertion is violated if the time limit is reached.
-            if ("not yet implemented".equals(e.getMessage())) {
-              shutdownNotifier.shutdownIfNecessary();
-            }
-            throw e;
+  private LassoAnalysisResult synthesizeTerminationArgument0(
+      Loop pLoop, Lasso lasso, Set<CVariableDeclaration> pRelevantVariables)
+      throws IOException, SMTLIBException, TermException, InterruptedException, SolverException {
+
+    for (RankingTemplate rankingTemplate : rankingTemplates) {
+      shutdownNotifier.shutdownIfNecessary();
+
+      try (TerminationArgumentSynthesizer terminationArgumentSynthesizer =
+          createTerminationArgumentSynthesizer(lasso, rankingTemplate)) {
+        LBool result = null;
+        try {
+          result = terminationArgumentSynthesizer.synthesize();
+        } catch (AssertionError e) {
+          // Workaround for a bug in LassoRanker (terminationArgumentSynthesizer.synthesize()):
+          // An assertion is violated if the time limit is reached.
+          if ("not yet implemented".equals(e.getMessage())) {
+            shutdownNotifier.shutdownIfNecessary();
           }
-          if (result.equals(LBool.SAT) && terminationArgumentSynthesizer.synthesisSuccessful()) {
-            TerminationArgument terminationArgument = terminationArgumentSynthesizer.getArgument();
-            logger.logf(Level.FINE, "Found termination argument: %s", terminationArgument);
+          throw e;
+        }
+        if (result.equals(LBool.SAT) && terminationArgumentSynthesizer.synthesisSuccessful()) {
+          TerminationArgument terminationArgument = terminationArgumentSynthesizer.getArgument();
+          logger.logf(Level.FINE, "Found termination argument: %s", terminationArgument);
 
+          // the solver context is shared by all threads of the parallel analysis
+          synchronized (solverContext) {
             try (ProverEnvironment proverEnv = solverContext.newProverEnvironment()) {
               RankingRelation rankingRelation =
                   rankingRelationBuilder.fromTerminationArgument(
@@ -553,9 +766,6 @@ public class LassoAnalysis {
           }
         }
       }
-
-    } finally {
-      statistics.terminationAnalysisOfLassoFinished();
     }
 
     return LassoAnalysisResult.unknown();
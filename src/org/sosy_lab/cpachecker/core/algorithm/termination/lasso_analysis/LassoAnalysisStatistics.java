@@ -56,6 +56,8 @@ public abstract class LassoAnalysisStatistics implements Statistics {
 
   protected final AtomicInteger lassosCurrentIteration = new AtomicInteger();
 
+  protected final AtomicInteger reusedLassoAnalysisResults = new AtomicInteger();
+
   protected final Multimap<Loop, TerminationArgument> terminationArguments =
       MultimapBuilder.linkedHashKeys().arrayListValues().build();
 
@@ -89,6 +91,10 @@ public abstract class LassoAnalysisStatistics implements Statistics {
     lassosCurrentIteration.addAndGet(numberOfLassos);
   }
 
+  public void lassoAnalysisResultReused() {
+    reusedLassoAnalysisResults.incrementAndGet();
+  }
+
   public void nonTerminationAnalysisOfLassoStarted() {
     lassoNonTerminationTime.start();
   }
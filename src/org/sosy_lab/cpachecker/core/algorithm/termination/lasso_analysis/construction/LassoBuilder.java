@@ -34,6 +34,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
 import de.uni_freiburg.informatik.ultimate.icfgtransformer.transformulatransformers.TermException;
 import de.uni_freiburg.informatik.ultimate.lassoranker.Lasso;
 import de.uni_freiburg.informatik.ultimate.lassoranker.LinearInequality;
@@ -49,7 +51,11 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.OptionalInt;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import org.sosy_lab.common.ShutdownNotifier;
@@ -68,6 +74,7 @@ import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.cpa.arg.path.PathIterator;
 import org.sosy_lab.cpachecker.cpa.termination.TerminationState;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
@@ -172,17 +179,29 @@ public class LassoBuilder {
   public Collection<Lasso> buildLasso(
       CounterexampleInfo pCounterexampleInfo, Set<CVariableDeclaration> pRelevantVariables)
       throws CPATransferException, InterruptedException, TermException, SolverException {
+    return buildLasso(buildStemAndLoop(pCounterexampleInfo), pRelevantVariables);
+  }
 
+  public StemAndLoop buildStemAndLoop(CounterexampleInfo pCounterexampleInfo)
+      throws CPATransferException, InterruptedException {
     stats.stemAndLoopConstructionStarted();
-    StemAndLoop stemAndLoop = createStemAndLoop(pCounterexampleInfo);
-    shutdownNotifier.shutdownIfNecessary();
-    stats.stemAndLoopConstructionFinished();
+    try {
+      StemAndLoop stemAndLoop = createStemAndLoop(pCounterexampleInfo);
+      shutdownNotifier.shutdownIfNecessary();
+      return stemAndLoop;
+    } finally {
+      stats.stemAndLoopConstructionFinished();
+    }
+  }
 
+  public Collection<Lasso> buildLasso(
+      StemAndLoop stemAndLoop, Set<CVariableDeclaration> pRelevantVariables)
+      throws InterruptedException, TermException, SolverException {
     ImmutableMap<String, CVariableDeclaration> relevantVariables =
         Maps.uniqueIndex(pRelevantVariables, AVariableDeclaration::getQualifiedName);
+    stats.lassosCreationStarted();
     try {
-      stats.lassosCreationStarted();
-    return createLassos(stemAndLoop, relevantVariables);
+      return createLassos(stemAndLoop, relevantVariables);
     } finally {
       stats.lassosCreationFinished();
     }
@@ -302,6 +321,57 @@ public class LassoBuilder {
     return lassos.build();
   }
 
+  /**
+   * Returns a representation of the given stem and loop that is equal for all stems and loops,
+   * which differ only in the SSA indices of their variables. The SSA indices of each variable are
+   * replaced by their rank among all indices of this variable in stem and loop, thus lassos of
+   * different iterations that only have a different prefix of the stem are recognized as equal.
+   */
+  public CanonicalStemAndLoop canonicalize(StemAndLoop pStemAndLoop) {
+    BooleanFormula stem = pStemAndLoop.getStem();
+    BooleanFormula loop = pStemAndLoop.getLoop();
+
+    SortedSetMultimap<String, Integer> indices = TreeMultimap.create();
+    for (String name :
+        Iterables.concat(fmgrView.extractVariableNames(stem), fmgrView.extractVariableNames(loop))) {
+      Pair<String, OptionalInt> variable = FormulaManagerView.parseName(name);
+      if (variable.getSecond().isPresent()) {
+        indices.put(variable.getFirst(), variable.getSecond().getAsInt());
+      }
+    }
+    ImmutableMap.Builder<String, ImmutableList<Integer>> ssaRanks = ImmutableMap.builder();
+    for (String variable : indices.keySet()) {
+      // the SSA maps determine the in- and out-variables of stem and loop
+      ssaRanks.put(
+          variable,
+          ImmutableList.of(
+              getRank(indices, variable, pStemAndLoop.getStemOutVars().getIndex(variable)),
+              getRank(indices, variable, pStemAndLoop.getLoopInVars().getIndex(variable)),
+              getRank(indices, variable, pStemAndLoop.getLoopOutVars().getIndex(variable))));
+    }
+
+    Function<String, String> renaming =
+        name -> {
+          Pair<String, OptionalInt> variable = FormulaManagerView.parseName(name);
+          if (!variable.getSecond().isPresent()) {
+            return name;
+          }
+          int rank = getRank(indices, variable.getFirst(), variable.getSecond().getAsInt());
+          return rank < 0 ? name : variable.getFirst() + "@" + rank;
+        };
+    return new CanonicalStemAndLoop(
+        fmgrView.renameFreeVariablesAndUFs(stem, renaming),
+        fmgrView.renameFreeVariablesAndUFs(loop, renaming),
+        ssaRanks.build());
+  }
+
+  /** Returns the rank of the index among all indices of the variable, or -1 if it is none. */
+  private static int getRank(
+      SortedSetMultimap<String, Integer> pIndices, String pVariable, int pIndex) {
+    SortedSet<Integer> variableIndices = pIndices.get(pVariable);
+    return variableIndices.contains(pIndex) ? variableIndices.headSet(pIndex).size() : -1;
+  }
+
   private boolean isUnsat(BooleanFormula formula) throws SolverException, InterruptedException {
     try (ProverEnvironment proverEnvironment = proverEnvironmentSupplier.get()) {
       proverEnvironment.push(formula);
@@ -506,6 +576,40 @@ public class LassoBuilder {
     }
   }
 
+  /** Stem and loop with canonical SSA indices, only useful for comparisons. */
+  public static final class CanonicalStemAndLoop {
+
+    private final BooleanFormula stem;
+    private final BooleanFormula loop;
+    private final ImmutableMap<String, ImmutableList<Integer>> ssaRanks;
+
+    private CanonicalStemAndLoop(
+        BooleanFormula pStem,
+        BooleanFormula pLoop,
+        ImmutableMap<String, ImmutableList<Integer>> pSsaRanks) {
+      stem = pStem;
+      loop = pLoop;
+      ssaRanks = pSsaRanks;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (this == pObj) {
+        return true;
+      }
+      if (!(pObj instanceof CanonicalStemAndLoop)) {
+        return false;
+      }
+      CanonicalStemAndLoop other = (CanonicalStemAndLoop) pObj;
+      return stem.equals(other.stem) && loop.equals(other.loop) && ssaRanks.equals(other.ssaRanks);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(stem, loop, ssaRanks);
+    }
+  }
+
   public static class Dnf {
 
     private final ImmutableSet<BooleanFormula> clauses;
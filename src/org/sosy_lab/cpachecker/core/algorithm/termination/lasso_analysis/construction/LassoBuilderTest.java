@@ -0,0 +1,156 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.termination.lasso_analysis.construction;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import de.uni_freiburg.informatik.ultimate.logic.Term;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.core.algorithm.termination.lasso_analysis.LassoAnalysisStatistics;
+import org.sosy_lab.cpachecker.core.algorithm.termination.lasso_analysis.construction.LassoBuilder.CanonicalStemAndLoop;
+import org.sosy_lab.cpachecker.core.algorithm.termination.lasso_analysis.construction.LassoBuilder.StemAndLoop;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.FormulaType;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.basicimpl.AbstractFormulaManager;
+
+public class LassoBuilderTest extends SolverViewBasedTest0 {
+
+  private LassoBuilder lassoBuilder;
+
+  @Override
+  protected Solvers solverToUse() {
+    // LassoBuilder works on the terms of SMTInterpol
+    return Solvers.SMTINTERPOL;
+  }
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    ShutdownNotifier notifier = ShutdownNotifier.createDummy();
+    lassoBuilder =
+        new LassoBuilder(
+            config,
+            logger,
+            notifier,
+            (AbstractFormulaManager<Term, ?, ?, ?>) mgr,
+            mgrv,
+            () -> context.newProverEnvironment(),
+            new PathFormulaManagerImpl(
+                mgrv,
+                config,
+                logger,
+                notifier,
+                MachineModel.LINUX32,
+                Optional.empty(),
+                AnalysisDirection.FORWARD),
+            Mockito.mock(LassoAnalysisStatistics.class));
+  }
+
+  private IntegerFormula x(int pIndex) {
+    return mgrv.makeVariable(FormulaType.IntegerType, "x", pIndex);
+  }
+
+  private static SSAMap ssa(int pIndexOfX) {
+    return SSAMap.emptySSAMap().builder().setIndex("x", CNumericTypes.INT, pIndexOfX).build();
+  }
+
+  private static PathFormula pathFormula(BooleanFormula pFormula, SSAMap pSsa) {
+    return new PathFormula(pFormula, pSsa, PointerTargetSet.emptyPointerTargetSet(), 1);
+  }
+
+  /**
+   * The lasso of <code>while (x > 0) { x = x - decrement; }</code>, with the given SSA indices of
+   * x at the loop head and after the loop body.
+   */
+  private StemAndLoop countDown(int pLoopHeadIndex, int pLoopEndIndex, int pDecrement) {
+    BooleanFormula stem = imgrv.greaterOrEquals(x(pLoopHeadIndex), imgrv.makeNumber(0));
+    BooleanFormula loop =
+        bmgrv.and(
+            imgrv.greaterThan(x(pLoopHeadIndex), imgrv.makeNumber(0)),
+            imgrv.equal(
+                x(pLoopEndIndex),
+                imgrv.subtract(x(pLoopHeadIndex), imgrv.makeNumber(pDecrement))));
+    return new StemAndLoop(
+        pathFormula(stem, ssa(pLoopHeadIndex)),
+        pathFormula(loop, ssa(pLoopEndIndex)),
+        ssa(pLoopHeadIndex));
+  }
+
+  @Test
+  public void testSameLassoWithOtherIndices() {
+    CanonicalStemAndLoop first = lassoBuilder.canonicalize(countDown(1, 2, 1));
+    CanonicalStemAndLoop second = lassoBuilder.canonicalize(countDown(5, 6, 1));
+    CanonicalStemAndLoop withGap = lassoBuilder.canonicalize(countDown(3, 7, 1));
+
+    assertThat(second).isEqualTo(first);
+    assertThat(second.hashCode()).isEqualTo(first.hashCode());
+    assertThat(withGap).isEqualTo(first);
+  }
+
+  @Test
+  public void testOtherLoop() {
+    assertThat(lassoBuilder.canonicalize(countDown(1, 2, 2)))
+        .isNotEqualTo(lassoBuilder.canonicalize(countDown(1, 2, 1)));
+  }
+
+  @Test
+  public void testOtherSsaMaps() {
+    StemAndLoop lasso = countDown(1, 2, 1);
+    // same formulas, but x is not an out-variable of the loop
+    StemAndLoop otherOutVariables =
+        new StemAndLoop(
+            pathFormula(lasso.getStem(), ssa(1)), pathFormula(lasso.getLoop(), ssa(1)), ssa(1));
+
+    assertThat(lassoBuilder.canonicalize(otherOutVariables))
+        .isNotEqualTo(lassoBuilder.canonicalize(lasso));
+  }
+
+  @Test
+  public void testOtherVariable() {
+    StemAndLoop lasso = countDown(1, 2, 1);
+    IntegerFormula y = mgrv.makeVariable(FormulaType.IntegerType, "y", 1);
+    StemAndLoop otherStem =
+        new StemAndLoop(
+            pathFormula(imgrv.greaterOrEquals(y, imgrv.makeNumber(0)), ssa(1)),
+            pathFormula(lasso.getLoop(), ssa(2)),
+            ssa(1));
+
+    assertThat(lassoBuilder.canonicalize(otherStem))
+        .isNotEqualTo(lassoBuilder.canonicalize(lasso));
+  }
+}
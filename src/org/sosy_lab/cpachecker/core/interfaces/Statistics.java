@@ -23,7 +23,9 @@
  */
 package org.sosy_lab.cpachecker.core.interfaces;
 
+import com.google.common.collect.ImmutableMap;
 import java.io.PrintStream;
+import java.util.Map;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
@@ -82,6 +84,20 @@ public interface Statistics {
    */
   default void writeOutputFiles(Result pResult, UnmodifiableReachedSet pReached) {}
 
+  /**
+   * Return the current values of this group of statistics while the analysis is still running,
+   * e.g., for periodic snapshots of long-running analyses.
+   *
+   * <p>Note that this method is called by another thread than the analysis, so it must not modify
+   * any state and should only read values that are safe to read concurrently, like counters and
+   * timers. The values may be slightly outdated or inconsistent with each other.
+   *
+   * @return A map from the names of the statistics to their current values (no values by default).
+   */
+  default Map<String, Object> getSnapshot() {
+    return ImmutableMap.of();
+  }
+
   int DEFAULT_OUTPUT_NAME_COL_WIDTH = 50;
 
   /**
@@ -23,14 +23,25 @@
  */
 package org.sosy_lab.cpachecker.cpa.automaton;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 
 public class Automata {
 
   private static final Automaton LOOP_HEAD_TARGET_AUTOMATON;
 
+  private static final AutomatonTransition STOP_TRANSITION =
+      new AutomatonTransition.Builder(AutomatonBoolExpr.TRUE, AutomatonInternalState.BOTTOM)
+          .build();
+
   static {
     String initStateName = "Init";
     AutomatonTransition toInit =
@@ -57,6 +68,77 @@ public class Automata {
     return LOOP_HEAD_TARGET_AUTOMATON;
   }
 
+  /**
+   * Create an automaton that follows exactly the CFA edges between the given states of an ARG,
+   * starting at the root, and stops on all other edges. This is the in-memory variant of the
+   * path automata that are written by {@link
+   * org.sosy_lab.cpachecker.cpa.arg.ARGUtils#producePathAutomaton(Appendable, ARGState, Set,
+   * String, org.sosy_lab.cpachecker.core.counterexample.CounterexampleInfo)}, but it matches the
+   * edge objects instead of their raw statements, thus it can only be used with the same CFA. The
+   * automaton does not signal target states itself, this is left to the specification.
+   *
+   * @return the automaton, or an empty result if two states on the path are not connected by CFA
+   *     edges (e.g., because an analysis skipped some edges)
+   */
+  public static Optional<Automaton> createPathAutomaton(
+      String pName, ARGState pRootState, Set<ARGState> pPathStates) {
+    List<AutomatonInternalState> states = new ArrayList<>();
+
+    for (ARGState state : ImmutableList.sortedCopyOf(pPathStates)) {
+      List<AutomatonTransition> transitions = new ArrayList<>();
+
+      for (ARGState child : state.getChildren()) {
+        if (child.isCovered()) {
+          child = child.getCoveringState();
+        }
+        if (!pPathStates.contains(child)) {
+          continue;
+        }
+
+        List<CFAEdge> edges = state.getEdgesToChild(child);
+        if (edges.isEmpty()) {
+          return Optional.empty();
+        }
+
+        // several edges between two states (dynamic multi-edges) are matched one after the other
+        String followStateName = getPathStateName(child);
+        for (int i = edges.size() - 1; i > 0; i--) {
+          String intermediateStateName =
+              getPathStateName(state) + "_" + child.getStateId() + "_" + i;
+          states.add(
+              new AutomatonInternalState(
+                  intermediateStateName,
+                  ImmutableList.of(matchEdge(edges.get(i), followStateName), STOP_TRANSITION),
+                  false,
+                  false));
+          followStateName = intermediateStateName;
+        }
+        transitions.add(matchEdge(edges.get(0), followStateName));
+      }
+
+      transitions.add(STOP_TRANSITION);
+      states.add(
+          new AutomatonInternalState(getPathStateName(state), transitions, false, false));
+    }
+
+    try {
+      return Optional.of(
+          new Automaton(pName, ImmutableMap.of(), states, getPathStateName(pRootState)));
+    } catch (InvalidAutomatonException e) {
+      throw new AssertionError("Automaton built in code should be valid.", e);
+    }
+  }
+
+  private static AutomatonTransition matchEdge(CFAEdge pEdge, String pFollowStateName) {
+    return new AutomatonTransition.Builder(
+            new AutomatonBoolExpr.MatchCFAEdges(ImmutableSet.of(pEdge)), pFollowStateName)
+        .build();
+  }
+
+  private static String getPathStateName(ARGState pState) {
+    return "ARG" + pState.getStateId();
+  }
+
   private Automata() {
 
   }
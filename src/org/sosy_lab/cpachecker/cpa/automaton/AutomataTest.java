@@ -0,0 +1,198 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.AssumeEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.location.LocationStateFactory;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class AutomataTest {
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private CFA cfa;
+  private LocationStateFactory locations;
+
+  @Before
+  public void setUp() throws Exception {
+    cfa =
+        TestDataTools.makeCFA(
+            "int main() {",
+            "  int x;",
+            "  int y;",
+            "  if (x > 0) {",
+            "    y = 1;",
+            "  } else {",
+            "    y = 2;",
+            "  }",
+            "  return y;",
+            "}");
+    locations =
+        new LocationStateFactory(cfa, AnalysisDirection.FORWARD, Configuration.defaultConfiguration());
+  }
+
+  private FluentIterable<CFAEdge> allEdges() {
+    return FluentIterable.from(cfa.getAllNodes()).transformAndConcat(CFAUtils::allLeavingEdges);
+  }
+
+  private CFAEdge statement(String pRawStatement) {
+    return allEdges().filter(e -> e.getRawStatement().equals(pRawStatement)).toList().get(0);
+  }
+
+  private CFAEdge assume(boolean pTruthAssumption) {
+    return allEdges()
+        .filter(AssumeEdge.class)
+        .filter(e -> e.getTruthAssumption() == pTruthAssumption)
+        .toList()
+        .get(0);
+  }
+
+  private ARGState state(CFANode pNode, ARGState pParent) {
+    return new ARGState(locations.getState(pNode), pParent);
+  }
+
+  /** Returns the automaton state for the given ARG state, or null if there is none. */
+  private static AutomatonInternalState getState(Automaton pAutomaton, ARGState pState) {
+    String name = "ARG" + pState.getStateId();
+    return FluentIterable.from(pAutomaton.getStates())
+        .firstMatch(s -> s.getName().equals(name))
+        .orNull();
+  }
+
+  /** Returns the state that the automaton reaches from the given state with the given edge. */
+  private AutomatonInternalState getSuccessor(AutomatonInternalState pState, CFAEdge pEdge)
+      throws Exception {
+    AutomatonExpressionArguments args =
+        new AutomatonExpressionArguments(null, ImmutableMap.of(), ImmutableList.of(), pEdge, logger);
+    for (AutomatonTransition transition : pState.getTransitions()) {
+      if (transition.match(args).getValue()) {
+        return transition.getFollowState();
+      }
+    }
+    return pState;
+  }
+
+  @Test
+  public void testBranchingPath() throws Exception {
+    CFAEdge thenEdge = assume(true);
+    CFAEdge elseEdge = assume(false);
+    ARGState root = state(thenEdge.getPredecessor(), null);
+    ARGState thenState = state(thenEdge.getSuccessor(), root);
+    ARGState elseState = state(elseEdge.getSuccessor(), root);
+
+    Optional<Automaton> automaton =
+        Automata.createPathAutomaton("test", root, ImmutableSet.of(root, thenState, elseState));
+
+    assertThat(automaton).isPresent();
+    AutomatonInternalState initial = automaton.get().getInitialState();
+    assertThat(initial).isEqualTo(getState(automaton.get(), root));
+    assertThat(getSuccessor(initial, thenEdge)).isEqualTo(getState(automaton.get(), thenState));
+    assertThat(getSuccessor(initial, elseEdge)).isEqualTo(getState(automaton.get(), elseState));
+    assertThat(getSuccessor(initial, statement("y = 1;")))
+        .isEqualTo(AutomatonInternalState.BOTTOM);
+  }
+
+  @Test
+  public void testOnlyPathStatesAreFollowed() throws Exception {
+    CFAEdge thenEdge = assume(true);
+    ARGState root = state(thenEdge.getPredecessor(), null);
+    ARGState thenState = state(thenEdge.getSuccessor(), root);
+    ARGState elseState = state(assume(false).getSuccessor(), root);
+
+    Automaton automaton =
+        Automata.createPathAutomaton("test", root, ImmutableSet.of(root, thenState)).get();
+
+    assertThat(getState(automaton, elseState)).isNull();
+    AutomatonInternalState initial = automaton.getInitialState();
+    assertThat(getSuccessor(initial, thenEdge)).isEqualTo(getState(automaton, thenState));
+    assertThat(getSuccessor(initial, assume(false))).isEqualTo(AutomatonInternalState.BOTTOM);
+  }
+
+  @Test
+  public void testMultiEdgeHole() throws Exception {
+    // the declarations of x and y are a chain of edges without a state in between
+    CFAEdge first = statement("int x;");
+    CFAEdge second = statement("int y;");
+    assertThat(first.getSuccessor()).isEqualTo(second.getPredecessor());
+    ARGState root = state(first.getPredecessor(), null);
+    ARGState child = state(second.getSuccessor(), root);
+
+    Automaton automaton =
+        Automata.createPathAutomaton("test", root, ImmutableSet.of(root, child)).get();
+
+    AutomatonInternalState initial = automaton.getInitialState();
+    AutomatonInternalState intermediate = getSuccessor(initial, first);
+    assertThat(intermediate).isNotEqualTo(initial);
+    assertThat(intermediate).isNotEqualTo(AutomatonInternalState.BOTTOM);
+    assertThat(getSuccessor(intermediate, second)).isEqualTo(getState(automaton, child));
+
+    // the edges need to be taken in order
+    assertThat(getSuccessor(initial, second)).isEqualTo(AutomatonInternalState.BOTTOM);
+    assertThat(getSuccessor(intermediate, first)).isEqualTo(AutomatonInternalState.BOTTOM);
+  }
+
+  @Test
+  public void testCoveredChild() throws Exception {
+    CFAEdge edge = statement("y = 1;");
+    ARGState root = state(edge.getPredecessor(), null);
+    ARGState covering = state(edge.getSuccessor(), null);
+    ARGState covered = state(edge.getSuccessor(), root);
+    covered.setCovered(covering);
+
+    // the covered state itself is not part of the path, the automaton follows its covering state
+    Automaton automaton =
+        Automata.createPathAutomaton("test", root, ImmutableSet.of(root, covering)).get();
+
+    assertThat(getSuccessor(automaton.getInitialState(), edge))
+        .isEqualTo(getState(automaton, covering));
+  }
+
+  @Test
+  public void testUnconnectedStates() throws Exception {
+    // there is no unique chain of edges from the branching node to the end of the function
+    ARGState root = state(assume(true).getPredecessor(), null);
+    ARGState child = state(statement("return y;").getSuccessor(), root);
+
+    assertThat(Automata.createPathAutomaton("test", root, ImmutableSet.of(root, child)))
+        .isEmpty();
+  }
+}
@@ -78,8 +78,11 @@ class AutomatonASTComparator {
 
   static ASTMatcher generatePatternAST(String pPattern, CParser parser, Scope scope)
       throws InvalidAutomatonException, NoException, InterruptedException {
-    return CParserUtils.parseSingleStatement(replaceJokersInPattern(pPattern), parser, scope)
-        .accept(ASTMatcherGenerator.INSTANCE);
+    String pattern = replaceJokersInPattern(pPattern);
+    ASTMatcher matcher =
+        CParserUtils.parseSingleStatement(pattern, parser, scope)
+            .accept(ASTMatcherGenerator.INSTANCE);
+    return new PatternMatcher(matcher, pattern.contains(NUMBERED_JOKER_EXPR));
   }
 
   @VisibleForTesting
@@ -115,6 +118,14 @@ class AutomatonASTComparator {
   static interface ASTMatcher {
 
     boolean matches(CAstNode pSource, AutomatonExpressionArguments pArgs);
+
+    /**
+     * Returns whether a match may bind transition variables, i.e., whether the pattern contains
+     * numbered jokers like $1. Otherwise the result of a match depends only on the source AST.
+     */
+    default boolean bindsTransitionVariables() {
+      return true;
+    }
   }
 
   private static interface CheckedASTMatcher<T extends CAstNode> {
@@ -401,6 +412,33 @@ class AutomatonASTComparator {
 
   // several concrete implementations of ASTMatcher
 
+  /** The matcher for a complete pattern, which knows whether the pattern has numbered jokers. */
+  private static final class PatternMatcher implements ASTMatcher {
+
+    private final ASTMatcher delegate;
+    private final boolean bindsTransitionVariables;
+
+    PatternMatcher(ASTMatcher pDelegate, boolean pBindsTransitionVariables) {
+      delegate = pDelegate;
+      bindsTransitionVariables = pBindsTransitionVariables;
+    }
+
+    @Override
+    public boolean matches(CAstNode pSource, AutomatonExpressionArguments pArgs) {
+      return delegate.matches(pSource, pArgs);
+    }
+
+    @Override
+    public boolean bindsTransitionVariables() {
+      return bindsTransitionVariables;
+    }
+
+    @Override
+    public String toString() {
+      return delegate.toString();
+    }
+  }
+
   private static enum JokerMatcher implements ASTMatcher {
     INSTANCE;
 
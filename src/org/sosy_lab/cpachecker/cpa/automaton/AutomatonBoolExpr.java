@@ -29,8 +29,10 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -87,9 +89,23 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
   abstract ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs)
       throws CPATransferException;
 
+  /**
+   * Returns whether the value of this expression depends only on the CFA edge (and not on automaton
+   * variables, transition variables, or other abstract states), and whether its evaluation has no
+   * side effects. Such expressions need to be evaluated only once per edge.
+   */
+  default boolean isEdgeLocal() {
+    return false;
+  }
+
   static enum MatchProgramExit implements AutomatonBoolExpr {
     INSTANCE;
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
       if (pArgs.getCfaEdge().getSuccessor().getNumLeavingEdges() == 0) {
@@ -148,6 +164,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
   static enum MatchProgramEntry implements AutomatonBoolExpr {
     INSTANCE;
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
       CFAEdge edge = pArgs.getCfaEdge();
@@ -167,6 +188,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
   static enum MatchLoopStart implements AutomatonBoolExpr {
     INSTANCE;
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
       if (pArgs.getCfaEdge().getSuccessor().isLoopStart()) {
@@ -197,6 +223,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "SUCCESSOR IN " + acceptedNodes;
@@ -378,6 +409,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH FUNCTION CALL STATEMENT \"" + functionName + "\"";
@@ -418,6 +454,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH FUNCTION CALL \"" + functionName + "\"";
@@ -535,6 +576,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH FUNCTION EXIT \"" + functionName + "\"";
@@ -575,6 +621,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
         }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH LABEL \"" + label + "\"";
@@ -620,6 +671,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH LABEL [" + pattern + "]";
@@ -677,6 +733,12 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      // patterns with numbered jokers bind transition variables for the actions
+      return !patternAST.bindsTransitionVariables();
+    }
+
     @Override
     public String toString() {
       return "MATCH {"
@@ -702,6 +764,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH [" + pattern + "]";
@@ -742,6 +809,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH TRANSITION [" + predecessorNodeNumber + " -> " + successorNodeNumber + "]";
@@ -760,6 +832,52 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
     }
   }
 
+  /**
+   * Matches exactly the given CFA edges, e.g., the edges of a precomputed product transition. Edges
+   * are compared by identity, because {@link CFAEdge#equals(Object)} only compares the nodes of an
+   * edge, and other edges between the same nodes (e.g., the other assume edge of an empty branch,
+   * or edges created during the analysis) must not be matched.
+   */
+  static class MatchCFAEdges implements AutomatonBoolExpr {
+
+    private final ImmutableList<CFAEdge> edges;
+    private final Set<CFAEdge> identityEdges;
+
+    MatchCFAEdges(Collection<CFAEdge> pEdges) {
+      edges = ImmutableList.copyOf(pEdges);
+      identityEdges = Sets.newIdentityHashSet();
+      identityEdges.addAll(pEdges);
+    }
+
+    @Override
+    public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
+      return identityEdges.contains(pArgs.getCfaEdge()) ? CONST_TRUE : CONST_FALSE;
+    }
+
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return "MATCH EDGES "
+          + FluentIterable.from(edges)
+              .transform(e -> e.getPredecessor() + "->" + e.getSuccessor())
+              .join(Joiner.on(", "));
+    }
+
+    @Override
+    public int hashCode() {
+      return identityEdges.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof MatchCFAEdges && identityEdges.equals(((MatchCFAEdges) o).identityEdges);
+    }
+  }
+
   static class MatchCFAEdgeExact implements AutomatonBoolExpr {
 
     private final String pattern;
@@ -777,6 +895,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH \"" + pattern + "\"";
@@ -796,6 +919,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
   static enum MatchJavaAssert implements AutomatonBoolExpr {
     INSTANCE;
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
       CFAEdge edge = pArgs.getCfaEdge();
@@ -815,6 +943,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
   static enum MatchAssumeEdge implements AutomatonBoolExpr {
     INSTANCE;
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
       return pArgs.getCfaEdge() instanceof AssumeEdge ? CONST_TRUE : CONST_FALSE;
@@ -851,6 +984,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH ASSUME CASE " + matchPositiveCase;
@@ -1011,6 +1149,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
   static enum MatchSplitDeclaration implements AutomatonBoolExpr {
     INSTANCE;
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
       CFAEdge edge = pArgs.getCfaEdge();
@@ -1048,6 +1191,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
           .anyMatch(matchDescriptor);
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH " + matchDescriptor;
@@ -1266,6 +1414,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
           return CONST_TRUE;
         }
 
+        @Override
+        public boolean isEdgeLocal() {
+          return true;
+        }
+
         @Override
         public String toString() {
           return "TRUE";
@@ -1280,6 +1433,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
           return CONST_FALSE;
         }
 
+        @Override
+        public boolean isEdgeLocal() {
+          return true;
+        }
+
         @Override
         public String toString() {
           return "FALSE";
@@ -1466,6 +1624,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return a.isEdgeLocal();
+    }
+
     @Override
     public String toString() {
       return "!" + a;
@@ -1524,6 +1687,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return a.isEdgeLocal() && b.isEdgeLocal();
+    }
+
     @Override
     public String toString() {
       return "(" + a + " " + repr + " " + b + ")";
@@ -0,0 +1,161 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.And;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchCFAEdgeASTComparison;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.Or;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.ResultValue;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+
+/**
+ * Memoizes for each pair of an internal automaton state and a CFA edge, which transitions of the
+ * state can match on the edge. The parts of the triggers that depend only on the edge (e.g., MATCH,
+ * MATCH LABEL, MATCH FUNCTIONCALL) are evaluated once per pair, thus the transfer relation needs to
+ * evaluate only the triggers that depend on the automaton state or other CPAs (e.g., CHECK queries
+ * and variable tests).
+ *
+ * <p>The table is filled lazily, because most pairs of internal states and edges never occur
+ * during an analysis. It is shared by all transfer relations of a CPA and thus thread-safe.
+ *
+ * <p>Only edges of the CFA are memoized, such that the table is bounded by the number of internal
+ * states times the number of CFA edges. Edges that are created on the fly by other components (and
+ * that are not registered as leaving edges of their predecessor) are evaluated on each request.
+ * Edges are compared by identity, because {@link CFAEdge#equals(Object)} considers only the
+ * predecessor and successor of an edge.
+ */
+final class AutomatonEdgeMatchTable {
+
+  /** The value of a transition trigger on an edge, as far as it is known statically. */
+  enum StaticMatch {
+    /** The trigger matches in all automaton states, and its evaluation has no side effects. */
+    TRUE,
+
+    /** The trigger does not match in any automaton state. */
+    FALSE,
+
+    /** The trigger needs to be evaluated by the transfer relation. */
+    DYNAMIC
+  }
+
+  private final LogManager logger;
+
+  private final ConcurrentMap<
+          AutomatonInternalState, ConcurrentMap<CFAEdge, ImmutableList<StaticMatch>>>
+      table = new ConcurrentHashMap<>();
+
+  AutomatonEdgeMatchTable(LogManager pLogger) {
+    logger = pLogger;
+  }
+
+  /**
+   * Returns the static match results of all transitions of the given state on the given edge, in
+   * the order of {@link AutomatonInternalState#getTransitions()}.
+   */
+  ImmutableList<StaticMatch> getStaticMatches(AutomatonInternalState pState, CFAEdge pEdge) {
+    if (!isCfaEdge(pEdge)) {
+      return computeStaticMatches(pState, pEdge);
+    }
+    return table
+        .computeIfAbsent(pState, s -> new MapMaker().weakKeys().makeMap())
+        .computeIfAbsent(pEdge, edge -> computeStaticMatches(pState, edge));
+  }
+
+  private static boolean isCfaEdge(CFAEdge pEdge) {
+    return CFAUtils.allLeavingEdges(pEdge.getPredecessor()).anyMatch(edge -> edge == pEdge);
+  }
+
+  /** Returns the number of memoized pairs of internal states and edges. */
+  @VisibleForTesting
+  int size() {
+    return table.values().stream().mapToInt(ConcurrentMap::size).sum();
+  }
+
+  private ImmutableList<StaticMatch> computeStaticMatches(
+      AutomatonInternalState pState, CFAEdge pEdge) {
+    ImmutableList.Builder<StaticMatch> result =
+        ImmutableList.builderWithExpectedSize(pState.getTransitions().size());
+    for (AutomatonTransition transition : pState.getTransitions()) {
+      result.add(evaluate(transition.getTrigger(), pEdge));
+    }
+    return result.build();
+  }
+
+  /**
+   * Evaluates an expression as far as possible based only on the edge. An expression that is not
+   * edge-local is never reported as {@link StaticMatch#TRUE}, because its evaluation in the
+   * transfer relation might have side effects (like binding transition variables) that are needed
+   * by the actions of the transition.
+   */
+  private StaticMatch evaluate(AutomatonBoolExpr pExpr, CFAEdge pEdge) {
+    if (pExpr.isEdgeLocal()) {
+      return evaluateOnEdge(pExpr, pEdge);
+
+    } else if (pExpr instanceof And) {
+      And and = (And) pExpr;
+      if (evaluate(and.a, pEdge) == StaticMatch.FALSE
+          || evaluate(and.b, pEdge) == StaticMatch.FALSE) {
+        return StaticMatch.FALSE;
+      }
+
+    } else if (pExpr instanceof Or) {
+      Or or = (Or) pExpr;
+      if (evaluate(or.a, pEdge) == StaticMatch.FALSE
+          && evaluate(or.b, pEdge) == StaticMatch.FALSE) {
+        return StaticMatch.FALSE;
+      }
+
+    } else if (pExpr instanceof MatchCFAEdgeASTComparison) {
+      // the AST comparison depends only on the edge, but binds transition variables
+      if (evaluateOnEdge(pExpr, pEdge) == StaticMatch.FALSE) {
+        return StaticMatch.FALSE;
+      }
+    }
+    return StaticMatch.DYNAMIC;
+  }
+
+  private StaticMatch evaluateOnEdge(AutomatonBoolExpr pExpr, CFAEdge pEdge) {
+    AutomatonExpressionArguments args =
+        new AutomatonExpressionArguments(null, ImmutableMap.of(), ImmutableList.of(), pEdge, logger);
+    try {
+      ResultValue<Boolean> result = pExpr.eval(args);
+      if (result.canNotEvaluate()) {
+        return StaticMatch.DYNAMIC;
+      }
+      return result.getValue() ? StaticMatch.TRUE : StaticMatch.FALSE;
+    } catch (CPATransferException e) {
+      // let the transfer relation report the problem
+      return StaticMatch.DYNAMIC;
+    }
+  }
+}
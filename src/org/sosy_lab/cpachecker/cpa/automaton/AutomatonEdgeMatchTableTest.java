@@ -0,0 +1,172 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CProgramScope;
+import org.sosy_lab.cpachecker.cfa.Language;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdgeType;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonEdgeMatchTable.StaticMatch;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.ResultValue;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class AutomatonEdgeMatchTableTest {
+
+  private static final ImmutableList<Path> AUTOMATA =
+      ImmutableList.of(
+          Paths.get("config/specification/sv-comp-reachability.spc"),
+          Paths.get("config/specification/ErrorLabel.spc"),
+          Paths.get("config/specification/UninitializedVariables.spc"),
+          Paths.get("test/config/automata/LockingAutomatonAstComp.txt"),
+          Paths.get("test/config/automata/LockingAutomatonRegEx.txt"));
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private CFA makeCFA() throws Exception {
+    return TestDataTools.makeCFA(
+        "extern void __VERIFIER_error(void);",
+        "extern void abort(void);",
+        "extern void init(void);",
+        "extern void lock(int);",
+        "extern void unlock(int);",
+        "int x;",
+        "int main() {",
+        "  init();",
+        "  lock(1);",
+        "  x = 1;",
+        "  unlock(1);",
+        "  if (x) {",
+        "    ERROR: __VERIFIER_error();",
+        "  }",
+        "  abort();",
+        "  return 0;",
+        "}");
+  }
+
+  private List<Automaton> parse(Path pFile) throws Exception {
+    return AutomatonParser.parseAutomatonFile(
+        pFile,
+        TestDataTools.configurationForTest().build(),
+        logger,
+        MachineModel.LINUX32,
+        CProgramScope.empty(),
+        Language.C,
+        ShutdownNotifier.createDummy());
+  }
+
+  private static FluentIterable<CFAEdge> edgesOf(CFA pCfa) {
+    return FluentIterable.from(pCfa.getAllNodes()).transformAndConcat(CFAUtils::allLeavingEdges);
+  }
+
+  private ResultValue<Boolean> matchDirectly(AutomatonTransition pTransition, CFAEdge pEdge)
+      throws Exception {
+    AutomatonExpressionArguments args =
+        new AutomatonExpressionArguments(null, ImmutableMap.of(), ImmutableList.of(), pEdge, logger);
+    return pTransition.match(args);
+  }
+
+  @Test
+  public void testSameResultsAsDirectEvaluation() throws Exception {
+    CFA cfa = makeCFA();
+    AutomatonEdgeMatchTable table = new AutomatonEdgeMatchTable(logger);
+    int staticallyDecided = 0;
+    int dynamic = 0;
+
+    for (Path file : AUTOMATA) {
+      for (Automaton automaton : parse(file)) {
+        for (AutomatonInternalState state : automaton.getStates()) {
+          for (CFAEdge edge : edgesOf(cfa)) {
+            ImmutableList<StaticMatch> matches = table.getStaticMatches(state, edge);
+            assertThat(table.getStaticMatches(state, edge)).isSameInstanceAs(matches);
+
+            ImmutableList<AutomatonTransition> transitions = state.getTransitions();
+            assertThat(matches).hasSize(transitions.size());
+            for (int i = 0; i < transitions.size(); i++) {
+              if (matches.get(i) == StaticMatch.DYNAMIC) {
+                dynamic++;
+                continue;
+              }
+              staticallyDecided++;
+              ResultValue<Boolean> expected = matchDirectly(transitions.get(i), edge);
+              assertWithMessage("transition %s on edge %s", transitions.get(i), edge)
+                  .that(!expected.canNotEvaluate() && expected.getValue())
+                  .isEqualTo(matches.get(i) == StaticMatch.TRUE);
+            }
+          }
+        }
+      }
+    }
+
+    // make sure that the test covers both kinds of triggers
+    assertThat(staticallyDecided).isGreaterThan(0);
+    assertThat(dynamic).isGreaterThan(0);
+  }
+
+  @Test
+  public void testEdgesOutsideOfCfaNotMemoized() throws Exception {
+    CFA cfa = makeCFA();
+    Automaton automaton =
+        parse(Paths.get("test/config/automata/LockingAutomatonAstComp.txt")).get(0);
+    AutomatonInternalState state = automaton.getInitialState();
+    AutomatonEdgeMatchTable table = new AutomatonEdgeMatchTable(logger);
+
+    CFAEdge assignment =
+        edgesOf(cfa)
+            .filter(edge -> edge.getEdgeType() == CFAEdgeType.StatementEdge)
+            .firstMatch(edge -> edge.getRawStatement().equals("x = 1;"))
+            .get();
+    // the first transition matches "x = $?;"
+    assertThat(table.getStaticMatches(state, assignment).get(0)).isEqualTo(StaticMatch.TRUE);
+    int size = table.size();
+
+    // an edge with the same predecessor and successor that is not part of the CFA
+    CFAEdge dummy =
+        new BlankEdge(
+            "",
+            FileLocation.DUMMY,
+            assignment.getPredecessor(),
+            assignment.getSuccessor(),
+            "dummy");
+    assertThat(dummy).isEqualTo(assignment);
+    assertThat(table.getStaticMatches(state, dummy).get(0)).isEqualTo(StaticMatch.FALSE);
+    assertThat(table.size()).isEqualTo(size);
+  }
+}
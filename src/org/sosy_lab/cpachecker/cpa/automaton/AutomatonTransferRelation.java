@@ -25,6 +25,8 @@ package org.sosy_lab.cpachecker.cpa.automaton;
 
 import static com.google.common.base.Predicates.instanceOf;
 import static com.google.common.collect.FluentIterable.from;
+import static org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.CONST_FALSE;
+import static org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.CONST_TRUE;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
@@ -43,6 +45,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.ast.AAstNode;
 import org.sosy_lab.cpachecker.cfa.ast.AExpression;
@@ -54,12 +57,14 @@ import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonEdgeMatchTable.StaticMatch;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.ResultValue;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonState.AutomatonUnknownState;
 import org.sosy_lab.cpachecker.cpa.threading.ThreadingState;
 import org.sosy_lab.cpachecker.cpa.threading.ThreadingTransferRelation;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatIntHist;
 import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
@@ -72,6 +77,7 @@ public class AutomatonTransferRelation implements TransferRelation {
   private final ControlAutomatonCPA cpa;
   private final LogManager logger;
   private final MachineModel machineModel;
+  private final @Nullable AutomatonEdgeMatchTable edgeMatchTable;
 
   private final TimerWrapper totalPostTime;
   private final TimerWrapper matchTime;
@@ -79,15 +85,19 @@ public class AutomatonTransferRelation implements TransferRelation {
   private final TimerWrapper actionTime;
   private final TimerWrapper totalStrengthenTime;
   private final StatIntHist automatonSuccessors;
+  private final StatCounter staticallyDecidedMatches;
+  private final StatCounter evaluatedMatches;
 
   public AutomatonTransferRelation(
       ControlAutomatonCPA pCpa,
       LogManager pLogger,
       MachineModel pMachineModel,
-      AutomatonStatistics pStats) {
+      AutomatonStatistics pStats,
+      @Nullable AutomatonEdgeMatchTable pEdgeMatchTable) {
     this.cpa = pCpa;
     this.logger = pLogger;
     this.machineModel = pMachineModel;
+    this.edgeMatchTable = pEdgeMatchTable;
 
     totalPostTime = pStats.totalPostTime.getNewTimer();
     matchTime = pStats.matchTime.getNewTimer();
@@ -95,6 +105,8 @@ public class AutomatonTransferRelation implements TransferRelation {
     actionTime = pStats.actionTime.getNewTimer();
     totalStrengthenTime = pStats.totalStrengthenTime.getNewTimer();
     automatonSuccessors = pStats.automatonSuccessors;
+    staticallyDecidedMatches = pStats.staticallyDecidedMatches;
+    evaluatedMatches = pStats.evaluatedMatches;
   }
 
   @Override
@@ -191,12 +203,30 @@ public class AutomatonTransferRelation implements TransferRelation {
     List<Pair<AutomatonTransition, Map<Integer, AAstNode>>> transitionsToBeTaken =
         new ArrayList<>(2);
 
-    for (AutomatonTransition t : state.getInternalState().getTransitions()) {
-      exprArgs.clearTransitionVariables();
-
+    ImmutableList<AutomatonTransition> transitions = state.getInternalState().getTransitions();
+    ImmutableList<StaticMatch> staticMatches = null;
+    if (edgeMatchTable != null) {
       matchTime.start();
-      ResultValue<Boolean> match = t.match(exprArgs);
+      staticMatches = edgeMatchTable.getStaticMatches(state.getInternalState(), edge);
       matchTime.stop();
+    }
+
+    for (int i = 0; i < transitions.size(); i++) {
+      AutomatonTransition t = transitions.get(i);
+      StaticMatch staticMatch = staticMatches == null ? StaticMatch.DYNAMIC : staticMatches.get(i);
+      exprArgs.clearTransitionVariables();
+
+      ResultValue<Boolean> match;
+      if (staticMatch == StaticMatch.DYNAMIC) {
+        matchTime.start();
+        match = t.match(exprArgs);
+        matchTime.stop();
+        evaluatedMatches.inc();
+      } else {
+        // the trigger depends only on the edge and has no side effects
+        match = staticMatch == StaticMatch.TRUE ? CONST_TRUE : CONST_FALSE;
+        staticallyDecidedMatches.inc();
+      }
 
       if (match.canNotEvaluate()) {
         if (failOnUnknownMatch) {
@@ -333,6 +333,18 @@ class AutomatonTransition {
     return violatedPropertyDescription.eval(pArgs).getValue();
   }
 
+  /**
+   * Returns the description of the violated property like {@link
+   * #getViolatedPropertyDescription(AutomatonExpressionArguments)}, but without replacing the
+   * variables in it, such that it can be evaluated later for another edge.
+   */
+  @Nullable String getViolatedPropertyDescriptionTemplate() {
+    if (violatedPropertyDescription == null) {
+      return getFollowState().isTarget() ? getFollowState().getName() : null;
+    }
+    return violatedPropertyDescription.toString();
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -373,6 +385,17 @@ class AutomatonTransition {
     return true;
   }
 
+  /**
+   * Returns true if this transition only changes the state of the automaton, i.e., it has no
+   * assertions, assumptions, candidate invariants, or actions.
+   */
+  boolean onlyChangesState() {
+    return assertion.equals(AutomatonBoolExpr.TRUE)
+        && assumptions.isEmpty()
+        && candidateInvariants.equals(ExpressionTrees.getTrue())
+        && actions.isEmpty();
+  }
+
   public ImmutableList<AExpression> getAssumptions(
       CFAEdge pEdge, LogManager pLogger, MachineModel pMachineModel) {
     ImmutableList.Builder<AExpression> builder = ImmutableList.builder();
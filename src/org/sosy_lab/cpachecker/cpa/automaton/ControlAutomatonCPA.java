@@ -34,6 +34,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
@@ -149,12 +150,21 @@ public class ControlAutomatonCPA
   )
   private boolean topOnFinalSelfLoopingState = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Memoize for each automaton state and CFA edge which transitions can match, "
+              + "such that matching conditions that depend only on the edge "
+              + "are evaluated only once.")
+  private boolean memoizeEdgeMatches = true;
+
   private final Automaton automaton;
   private final AutomatonState topState;
   private final AutomatonState bottomState;
 
   private final AbstractDomain automatonDomain;
   private final AutomatonStatistics stats;
+  private final @Nullable AutomatonEdgeMatchTable edgeMatchTable;
   private final CFA cfa;
   private final LogManager logger;
   private final ShutdownNotifier shutdownNotifier;
@@ -189,6 +199,7 @@ public class ControlAutomatonCPA
 
     automatonDomain = new FlatLatticeDomain(topState);
     stats = new AutomatonStatistics(automaton);
+    edgeMatchTable = memoizeEdgeMatches ? new AutomatonEdgeMatchTable(pLogger) : null;
 
     if (export) {
       if (dotExportFile != null) {
@@ -318,7 +329,8 @@ public class ControlAutomatonCPA
 
   @Override
   public AutomatonTransferRelation getTransferRelation() {
-    return new AutomatonTransferRelation(this, logger, cfa.getMachineModel(), stats);
+    return new AutomatonTransferRelation(
+        this, logger, cfa.getMachineModel(), stats, edgeMatchTable);
   }
 
   public AutomatonState getBottomState() {
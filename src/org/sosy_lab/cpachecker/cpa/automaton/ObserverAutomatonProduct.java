@@ -0,0 +1,440 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.ResultValue;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.StringExpression;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.Pair;
+
+/**
+ * Composes several observer automata into a single product automaton, such that the analysis
+ * needs to match each CFA edge against only one automaton and the abstract states contain only one
+ * automaton state instead of one per specification.
+ *
+ * <p>Only automata whose transitions depend solely on the CFA edge can be composed, i.e., automata
+ * without variables, and whose triggers are edge-local and whose transitions have no assertions,
+ * assumptions, or actions (cf. {@link #isComposable(Automaton)}). For such automata the successor
+ * of every component state is determined by the edge, so the product transitions are computed
+ * against the CFA: each product transition matches exactly the set of edges that lead to the same
+ * successor product state. Product states are constructed starting from the initial state, thus
+ * only reachable combinations of component states are created.
+ *
+ * <p>The special states of the components are mapped to the special states of the product: if
+ * some component stops (STOP), the product stops, otherwise if some component reaches ERROR, the
+ * product reaches ERROR with the descriptions of all violated properties, and otherwise if some
+ * component reaches BREAK, the product reaches BREAK. This is the same behavior as that of the
+ * separate automata, because each of the special states has only BOTTOM as successor.
+ *
+ * <p>The matching transition of each component state is computed once for every CFA edge, because
+ * the transitions of the product need to match explicit sets of edges, and all states of an
+ * automaton need to be known when the CPA is created. The cost of this is linear in the number of
+ * component states (not product states) times the number of edges, and only edge-local triggers
+ * are evaluated, i.e., it is comparable to the cost of parsing the specification patterns against
+ * the program once. Edges are compared by identity, because different edges between the same nodes
+ * are equal.
+ *
+ * <p>The analysis may also see edges that are not part of the CFA, e.g., summary edges that are
+ * created during the analysis. For such edges, each product state has fallback transitions that
+ * evaluate the transitions of the component states: there is one fallback transition for every
+ * combination of matching transitions of the components, which leads to the same successor as the
+ * separate automata.
+ */
+public final class ObserverAutomatonProduct {
+
+  private static final String PRODUCT_AUTOMATON_NAME = "SpecificationProduct";
+
+  private final ImmutableList<Automaton> components;
+  private final ImmutableList<CFAEdge> edges;
+  private final LogManager logger;
+  private final int maxStates;
+
+  /** Matches all edges that are not part of the CFA, cf. {@link #createFallbackTransitions}. */
+  private final AutomatonBoolExpr otherEdges;
+
+  /** For each component state, the first matching transition for each matched edge. */
+  private final Map<AutomatonInternalState, Map<CFAEdge, AutomatonTransition>> matchingTransitions =
+      new HashMap<>();
+
+  private final Map<List<AutomatonInternalState>, String> stateNames = new HashMap<>();
+  private final Queue<List<AutomatonInternalState>> waitlist = new ArrayDeque<>();
+
+  private ObserverAutomatonProduct(
+      List<Automaton> pComponents, CFA pCfa, int pMaxStates, LogManager pLogger) {
+    components = ImmutableList.copyOf(pComponents);
+    edges =
+        FluentIterable.from(pCfa.getAllNodes())
+            .transformAndConcat(CFAUtils::allLeavingEdges)
+            .toList();
+    otherEdges = new AutomatonBoolExpr.Negation(new AutomatonBoolExpr.MatchCFAEdges(edges));
+    maxStates = pMaxStates;
+    logger = pLogger;
+  }
+
+  /**
+   * Checks whether an automaton can be part of a product automaton. This is the case if it has no
+   * variables, all its triggers depend only on the CFA edge, and all its transitions only change
+   * the automaton state (including transitions to the special states STOP, ERROR, and BREAK).
+   */
+  public static boolean isComposable(Automaton pAutomaton) {
+    if (!pAutomaton.getInitialVariables().isEmpty()) {
+      return false;
+    }
+    for (AutomatonInternalState state : pAutomaton.getStates()) {
+      if (state.isNontrivialCycleStart()) {
+        return false;
+      }
+      for (AutomatonTransition transition : state.getTransitions()) {
+        if (!transition.getTrigger().isEdgeLocal() || !transition.onlyChangesState()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates the product of the given automata for the given CFA.
+   *
+   * @param pComponents at least two automata, for which {@link #isComposable(Automaton)} holds
+   * @param pCfa the CFA against which the edge matches of the product are computed
+   * @param pMaxStates the maximal number of states of the product, and the maximal number of
+   *     fallback transitions of each product state
+   * @throws InvalidAutomatonException if the product cannot be created, e.g., because it would
+   *     have too many states or a component is ambiguous on some edge
+   */
+  public static Automaton compose(
+      List<Automaton> pComponents, CFA pCfa, int pMaxStates, LogManager pLogger)
+      throws InvalidAutomatonException {
+    checkArgument(pComponents.size() > 1, "product of less than two automata");
+    checkArgument(FluentIterable.from(pComponents).allMatch(ObserverAutomatonProduct::isComposable));
+    return new ObserverAutomatonProduct(pComponents, pCfa, pMaxStates, pLogger).compose();
+  }
+
+  private Automaton compose() throws InvalidAutomatonException {
+    List<AutomatonInternalState> initialState =
+        FluentIterable.from(components).transform(Automaton::getInitialState).toList();
+
+    stateNames.put(initialState, getName(initialState));
+    waitlist.add(initialState);
+
+    List<AutomatonInternalState> productStates = new ArrayList<>();
+    while (!waitlist.isEmpty()) {
+      List<AutomatonInternalState> state = waitlist.poll();
+
+      // group the edges on which some component changes by the resulting successor
+      Map<Pair<List<AutomatonInternalState>, String>, List<CFAEdge>> successors =
+          new LinkedHashMap<>();
+      for (CFAEdge edge : getMatchedEdges(state)) {
+        Pair<List<AutomatonInternalState>, String> successor = getSuccessor(state, edge);
+        if (successor.getFirst().equals(state) && successor.getSecond() == null) {
+          continue; // no transition to a target state, the product stays in the same state
+        }
+        successors.computeIfAbsent(successor, s -> new ArrayList<>()).add(edge);
+      }
+
+      List<AutomatonTransition> transitions = new ArrayList<>(successors.size());
+      for (Entry<Pair<List<AutomatonInternalState>, String>, List<CFAEdge>> entry :
+          successors.entrySet()) {
+        String violatedProperty = entry.getKey().getSecond();
+        transitions.add(
+            createTransition(
+                new AutomatonBoolExpr.MatchCFAEdges(entry.getValue()),
+                entry.getKey().getFirst(),
+                violatedProperty == null ? null : new StringExpression(violatedProperty)));
+      }
+      transitions.addAll(createFallbackTransitions(state));
+
+      boolean isTarget = FluentIterable.from(state).anyMatch(AutomatonInternalState::isTarget);
+      // The edge sets of the transitions are disjoint and the fallback transitions match only
+      // other edges, so at most one transition matches unless some component is nondeterministic.
+      boolean isNonDet = FluentIterable.from(state).anyMatch(AutomatonInternalState::isNonDetState);
+      productStates.add(
+          new AutomatonInternalState(stateNames.get(state), transitions, isTarget, isNonDet));
+    }
+
+    logger.logf(
+        Level.FINE,
+        "Created product automaton with %d states from %d automata",
+        productStates.size(),
+        components.size());
+    return new Automaton(
+        PRODUCT_AUTOMATON_NAME, ImmutableMap.of(), productStates, stateNames.get(initialState));
+  }
+
+  /**
+   * Creates a transition of the product to the given successor state, which is added to the
+   * waitlist if it is new.
+   */
+  private AutomatonTransition createTransition(
+      AutomatonBoolExpr pTrigger,
+      List<AutomatonInternalState> pSuccessorState,
+      @Nullable StringExpression pViolatedProperty)
+      throws InvalidAutomatonException {
+    AutomatonTransition.Builder transition;
+    AutomatonInternalState specialState = getSpecialState(pSuccessorState);
+    if (specialState != null) {
+      transition = new AutomatonTransition.Builder(pTrigger, specialState);
+    } else {
+      String successorName = stateNames.get(pSuccessorState);
+      if (successorName == null) {
+        if (stateNames.size() >= maxStates) {
+          throw new InvalidAutomatonException(
+              "Product automaton would have more than " + maxStates + " states");
+        }
+        successorName = getName(pSuccessorState);
+        stateNames.put(pSuccessorState, successorName);
+        waitlist.add(pSuccessorState);
+      }
+      transition = new AutomatonTransition.Builder(pTrigger, successorName);
+    }
+    if (pViolatedProperty != null) {
+      transition.withViolatedPropertyDescription(pViolatedProperty);
+    }
+    return transition.build();
+  }
+
+  /**
+   * Creates the transitions of a product state for edges that are not part of the CFA. There is
+   * one transition for every combination of the transitions of the component states (including no
+   * transition), whose trigger holds if exactly this combination of transitions matches.
+   */
+  private List<AutomatonTransition> createFallbackTransitions(List<AutomatonInternalState> pState)
+      throws InvalidAutomatonException {
+    boolean isNonDet = FluentIterable.from(pState).anyMatch(AutomatonInternalState::isNonDetState);
+    List<List<Pair<AutomatonBoolExpr, AutomatonTransition>>> choices = new ArrayList<>();
+    long combinations = 1;
+    for (AutomatonInternalState componentState : pState) {
+      List<Pair<AutomatonBoolExpr, AutomatonTransition>> componentChoices =
+          getFallbackChoices(componentState);
+      combinations *= componentChoices.size();
+      if (combinations > maxStates) {
+        throw new InvalidAutomatonException(
+            "Product automaton would need more than "
+                + maxStates
+                + " transitions per state for edges that are not part of the CFA");
+      }
+      choices.add(componentChoices);
+    }
+
+    List<AutomatonTransition> result = new ArrayList<>();
+    for (List<Pair<AutomatonBoolExpr, AutomatonTransition>> combination :
+        Lists.cartesianProduct(choices)) {
+      AutomatonBoolExpr trigger = otherEdges;
+      List<AutomatonInternalState> successor = new ArrayList<>(pState.size());
+      List<String> violatedProperties = new ArrayList<>(0);
+      for (int i = 0; i < pState.size(); i++) {
+        trigger = new AutomatonBoolExpr.And(trigger, combination.get(i).getFirst());
+        AutomatonTransition transition = combination.get(i).getSecond();
+        if (transition == null) {
+          successor.add(pState.get(i));
+        } else {
+          successor.add(transition.getFollowState());
+          if (transition.getFollowState().isTarget()) {
+            violatedProperties.add(transition.getViolatedPropertyDescriptionTemplate());
+          }
+        }
+      }
+      if (successor.contains(AutomatonInternalState.BOTTOM)) {
+        successor = ImmutableList.of(AutomatonInternalState.BOTTOM);
+        violatedProperties.clear();
+      } else if (successor.equals(pState) && violatedProperties.isEmpty() && !isNonDet) {
+        continue; // the product stays in the same state
+      }
+      result.add(
+          createTransition(
+              trigger,
+              ImmutableList.copyOf(successor),
+              violatedProperties.isEmpty()
+                  ? null
+                  : new StringExpression(Joiner.on(", ").join(violatedProperties))));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the possible choices of a component state on an edge that is not part of the CFA: each
+   * transition together with a trigger that holds if this transition is taken, and no transition
+   * (null) together with a trigger that holds if no transition matches.
+   */
+  private static List<Pair<AutomatonBoolExpr, AutomatonTransition>> getFallbackChoices(
+      AutomatonInternalState pComponentState) {
+    List<Pair<AutomatonBoolExpr, AutomatonTransition>> result = new ArrayList<>();
+    AutomatonBoolExpr earlierMatch = AutomatonBoolExpr.FALSE;
+    for (AutomatonTransition transition : pComponentState.getTransitions()) {
+      AutomatonBoolExpr trigger = transition.getTrigger();
+      if (!pComponentState.isNonDetState()) {
+        // only the first matching transition is taken
+        trigger =
+            new AutomatonBoolExpr.And(trigger, new AutomatonBoolExpr.Negation(earlierMatch));
+      }
+      result.add(Pair.of(trigger, transition));
+      earlierMatch = new AutomatonBoolExpr.Or(earlierMatch, transition.getTrigger());
+    }
+    result.add(Pair.of(new AutomatonBoolExpr.Negation(earlierMatch), null));
+    return result;
+  }
+
+  /**
+   * Returns the special state (STOP, ERROR, or BREAK) that represents the given product state, or
+   * null if all components are in regular states. STOP takes precedence because the product has no
+   * successor then, and ERROR takes precedence over BREAK because the analysis stops at target
+   * states anyway.
+   */
+  private static @Nullable AutomatonInternalState getSpecialState(
+      List<AutomatonInternalState> pState) {
+    if (pState.contains(AutomatonInternalState.BOTTOM)) {
+      return AutomatonInternalState.BOTTOM;
+    } else if (pState.contains(AutomatonInternalState.ERROR)) {
+      return AutomatonInternalState.ERROR;
+    } else if (pState.contains(AutomatonInternalState.BREAK)) {
+      return FluentIterable.from(pState).anyMatch(AutomatonInternalState::isTarget)
+          ? AutomatonInternalState.ERROR
+          : AutomatonInternalState.BREAK;
+    }
+    return null;
+  }
+
+  /**
+   * Returns all edges on which at least one component state has a matching transition, in the
+   * order of the CFA.
+   */
+  private List<CFAEdge> getMatchedEdges(List<AutomatonInternalState> pState)
+      throws InvalidAutomatonException {
+    Set<CFAEdge> matched = Sets.newIdentityHashSet();
+    for (AutomatonInternalState componentState : pState) {
+      matched.addAll(getMatchingTransitions(componentState).keySet());
+    }
+    return FluentIterable.from(edges).filter(matched::contains).toList();
+  }
+
+  /**
+   * Returns the successor of a product state for an edge, and the description of the violated
+   * properties, if some component takes a transition to a target state (null otherwise). If some
+   * component stops on the edge, the successor consists only of STOP.
+   */
+  private Pair<List<AutomatonInternalState>, String> getSuccessor(
+      List<AutomatonInternalState> pState, CFAEdge pEdge) throws InvalidAutomatonException {
+    ImmutableList.Builder<AutomatonInternalState> successor = ImmutableList.builder();
+    List<String> violatedProperties = new ArrayList<>(0);
+    for (AutomatonInternalState componentState : pState) {
+      AutomatonTransition transition = getMatchingTransitions(componentState).get(pEdge);
+      if (transition == null) {
+        successor.add(componentState);
+      } else if (transition.getFollowState() == AutomatonInternalState.BOTTOM) {
+        return Pair.of(ImmutableList.of(AutomatonInternalState.BOTTOM), null);
+      } else {
+        successor.add(transition.getFollowState());
+        if (transition.getFollowState().isTarget()) {
+          violatedProperties.add(
+              transition.getViolatedPropertyDescription(getArguments(pEdge)));
+        }
+      }
+    }
+    return Pair.of(
+        successor.build(),
+        violatedProperties.isEmpty() ? null : Joiner.on(", ").join(violatedProperties));
+  }
+
+  private Map<CFAEdge, AutomatonTransition> getMatchingTransitions(
+      AutomatonInternalState pComponentState) throws InvalidAutomatonException {
+    Map<CFAEdge, AutomatonTransition> result = matchingTransitions.get(pComponentState);
+    if (result == null) {
+      result = computeMatchingTransitions(pComponentState);
+      matchingTransitions.put(pComponentState, result);
+    }
+    return result;
+  }
+
+  private Map<CFAEdge, AutomatonTransition> computeMatchingTransitions(
+      AutomatonInternalState pComponentState) throws InvalidAutomatonException {
+    Map<CFAEdge, AutomatonTransition> result = new IdentityHashMap<>();
+    for (CFAEdge edge : edges) {
+      AutomatonExpressionArguments args = getArguments(edge);
+      for (AutomatonTransition transition : pComponentState.getTransitions()) {
+        boolean matches;
+        try {
+          ResultValue<Boolean> match = transition.match(args);
+          if (match.canNotEvaluate()) {
+            throw new InvalidAutomatonException(
+                "Transition \"" + transition + "\" cannot be evaluated on edge " + edge);
+          }
+          matches = match.getValue();
+        } catch (CPATransferException e) {
+          throw new InvalidAutomatonException(
+              "Transition \"" + transition + "\" cannot be evaluated on edge " + edge, e);
+        }
+
+        if (matches) {
+          AutomatonTransition previous = result.putIfAbsent(edge, transition);
+          if (previous == null && !pComponentState.isNonDetState()) {
+            break; // only the first matching transition is taken
+          } else if (previous != null) {
+            // the component would have several successors on this edge
+            throw new InvalidAutomatonException(
+                "Several transitions of state "
+                    + pComponentState
+                    + " match on edge "
+                    + edge
+                    + ", the automaton cannot be part of a product");
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private AutomatonExpressionArguments getArguments(CFAEdge pEdge) {
+    return new AutomatonExpressionArguments(
+        null, ImmutableMap.of(), ImmutableList.of(), pEdge, logger);
+  }
+
+  private static String getName(List<AutomatonInternalState> pState) {
+    return "(" + Joiner.on(", ").join(pState) + ")";
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CProgramScope;
+import org.sosy_lab.cpachecker.cfa.Language;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CLabelNode;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+public class ObserverAutomatonProductTest {
+
+  private static final Path ERROR_LABEL = Paths.get("config/specification/ErrorLabel.spc");
+  private static final Path REACHABILITY =
+      Paths.get("config/specification/sv-comp-reachability.spc");
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private Automaton parse(Path pFile) throws Exception {
+    List<Automaton> automata =
+        AutomatonParser.parseAutomatonFile(
+            pFile,
+            TestDataTools.configurationForTest().build(),
+            logger,
+            MachineModel.LINUX32,
+            CProgramScope.empty(),
+            Language.C,
+            ShutdownNotifier.createDummy());
+    assertThat(automata).hasSize(1);
+    return automata.get(0);
+  }
+
+  /** Returns the transition of the state that matches on the edge, or null if none matches. */
+  private AutomatonTransition getMatchingTransition(AutomatonInternalState pState, CFAEdge pEdge)
+      throws Exception {
+    AutomatonExpressionArguments args =
+        new AutomatonExpressionArguments(null, ImmutableMap.of(), ImmutableList.of(), pEdge, logger);
+    AutomatonTransition result = null;
+    for (AutomatonTransition transition : pState.getTransitions()) {
+      if (transition.match(args).getValue()) {
+        assertThat(result).isNull();
+        result = transition;
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testShippedSpecificationsAreComposable() throws Exception {
+    assertThat(ObserverAutomatonProduct.isComposable(parse(ERROR_LABEL))).isTrue();
+    assertThat(ObserverAutomatonProduct.isComposable(parse(REACHABILITY))).isTrue();
+    assertThat(
+            ObserverAutomatonProduct.isComposable(
+                parse(Paths.get("config/specification/TerminatingStatements.spc"))))
+        .isTrue();
+
+    // uses transition variables, CPA queries and actions
+    assertThat(
+            ObserverAutomatonProduct.isComposable(
+                parse(Paths.get("config/specification/Assertion.spc"))))
+        .isFalse();
+  }
+
+  private static CFA makeTargetCFA() throws Exception {
+    return TestDataTools.makeCFA(
+        "extern void __VERIFIER_error(void);",
+        "extern void abort(void);",
+        "int x;",
+        "int main() {",
+        "  if (x == 1) {",
+        "    __VERIFIER_error();",
+        "  }",
+        "  if (x == 2) {",
+        "    ERROR: abort();",
+        "  }",
+        "  return 0;",
+        "}");
+  }
+
+  private AutomatonInternalState composeInitialState(CFA pCfa) throws Exception {
+    Automaton product =
+        ObserverAutomatonProduct.compose(
+            ImmutableList.of(parse(ERROR_LABEL), parse(REACHABILITY)), pCfa, 100, logger);
+    AutomatonInternalState initialState = product.getInitialState();
+    assertThat(initialState.isTarget()).isFalse();
+    return initialState;
+  }
+
+  @Test
+  public void testTargetStatesKept() throws Exception {
+    CFA cfa = makeTargetCFA();
+    checkTargetTransitions(composeInitialState(cfa), cfa);
+  }
+
+  @Test
+  public void testEdgesOutsideOfCFA() throws Exception {
+    // the edges of another CFA of the same program are not known to the product,
+    // so the fallback transitions need to evaluate the separate automata
+    checkTargetTransitions(composeInitialState(makeTargetCFA()), makeTargetCFA());
+  }
+
+  @Test
+  public void testEdgesAreMatchedByIdentity() throws Exception {
+    CFA cfa = makeTargetCFA();
+    AutomatonInternalState initialState = composeInitialState(cfa);
+    CFAEdge errorCall =
+        FluentIterable.from(cfa.getAllNodes())
+            .transformAndConcat(CFAUtils::allLeavingEdges)
+            .firstMatch(e -> e.getRawStatement().startsWith("__VERIFIER_error"))
+            .get();
+    assertThat(getMatchingTransition(initialState, errorCall).getFollowState())
+        .isEqualTo(AutomatonInternalState.ERROR);
+
+    // an edge between the same nodes is equal to the call edge, but does not call the function
+    CFAEdge blankEdge =
+        new BlankEdge(
+            "",
+            FileLocation.DUMMY,
+            errorCall.getPredecessor(),
+            errorCall.getSuccessor(),
+            "blank");
+    assertThat(blankEdge).isEqualTo(errorCall);
+    assertThat(getMatchingTransition(initialState, blankEdge)).isNull();
+  }
+
+  /**
+   * Checks the transitions of the initial product state for all edges of the given CFA, which is
+   * created by {@link #makeTargetCFA()}.
+   */
+  private void checkTargetTransitions(AutomatonInternalState initialState, CFA cfa)
+      throws Exception {
+    int targetTransitions = 0;
+    int stopTransitions = 0;
+    for (CFAEdge edge :
+        FluentIterable.from(cfa.getAllNodes()).transformAndConcat(CFAUtils::allLeavingEdges)) {
+      AutomatonTransition transition = getMatchingTransition(initialState, edge);
+      String statement = edge.getRawStatement();
+
+      if (edge.getSuccessor() instanceof CLabelNode) {
+        assertThat(transition.getFollowState()).isEqualTo(AutomatonInternalState.ERROR);
+        assertThat(transition.getViolatedPropertyDescription(argumentsFor(edge)))
+            .contains("error label in");
+        targetTransitions++;
+
+      } else if (statement.startsWith("__VERIFIER_error")) {
+        assertThat(transition.getFollowState()).isEqualTo(AutomatonInternalState.ERROR);
+        assertThat(transition.getViolatedPropertyDescription(argumentsFor(edge)))
+            .contains("unreach-call");
+        targetTransitions++;
+
+      } else if (statement.startsWith("abort")) {
+        assertThat(transition.getFollowState()).isEqualTo(AutomatonInternalState.BOTTOM);
+        stopTransitions++;
+
+      } else {
+        assertThat(transition).isNull();
+      }
+    }
+    assertThat(targetTransitions).isEqualTo(2);
+    assertThat(stopTransitions).isEqualTo(1);
+  }
+
+  private AutomatonExpressionArguments argumentsFor(CFAEdge pEdge) {
+    return new AutomatonExpressionArguments(
+        null, ImmutableMap.of(), ImmutableList.of(), pEdge, logger);
+  }
+
+  @Test
+  public void testComposedSpecificationFindsViolation() throws Exception {
+    Map<String, String> prop =
+        ImmutableMap.of(
+            "CompositeCPA.cpas",
+            "cpa.location.LocationCPA, cpa.callstack.CallstackCPA, cpa.value.ValueAnalysisCPA",
+            "specification",
+            ERROR_LABEL + "," + Paths.get("config/specification/TerminatingFunctions.spc"),
+            "specification.composeObserverAutomata",
+            "true");
+
+    TestResults results =
+        CPATestRunner.run(
+            prop, "test/programs/simple/globalVariableInitialValue_false-unreach-label.c");
+    assertThat(results.getLog()).contains("Composed specification automata");
+    results.assertIsUnsafe();
+  }
+}
@@ -30,10 +30,16 @@ import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.Specification;
 import org.sosy_lab.cpachecker.core.defaults.AutomaticCPAFactory;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.CPAFactory;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
@@ -42,6 +48,7 @@ import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheSynchronized;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManagerSynchronized;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.Pair;
 
 @Options(prefix = "cpa.bam")
 public class BAMCPAWithBreakOnMissingBlock extends AbstractBAMCPA {
@@ -107,4 +114,20 @@ public class BAMCPAWithBreakOnMissingBlock extends AbstractBAMCPA {
   public boolean doesBreakForMissingBlock() {
     return breakForMissingBlock;
   }
+
+  /**
+   * Compute the reduced initial state and precision for the given block, starting from the
+   * initial abstract state at the block's call node. This entry abstraction does not depend on any
+   * caller and can be used to analyze a block before it is reached.
+   */
+  public Pair<AbstractState, Precision> getReducedInitialEntry(Block pBlock, Precision pPrecision)
+      throws InterruptedException {
+    CFANode callNode = pBlock.getCallNode();
+    AbstractState initialState =
+        getInitialState(callNode, StateSpacePartition.getDefaultPartition());
+    Reducer reducer = getReducer();
+    return Pair.of(
+        reducer.getVariableReducedState(initialState, pBlock, callNode),
+        reducer.getVariableReducedPrecision(pPrecision, pBlock));
+  }
 }
@@ -64,6 +64,14 @@ public interface BAMCache extends Statistics {
   @Deprecated // reason: last block is not deterministic in parallel context
   ARGState getLastAnalyzedBlock();
 
+  /**
+   * Remove the entry for the given key, if it still contains the given reached-set. This is used
+   * for reached-sets whose analysis was aborted, such that their incomplete result is not reused.
+   *
+   * @return whether an entry was removed
+   */
+  boolean remove(AbstractState stateKey, Precision precisionKey, Block context, ReachedSet item);
+
   /** Check whether a cache entry exists for a given key. */
   boolean containsPreciseKey(AbstractState stateKey, Precision precisionKey, Block context);
 
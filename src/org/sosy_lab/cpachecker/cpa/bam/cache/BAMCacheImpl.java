@@ -179,6 +179,21 @@ public class BAMCacheImpl implements BAMCache {
     noSimilarCausedMisses++;
   }
 
+  @Override
+  public boolean remove(
+      AbstractState stateKey, Precision precisionKey, Block context, ReachedSet item) {
+    AbstractStateHash hash = getHashCode(stateKey, precisionKey, context);
+    BAMCacheEntry entry = preciseReachedCache.get(hash);
+    if (entry == null || entry.getReachedSet() != item) {
+      return false;
+    }
+    preciseReachedCache.remove(hash);
+    if (lastAnalyzedEntry == entry) {
+      lastAnalyzedEntry = null;
+    }
+    return true;
+  }
+
   @Override
   public boolean containsPreciseKey(AbstractState stateKey, Precision precisionKey, Block context) {
     AbstractStateHash hash = getHashCode(stateKey, precisionKey, context);
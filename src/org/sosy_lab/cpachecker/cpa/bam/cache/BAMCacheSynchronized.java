@@ -109,6 +109,19 @@ public class BAMCacheSynchronized implements BAMCache {
     }
   }
 
+  @Override
+  public boolean remove(
+      AbstractState pStateKey, Precision pPrecisionKey, Block pContext, ReachedSet pItem) {
+    synchronized (this) {
+      try {
+        timer.start();
+        return cache.remove(pStateKey, pPrecisionKey, pContext, pItem);
+      } finally {
+        timer.stop();
+      }
+    }
+  }
+
   @Override
   public boolean containsPreciseKey(AbstractState pStateKey, Precision pPrecisionKey,
       Block pContext) {
@@ -33,6 +33,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import de.uni_freiburg.informatik.ultimate.icfgtransformer.transformulatransformers.TermException;
 import de.uni_freiburg.informatik.ultimate.lassoranker.Lasso;
@@ -47,6 +48,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.function.Supplier;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.MoreStrings;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
@@ -103,12 +105,15 @@ import org.sosy_lab.cpachecker.util.LoopStructure.Loop;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
 import org.sosy_lab.cpachecker.util.predicates.AssignmentToPathAllocator;
+import org.sosy_lab.cpachecker.util.predicates.BatchedPathChecker;
 import org.sosy_lab.cpachecker.util.predicates.PathChecker;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.CounterexampleTraceInfo;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.InterpolationManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
 import org.sosy_lab.cpachecker.util.predicates.regions.SymbolicRegionManager;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
@@ -144,6 +149,7 @@ public class DCARefiner implements Refiner, StatisticsProvider {
   private final PredicateAbstractionManager predicateAbstractionManager;
 
   private final PathChecker pathChecker;
+  private final BatchedPathChecker batchedPathChecker;
 
   private int curRefinementIteration = 0;
 
@@ -264,6 +270,13 @@ public class DCARefiner implements Refiner, StatisticsProvider {
     AssignmentToPathAllocator pathAllocator =
         new AssignmentToPathAllocator(pConfig, shutdownNotifier, logger, cfa.getMachineModel());
     pathChecker = new PathChecker(pConfig, logger, pathFormulaManager, solver, pathAllocator);
+    batchedPathChecker =
+        new BatchedPathChecker(
+            solver,
+            shutdownNotifier,
+            (from, to, ssa, pts) ->
+                SlicingAbstractionsUtils.buildPathFormula(
+                    from, to, ssa, pts, solver, pathFormulaManager, false));
   }
 
   @SuppressWarnings("resource")
@@ -532,46 +545,60 @@ public class DCARefiner implements Refiner, StatisticsProvider {
     if (targetStatesWithoutChildren.isEmpty()) {
       logger.log(Level.INFO, "Did not found any finite paths that contain target states.");
     }
-    for (ARGState stateWithoutChildren : targetStatesWithoutChildren) {
-      ARGPath path = ARGUtils.getShortestPathTo(stateWithoutChildren);
+    List<ARGPath> paths =
+        transformedImmutableListCopy(targetStatesWithoutChildren, ARGUtils::getShortestPathTo);
+    ARGState root = (ARGState) reached.getFirstState();
+
+    // check the paths together, such that common prefixes are only solved once,
+    // and stop at the first feasible path, because only one counterexample is reported
+    List<@Nullable Boolean> feasibility;
+    try {
+      feasibility =
+          batchedPathChecker.checkPaths(
+              root,
+              SSAMap.emptySSAMap().withDefault(1),
+              PointerTargetSet.emptyPointerTargetSet(),
+              Lists.transform(paths, ARGPath::asStatesList),
+              true);
+    } catch (SolverException e) {
+      throw new CPAException(e.getMessage(), e);
+    }
+
+    for (int i = 0; i < paths.size(); i++) {
+      if (feasibility.get(i) == null) {
+        // not checked, because a feasible path was found before
+        continue;
+      }
+      ARGPath path = paths.get(i);
+      ARGState stateWithoutChildren = path.getLastState();
       logger.logf(Level.INFO, "Path to last node: %s\n", lazyPrintNodes(path));
 
-      List<PathFormula> pathFormulaList =
-          SlicingAbstractionsUtils.getFormulasForPath(
-              pathFormulaManager,
-              solver,
-              (ARGState) reached.getFirstState(),
-              path.asStatesList(),
-              false);
-
-      // check path for infeasibility
-      ImmutableList<BooleanFormula> bfList =
-          transformedImmutableListCopy(pathFormulaList, PathFormula::getFormula);
-      try {
-        if (isUnsat(bfList)) {
-          // Found unsat predicates in path -> simply remove them from the ARG
-
-          if (!keepInfeasibleStates) {
-            logger.log(
-                Level.INFO, "Found unsat predicates in finite path. Removing it from the ARG.");
-            removeInfeasibleStatesFromARG(stateWithoutChildren);
-          } else {
-            logger.logf(
-                Level.INFO, "Flag received to skip removing any infeasible predicate dummy state.");
-          }
+      if (!feasibility.get(i)) {
+        // Found unsat predicates in path -> simply remove them from the ARG
 
+        if (!keepInfeasibleStates) {
+          logger.log(
+              Level.INFO, "Found unsat predicates in finite path. Removing it from the ARG.");
+          removeInfeasibleStatesFromARG(stateWithoutChildren);
         } else {
-          logger.log(Level.INFO, "Found feasible errorpath with target states.");
+          logger.logf(
+              Level.INFO, "Flag received to skip removing any infeasible predicate dummy state.");
+        }
 
-          CounterexampleTraceInfo cexTraceInfo =
-              interpolationManager.buildCounterexampleTrace(new BlockFormulas(bfList));
-          CounterexampleInfo cexInfo = pathChecker.createCounterexample(path, cexTraceInfo);
+      } else {
+        logger.log(Level.INFO, "Found feasible errorpath with target states.");
 
-          path.getLastState().addCounterexampleInformation(cexInfo);
-          return false;
-        }
-      } catch (SolverException e) {
-        throw new CPAException(e.getMessage(), e);
+        List<PathFormula> pathFormulaList =
+            SlicingAbstractionsUtils.getFormulasForPath(
+                pathFormulaManager, solver, root, path.asStatesList(), false);
+        ImmutableList<BooleanFormula> bfList =
+            transformedImmutableListCopy(pathFormulaList, PathFormula::getFormula);
+        CounterexampleTraceInfo cexTraceInfo =
+            interpolationManager.buildCounterexampleTrace(new BlockFormulas(bfList));
+        CounterexampleInfo cexInfo = pathChecker.createCounterexample(path, cexTraceInfo);
+
+        path.getLastState().addCounterexampleInformation(cexInfo);
+        return false;
       }
     }
 
@@ -728,5 +755,6 @@ public class DCARefiner implements Refiner, StatisticsProvider {
   @Override
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     pStatsCollection.add(statistics);
+    pStatsCollection.add(batchedPathChecker);
   }
 }
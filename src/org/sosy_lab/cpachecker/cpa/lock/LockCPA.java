@@ -83,6 +83,9 @@ public class LockCPA extends AbstractCPA
 
   private final LockReducer reducer;
 
+  /** The lock sets of this analysis, they are not shared with other analyses. */
+  private final LockSetFactory lockSets = new LockSetFactory();
+
   private LockCPA(Configuration config, LogManager logger) throws InvalidConfigurationException {
     super(
         DelegateAbstractDomain.<AbstractLockState>getInstance(),
@@ -95,7 +98,7 @@ public class LockCPA extends AbstractCPA
   public AbstractState getInitialState(CFANode node, StateSpacePartition pPartition) {
     switch (analysisMode) {
       case RACE:
-        return new LockState();
+        return new LockState(lockSets);
 
       case DEADLOCK:
         return new DeadLockState();
@@ -23,9 +23,9 @@
  */
 package org.sosy_lab.cpachecker.cpa.lock;
 
-import java.util.HashSet;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class LockIdentifier implements Comparable<LockIdentifier> {
 
@@ -40,7 +40,9 @@ public class LockIdentifier implements Comparable<LockIdentifier> {
     }
   }
 
-  private static Set<LockIdentifier> createdIds;
+  /** Interned identifiers, thread-safe because unsafes may be detected in parallel. */
+  private static final ConcurrentMap<LockIdentifier, LockIdentifier> createdIds =
+      new ConcurrentHashMap<>();
 
   private final String name;
   private final LockType type;
@@ -59,9 +61,6 @@ public class LockIdentifier implements Comparable<LockIdentifier> {
   }
 
   public static LockIdentifier of(String name, String var, LockType type) {
-    if (createdIds == null) {
-      createdIds = new HashSet<>();
-    }
     LockIdentifier newId;
     if (var.isEmpty()) {
       newId = new LockIdentifier(name, type);
@@ -70,14 +69,8 @@ public class LockIdentifier implements Comparable<LockIdentifier> {
       newId = new LockIdentifierWithVariable(name, varName, type);
     }
 
-    for (LockIdentifier id : createdIds) {
-      if (id.equals(newId)) {
-        return id;
-      }
-    }
-
-    createdIds.add(newId);
-    return newId;
+    LockIdentifier id = createdIds.putIfAbsent(newId, newId);
+    return id == null ? newId : id;
   }
 
   public String getName() {
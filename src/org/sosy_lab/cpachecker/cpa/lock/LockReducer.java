@@ -122,6 +122,14 @@ public class LockReducer implements Reducer, StatisticsProvider {
     assert pContext.getCallNode().equals(pCallNode);
     AbstractLockState expandedElement = (AbstractLockState) pExpandedElement;
     stats.lockReducing.start();
+    if (canUseInternedLockSets(expandedElement)) {
+      // all locks are reduced, so the result depends only on the interned lock set
+      LockState reducedState = ((LockState) expandedElement).reduceCounters();
+      assert getVariableExpandedState(pExpandedElement, pContext, reducedState)
+          .equals(pExpandedElement);
+      stats.lockReducing.stop();
+      return reducedState;
+    }
     AbstractLockStateBuilder builder = expandedElement.builder();
     Pair<Set<LockIdentifier>, Set<LockIdentifier>> lockSets =
         getLockSetsFor(expandedElement, pContext);
@@ -145,6 +153,12 @@ public class LockReducer implements Reducer, StatisticsProvider {
     stats.lockExpanding.start();
     AbstractLockState rootElement = (AbstractLockState) pRootElement;
     AbstractLockState reducedElement = (AbstractLockState) pReducedElement;
+    if (canUseInternedLockSets(rootElement)) {
+      LockState expandedState =
+          ((LockState) reducedElement).expandCounters((LockState) rootElement);
+      stats.lockExpanding.stop();
+      return expandedState;
+    }
     AbstractLockStateBuilder builder = reducedElement.builder();
     // Restore only what we reduced
     Pair<Set<LockIdentifier>, Set<LockIdentifier>> lockSets =
@@ -198,6 +212,16 @@ public class LockReducer implements Reducer, StatisticsProvider {
     pStatsCollection.add(stats);
   }
 
+  /**
+   * Check whether the reduction processes the counters of all locks of the state and removes no
+   * lock. In this case the reduced and expanded states are computed directly on the interned lock
+   * sets of {@link LockState}, which memoize these operations.
+   */
+  private boolean canUseInternedLockSets(AbstractLockState pState) {
+    // keep in sync with getLockSetsFor: useless locks are currently never computed
+    return pState instanceof LockState && reduceLockCounters != ReduceStrategy.NONE;
+  }
+
   private Pair<Set<LockIdentifier>, Set<LockIdentifier>>
       getLockSetsFor(AbstractLockState rootState, @SuppressWarnings("unused") Block pContext) {
     Set<LockIdentifier> locksToProcess = ImmutableSet.of();
@@ -0,0 +1,178 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.lock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * An immutable and interned set of held locks with their counters.
+ *
+ * <p>The number of different lock sets is very small compared to the number of lock states, so
+ * all instances are hash-consed by their {@link LockSetFactory}: two lock sets of the same factory
+ * are equal if and only if they are identical. The held locks are additionally stored as a bitset
+ * over the table of lock identifiers of the factory, thus subset and intersection checks are word
+ * operations.
+ */
+final class LockSet {
+
+  private final LockSetFactory factory;
+  private final ImmutableSortedMap<LockIdentifier, Integer> counters;
+  private final long[] bits;
+  private final int hashCode;
+
+  /** Lazily computed result of {@link #reduceCounters()}. */
+  private volatile LockSet reduced = null;
+
+  LockSet(LockSetFactory pFactory, ImmutableSortedMap<LockIdentifier, Integer> pCounters) {
+    factory = pFactory;
+    counters = pCounters;
+    long[] words = new long[0];
+    for (LockIdentifier lock : pCounters.keySet()) {
+      int index = pFactory.getIndex(lock);
+      int word = index >>> 6;
+      if (word >= words.length) {
+        words = Arrays.copyOf(words, word + 1);
+      }
+      words[word] |= 1L << index;
+    }
+    bits = words;
+    hashCode = pCounters.hashCode();
+  }
+
+  LockSetFactory getFactory() {
+    return factory;
+  }
+
+  ImmutableSortedMap<LockIdentifier, Integer> asMap() {
+    return counters;
+  }
+
+  int size() {
+    return counters.size();
+  }
+
+  boolean isEmpty() {
+    return counters.isEmpty();
+  }
+
+  /** Check whether all locks of the other set are held in this set, counters are ignored. */
+  boolean containsAll(LockSet pOther) {
+    if (this == pOther) {
+      return true;
+    }
+    checkSameFactory(pOther);
+    long[] otherBits = pOther.bits;
+    for (int i = 0; i < otherBits.length; i++) {
+      long word = i < bits.length ? bits[i] : 0L;
+      if ((otherBits[i] & ~word) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Check whether this set and the other one have at least one common lock. */
+  boolean intersects(LockSet pOther) {
+    checkSameFactory(pOther);
+    int length = Math.min(bits.length, pOther.bits.length);
+    for (int i = 0; i < length; i++) {
+      if ((bits[i] & pOther.bits[i]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Bit positions are assigned by the factory, so they are meaningless for other factories. */
+  private void checkSameFactory(LockSet pOther) {
+    checkArgument(
+        factory == pOther.factory, "cannot compare lock sets of different factories by bits");
+  }
+
+  /** Returns the lock set with the same locks, but every counter reduced to one. */
+  LockSet reduceCounters() {
+    LockSet result = reduced;
+    if (result == null) {
+      ImmutableSortedMap.Builder<LockIdentifier, Integer> builder =
+          ImmutableSortedMap.naturalOrder();
+      counters.keySet().forEach(l -> builder.put(l, 1));
+      result = factory.of(builder.build());
+      reduced = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the lock set, which is obtained by restoring the counters of the root set in this
+   * (reduced) set. This is the inverse operation of {@link #reduceCounters()}.
+   */
+  LockSet expandCounters(LockSet pRoot) {
+    return factory.expandCounters(this, pRoot);
+  }
+
+  LockSet computeExpandedCounters(LockSet pRoot) {
+    Map<LockIdentifier, Integer> result = new TreeMap<>(counters);
+    for (Entry<LockIdentifier, Integer> entry : pRoot.counters.entrySet()) {
+      LockIdentifier lock = entry.getKey();
+      int newSize = result.getOrDefault(lock, 0) + entry.getValue() - 1;
+      if (newSize > 0) {
+        result.put(lock, newSize);
+      } else {
+        result.remove(lock);
+      }
+    }
+    return factory.of(result);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(Object pObj) {
+    // only used for interning, afterwards all equal lock sets are identical
+    if (this == pObj) {
+      return true;
+    }
+    if (!(pObj instanceof LockSet)) {
+      return false;
+    }
+    LockSet other = (LockSet) pObj;
+    return hashCode == other.hashCode
+        && Arrays.equals(bits, other.bits)
+        && counters.equals(other.counters);
+  }
+
+  @Override
+  public String toString() {
+    return counters.toString();
+  }
+}
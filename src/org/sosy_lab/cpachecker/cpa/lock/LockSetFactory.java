@@ -0,0 +1,86 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.lock;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.sosy_lab.cpachecker.util.Pair;
+
+/**
+ * Creates the interned {@link LockSet}s of one analysis. The factory owns the table of lock
+ * identifiers, which defines the bit positions of the lock sets, and their caches, thus nothing is
+ * shared between different analyses and everything is released together with the {@link
+ * LockCPA}.
+ */
+final class LockSetFactory {
+
+  /** Upper bound for the memoized results of {@link LockSet#expandCounters(LockSet)}. */
+  private static final int EXPAND_CACHE_SIZE = 10000;
+
+  /** The table of lock identifiers, it assigns a dense index to every lock. */
+  private final ConcurrentMap<LockIdentifier, Integer> lockIndex = new ConcurrentHashMap<>();
+
+  private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+  private final Interner<LockSet> interner = Interners.newWeakInterner();
+
+  /** Memoized results of {@link LockSet#expandCounters(LockSet)}, keyed by reduced and root set. */
+  private final Cache<Pair<LockSet, LockSet>, LockSet> expandCache =
+      CacheBuilder.newBuilder().maximumSize(EXPAND_CACHE_SIZE).build();
+
+  private final LockSet empty;
+
+  LockSetFactory() {
+    empty = of(ImmutableSortedMap.of());
+  }
+
+  LockSet empty() {
+    return empty;
+  }
+
+  LockSet of(Map<LockIdentifier, Integer> pCounters) {
+    return interner.intern(new LockSet(this, ImmutableSortedMap.copyOf(pCounters)));
+  }
+
+  int getIndex(LockIdentifier pLock) {
+    return lockIndex.computeIfAbsent(pLock, l -> nextIndex.getAndIncrement());
+  }
+
+  LockSet expandCounters(LockSet pReduced, LockSet pRoot) {
+    Pair<LockSet, LockSet> key = Pair.of(pReduced, pRoot);
+    LockSet result = expandCache.getIfPresent(key);
+    if (result == null) {
+      result = pReduced.computeExpandedCounters(pRoot);
+      expandCache.put(key, result);
+    }
+    return result;
+  }
+}
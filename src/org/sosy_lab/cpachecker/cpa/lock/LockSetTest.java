@@ -0,0 +1,117 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.lock;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.TreeMap;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cpa.lock.LockState.LockStateBuilder;
+
+public class LockSetTest {
+
+  private final LockIdentifier lockA = LockIdentifier.of("lockSetTestA");
+  private final LockIdentifier lockB = LockIdentifier.of("lockSetTestB");
+  private final LockIdentifier lockC = LockIdentifier.of("lockSetTestC");
+
+  private final LockSetFactory lockSets = new LockSetFactory();
+
+  @Test
+  public void testInterning() {
+    LockSet set1 = lockSets.of(ImmutableMap.of(lockA, 1, lockB, 2));
+    LockSet set2 = lockSets.of(new TreeMap<>(ImmutableMap.of(lockB, 2, lockA, 1)));
+    LockSet set3 = lockSets.of(ImmutableMap.of(lockA, 1, lockB, 1));
+
+    assertThat(set1).isSameInstanceAs(set2);
+    assertThat(set1).isNotEqualTo(set3);
+    assertThat(lockSets.of(ImmutableMap.of())).isSameInstanceAs(lockSets.empty());
+  }
+
+  @Test
+  public void testIndependentFactories() {
+    LockSetFactory otherLockSets = new LockSetFactory();
+    LockSet set1 = lockSets.of(ImmutableMap.of(lockA, 1));
+    LockSet set2 = otherLockSets.of(ImmutableMap.of(lockA, 1));
+
+    assertThat(set1).isNotSameInstanceAs(set2);
+    assertThat(set1.expandCounters(set1)).isSameInstanceAs(set1);
+    assertThat(set2.expandCounters(set2)).isSameInstanceAs(set2);
+  }
+
+  @Test
+  public void testSubsetAndIntersection() {
+    LockSet ab = lockSets.of(ImmutableMap.of(lockA, 1, lockB, 3));
+    LockSet a = lockSets.of(ImmutableMap.of(lockA, 2));
+    LockSet c = lockSets.of(ImmutableMap.of(lockC, 1));
+
+    assertThat(ab.containsAll(a)).isTrue();
+    assertThat(ab.containsAll(lockSets.empty())).isTrue();
+    assertThat(a.containsAll(ab)).isFalse();
+    assertThat(ab.intersects(a)).isTrue();
+    assertThat(ab.intersects(c)).isFalse();
+    assertThat(lockSets.empty().intersects(ab)).isFalse();
+  }
+
+  @Test
+  public void testStatesOfIndependentFactories() {
+    // lockA gets the first bit in one factory, lockB in the other one
+    LockSetFactory otherLockSets = new LockSetFactory();
+    LockState a = stateWith(lockSets, lockA);
+    LockState b = stateWith(otherLockSets, lockB);
+    LockState ab = stateWith(otherLockSets, lockB, lockA);
+
+    assertThat(a.isCompatibleWith(b)).isTrue();
+    assertThat(a.isCompatibleWith(ab)).isFalse();
+    assertThat(ab.isLessOrEqual(a)).isTrue();
+    assertThat(b.isLessOrEqual(a)).isFalse();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBitsOfIndependentFactories() {
+    LockSet a = lockSets.of(ImmutableMap.of(lockA, 1));
+    a.intersects(new LockSetFactory().of(ImmutableMap.of(lockA, 1)));
+  }
+
+  private static LockState stateWith(LockSetFactory pLockSets, LockIdentifier... pLocks) {
+    LockStateBuilder builder = new LockState(pLockSets).builder();
+    for (LockIdentifier lock : pLocks) {
+      builder.add(lock);
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void testReduceAndExpand() {
+    LockSet root = lockSets.of(ImmutableMap.of(lockA, 3, lockB, 1));
+    LockSet reduced = root.reduceCounters();
+
+    assertThat(reduced.asMap()).containsExactly(lockA, 1, lockB, 1);
+    assertThat(reduced.expandCounters(root)).isSameInstanceAs(root);
+
+    // lock B was released and lock C was acquired inside the block
+    LockSet inner = lockSets.of(ImmutableMap.of(lockA, 1, lockC, 1));
+    assertThat(inner.expandCounters(root).asMap()).containsExactly(lockA, 3, lockC, 1);
+  }
+}
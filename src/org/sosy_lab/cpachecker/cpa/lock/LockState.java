@@ -190,7 +190,8 @@ public final class LockState extends AbstractLockState {
       if (locks.equals(mutableLocks) && mutableToRestore == toRestore) {
         return LockState.this;
       } else {
-        return new LockState(mutableLocks, (LockState) mutableToRestore);
+        return new LockState(
+            lockSet.getFactory().of(mutableLocks), (LockState) mutableToRestore);
       }
     }
 
@@ -268,22 +269,26 @@ public final class LockState extends AbstractLockState {
     }
   }
 
+  // interned, so the comparison of lock sets is an identity check
+  private final LockSet lockSet;
   private final ImmutableMap<LockIdentifier, Integer> locks;
   // if we need restore state, we save it here
   // Used for function annotations like annotate.function_name.restore
-  public LockState() {
-    locks = ImmutableMap.of();
+  LockState(LockSetFactory pLockSets) {
+    lockSet = pLockSets.empty();
+    locks = lockSet.asMap();
   }
 
-  protected LockState(Map<LockIdentifier, Integer> gLocks, LockState state) {
+  private LockState(LockSet pLockSet, LockState state) {
     super(state);
-    this.locks = ImmutableMap.copyOf(gLocks);
+    lockSet = pLockSet;
+    locks = lockSet.asMap();
   }
 
   @Override
-  public Map<LockIdentifier, Integer> getHashCodeForState() {
+  public LockSet getHashCodeForState() {
     // Special hash for BAM, in other cases use iterator
-    return locks;
+    return lockSet;
   }
 
   @Override
@@ -303,7 +308,7 @@ public final class LockState extends AbstractLockState {
 
   @Override
   public int hashCode() {
-    return Objects.hashCode(locks);
+    return lockSet.hashCode();
   }
 
   @Override
@@ -315,7 +320,7 @@ public final class LockState extends AbstractLockState {
       return false;
     }
     LockState other = (LockState) obj;
-    return Objects.equals(toRestore, other.toRestore) && Objects.equals(locks, other.locks);
+    return lockSet == other.lockSet && Objects.equals(toRestore, other.toRestore);
   }
 
   /**
@@ -407,16 +412,56 @@ public final class LockState extends AbstractLockState {
     return locks.keySet();
   }
 
+  @Override
+  public int getSize() {
+    return lockSet.size();
+  }
+
+  /**
+   * Whether the lock sets of both states can be compared by their bits, i.e., whether they come
+   * from the same factory. Otherwise the lock identifiers need to be compared.
+   */
+  private boolean hasComparableLockSet(Object pOther) {
+    return pOther instanceof LockState
+        && ((LockState) pOther).lockSet.getFactory() == lockSet.getFactory();
+  }
+
+  @Override
+  public boolean isCompatibleWith(CompatibleState state) {
+    if (hasComparableLockSet(state)) {
+      return !lockSet.intersects(((LockState) state).lockSet);
+    }
+    return super.isCompatibleWith(state);
+  }
+
   @Override
   public boolean isLessOrEqual(AbstractLockState other) {
     // State is less, if it has the same locks as the other and may be some more
+    if (hasComparableLockSet(other)) {
+      return lockSet.containsAll(((LockState) other).lockSet);
+    }
+    return super.isLessOrEqual(other);
+  }
 
-    for (LockIdentifier lock : other.getLocks()) {
-      if (!locks.containsKey(lock)) {
-        return false;
-      }
+  /**
+   * Reduce the counters of all locks to one, the restore state is removed. This is the result of
+   * {@link LockReducer} if all locks are reduced, but the result is memoized for the lock set.
+   */
+  LockState reduceCounters() {
+    LockSet reducedSet = lockSet.reduceCounters();
+    if (reducedSet == lockSet && toRestore == null) {
+      return this;
+    }
+    return new LockState(reducedSet, null);
+  }
+
+  /** The inverse operation of {@link #reduceCounters()} for the given root state. */
+  LockState expandCounters(LockState pRootState) {
+    LockSet expandedSet = lockSet.expandCounters(pRootState.lockSet);
+    if (expandedSet == lockSet && toRestore == pRootState.toRestore) {
+      return this;
     }
-    return true;
+    return new LockState(expandedSet, (LockState) pRootState.toRestore);
   }
 
   @Override
@@ -432,6 +477,6 @@ public final class LockState extends AbstractLockState {
         overlappedMap.put(id, Integer.min(value, otherVal));
       }
     }
-    return new LockState(overlappedMap, (LockState) this.toRestore);
+    return new LockState(lockSet.getFactory().of(overlappedMap), (LockState) this.toRestore);
   }
 }
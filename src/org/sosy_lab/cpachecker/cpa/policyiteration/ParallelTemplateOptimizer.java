@@ -0,0 +1,304 @@
+package org.sosy_lab.cpachecker.cpa.policyiteration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.rationals.Rational;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
+import org.sosy_lab.java_smt.api.OptimizationProverEnvironment.OptStatus;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Maximizes independent template objectives in parallel. Each thread has its own solver
+ * instance, because solver contexts are not thread-safe, thus all formulas are transferred as
+ * SMT-LIB strings.
+ *
+ * <p>Objectives are organized in {@link ObjectiveGroup}s, all objectives of a group are maximized
+ * subject to the same constraints. The objectives of a group are distributed over the threads,
+ * and each thread asserts the constraints of a group only once for all its objectives of this
+ * group.
+ */
+final class ParallelTemplateOptimizer implements AutoCloseable {
+
+  /** The status and the upper bound (if the status is OPT) of a single maximization. */
+  static final class OptimizationResult {
+    private final OptStatus status;
+    private final Optional<Rational> upperBound;
+
+    private OptimizationResult(OptStatus pStatus, Optional<Rational> pUpperBound) {
+      status = pStatus;
+      upperBound = pUpperBound;
+    }
+
+    OptStatus getStatus() {
+      return status;
+    }
+
+    /** The optimal value, empty if the objective is unbounded or the status is not OPT. */
+    Optional<Rational> getUpperBound() {
+      return upperBound;
+    }
+  }
+
+  /** Objectives that are maximized subject to the same constraints. */
+  static final class ObjectiveGroup {
+    private final BooleanFormula constraints;
+    private final List<Formula> objectives = new ArrayList<>();
+    private final List<BooleanFormula> objectiveConstraints = new ArrayList<>();
+
+    // written by the worker threads at distinct positions, published by Future.get()
+    private OptimizationResult[] results = null;
+
+    // SMT-LIB representations, only used during an optimization
+    private String dumpedConstraints;
+    private List<String> dumpedObjectives;
+    private List<String> dumpedObjectiveConstraints;
+
+    ObjectiveGroup(BooleanFormula pConstraints) {
+      constraints = pConstraints;
+    }
+
+    /**
+     * Add an objective that is maximized subject to the constraints of the group and the given
+     * additional constraint.
+     *
+     * @return the index of the objective for {@link #getResult(int)}
+     */
+    int addObjective(Formula pObjective, BooleanFormula pObjectiveConstraint) {
+      checkState(results == null, "group was already optimized");
+      objectives.add(pObjective);
+      objectiveConstraints.add(pObjectiveConstraint);
+      return objectives.size() - 1;
+    }
+
+    int size() {
+      return objectives.size();
+    }
+
+    OptimizationResult getResult(int pIndex) {
+      checkState(results != null, "group was not yet optimized");
+      return results[pIndex];
+    }
+  }
+
+  /** A consecutive part of the objectives of a group, that is handled by a single thread. */
+  private static final class WorkItem {
+    private final ObjectiveGroup group;
+    private final int from;
+    private final int to;
+
+    private WorkItem(ObjectiveGroup pGroup, int pFrom, int pTo) {
+      group = pGroup;
+      from = pFrom;
+      to = pTo;
+    }
+  }
+
+  private final FormulaManagerView fmgr;
+  private final ShutdownNotifier shutdownNotifier;
+  private final ImmutableList<Solver> solvers;
+  private final ImmutableList<Timer> optimizationTimes;
+  private final ExecutorService pool;
+
+  ParallelTemplateOptimizer(
+      int pNumberOfThreads,
+      FormulaManagerView pFmgr,
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    checkArgument(pNumberOfThreads > 1);
+    fmgr = pFmgr;
+    shutdownNotifier = pShutdownNotifier;
+    ImmutableList.Builder<Solver> solverBuilder = ImmutableList.builder();
+    ImmutableList.Builder<Timer> timerBuilder = ImmutableList.builder();
+    for (int i = 0; i < pNumberOfThreads; i++) {
+      solverBuilder.add(Solver.create(pConfig, pLogger, pShutdownNotifier));
+      timerBuilder.add(new Timer());
+    }
+    solvers = solverBuilder.build();
+    optimizationTimes = timerBuilder.build();
+    pool =
+        Executors.newFixedThreadPool(
+            pNumberOfThreads,
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("template-optimization-%d")
+                .build());
+  }
+
+  int getNumberOfThreads() {
+    return solvers.size();
+  }
+
+  /** The times for optimization queries, one timer per thread. */
+  ImmutableList<Timer> getOptimizationTimes() {
+    return optimizationTimes;
+  }
+
+  /**
+   * Maximize all objectives of the given groups. Afterwards, the results are available via
+   * {@link ObjectiveGroup#getResult(int)}. Even after an exception this method returns only after
+   * all tasks are finished, because the tasks read the SMT-LIB representations of the groups and
+   * the solvers of the threads are used again by the next call.
+   */
+  void maximize(Iterable<ObjectiveGroup> pGroups, Rational pEpsilon)
+      throws SolverException, InterruptedException {
+    // formulas can only be dumped in the thread owning the solver context
+    int numberOfObjectives = 0;
+    for (ObjectiveGroup group : pGroups) {
+      checkState(group.results == null, "group was already optimized");
+      group.dumpedConstraints = fmgr.dumpFormula(group.constraints).toString();
+      group.dumpedObjectives = new ArrayList<>(group.size());
+      group.dumpedObjectiveConstraints = new ArrayList<>(group.size());
+      for (int i = 0; i < group.size(); i++) {
+        group.dumpedObjectives.add(fmgr.dumpArbitraryFormula(group.objectives.get(i)));
+        group.dumpedObjectiveConstraints.add(
+            fmgr.dumpFormula(group.objectiveConstraints.get(i)).toString());
+      }
+      group.results = new OptimizationResult[group.size()];
+      numberOfObjectives += group.size();
+    }
+
+    // split each group into at most one part per thread
+    final Queue<WorkItem> workItems = new ConcurrentLinkedQueue<>();
+    for (ObjectiveGroup group : pGroups) {
+      int parts = Math.min(group.size(), solvers.size());
+      for (int part = 0; part < parts; part++) {
+        workItems.add(
+            new WorkItem(
+                group, part * group.size() / parts, (part + 1) * group.size() / parts));
+      }
+    }
+
+    final int numberOfTasks = Math.min(solvers.size(), numberOfObjectives);
+    final Set<Thread> runningWorkers = ConcurrentHashMap.newKeySet();
+    List<Future<?>> futures = new ArrayList<>(numberOfTasks);
+    for (int i = 0; i < numberOfTasks; i++) {
+      final int task = i;
+      futures.add(
+          pool.submit(
+              () -> {
+                runningWorkers.add(Thread.currentThread());
+                try {
+                  maximize(task, workItems, pEpsilon);
+                } finally {
+                  runningWorkers.remove(Thread.currentThread());
+                }
+                return null;
+              }));
+    }
+
+    boolean completed = false;
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      completed = true;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, SolverException.class);
+      Throwables.throwIfInstanceOf(cause, InterruptedException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new AssertionError("unexpected exception in template optimization", cause);
+    } finally {
+      if (!completed) {
+        stopTasks(futures, workItems, runningWorkers);
+      }
+      for (ObjectiveGroup group : pGroups) {
+        group.dumpedConstraints = null;
+        group.dumpedObjectives = null;
+        group.dumpedObjectiveConstraints = null;
+      }
+    }
+  }
+
+  /**
+   * Stop the tasks after an exception and wait until they are finished. Cancelling the futures
+   * would not wait for running tasks, so instead the remaining work items are withdrawn and the
+   * running tasks are interrupted.
+   */
+  private static void stopTasks(
+      List<Future<?>> pFutures, Queue<WorkItem> pWorkItems, Set<Thread> pRunningWorkers) {
+    pWorkItems.clear();
+    pRunningWorkers.forEach(Thread::interrupt);
+    for (Future<?> future : pFutures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        // the first exception is already propagated
+      }
+    }
+  }
+
+  /** Handle work items with the solver of the given task until there are none left. */
+  private void maximize(int pTask, Queue<WorkItem> pWorkItems, Rational pEpsilon)
+      throws SolverException, InterruptedException {
+    Solver solver = solvers.get(pTask);
+    Timer optimizationTime = optimizationTimes.get(pTask);
+    FormulaManagerView localFmgr = solver.getFormulaManager();
+
+    optimizationTime.start();
+    try {
+      WorkItem item;
+      while ((item = pWorkItems.poll()) != null) {
+        ObjectiveGroup group = item.group;
+        try (OptimizationProverEnvironment prover = solver.newOptEnvironment()) {
+          prover.addConstraint(localFmgr.parse(group.dumpedConstraints));
+
+          for (int i = item.from; i < item.to; i++) {
+            shutdownNotifier.shutdownIfNecessary();
+            if (Thread.interrupted()) {
+              throw new InterruptedException();
+            }
+            prover.push();
+            prover.addConstraint(localFmgr.parse(group.dumpedObjectiveConstraints.get(i)));
+            int handle =
+                prover.maximize(localFmgr.parseArbitraryFormula(group.dumpedObjectives.get(i)));
+            OptStatus status = prover.check();
+            Optional<Rational> upperBound =
+                status == OptStatus.OPT ? prover.upper(handle, pEpsilon) : Optional.empty();
+            group.results[i] = new OptimizationResult(status, upperBound);
+            prover.pop();
+          }
+        }
+      }
+    } finally {
+      optimizationTime.stop();
+    }
+  }
+
+  @Override
+  public void close() {
+    // maximize() waits for its tasks, so no solver should be in use anymore
+    if (MoreExecutors.shutdownAndAwaitTermination(pool, 1, TimeUnit.MINUTES)) {
+      solvers.forEach(Solver::close);
+    }
+  }
+}
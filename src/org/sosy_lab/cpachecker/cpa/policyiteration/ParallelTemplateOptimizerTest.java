@@ -0,0 +1,120 @@
+package org.sosy_lab.cpachecker.cpa.policyiteration;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.rationals.Rational;
+import org.sosy_lab.cpachecker.cpa.policyiteration.ParallelTemplateOptimizer.ObjectiveGroup;
+import org.sosy_lab.cpachecker.cpa.policyiteration.ParallelTemplateOptimizer.OptimizationResult;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
+import org.sosy_lab.java_smt.api.OptimizationProverEnvironment.OptStatus;
+
+public class ParallelTemplateOptimizerTest extends SolverViewBasedTest0 {
+
+  /** An objective of a group together with the result of its sequential maximization. */
+  private static final class Objective {
+    private final ObjectiveGroup group;
+    private final int index;
+    private final OptStatus expectedStatus;
+    private final Optional<Rational> expectedUpperBound;
+
+    private Objective(
+        ObjectiveGroup pGroup,
+        int pIndex,
+        OptStatus pExpectedStatus,
+        Optional<Rational> pExpectedUpperBound) {
+      group = pGroup;
+      index = pIndex;
+      expectedStatus = pExpectedStatus;
+      expectedUpperBound = pExpectedUpperBound;
+    }
+  }
+
+  private final List<Objective> objectives = new ArrayList<>();
+
+  @Override
+  protected Solvers solverToUse() {
+    // optimization is supported by Z3 only
+    return Solvers.Z3;
+  }
+
+  /** Add the objective to the group and maximize it sequentially with the main solver. */
+  private Objective addObjective(
+      ObjectiveGroup pGroup,
+      BooleanFormula pConstraints,
+      Formula pObjective,
+      BooleanFormula pObjectiveConstraint)
+      throws Exception {
+    int index = pGroup.addObjective(pObjective, pObjectiveConstraint);
+    try (OptimizationProverEnvironment prover = solver.newOptEnvironment()) {
+      prover.addConstraint(pConstraints);
+      prover.addConstraint(pObjectiveConstraint);
+      int handle = prover.maximize(pObjective);
+      OptStatus status = prover.check();
+      Optional<Rational> upperBound =
+          status == OptStatus.OPT ? prover.upper(handle, Rational.ONE) : Optional.empty();
+      Objective objective = new Objective(pGroup, index, status, upperBound);
+      objectives.add(objective);
+      return objective;
+    }
+  }
+
+  @Test
+  public void testSameResultsAsSequentialOptimization() throws Exception {
+    IntegerFormula x = imgrv.makeVariable("x");
+    IntegerFormula y = imgrv.makeVariable("y");
+    IntegerFormula sum = imgrv.add(x, y);
+    BooleanFormula noConstraint = bmgrv.makeTrue();
+
+    // bounded polyhedron
+    BooleanFormula boundedConstraints =
+        bmgrv.and(
+            imgrv.lessOrEquals(x, imgrv.makeNumber(5)),
+            imgrv.lessOrEquals(y, imgrv.makeNumber(3)),
+            imgrv.lessOrEquals(sum, imgrv.makeNumber(7)));
+    ObjectiveGroup bounded = new ObjectiveGroup(boundedConstraints);
+    addObjective(bounded, boundedConstraints, x, noConstraint);
+    addObjective(bounded, boundedConstraints, y, noConstraint);
+    Objective maxSum = addObjective(bounded, boundedConstraints, sum, noConstraint);
+    addObjective(bounded, boundedConstraints, x, imgrv.greaterOrEquals(y, imgrv.makeNumber(3)));
+    Objective infeasible =
+        addObjective(bounded, boundedConstraints, y, imgrv.greaterThan(x, imgrv.makeNumber(5)));
+
+    // unbounded in y
+    BooleanFormula unboundedConstraints = imgrv.lessOrEquals(x, imgrv.makeNumber(10));
+    ObjectiveGroup unbounded = new ObjectiveGroup(unboundedConstraints);
+    addObjective(unbounded, unboundedConstraints, x, noConstraint);
+    Objective maxY = addObjective(unbounded, unboundedConstraints, y, noConstraint);
+    addObjective(unbounded, unboundedConstraints, imgrv.negate(y), imgrv.greaterOrEquals(y, x));
+
+    Configuration optimizerConfig =
+        createTestConfigBuilder().setOption("solver.solver", solverToUse().toString()).build();
+    try (ParallelTemplateOptimizer optimizer =
+        new ParallelTemplateOptimizer(
+            2, mgrv, optimizerConfig, logger, ShutdownNotifier.createDummy())) {
+      optimizer.maximize(ImmutableList.of(bounded, unbounded), Rational.ONE);
+    }
+
+    for (Objective objective : objectives) {
+      OptimizationResult result = objective.group.getResult(objective.index);
+      assertThat(result.getStatus()).isEqualTo(objective.expectedStatus);
+      assertThat(result.getUpperBound()).isEqualTo(objective.expectedUpperBound);
+    }
+
+    // make sure that the test covers the interesting cases
+    assertThat(maxSum.expectedUpperBound).hasValue(Rational.of(7));
+    assertThat(infeasible.expectedStatus).isEqualTo(OptStatus.UNSAT);
+    assertThat(maxY.expectedUpperBound).isEmpty();
+  }
+}
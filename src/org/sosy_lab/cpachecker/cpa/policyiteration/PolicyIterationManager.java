@@ -8,6 +8,7 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.asIterable;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
@@ -16,6 +17,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -48,6 +50,8 @@ import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustmentResult.Action;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.loopbound.LoopBoundState;
+import org.sosy_lab.cpachecker.cpa.policyiteration.ParallelTemplateOptimizer.ObjectiveGroup;
+import org.sosy_lab.cpachecker.cpa.policyiteration.ParallelTemplateOptimizer.OptimizationResult;
 import org.sosy_lab.cpachecker.cpa.policyiteration.PolicyIterationStatistics.TemplateUpdateEvent;
 import org.sosy_lab.cpachecker.cpa.policyiteration.ValueDeterminationManager.ValueDeterminationConstraints;
 import org.sosy_lab.cpachecker.cpa.policyiteration.polyhedra.PolyhedraWideningManager;
@@ -65,6 +69,7 @@ import org.sosy_lab.cpachecker.util.templates.Template;
 import org.sosy_lab.cpachecker.util.templates.Template.Kind;
 import org.sosy_lab.cpachecker.util.templates.TemplatePrecision;
 import org.sosy_lab.cpachecker.util.templates.TemplateToFormulaConversionManager;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 import org.sosy_lab.java_smt.api.Formula;
@@ -151,6 +156,16 @@ public class PolicyIterationManager {
       + "let other CPAs use the output of LPI.")
   private boolean delayAbstractionUntilStrengthen = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Number of threads for maximizing the templates of an abstraction or value"
+              + " determination in parallel. Each thread uses its own solver instance."
+              + " The value 1 disables the parallel optimization, -1 uses all available"
+              + " processors. Abstractions are computed sequentially if"
+              + " computeAbstractionByDecomposition is enabled.")
+  private int optimizationThreads = 1;
+
   private final FormulaManagerView fmgr;
   private final CFA cfa;
   private final PathFormulaManager pfmgr;
@@ -167,6 +182,7 @@ public class PolicyIterationManager {
   private final TemplatePrecision initialPrecision;
   private final TemplateToFormulaConversionManager templateToFormulaConversionManager;
   @Nullable private BlockPartitioning partitioning;
+  @Nullable private final ParallelTemplateOptimizer parallelOptimizer;
 
   public PolicyIterationManager(
       Configuration pConfig,
@@ -201,6 +217,29 @@ public class PolicyIterationManager {
 
     pwm =
         generateTemplatesUsingConvexHull ? new PolyhedraWideningManager(statistics, logger) : null;
+
+    if (optimizationThreads == -1) {
+      optimizationThreads = Runtime.getRuntime().availableProcessors();
+    }
+    if (optimizationThreads < 1) {
+      throw new InvalidConfigurationException(
+          "cpa.lpi.optimizationThreads has to be positive or -1");
+    }
+    if (optimizationThreads > 1) {
+      parallelOptimizer =
+          new ParallelTemplateOptimizer(
+              optimizationThreads, fmgr, pConfig, logger, shutdownNotifier);
+      statistics.optimizationTimesPerThread = parallelOptimizer.getOptimizationTimes();
+    } else {
+      parallelOptimizer = null;
+    }
+  }
+
+  /** Release the resources for parallel optimization, if there are any. */
+  void close() {
+    if (parallelOptimizer != null) {
+      parallelOptimizer.close();
+    }
   }
 
   /**
@@ -624,6 +663,9 @@ public class PolicyIterationManager {
   ) throws InterruptedException, CPATransferException {
     logger.log(Level.INFO, "Value determination at node",
         stateWithUpdates.getNode(), ", #constraints = ", valDetConstraints.constraints.size());
+    if (parallelOptimizer != null && updated.size() > 1) {
+      return performParallelValueDetermination(stateWithUpdates, updated, valDetConstraints);
+    }
     Map<Template, PolicyBound> newAbstraction =
         new HashMap<>(stateWithUpdates.getAbstraction());
     int locId = stateWithUpdates.getLocationID();
@@ -692,6 +734,71 @@ public class PolicyIterationManager {
     return Optional.of(stateWithUpdates.withNewAbstraction(newAbstraction));
   }
 
+  /**
+   * Value determination like in {@link #performValueDetermination}, but all templates are
+   * maximized in parallel with {@link ParallelTemplateOptimizer}.
+   */
+  private Optional<PolicyAbstractedState> performParallelValueDetermination(
+      PolicyAbstractedState stateWithUpdates,
+      Map<Template, PolicyBound> updated,
+      ValueDeterminationConstraints valDetConstraints)
+      throws InterruptedException, CPATransferException {
+    Map<Template, PolicyBound> newAbstraction =
+        new HashMap<>(stateWithUpdates.getAbstraction());
+    int locId = stateWithUpdates.getLocationID();
+
+    ObjectiveGroup group = new ObjectiveGroup(bfmgr.and(valDetConstraints.constraints));
+    for (Entry<Template, PolicyBound> entry : updated.entrySet()) {
+      Formula objective = valDetConstraints.outVars.get(entry.getKey(), locId);
+      group.addObjective(
+          objective,
+          fmgr.makeGreaterOrEqual(
+              objective, fmgr.makeNumber(objective, entry.getValue().getBound()), true));
+    }
+
+    statistics.valueDeterminationTimer.start();
+    try {
+      try {
+        statistics.optTimer.start();
+        parallelOptimizer.maximize(ImmutableList.of(group), EPSILON);
+      } finally {
+        statistics.optTimer.stop();
+      }
+
+      int index = 0;
+      for (Entry<Template, PolicyBound> entry : updated.entrySet()) {
+        Template template = entry.getKey();
+        OptimizationResult result = group.getResult(index++);
+        if (result.getStatus() == OptStatus.UNSAT) {
+          shutdownNotifier.shutdownIfNecessary();
+          return Optional.empty();
+        } else if (result.getStatus() == OptStatus.UNDEF) {
+          shutdownNotifier.shutdownIfNecessary();
+          logger.log(Level.WARNING, "Solver returned undefined status on value determination");
+          throw new CPATransferException("Unexpected solver state");
+        }
+
+        Optional<Rational> value = result.getUpperBound();
+        if (value.isPresent()
+            && !templateToFormulaConversionManager.isOverflowing(template, value.orElseThrow())) {
+          Rational v = value.orElseThrow();
+          logger.log(Level.FINE, "Updating", template, "to value", v);
+          newAbstraction.put(template, entry.getValue().updateValueFromValueDetermination(v));
+        } else {
+
+          // Unbounded.
+          newAbstraction.remove(template);
+        }
+      }
+    } catch (SolverException e) {
+      throw new CPATransferException("Failed maximization ", e);
+    } finally {
+      statistics.valueDeterminationTimer.stop();
+    }
+
+    return Optional.of(stateWithUpdates.withNewAbstraction(newAbstraction));
+  }
+
   /**
    * @return Whether the <code>state</code> is unreachable.
    */
@@ -738,7 +845,7 @@ public class PolicyIterationManager {
   private Optional<PolicyBound> getPolicyBound(
       Template template,
       TemplatePrecision precision,
-      OptimizationProverEnvironment optEnvironment,
+      BasicProverEnvironment<?> optEnvironment,
       Optional<Rational> bound,
       BooleanFormula annotatedFormula,
       PathFormula p,
@@ -835,97 +942,283 @@ public class PolicyIterationManager {
     Set<BooleanFormula> lemmas = toLemmas(p.getFormula());
 
     final Map<Template, PolicyBound> abstraction = new HashMap<>();
+    final List<Template> templates = precision.getTemplatesForNode(node);
 
-    try (OptimizationProverEnvironment optEnvironment = newOptProver()) {
+    if (parallelOptimizer != null && !computeAbstractionByDecomposition && templates.size() > 1) {
+      try {
+        computeAbstractionInParallel(
+            generatorState,
+            precision,
+            templates,
+            startConstraints,
+            startConstraintLemmas,
+            lemmas,
+            abstraction);
+      } catch (SolverException e) {
+        throw new CPATransferException("Solver error: ", e);
+      }
 
-      optEnvironment.push();
-      optEnvironment.addConstraint(startConstraints);
-      optEnvironment.push();
+    } else {
+      try (OptimizationProverEnvironment optEnvironment = newOptProver()) {
 
-      for (Template template : precision.getTemplatesForNode(node)) {
-        optEnvironment.pop();
+        optEnvironment.push();
+        optEnvironment.addConstraint(startConstraints);
         optEnvironment.push();
 
-        // Optimize for the template subject to the
-        // constraints introduced by {@code p}.
-        Formula objective = templateToFormulaConversionManager.toFormula(
-            pfmgr, fmgr, template, p);
-        Set<String> objectiveVars = extractFunctionNames(objective);
-
-        if (computeAbstractionByDecomposition) {
-          Pair<DecompositionStatus, PolicyBound> res = computeByDecomposition(
-              template, p, lemmas, startConstraintLemmas, abstraction);
-          switch (res.getFirstNotNull()) {
-            case BOUND_COMPUTED:
-
-              // Put the computed bound.
-              PolicyBound bound = res.getSecondNotNull();
-              if (checkPolicyInitialCondition) {
-                bound = updatePolicyBoundDependencies(bound, objective);
-              }
-              abstraction.put(template, bound);
-              continue;
-            case UNBOUNDED:
+        for (Template template : templates) {
+          optEnvironment.pop();
+          optEnvironment.push();
+
+          // Optimize for the template subject to the
+          // constraints introduced by {@code p}.
+          Formula objective = templateToFormulaConversionManager.toFormula(
+              pfmgr, fmgr, template, p);
+          Set<String> objectiveVars = extractFunctionNames(objective);
+
+          if (computeAbstractionByDecomposition) {
+            Pair<DecompositionStatus, PolicyBound> res = computeByDecomposition(
+                template, p, lemmas, startConstraintLemmas, abstraction);
+            switch (res.getFirstNotNull()) {
+              case BOUND_COMPUTED:
+
+                // Put the computed bound.
+                PolicyBound bound = res.getSecondNotNull();
+                if (checkPolicyInitialCondition) {
+                  bound = updatePolicyBoundDependencies(bound, objective);
+                }
+                abstraction.put(template, bound);
+                continue;
+              case UNBOUNDED:
+
+                // Any of the components is unbounded => the sum is unbounded as
+                // well.
+                continue;
+              case ABSTRACTION_REQUIRED:
+
+                // Continue with abstraction.
+                break;
+              default:
+                throw new UnsupportedOperationException("Unexpected case");
+            }
+          }
+
+          Set<BooleanFormula> slicedConstraint = computeRelevantSubset(
+              lemmas, startConstraintLemmas, objectiveVars);
+          BooleanFormula f = bfmgr.and(slicedConstraint);
 
-              // Any of the components is unbounded => the sum is unbounded as
-              // well.
+          // Linearize & add choice variables.
+          statistics.linearizationTimer.start();
+          BooleanFormula annotatedFormula = linearizationManager.annotateDisjunctions(
+              linearizationManager.linearize(f)
+          );
+          statistics.linearizationTimer.stop();
+
+          // Skip updates if the edge does not have any variables mentioned in the
+          // template.
+          if (bfmgr.isTrue(f)) {
+            if (generatorState.getBackpointerState().getAbstraction().get(template) == null) {
+
+              // Unbounded.
               continue;
-            case ABSTRACTION_REQUIRED:
+            }
+
+            PolicyBound bound = generatorState.getBackpointerState().getAbstraction().get(template);
+            abstraction.put(template, bound);
+          }
 
-              // Continue with abstraction.
+          optEnvironment.addConstraint(annotatedFormula);
+
+          int handle = optEnvironment.maximize(objective);
+
+          OptStatus status;
+          try {
+            statistics.optTimer.start();
+            status = optEnvironment.check();
+          } finally {
+            statistics.optTimer.stop();
+          }
+
+          switch (status) {
+            case OPT:
+
+              Optional<Rational> bound = optEnvironment.upper(handle, EPSILON);
+              Optional<PolicyBound> policyBound = getPolicyBound(
+                  template, precision, optEnvironment, bound, annotatedFormula,
+                  p, generatorState, objective);
+              if (policyBound.isPresent()) {
+                abstraction.put(template, policyBound.orElseThrow());
+              }
+
+              logger.log(Level.FINE, "Got bound: ", bound);
               break;
+
+            case UNSAT:
+              throw new CPAException("Unexpected UNSAT");
+
+            case UNDEF:
+              logger.log(Level.WARNING, "Solver returned undefined status on the problem: ");
+              logger.log(Level.INFO, optEnvironment.toString());
+              throw new CPATransferException("Solver returned undefined status");
             default:
-              throw new UnsupportedOperationException("Unexpected case");
+              throw new AssertionError("Unhandled enum value in switch: " + status);
           }
+
         }
+      } catch (SolverException e) {
+        throw new CPATransferException("Solver error: ", e);
+      }
+    }
 
-        Set<BooleanFormula> slicedConstraint = computeRelevantSubset(
-            lemmas, startConstraintLemmas, objectiveVars);
-        BooleanFormula f = bfmgr.and(slicedConstraint);
+    statistics.updateCounter.add(locationID);
 
-        // Linearize & add choice variables.
-        statistics.linearizationTimer.start();
-        BooleanFormula annotatedFormula = linearizationManager.annotateDisjunctions(
-            linearizationManager.linearize(f)
-        );
-        statistics.linearizationTimer.stop();
+    return PolicyAbstractedState.of(
+        abstraction,
+        generatorState.getNode(),
+        locationID,
+        stateFormulaConversionManager,
+        generatorState.getPathFormula().getSsa(),
+        generatorState.getPathFormula().getPointerTargetSet(),
+        extraInvariant,
+        Optional.of(generatorState),
+        pSibling);
+  }
 
-        // Skip updates if the edge does not have any variables mentioned in the
-        // template.
-        if (bfmgr.isTrue(f)) {
-          if (generatorState.getBackpointerState().getAbstraction().get(template) == null) {
+  /** A template of an abstraction, which is optimized by {@link ParallelTemplateOptimizer}. */
+  private static final class ParallelAbstractionQuery {
+    private final Template template;
+    private final Formula objective;
+    private final BooleanFormula annotatedFormula;
+    private final ObjectiveGroup group;
+    private final int index;
+
+    private ParallelAbstractionQuery(
+        Template pTemplate,
+        Formula pObjective,
+        BooleanFormula pAnnotatedFormula,
+        ObjectiveGroup pGroup,
+        int pIndex) {
+      template = pTemplate;
+      objective = pObjective;
+      annotatedFormula = pAnnotatedFormula;
+      group = pGroup;
+      index = pIndex;
+    }
+  }
 
-            // Unbounded.
-            continue;
-          }
+  /**
+   * Compute the abstraction like {@link #performAbstraction}, but maximize all templates in
+   * parallel with {@link ParallelTemplateOptimizer}.
+   *
+   * <p>Templates are grouped by their slice of the path formula and of the start constraints,
+   * each group is sent to the optimizers only once. The policy for an optimal bound requires a
+   * model in the solver of this thread, which is obtained by a satisfiability check with the
+   * objective restricted to the optimal bound. This is much cheaper than the optimization itself.
+   */
+  private void computeAbstractionInParallel(
+      PolicyIntermediateState generatorState,
+      TemplatePrecision precision,
+      List<Template> templates,
+      BooleanFormula startConstraints,
+      Set<BooleanFormula> startConstraintLemmas,
+      Set<BooleanFormula> lemmas,
+      Map<Template, PolicyBound> abstraction)
+      throws CPAException, SolverException, InterruptedException {
+    final PathFormula p = generatorState.getPathFormula();
+    final PolicyAbstractedState backpointer = generatorState.getBackpointerState();
 
-          PolicyBound bound = generatorState.getBackpointerState().getAbstraction().get(template);
-          abstraction.put(template, bound);
-        }
+    Map<Set<BooleanFormula>, BooleanFormula> annotatedSlices = new HashMap<>();
+    Map<Pair<Set<BooleanFormula>, Set<BooleanFormula>>, ObjectiveGroup> groups =
+        new LinkedHashMap<>();
+    List<ParallelAbstractionQuery> queries = new ArrayList<>(templates.size());
 
-        optEnvironment.addConstraint(annotatedFormula);
+    for (Template template : templates) {
+      Formula objective = templateToFormulaConversionManager.toFormula(
+          pfmgr, fmgr, template, p);
+      Set<String> objectiveVars = extractFunctionNames(objective);
+      Set<BooleanFormula> slicedConstraint = computeRelevantSubset(
+          lemmas, startConstraintLemmas, objectiveVars);
 
-        int handle = optEnvironment.maximize(objective);
+      // Skip updates if the edge does not have any variables mentioned in the template.
+      if (bfmgr.isTrue(bfmgr.and(slicedConstraint))) {
+        PolicyBound bound = backpointer.getAbstraction().get(template);
+        if (bound == null) {
 
-        OptStatus status;
-        try {
-          statistics.optTimer.start();
-          status = optEnvironment.check();
-        } finally {
-          statistics.optTimer.stop();
+          // Unbounded.
+          continue;
         }
+        abstraction.put(template, bound);
+      }
 
-        switch (status) {
+      BooleanFormula annotatedFormula = annotatedSlices.get(slicedConstraint);
+      if (annotatedFormula == null) {
+        statistics.linearizationTimer.start();
+        annotatedFormula = linearizationManager.annotateDisjunctions(
+            linearizationManager.linearize(bfmgr.and(slicedConstraint)));
+        statistics.linearizationTimer.stop();
+        annotatedSlices.put(slicedConstraint, annotatedFormula);
+      }
+
+      // Other start constraints do not share variables with the objective or the slice.
+      Set<BooleanFormula> slicedStartConstraint = computeRelevantSubset(
+          startConstraintLemmas, lemmas, objectiveVars);
+      Pair<Set<BooleanFormula>, Set<BooleanFormula>> key =
+          Pair.of(slicedConstraint, slicedStartConstraint);
+      ObjectiveGroup group = groups.get(key);
+      if (group == null) {
+        group = new ObjectiveGroup(bfmgr.and(bfmgr.and(slicedStartConstraint), annotatedFormula));
+        groups.put(key, group);
+      }
+      int index = group.addObjective(objective, bfmgr.makeTrue());
+      queries.add(
+          new ParallelAbstractionQuery(template, objective, annotatedFormula, group, index));
+    }
+
+    try {
+      statistics.optTimer.start();
+      parallelOptimizer.maximize(groups.values(), EPSILON);
+    } finally {
+      statistics.optTimer.stop();
+    }
+
+    try (ProverEnvironment prover = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.push(startConstraints);
+
+      for (ParallelAbstractionQuery query : queries) {
+        shutdownNotifier.shutdownIfNecessary();
+        OptimizationResult result = query.group.getResult(query.index);
+        switch (result.getStatus()) {
           case OPT:
+            Optional<Rational> bound = result.getUpperBound();
+            Optional<PolicyBound> policyBound;
+
+            prover.push(query.annotatedFormula);
+            if (bound.isPresent()) {
+              prover.push(
+                  fmgr.makeGreaterOrEqual(
+                      query.objective,
+                      fmgr.makeNumber(query.objective, bound.orElseThrow()),
+                      true));
+            }
+            if (!prover.isUnsat()) {
+              policyBound = getPolicyBound(
+                  query.template, precision, prover, bound, query.annotatedFormula,
+                  p, generatorState, query.objective);
+            } else {
+
+              // Should not happen, but the bound may be imprecise due to the value of epsilon.
+              logger.log(Level.FINE, "Optimal bound is unreachable, optimizing again: ", bound);
+              policyBound = optimizeTemplate(
+                  query.template, precision, startConstraints, query.annotatedFormula,
+                  p, generatorState, query.objective);
+            }
+            if (bound.isPresent()) {
+              prover.pop();
+            }
+            prover.pop();
 
-            Optional<Rational> bound = optEnvironment.upper(handle, EPSILON);
-            Optional<PolicyBound> policyBound = getPolicyBound(
-                template, precision, optEnvironment, bound, annotatedFormula,
-                p, generatorState, objective);
             if (policyBound.isPresent()) {
-              abstraction.put(template, policyBound.orElseThrow());
+              abstraction.put(query.template, policyBound.orElseThrow());
             }
-
             logger.log(Level.FINE, "Got bound: ", bound);
             break;
 
@@ -934,29 +1227,44 @@ public class PolicyIterationManager {
 
           case UNDEF:
             logger.log(Level.WARNING, "Solver returned undefined status on the problem: ");
-            logger.log(Level.INFO, optEnvironment.toString());
+            logger.log(Level.INFO, query.annotatedFormula);
             throw new CPATransferException("Solver returned undefined status");
           default:
-            throw new AssertionError("Unhandled enum value in switch: " + status);
+            throw new AssertionError("Unhandled enum value in switch: " + result.getStatus());
         }
-
       }
-    } catch (SolverException e) {
-      throw new CPATransferException("Solver error: ", e);
     }
+  }
 
-    statistics.updateCounter.add(locationID);
+  /** Maximize a single template in this thread and derive the policy bound. */
+  private Optional<PolicyBound> optimizeTemplate(
+      Template template,
+      TemplatePrecision precision,
+      BooleanFormula startConstraints,
+      BooleanFormula annotatedFormula,
+      PathFormula p,
+      PolicyIntermediateState generatorState,
+      Formula objective)
+      throws CPAException, SolverException, InterruptedException {
+    try (OptimizationProverEnvironment optEnvironment = newOptProver()) {
+      optEnvironment.addConstraint(startConstraints);
+      optEnvironment.addConstraint(annotatedFormula);
+      int handle = optEnvironment.maximize(objective);
 
-    return PolicyAbstractedState.of(
-        abstraction,
-        generatorState.getNode(),
-        locationID,
-        stateFormulaConversionManager,
-        generatorState.getPathFormula().getSsa(),
-        generatorState.getPathFormula().getPointerTargetSet(),
-        extraInvariant,
-        Optional.of(generatorState),
-        pSibling);
+      OptStatus status;
+      try {
+        statistics.optTimer.start();
+        status = optEnvironment.check();
+      } finally {
+        statistics.optTimer.stop();
+      }
+      if (status != OptStatus.OPT) {
+        throw new CPATransferException("Solver returned unexpected status " + status);
+      }
+      return getPolicyBound(
+          template, precision, optEnvironment, optEnvironment.upper(handle, EPSILON),
+          annotatedFormula, p, generatorState, objective);
+    }
   }
 
   private OptimizationProverEnvironment newOptProver() {
@@ -1,9 +1,11 @@
 package org.sosy_lab.cpachecker.cpa.policyiteration;
 
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multiset;
 import java.io.PrintStream;
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import org.sosy_lab.common.time.Timer;
@@ -33,6 +35,9 @@ public class PolicyIterationStatistics implements Statistics {
 
   final Timer getBoundTimer = new Timer();
 
+  // one timer per thread of the parallel template optimization
+  List<Timer> optimizationTimesPerThread = ImmutableList.of();
+
   private final CFA cfa;
 
   private BigInteger wideningTemplatesGenerated = BigInteger.ZERO;
@@ -49,6 +54,9 @@ public class PolicyIterationStatistics implements Statistics {
     printTimer(out, valueDeterminationTimer, "value determination");
     printTimer(out, abstractionTimer, "abstraction");
     printTimer(out, optTimer, "optimization (OPT-SMT)");
+    for (int i = 0; i < optimizationTimesPerThread.size(); i++) {
+      printTimer(out, optimizationTimesPerThread.get(i), "optimization in thread " + i);
+    }
 
     printTimer(out, checkSATTimer, "checking bad states (SMT)");
 
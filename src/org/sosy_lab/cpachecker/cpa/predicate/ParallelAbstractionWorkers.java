@@ -0,0 +1,359 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Threads with their own solver instances for computing parts of a predicate abstraction in
+ * parallel: the implication checks of Cartesian abstraction and the model enumeration for
+ * independent clusters of predicates in Boolean abstraction. Solver contexts are not thread-safe,
+ * thus formulas are transferred to the solvers of the threads as SMT-LIB strings, and the results
+ * are returned without references to formulas of the threads.
+ */
+class ParallelAbstractionWorkers implements AutoCloseable {
+
+  /** The result values are the same as in the cache for Cartesian abstraction. */
+  static final byte PREDICATE_FALSE = -1;
+
+  static final byte PREDICATE_UNKNOWN = 0;
+  static final byte PREDICATE_TRUE = 1;
+
+  private final FormulaManagerView fmgr;
+  private final ImmutableList<Solver> solvers;
+  private final ImmutableList<Timer> queryTimes;
+  private final ExecutorService pool;
+
+  ParallelAbstractionWorkers(
+      int pNumberOfThreads,
+      FormulaManagerView pFmgr,
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    checkArgument(pNumberOfThreads > 1);
+    fmgr = pFmgr;
+    ImmutableList.Builder<Solver> solverBuilder = ImmutableList.builder();
+    ImmutableList.Builder<Timer> timerBuilder = ImmutableList.builder();
+    for (int i = 0; i < pNumberOfThreads; i++) {
+      solverBuilder.add(Solver.create(pConfig, pLogger, pShutdownNotifier));
+      timerBuilder.add(new Timer());
+    }
+    solvers = solverBuilder.build();
+    queryTimes = timerBuilder.build();
+    pool =
+        Executors.newFixedThreadPool(
+            pNumberOfThreads,
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("predicate-abstraction-%d")
+                .build());
+  }
+
+  int getNumberOfThreads() {
+    return solvers.size();
+  }
+
+  /** The times for solver queries, one timer per thread. */
+  ImmutableList<Timer> getQueryTimes() {
+    return queryTimes;
+  }
+
+  /**
+   * Check for each predicate whether it is implied by the formula, or its negation is implied by
+   * the formula.
+   *
+   * @param pFormula a satisfiable formula
+   * @param pPredicates the instantiated predicates
+   * @return for each predicate one of {@link #PREDICATE_TRUE}, {@link #PREDICATE_FALSE}, and
+   *     {@link #PREDICATE_UNKNOWN}
+   */
+  byte[] checkPredicates(BooleanFormula pFormula, List<BooleanFormula> pPredicates)
+      throws SolverException, InterruptedException {
+    // formulas can only be dumped in the thread owning the solver context
+    final String formula = fmgr.dumpFormula(pFormula).toString();
+    final List<String> predicates = new ArrayList<>(pPredicates.size());
+    for (BooleanFormula predicate : pPredicates) {
+      predicates.add(fmgr.dumpFormula(predicate).toString());
+    }
+
+    // each thread writes to distinct positions, and Future.get() publishes the values
+    final byte[] results = new byte[predicates.size()];
+    final int numberOfTasks = Math.min(solvers.size(), predicates.size());
+    runTasks(
+        numberOfTasks,
+        (task, aborted) ->
+            checkPredicates(task, numberOfTasks, formula, predicates, results, aborted));
+    return results;
+  }
+
+  /**
+   * Enumerate all models of the formula for each cluster of predicates separately.
+   *
+   * @param pFormula the formula to abstract
+   * @param pClusters for each cluster the definitions of the predicates, i.e., equivalences of a
+   *     propositional variable and the instantiated predicate
+   * @param pClusterVariables for each cluster the propositional variables of its predicates
+   * @return for each cluster the list of models, where each model contains a literal for each
+   *     variable of the cluster. A literal is the index of the variable (starting with 1), negated
+   *     if the variable is false in the model. The list is empty if the formula is unsatisfiable.
+   */
+  List<List<int[]>> allSat(
+      BooleanFormula pFormula,
+      List<BooleanFormula> pClusters,
+      List<List<BooleanFormula>> pClusterVariables)
+      throws SolverException, InterruptedException {
+    checkArgument(pClusters.size() == pClusterVariables.size());
+    final String formula = fmgr.dumpFormula(pFormula).toString();
+    final List<String> definitions = new ArrayList<>(pClusters.size());
+    final List<List<String>> variables = new ArrayList<>(pClusters.size());
+    for (int i = 0; i < pClusters.size(); i++) {
+      definitions.add(fmgr.dumpFormula(pClusters.get(i)).toString());
+      List<String> clusterVariables = new ArrayList<>();
+      for (BooleanFormula var : pClusterVariables.get(i)) {
+        clusterVariables.add(fmgr.dumpFormula(var).toString());
+      }
+      variables.add(clusterVariables);
+    }
+
+    // larger clusters are expensive, thus the clusters are distributed dynamically
+    final List<List<int[]>> results = new ArrayList<>(Collections.nCopies(pClusters.size(), null));
+    final AtomicInteger nextCluster = new AtomicInteger(0);
+    final int numberOfTasks = Math.min(solvers.size(), pClusters.size());
+    runTasks(
+        numberOfTasks,
+        (task, aborted) -> {
+          int cluster;
+          while (!aborted.getAsBoolean()
+              && (cluster = nextCluster.getAndIncrement()) < definitions.size()) {
+            results.set(
+                cluster, allSat(task, formula, definitions.get(cluster), variables.get(cluster)));
+          }
+        });
+    return results;
+  }
+
+  @FunctionalInterface
+  private interface WorkerTask {
+    /**
+     * Run the task with the given index. The task should stop early if the given supplier returns
+     * true, because another task failed.
+     */
+    void run(int pTask, BooleanSupplier pAborted) throws SolverException, InterruptedException;
+  }
+
+  /**
+   * Run the tasks with the given indices and wait for them. Even after an exception this method
+   * returns only after all tasks are finished, because the solvers of the threads are not
+   * thread-safe and are used again by the next call.
+   */
+  private void runTasks(int pNumberOfTasks, WorkerTask pTask)
+      throws SolverException, InterruptedException {
+    AtomicBoolean aborted = new AtomicBoolean(false);
+    Set<Thread> runningWorkers = ConcurrentHashMap.newKeySet();
+    List<Future<?>> futures = new ArrayList<>(pNumberOfTasks);
+    for (int i = 0; i < pNumberOfTasks; i++) {
+      final int task = i;
+      futures.add(
+          pool.submit(
+              () -> {
+                if (aborted.get()) {
+                  return null;
+                }
+                runningWorkers.add(Thread.currentThread());
+                try {
+                  pTask.run(task, aborted::get);
+                } finally {
+                  runningWorkers.remove(Thread.currentThread());
+                }
+                return null;
+              }));
+    }
+
+    boolean completed = false;
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      completed = true;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, SolverException.class);
+      Throwables.throwIfInstanceOf(cause, InterruptedException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new AssertionError("unexpected exception in abstraction computation", cause);
+    } finally {
+      if (!completed) {
+        stopTasks(futures, aborted, runningWorkers);
+      }
+    }
+  }
+
+  /**
+   * Stop the tasks after an exception and wait until they are finished. Cancelling the futures
+   * would not wait for running tasks, so instead the tasks are told to abort and the running ones
+   * are interrupted.
+   */
+  private static void stopTasks(
+      List<Future<?>> pFutures, AtomicBoolean pAborted, Set<Thread> pRunningWorkers) {
+    pAborted.set(true);
+    pRunningWorkers.forEach(Thread::interrupt);
+    for (Future<?> future : pFutures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        // the first exception is already propagated
+      }
+    }
+  }
+
+  /** Check every predicate with index pTask + k * pStep with the solver of the given task. */
+  private void checkPredicates(
+      int pTask,
+      int pStep,
+      String pFormula,
+      List<String> pPredicates,
+      byte[] pResults,
+      BooleanSupplier pAborted)
+      throws SolverException, InterruptedException {
+    Solver solver = solvers.get(pTask);
+    Timer queryTime = queryTimes.get(pTask);
+    FormulaManagerView localFmgr = solver.getFormulaManager();
+    BooleanFormulaManagerView localBfmgr = localFmgr.getBooleanFormulaManager();
+
+    queryTime.start();
+    try (ProverEnvironment prover = solver.newProverEnvironment()) {
+      prover.push(localFmgr.parse(pFormula));
+
+      for (int i = pTask; i < pPredicates.size() && !pAborted.getAsBoolean(); i += pStep) {
+        BooleanFormula predTrue = localFmgr.parse(pPredicates.get(i));
+
+        prover.push(localBfmgr.not(predTrue));
+        boolean isTrue = prover.isUnsat();
+        prover.pop();
+
+        if (isTrue) {
+          pResults[i] = PREDICATE_TRUE;
+        } else {
+          prover.push(predTrue);
+          boolean isFalse = prover.isUnsat();
+          prover.pop();
+          pResults[i] = isFalse ? PREDICATE_FALSE : PREDICATE_UNKNOWN;
+        }
+      }
+    } finally {
+      queryTime.stop();
+    }
+  }
+
+  /** Enumerate the models of a cluster with the solver of the given task. */
+  private List<int[]> allSat(
+      int pTask, String pFormula, String pDefinition, List<String> pVariables)
+      throws SolverException, InterruptedException {
+    Solver solver = solvers.get(pTask);
+    Timer queryTime = queryTimes.get(pTask);
+    FormulaManagerView localFmgr = solver.getFormulaManager();
+
+    List<BooleanFormula> localVariables = new ArrayList<>(pVariables.size());
+    Map<BooleanFormula, Integer> literals = new HashMap<>();
+    for (String var : pVariables) {
+      BooleanFormula localVar = localFmgr.parse(var);
+      localVariables.add(localVar);
+      literals.put(localVar, localVariables.size());
+    }
+
+    queryTime.start();
+    try (ProverEnvironment prover = solver.newProverEnvironment(ProverOptions.GENERATE_ALL_SAT)) {
+      prover.push(localFmgr.parse(pFormula));
+      prover.push(localFmgr.parse(pDefinition));
+      return prover.allSat(
+          new AllSatCallback<List<int[]>>() {
+            private final List<int[]> models = new ArrayList<>();
+
+            @Override
+            public void apply(List<BooleanFormula> pModel) {
+              int[] model = new int[pModel.size()];
+              for (int i = 0; i < model.length; i++) {
+                BooleanFormula literal = pModel.get(i);
+                Optional<BooleanFormula> inner = localFmgr.stripNegation(literal);
+                int index = literals.get(inner.orElse(literal));
+                model[i] = inner.isPresent() ? -index : index;
+              }
+              models.add(model);
+            }
+
+            @Override
+            public List<int[]> getResult() {
+              return models;
+            }
+          },
+          localVariables);
+    } finally {
+      queryTime.stop();
+    }
+  }
+
+  @Override
+  public void close() {
+    // runTasks() waits for its tasks, so no solver should be in use anymore
+    if (MoreExecutors.shutdownAndAwaitTermination(pool, 1, TimeUnit.MINUTES)) {
+      solvers.forEach(Solver::close);
+    }
+  }
+}
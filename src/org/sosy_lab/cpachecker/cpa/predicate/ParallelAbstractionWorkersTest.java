@@ -0,0 +1,154 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.sosy_lab.cpachecker.cpa.predicate.ParallelAbstractionWorkers.PREDICATE_FALSE;
+import static org.sosy_lab.cpachecker.cpa.predicate.ParallelAbstractionWorkers.PREDICATE_TRUE;
+import static org.sosy_lab.cpachecker.cpa.predicate.ParallelAbstractionWorkers.PREDICATE_UNKNOWN;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier.TrivialInvariantSupplier;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
+import org.sosy_lab.cpachecker.util.predicates.bdd.BDDManagerFactory;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+
+public class ParallelAbstractionWorkersTest extends SolverViewBasedTest0 {
+
+  private AbstractionManager amgr;
+
+  private IntegerFormula x;
+  private IntegerFormula y;
+  private IntegerFormula z;
+
+  @Before
+  public void setUp() throws InvalidConfigurationException {
+    amgr =
+        new AbstractionManager(
+            new BDDManagerFactory(config, logger).createRegionManager(), config, logger, solver);
+    x = imgrv.makeVariable("x");
+    y = imgrv.makeVariable("y");
+    z = imgrv.makeVariable("z");
+  }
+
+  /** x > 0 and y = x + 1, z is unconstrained */
+  private BooleanFormula formula() {
+    return bmgrv.and(
+        imgrv.greaterThan(x, imgrv.makeNumber(0)),
+        imgrv.equal(y, imgrv.add(x, imgrv.makeNumber(1))));
+  }
+
+  private ImmutableList<BooleanFormula> predicates() {
+    return ImmutableList.of(
+        imgrv.greaterThan(x, imgrv.makeNumber(0)),
+        imgrv.lessThan(x, imgrv.makeNumber(0)),
+        imgrv.greaterThan(y, imgrv.makeNumber(1)),
+        imgrv.greaterThan(z, imgrv.makeNumber(0)),
+        imgrv.lessThan(y, imgrv.makeNumber(0)),
+        imgrv.greaterThan(y, imgrv.makeNumber(5)));
+  }
+
+  private Configuration configuration(boolean pCartesian, int pThreads)
+      throws InvalidConfigurationException {
+    return createTestConfigBuilder()
+        .setOption("solver.solver", solverToUse().toString())
+        .setOption("cpa.predicate.abstraction.cartesian", Boolean.toString(pCartesian))
+        .setOption("cpa.predicate.abstraction.threads", Integer.toString(pThreads))
+        .build();
+  }
+
+  @Test
+  public void testCheckPredicates() throws Exception {
+    try (ParallelAbstractionWorkers workers =
+        new ParallelAbstractionWorkers(
+            2, mgrv, configuration(true, 2), logger, ShutdownNotifier.createDummy())) {
+      byte[] expected = {
+        PREDICATE_TRUE,
+        PREDICATE_FALSE,
+        PREDICATE_TRUE,
+        PREDICATE_UNKNOWN,
+        PREDICATE_FALSE,
+        PREDICATE_UNKNOWN
+      };
+
+      assertThat(workers.checkPredicates(formula(), predicates())).isEqualTo(expected);
+      // the solvers of the threads are reused
+      assertThat(workers.checkPredicates(formula(), predicates())).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testParallelCartesianAbstractionIsSequentialAbstraction() throws Exception {
+    ImmutableList.Builder<AbstractionPredicate> predicates = ImmutableList.builder();
+    for (BooleanFormula atom : predicates()) {
+      predicates.add(amgr.makePredicate(atom));
+    }
+
+    BooleanFormula sequential = computeAbstraction(formula(), predicates.build(), 1);
+    BooleanFormula parallel = computeAbstraction(formula(), predicates.build(), 3);
+
+    assertThatFormula(parallel).isEquivalentTo(sequential);
+  }
+
+  private BooleanFormula computeAbstraction(
+      BooleanFormula pFormula, List<AbstractionPredicate> pPredicates, int pThreads)
+      throws Exception {
+    Configuration abstractionConfig = configuration(true, pThreads);
+    ShutdownNotifier notifier = ShutdownNotifier.createDummy();
+    PredicateAbstractionManager pamgr =
+        new PredicateAbstractionManager(
+            amgr,
+            new PathFormulaManagerImpl(
+                mgrv,
+                abstractionConfig,
+                logger,
+                notifier,
+                MachineModel.LINUX32,
+                Optional.empty(),
+                AnalysisDirection.FORWARD),
+            solver,
+            abstractionConfig,
+            logger,
+            notifier,
+            TrivialInvariantSupplier.INSTANCE);
+    try {
+      return pamgr.computeAbstraction(pFormula, pPredicates);
+    } finally {
+      pamgr.close();
+    }
+  }
+}
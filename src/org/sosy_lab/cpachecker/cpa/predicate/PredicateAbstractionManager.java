@@ -29,6 +29,7 @@ import static com.google.common.base.Predicates.equalTo;
 import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -87,6 +88,10 @@ import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.cpachecker.util.predicates.weakening.InductiveWeakeningManager;
+import org.sosy_lab.cpachecker.util.resources.MemoryPressureGovernor;
+import org.sosy_lab.cpachecker.util.resources.MemoryPressureGovernor.CacheShedding;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents.AbstractionEvent;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
 import org.sosy_lab.java_smt.api.BooleanFormula;
@@ -127,6 +132,12 @@ public class PredicateAbstractionManager {
 
     public long allSatCount = 0;
     public int maxAllSatCount = 0;
+
+    public int numBooleanAbsClusters = 0;
+    public int maxBooleanAbsClusterSize = 0;
+
+    // one timer per thread of the parallel abstraction computation
+    public List<Timer> queryTimesPerThread = ImmutableList.of();
   }
 
   final Stats stats = new Stats();
@@ -162,6 +173,25 @@ public class PredicateAbstractionManager {
       description = "whether to use Boolean or Cartesian abstraction or both")
   private AbstractionType abstractionType = AbstractionType.BOOLEAN;
 
+  @Option(
+      secure = true,
+      name = "abstraction.threads",
+      description =
+          "number of threads for checking the predicates of Cartesian abstraction"
+              + " and for computing the Boolean abstraction of independent predicate clusters"
+              + " in parallel. Each thread uses its own solver instance."
+              + " The value 1 disables the parallel computation, -1 uses all available processors.")
+  private int abstractionThreads = 1;
+
+  @Option(
+      secure = true,
+      name = "abstraction.booleanClusters",
+      description =
+          "split the predicates for Boolean abstraction into clusters of predicates"
+              + " that are related via the abstracted formula,"
+              + " and enumerate the models for each cluster separately.")
+  private boolean booleanAbstractionClusters = false;
+
   @Option(secure=true, name = "abstraction.dumpHardQueries",
       description = "dump the abstraction formulas if they took to long")
   private boolean dumpHardAbstractions = false;
@@ -204,6 +234,11 @@ public class PredicateAbstractionManager {
   // 1: predicate is true
   private final Map<Pair<BooleanFormula, AbstractionPredicate>, Byte> cartesianAbstractionCache;
 
+  // signals when the caches should be cleared because the heap is nearly full
+  private final CacheShedding cacheShedding = MemoryPressureGovernor.newCacheShedding();
+
+  private final @Nullable ParallelAbstractionWorkers abstractionWorkers;
+
   public PredicateAbstractionManager(
       AbstractionManager pAmgr,
       PathFormulaManager pPfmgr,
@@ -239,6 +274,25 @@ public class PredicateAbstractionManager {
       weakeningManager = null;
     }
 
+    if (abstractionThreads == -1) {
+      abstractionThreads = Runtime.getRuntime().availableProcessors();
+    }
+    if (abstractionThreads < 1) {
+      throw new InvalidConfigurationException(
+          "cpa.predicate.abstraction.threads has to be positive or -1");
+    }
+    if (abstractionThreads > 1
+        && (abstractionType == AbstractionType.CARTESIAN
+            || abstractionType == AbstractionType.COMBINED
+            || (abstractionType == AbstractionType.BOOLEAN && booleanAbstractionClusters))) {
+      abstractionWorkers =
+          new ParallelAbstractionWorkers(
+              abstractionThreads, fmgr, pConfig, pLogger, pShutdownNotifier);
+      stats.queryTimesPerThread = abstractionWorkers.getQueryTimes();
+    } else {
+      abstractionWorkers = null;
+    }
+
     if (useCache) {
       abstractionCache = new HashMap<>();
       unsatisfiabilityCache = new HashSet<>();
@@ -297,6 +351,22 @@ public class PredicateAbstractionManager {
       unsatisfiabilityCache.clear();
     }
   }
+
+  private void clearCachesIfRequested() {
+    if (cacheShedding.isRequested()) {
+      clear();
+      if (cartesianAbstractionCache != null) {
+        cartesianAbstractionCache.clear();
+      }
+    }
+  }
+
+  /** Release the resources for parallel abstraction computations, if there are any. */
+  public void close() {
+    if (abstractionWorkers != null) {
+      abstractionWorkers.close();
+    }
+  }
   /**
    * Compute an abstraction of the conjunction of an AbstractionFormula and
    * a PathFormula. The AbstractionFormula will be used in its instantiated form,
@@ -314,8 +384,25 @@ public class PredicateAbstractionManager {
       final PathFormula pathFormula,
       final Collection<AbstractionPredicate> pPredicates)
       throws SolverException, InterruptedException {
+    AbstractionEvent event = AnalysisEvents.begin(AbstractionEvent::new);
+    try {
+      return buildAbstraction0(
+          location, callstackInformation, abstractionFormula, pathFormula, pPredicates);
+    } finally {
+      AnalysisEvents.commit(event, location, pPredicates.size());
+    }
+  }
+
+  private AbstractionFormula buildAbstraction0(
+      final CFANode location,
+      Optional<CallstackStateEqualsWrapper> callstackInformation,
+      final AbstractionFormula abstractionFormula,
+      final PathFormula pathFormula,
+      final Collection<AbstractionPredicate> pPredicates)
+      throws SolverException, InterruptedException {
 
     stats.numCallsAbstraction++;
+    clearCachesIfRequested();
 
     logger.log(Level.FINEST, "Computing abstraction", stats.numCallsAbstraction, "with", pPredicates.size(), "predicates");
     logger.log(Level.ALL, "Old abstraction:", abstractionFormula.asFormula());
@@ -484,6 +571,7 @@ public class PredicateAbstractionManager {
       return bfmgr.makeTrue();
     }
 
+    clearCachesIfRequested();
     if (unsatisfiabilityCache.contains(pF)) {
       stats.numCallsAbstractionCached++;
       return bfmgr.makeFalse();
@@ -799,9 +887,17 @@ public class PredicateAbstractionManager {
           stats.numBooleanAbsPredicates += remainingPredicates.size();
           stats.booleanAbstractionTime.start();
           try {
-            abs =
-                rmgr.makeAnd(
-                    abs, computeBooleanAbstraction(thmProver, remainingPredicates, instantiator));
+            if (booleanAbstractionClusters) {
+              abs =
+                  rmgr.makeAnd(
+                      abs,
+                      computeBooleanAbstractionByClusters(
+                          f, thmProver, remainingPredicates, instantiator));
+            } else {
+              abs =
+                  rmgr.makeAnd(
+                      abs, computeBooleanAbstraction(thmProver, remainingPredicates, instantiator));
+            }
           } finally {
             stats.booleanAbstractionTime.stop();
           }
@@ -854,6 +950,12 @@ public class PredicateAbstractionManager {
 
       // check whether each of the predicate is implied in the next state...
 
+      // the uncached predicates are checked after the loop if the checks are done in parallel
+      final boolean checkInParallel =
+          abstractionWorkers != null
+              && pPredicates.size() >= 2 * abstractionWorkers.getNumberOfThreads();
+      final List<AbstractionPredicate> uncheckedPredicates = new ArrayList<>();
+
       final Iterator<AbstractionPredicate> predicateIt = pPredicates.iterator();
       while (predicateIt.hasNext()) {
         final AbstractionPredicate p = predicateIt.next();
@@ -876,6 +978,9 @@ public class PredicateAbstractionManager {
           }
           stats.abstractionEnumTime.getCurentInnerTimer().stop();
 
+        } else if (checkInParallel) {
+          uncheckedPredicates.add(p);
+
         } else {
           logger.log(Level.ALL, "DEBUG_1",
               "CHECKING VALUE OF PREDICATE: ", p.getSymbolicAtom());
@@ -926,6 +1031,14 @@ public class PredicateAbstractionManager {
         }
       }
 
+      if (!uncheckedPredicates.isEmpty()) {
+        absbdd =
+            rmgr.makeAnd(
+                absbdd,
+                computeParallelAbstractionWorkers(
+                    f, pPredicates, uncheckedPredicates, instantiator));
+      }
+
       return absbdd;
 
     } finally {
@@ -933,6 +1046,55 @@ public class PredicateAbstractionManager {
     }
   }
 
+  /**
+   * Check the given predicates in parallel with {@link ParallelAbstractionWorkers}.
+   *
+   * @param f The (instantiated) formula to abstract.
+   * @param pRemainingPredicates The set of predicates that are not yet handled by the abstraction.
+   *     Each predicate that is handled will be removed from the set.
+   * @param pUncheckedPredicates The predicates to check.
+   * @param instantiator A function that will be applied to instantiate each abstraction predicate.
+   * @return A over-approximation of f with the given predicates.
+   */
+  private Region computeParallelAbstractionWorkers(
+      final BooleanFormula f,
+      final Collection<AbstractionPredicate> pRemainingPredicates,
+      final List<AbstractionPredicate> pUncheckedPredicates,
+      final Function<BooleanFormula, BooleanFormula> instantiator)
+      throws SolverException, InterruptedException {
+    List<BooleanFormula> instantiatedPredicates = new ArrayList<>(pUncheckedPredicates.size());
+    for (AbstractionPredicate p : pUncheckedPredicates) {
+      instantiatedPredicates.add(instantiator.apply(p.getSymbolicAtom()));
+    }
+
+    byte[] predVals = abstractionWorkers.checkPredicates(f, instantiatedPredicates);
+
+    stats.abstractionEnumTime.getCurentInnerTimer().start();
+    Region absbdd = rmgr.makeTrue();
+    Set<AbstractionPredicate> handledPredicates = new HashSet<>();
+    for (int i = 0; i < predVals.length; i++) {
+      AbstractionPredicate p = pUncheckedPredicates.get(i);
+      byte predVal = predVals[i];
+      if (predVal != ParallelAbstractionWorkers.PREDICATE_UNKNOWN) {
+        stats.numCartesianAbsPredicates++;
+        Region v = p.getAbstractVariable();
+        if (predVal == ParallelAbstractionWorkers.PREDICATE_FALSE) {
+          v = rmgr.makeNot(v);
+        }
+        absbdd = rmgr.makeAnd(absbdd, v);
+        handledPredicates.add(p);
+      }
+      if (useCache) {
+        cartesianAbstractionCache.put(Pair.of(f, p), predVal);
+      }
+    }
+    stats.abstractionEnumTime.getCurentInnerTimer().stop();
+
+    // mark predicates as handled
+    pRemainingPredicates.removeAll(handledPredicates);
+    return absbdd;
+  }
+
   /** Build cartesian abstraction using the inductive weakening approach. */
   private Region buildCartesianAbstractionUsingWeakening(
       final BooleanFormula f, final SSAMap ssa, final Collection<AbstractionPredicate> pPredicates)
@@ -1001,9 +1163,53 @@ public class PredicateAbstractionManager {
       final Function<BooleanFormula, BooleanFormula> instantiator)
       throws InterruptedException, SolverException {
 
+    Region result = computeAllSat(thmProver, predicates, instantiator);
+
+    // pop() is actually costly sometimes, and we delete the environment anyway
+    // thmProver.pop();
+
+    // Not strictly necessary, but mark all predicates as handled
+    predicates.clear();
+
+    return result;
+  }
+
+  /**
+   * Enumerate all models of the formula on the solver stack with respect to the given predicates.
+   * The definitions of the predicates are pushed onto the solver stack and not removed.
+   */
+  private Region computeAllSat(
+      final ProverEnvironment thmProver,
+      final Collection<AbstractionPredicate> predicates,
+      final Function<BooleanFormula, BooleanFormula> instantiator)
+      throws InterruptedException, SolverException {
+
     // build the definition of the predicates, and instantiate them
     // also collect all predicate variables so that the solver knows for which
     // variables we want to have the satisfying assignments
+    Pair<BooleanFormula, List<BooleanFormula>> definition =
+        buildPredicateDefinition(predicates, instantiator);
+    BooleanFormula predDef = definition.getFirst();
+    List<BooleanFormula> predVars = definition.getSecond();
+
+    // the formula is (abstractionFormula & pathFormula & predDef)
+    thmProver.push(predDef);
+    AllSatCallbackImpl callback = new AllSatCallbackImpl();
+    Region result = thmProver.allSat(callback, predVars);
+
+    // update statistics
+    updateAllSatStatistics(callback.getCount());
+
+    return result;
+  }
+
+  /**
+   * Build the conjunction of the definitions (var <-> predicate) of all predicates
+   * and the list of their propositional variables.
+   */
+  private Pair<BooleanFormula, List<BooleanFormula>> buildPredicateDefinition(
+      final Collection<AbstractionPredicate> predicates,
+      final Function<BooleanFormula, BooleanFormula> instantiator) {
     BooleanFormula predDef = bfmgr.makeTrue();
     List<BooleanFormula> predVars = new ArrayList<>(predicates.size());
 
@@ -1019,21 +1225,63 @@ public class PredicateAbstractionManager {
 
       predVars.add(var);
     }
+    return Pair.of(predDef, predVars);
+  }
 
-    // the formula is (abstractionFormula & pathFormula & predDef)
-    thmProver.push(predDef);
-    AllSatCallbackImpl callback = new AllSatCallbackImpl();
-    Region result = thmProver.allSat(callback, predVars);
-
-    // pop() is actually costly sometimes, and we delete the environment anyway
-    // thmProver.pop();
-
-    // update statistics
-    int numModels = callback.getCount();
+  private void updateAllSatStatistics(int numModels) {
     if (numModels < Integer.MAX_VALUE) {
       stats.maxAllSatCount = Math.max(numModels, stats.maxAllSatCount);
       stats.allSatCount += numModels;
     }
+  }
+
+  /**
+   * Compute a Boolean abstraction of a formula separately for each cluster of related predicates,
+   * and return the conjunction of the results. Two predicates are related if they share a symbol,
+   * or if they share symbols with a common conjunct of the formula. The models of the formula
+   * with respect to all predicates are the cartesian product of the models for the clusters,
+   * thus the result is as precise as the Boolean abstraction over all predicates, but the number
+   * of models that are enumerated is often much smaller.
+   *
+   * @param f The (instantiated) formula to abstract, which is already on the solver stack.
+   * @param thmProver The solver to use with the input formula on the stack.
+   * @param predicates The set of predicates. After this method, the set is empty.
+   * @param instantiator A function that will be applied to instantiate each abstraction predicate.
+   * @return A over-approximation of f.
+   */
+  private Region computeBooleanAbstractionByClusters(
+      final BooleanFormula f,
+      final ProverEnvironment thmProver,
+      final Collection<AbstractionPredicate> predicates,
+      final Function<BooleanFormula, BooleanFormula> instantiator)
+      throws InterruptedException, SolverException {
+
+    List<List<AbstractionPredicate>> clusters =
+        PredicateClusters.computeClusters(fmgr, f, predicates, instantiator);
+    stats.numBooleanAbsClusters += clusters.size();
+    for (List<AbstractionPredicate> cluster : clusters) {
+      stats.maxBooleanAbsClusterSize = Math.max(stats.maxBooleanAbsClusterSize, cluster.size());
+    }
+
+    if (clusters.size() == 1) {
+      return computeBooleanAbstraction(thmProver, predicates, instantiator);
+    }
+
+    Region result = rmgr.makeTrue();
+    if (abstractionWorkers != null) {
+      result = computeBooleanAbstractionByClustersInParallel(f, clusters, instantiator);
+
+    } else {
+      for (List<AbstractionPredicate> cluster : clusters) {
+        Region clusterResult = computeAllSat(thmProver, cluster, instantiator);
+        thmProver.pop(); // remove the definitions of the cluster
+
+        result = rmgr.makeAnd(result, clusterResult);
+        if (result.isFalse()) {
+          break; // the formula is unsatisfiable
+        }
+      }
+    }
 
     // Not strictly necessary, but mark all predicates as handled
     predicates.clear();
@@ -1041,6 +1289,59 @@ public class PredicateAbstractionManager {
     return result;
   }
 
+  private Region computeBooleanAbstractionByClustersInParallel(
+      final BooleanFormula f,
+      final List<List<AbstractionPredicate>> clusters,
+      final Function<BooleanFormula, BooleanFormula> instantiator)
+      throws InterruptedException, SolverException {
+    List<BooleanFormula> definitions = new ArrayList<>(clusters.size());
+    List<List<BooleanFormula>> variables = new ArrayList<>(clusters.size());
+    for (List<AbstractionPredicate> cluster : clusters) {
+      Pair<BooleanFormula, List<BooleanFormula>> definition =
+          buildPredicateDefinition(cluster, instantiator);
+      definitions.add(definition.getFirst());
+      variables.add(definition.getSecond());
+    }
+
+    stats.abstractionSolveTime.start();
+    List<List<int[]>> models;
+    try {
+      models = abstractionWorkers.allSat(f, definitions, variables);
+    } finally {
+      stats.abstractionSolveTime.stop();
+    }
+
+    // the regions are created in this thread, because the region manager is not thread-safe
+    stats.abstractionEnumTime.startBoth();
+    try {
+      Region result = rmgr.makeTrue();
+      for (int i = 0; i < clusters.size(); i++) {
+        List<AbstractionPredicate> cluster = clusters.get(i);
+        List<int[]> clusterModels = models.get(i);
+        updateAllSatStatistics(clusterModels.size());
+
+        try (RegionBuilder builder = rmgr.builder(shutdownNotifier)) {
+          for (int[] model : clusterModels) {
+            builder.startNewConjunction();
+            for (int literal : model) {
+              Region region = cluster.get(Math.abs(literal) - 1).getAbstractVariable();
+              if (literal < 0) {
+                builder.addNegativeRegion(region);
+              } else {
+                builder.addPositiveRegion(region);
+              }
+            }
+            builder.finishConjunction();
+          }
+          result = rmgr.makeAnd(result, builder.getResult());
+        }
+      }
+      return result;
+    } finally {
+      stats.abstractionEnumTime.stopBoth();
+    }
+  }
+
   private class AllSatCallbackImpl implements AllSatCallback<Region> {
 
     private final RegionBuilder builder;
@@ -60,6 +60,7 @@ import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.util.blocking.BlockedCFAReducer;
 import org.sosy_lab.cpachecker.util.blocking.interfaces.BlockComputer;
+import org.sosy_lab.cpachecker.util.precisionstore.PrecisionStore;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
 import org.sosy_lab.cpachecker.util.predicates.BlockOperator;
 import org.sosy_lab.cpachecker.util.predicates.bdd.BDDManagerFactory;
@@ -122,6 +123,7 @@ public class PredicateCPA
   private final PredicateAbstractionManager predicateManager;
   private final PredicateCPAStatistics stats;
   private final PredicatePrecisionBootstrapper precisionBootstraper;
+  private final PrecisionStore precisionStore;
   private final CFA cfa;
   private final AbstractionManager abstractionManager;
   private final PredicateCPAInvariantsManager invariantsManager;
@@ -199,6 +201,7 @@ public class PredicateCPA
 
     statistics = new PredicateStatistics();
     options = new PredicateCpaOptions(config);
+    precisionStore = new PrecisionStore(config, logger, cfa, "predicates");
     precisionBootstraper =
         new PredicatePrecisionBootstrapper(
             config,
@@ -209,7 +212,8 @@ public class PredicateCPA
             specification,
             shutdownNotifier,
             pathFormulaManager,
-            predicateManager);
+            predicateManager,
+            precisionStore);
     initialPrecision = precisionBootstraper.prepareInitialPredicates();
     logger.log(Level.FINEST, "Initial precision is", initialPrecision);
 
@@ -227,7 +231,8 @@ public class PredicateCPA
             regionManager,
             abstractionManager,
             predicateManager,
-            statistics);
+            statistics,
+            precisionStore);
   }
 
   @Override
@@ -326,11 +331,13 @@ public class PredicateCPA
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     pStatsCollection.add(stats);
     precisionBootstraper.collectStatistics(pStatsCollection);
+    pStatsCollection.add(precisionStore);
     invariantsManager.collectStatistics(pStatsCollection);
   }
 
   @Override
   public void close() {
+    predicateManager.close();
     solver.close();
   }
 
@@ -29,6 +29,7 @@ import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.valueWithPercentage;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
@@ -41,6 +42,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import org.sosy_lab.common.configuration.Configuration;
@@ -61,6 +63,7 @@ import org.sosy_lab.cpachecker.cpa.predicate.persistence.LoopInvariantsWriter;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsWriter;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateMapWriter;
 import org.sosy_lab.cpachecker.util.Precisions;
+import org.sosy_lab.cpachecker.util.precisionstore.PrecisionStore;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
 import org.sosy_lab.cpachecker.util.predicates.BlockOperator;
@@ -123,6 +126,7 @@ class PredicateCPAStatistics implements Statistics {
   private final PredicateMapWriter precisionWriter;
   private final LoopInvariantsWriter loopInvariantsWriter;
   private final PredicateAbstractionsWriter abstractionsWriter;
+  private final PrecisionStore precisionStore;
 
   public PredicateCPAStatistics(
       Configuration pConfig,
@@ -134,7 +138,8 @@ class PredicateCPAStatistics implements Statistics {
       RegionManager pRmgr,
       AbstractionManager pAbsmgr,
       PredicateAbstractionManager pPredAbsMgr,
-      PredicateStatistics pStatistics)
+      PredicateStatistics pStatistics,
+      PrecisionStore pPrecisionStore)
       throws InvalidConfigurationException {
     pConfig.inject(this, PredicateCPAStatistics.class);
 
@@ -146,6 +151,7 @@ class PredicateCPAStatistics implements Statistics {
     absmgr = pAbsmgr;
     amgr = pPredAbsMgr;
     statistics = pStatistics;
+    precisionStore = pPrecisionStore;
 
     FormulaManagerView fmgr = pSolver.getFormulaManager();
     loopInvariantsWriter = new LoopInvariantsWriter(pCfa, pLogger, pAbsmgr, fmgr, pRmgr);
@@ -163,6 +169,23 @@ class PredicateCPAStatistics implements Statistics {
     return "PredicateCPA";
   }
 
+  @Override
+  public Map<String, Object> getSnapshot() {
+    return ImmutableMap.<String, Object>builder()
+        .put("Number of abstractions", statistics.numAbstractions.getUpdateCount())
+        .put("Times abstraction was 'false'", statistics.numAbstractionsFalse.getUpdateCount())
+        .put("Number of post operations", statistics.postTimer.getNumberOfIntervals())
+        .put("Number of satisfiability checks", statistics.satCheckTimer.getNumberOfIntervals())
+        .put("Number of coverage checks", statistics.coverageCheckTimer.getNumberOfIntervals())
+        .put("Time for post operator (ms)", statistics.postTimer.getSumTime().asMillis())
+        .put(
+            "Time for abstraction (ms)",
+            statistics.computingAbstractionTime.getSumTime().asMillis())
+        .put("Time for merge operator (ms)", statistics.totalMergeTime.getSumTime().asMillis())
+        .put("Time for coverage checks (ms)", statistics.coverageCheckTimer.getSumTime().asMillis())
+        .build();
+  }
+
   /**
    * TreeMap to sort output for the user and sets for no duplication.
    */
@@ -204,27 +227,58 @@ class PredicateCPAStatistics implements Statistics {
   }
 
 
+  private MutablePredicateSets collectPredicates(UnmodifiableReachedSet reached) {
+    MutablePredicateSets predicates = new MutablePredicateSets();
+    Set<Precision> seenPrecisions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    for (Precision precision : reached.getPrecisions()) {
+      PredicatePrecision preds =
+          Precisions.extractPrecisionByType(precision, PredicatePrecision.class);
+      if (preds != null && seenPrecisions.add(preds)) {
+        predicates.locationInstance.putAll(preds.getLocationInstancePredicates());
+        predicates.location.putAll(preds.getLocalPredicates());
+        predicates.function.putAll(preds.getFunctionPredicates());
+        predicates.global.addAll(preds.getGlobalPredicates());
+      }
+    }
+    return predicates;
+  }
+
+  /**
+   * Write the predicates into the persistent precision store. Predicates for location instances
+   * are stored for their location, because the instance numbers are not stable across runs.
+   */
+  private void storePredicates(MutablePredicateSets predicates) {
+    FormulaManagerView fmgr = solver.getFormulaManager();
+    PrecisionStore.Entries entries = new PrecisionStore.Entries();
+    predicates.locationInstance.forEach(
+        (instance, p) ->
+            entries.addLocal(
+                instance.getLocation(), fmgr.dumpFormula(p.getSymbolicAtom()).toString()));
+    predicates.location.forEach(
+        (node, p) -> entries.addLocal(node, fmgr.dumpFormula(p.getSymbolicAtom()).toString()));
+    predicates.function.forEach(
+        (function, p) ->
+            entries.addFunction(function, fmgr.dumpFormula(p.getSymbolicAtom()).toString()));
+    predicates.global.forEach(
+        p -> entries.addGlobal(fmgr.dumpFormula(p.getSymbolicAtom()).toString()));
+    precisionStore.store(entries);
+  }
+
+  @Override
+  public void writeOutputFiles(Result pResult, UnmodifiableReachedSet pReached) {
+    if (precisionStore.isStoringEnabled()) {
+      storePredicates(collectPredicates(pReached));
+    }
+  }
+
   @Override
   public void printStatistics(PrintStream out, Result result, UnmodifiableReachedSet reached) {
     int maxPredsPerLocation = -1;
     int allLocs = -1;
     int avgPredsPerLocation = -1;
     if (precisionStatistics) {
-      MutablePredicateSets predicates = new MutablePredicateSets();
-      {
-        Set<Precision> seenPrecisions = Collections.newSetFromMap(new IdentityHashMap<>());
-
-        for (Precision precision : reached.getPrecisions()) {
-          PredicatePrecision preds =
-              Precisions.extractPrecisionByType(precision, PredicatePrecision.class);
-          if (preds != null && seenPrecisions.add(preds)) {
-            predicates.locationInstance.putAll(preds.getLocationInstancePredicates());
-            predicates.location.putAll(preds.getLocalPredicates());
-            predicates.function.putAll(preds.getFunctionPredicates());
-            predicates.global.addAll(preds.getGlobalPredicates());
-          }
-        }
-      }
+      MutablePredicateSets predicates = collectPredicates(reached);
 
       // check if/where to dump the predicate map
       if (exportPredmap && predmapFile != null) {
@@ -327,6 +381,10 @@ class PredicateCPAStatistics implements Statistics {
         out.println("  Total number of models for allsat:      " + as.allSatCount);
         out.println("  Max number of models for allsat:        " + as.maxAllSatCount);
         out.println("  Avg number of models for allsat:        " + div(as.allSatCount, as.booleanAbstractionTime.getNumberOfIntervals()));
+        if (as.numBooleanAbsClusters > 0) {
+          out.println("  Number of predicate clusters:           " + as.numBooleanAbsClusters);
+          out.println("  Max number of predicates per cluster:   " + as.maxBooleanAbsClusterSize);
+        }
       }
     }
     out.println();
@@ -360,6 +418,10 @@ class PredicateCPAStatistics implements Statistics {
         out.println("    Abstraction reuse implication:  " + as.abstractionReuseImplicationTime);
       }
       out.println("    Solving time:                    " + as.abstractionSolveTime + " (Max: " + as.abstractionSolveTime.getMaxTime().formatAs(SECONDS) + ")");
+      for (int i = 0; i < as.queryTimesPerThread.size(); i++) {
+        out.println(
+            "      Solving time of thread " + i + ":        " + as.queryTimesPerThread.get(i));
+      }
       out.println("    Model enumeration time:          " + as.abstractionEnumTime.getOuterSumTime().formatAs(SECONDS));
       out.println("    Time for BDD construction:       " + as.abstractionEnumTime.getInnerSumTime().formatAs(SECONDS)   + " (Max: " + as.abstractionEnumTime.getInnerMaxTime().formatAs(SECONDS) + ")");
     }
@@ -0,0 +1,129 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/**
+ * Utility for splitting the predicates of an abstraction into clusters of predicates that are
+ * independent with respect to the abstracted formula.
+ *
+ * <p>The clusters are the connected components of a graph over the symbols (variables and
+ * uninterpreted functions) of the predicates and of the top-level conjuncts of the formula, where
+ * all symbols of a predicate or conjunct are connected.
+ */
+final class PredicateClusters {
+
+  private PredicateClusters() {}
+
+  /** Union-find data structure over symbol names. */
+  private static class SymbolPartition {
+    private final Map<String, String> parent = new HashMap<>();
+
+    private String find(String pSymbol) {
+      String root = pSymbol;
+      String next;
+      while ((next = parent.get(root)) != null) {
+        root = next;
+      }
+      // path compression
+      String current = pSymbol;
+      while (!current.equals(root)) {
+        next = parent.put(current, root);
+        current = next;
+      }
+      return root;
+    }
+
+    private void union(Set<String> pSymbols) {
+      String first = null;
+      for (String symbol : pSymbols) {
+        String root = find(symbol);
+        if (first == null) {
+          first = root;
+        } else if (!first.equals(root)) {
+          parent.put(root, first);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute the clusters of the predicates, keeping the order of the predicates.
+   *
+   * @param fmgr the formula manager for the formula and the predicates
+   * @param f the instantiated formula to be abstracted
+   * @param predicates the predicates of the abstraction
+   * @param instantiator instantiates a predicate with the indices of the formula
+   */
+  static List<List<AbstractionPredicate>> computeClusters(
+      FormulaManagerView fmgr,
+      BooleanFormula f,
+      Collection<AbstractionPredicate> predicates,
+      Function<BooleanFormula, BooleanFormula> instantiator) {
+
+    SymbolPartition partition = new SymbolPartition();
+    for (BooleanFormula conjunct : fmgr.getBooleanFormulaManager().toConjunctionArgs(f, true)) {
+      partition.union(fmgr.extractFunctionNames(conjunct));
+    }
+
+    List<Set<String>> predicateSymbols = new ArrayList<>(predicates.size());
+    for (AbstractionPredicate predicate : predicates) {
+      Set<String> symbols =
+          fmgr.extractFunctionNames(instantiator.apply(predicate.getSymbolicAtom()));
+      partition.union(symbols);
+      predicateSymbols.add(symbols);
+    }
+
+    Map<String, List<AbstractionPredicate>> clusters = new LinkedHashMap<>();
+    List<AbstractionPredicate> constantPredicates = new ArrayList<>();
+    int i = 0;
+    for (AbstractionPredicate predicate : predicates) {
+      Set<String> symbols = predicateSymbols.get(i++);
+      if (symbols.isEmpty()) {
+        // a predicate without symbols is unrelated to all other predicates
+        constantPredicates.add(predicate);
+      } else {
+        String root = partition.find(symbols.iterator().next());
+        clusters.computeIfAbsent(root, k -> new ArrayList<>()).add(predicate);
+      }
+    }
+
+    List<List<AbstractionPredicate>> result = new ArrayList<>(clusters.values());
+    if (!constantPredicates.isEmpty()) {
+      result.add(constantPredicates);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier.TrivialInvariantSupplier;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
+import org.sosy_lab.cpachecker.util.predicates.bdd.BDDManagerFactory;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+
+public class PredicateClustersTest extends SolverViewBasedTest0 {
+
+  private AbstractionManager amgr;
+
+  private IntegerFormula x;
+  private IntegerFormula y;
+  private IntegerFormula z;
+
+  @Before
+  public void setUp() throws InvalidConfigurationException {
+    amgr =
+        new AbstractionManager(
+            new BDDManagerFactory(config, logger).createRegionManager(), config, logger, solver);
+    x = imgrv.makeVariable("x");
+    y = imgrv.makeVariable("y");
+    z = imgrv.makeVariable("z");
+  }
+
+  private AbstractionPredicate predicate(BooleanFormula pAtom) {
+    return amgr.makePredicate(pAtom);
+  }
+
+  private List<List<AbstractionPredicate>> computeClusters(
+      BooleanFormula pFormula, List<AbstractionPredicate> pPredicates) {
+    return PredicateClusters.computeClusters(mgrv, pFormula, pPredicates, Functions.identity());
+  }
+
+  @Test
+  public void testIndependentPredicates() {
+    AbstractionPredicate px = predicate(imgrv.greaterThan(x, imgrv.makeNumber(0)));
+    AbstractionPredicate py = predicate(imgrv.lessThan(y, imgrv.makeNumber(0)));
+    AbstractionPredicate pz = predicate(imgrv.equal(z, imgrv.makeNumber(0)));
+
+    assertThat(computeClusters(bmgrv.makeTrue(), ImmutableList.of(px, py, pz)))
+        .containsExactly(ImmutableList.of(px), ImmutableList.of(py), ImmutableList.of(pz))
+        .inOrder();
+  }
+
+  @Test
+  public void testConjunctConnectsPredicates() {
+    BooleanFormula f =
+        bmgrv.and(imgrv.equal(x, y), imgrv.greaterThan(z, imgrv.makeNumber(0)));
+    AbstractionPredicate px = predicate(imgrv.greaterThan(x, imgrv.makeNumber(1)));
+    AbstractionPredicate pz = predicate(imgrv.greaterThan(z, imgrv.makeNumber(1)));
+    AbstractionPredicate py = predicate(imgrv.greaterThan(y, imgrv.makeNumber(1)));
+
+    assertThat(computeClusters(f, ImmutableList.of(px, pz, py)))
+        .containsExactly(ImmutableList.of(px, py), ImmutableList.of(pz))
+        .inOrder();
+  }
+
+  @Test
+  public void testTransitiveConnection() {
+    IntegerFormula w = imgrv.makeVariable("w");
+    AbstractionPredicate pxy = predicate(imgrv.lessThan(x, y));
+    AbstractionPredicate pw = predicate(imgrv.greaterThan(w, imgrv.makeNumber(0)));
+    AbstractionPredicate pyz = predicate(imgrv.lessThan(y, z));
+
+    assertThat(computeClusters(bmgrv.makeTrue(), ImmutableList.of(pxy, pw, pyz)))
+        .containsExactly(ImmutableList.of(pxy, pyz), ImmutableList.of(pw))
+        .inOrder();
+  }
+
+  @Test
+  public void testPredicateWithoutSymbols() {
+    AbstractionPredicate pFalse = amgr.makeFalsePredicate();
+    AbstractionPredicate px = predicate(imgrv.greaterThan(x, imgrv.makeNumber(0)));
+
+    assertThat(computeClusters(bmgrv.makeTrue(), ImmutableList.of(pFalse, px)))
+        .containsExactly(ImmutableList.of(px), ImmutableList.of(pFalse))
+        .inOrder();
+  }
+
+  @Test
+  public void testClusteredAbstractionIsBooleanAbstraction() throws Exception {
+    // {x, y} and {z} are independent, but both have several models
+    BooleanFormula f =
+        bmgrv.and(
+            bmgrv.or(
+                imgrv.greaterThan(x, imgrv.makeNumber(0)),
+                imgrv.lessThan(x, imgrv.makeNumber(-5))),
+            imgrv.equal(y, imgrv.add(x, imgrv.makeNumber(1))),
+            bmgrv.or(
+                imgrv.greaterThan(z, imgrv.makeNumber(2)),
+                imgrv.lessThan(z, imgrv.makeNumber(0))));
+    ImmutableList<AbstractionPredicate> predicates =
+        ImmutableList.of(
+            predicate(imgrv.greaterThan(x, imgrv.makeNumber(0))),
+            predicate(imgrv.greaterThan(y, imgrv.makeNumber(1))),
+            predicate(imgrv.greaterThan(z, imgrv.makeNumber(0))),
+            predicate(imgrv.lessThan(z, imgrv.makeNumber(0))));
+
+    BooleanFormula expected = computeAbstraction(f, predicates, false, 1);
+    BooleanFormula clustered = computeAbstraction(f, predicates, true, 1);
+    BooleanFormula parallel = computeAbstraction(f, predicates, true, 2);
+
+    assertThatFormula(clustered).isEquivalentTo(expected);
+    assertThatFormula(parallel).isEquivalentTo(expected);
+  }
+
+  private BooleanFormula computeAbstraction(
+      BooleanFormula pFormula,
+      List<AbstractionPredicate> pPredicates,
+      boolean pClusters,
+      int pThreads)
+      throws Exception {
+    Configuration abstractionConfig =
+        createTestConfigBuilder()
+            .setOption("solver.solver", solverToUse().toString())
+            .setOption("cpa.predicate.abstraction.booleanClusters", Boolean.toString(pClusters))
+            .setOption("cpa.predicate.abstraction.threads", Integer.toString(pThreads))
+            .build();
+    ShutdownNotifier notifier = ShutdownNotifier.createDummy();
+    PredicateAbstractionManager pamgr =
+        new PredicateAbstractionManager(
+            amgr,
+            new PathFormulaManagerImpl(
+                mgrv,
+                abstractionConfig,
+                logger,
+                notifier,
+                MachineModel.LINUX32,
+                Optional.empty(),
+                AnalysisDirection.FORWARD),
+            solver,
+            abstractionConfig,
+            logger,
+            notifier,
+            TrivialInvariantSupplier.INSTANCE);
+    try {
+      return pamgr.computeAbstraction(pFormula, pPredicates);
+    } finally {
+      pamgr.close();
+    }
+  }
+}
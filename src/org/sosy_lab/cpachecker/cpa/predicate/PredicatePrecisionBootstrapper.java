@@ -23,6 +23,8 @@
  */
 package org.sosy_lab.cpachecker.cpa.predicate;
 
+import static com.google.common.collect.FluentIterable.from;
+
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
@@ -32,8 +34,13 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.logging.Level;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
@@ -54,6 +61,7 @@ import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateMapParser;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.PredicateParsingFailedException;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.WitnessInvariantsExtractor;
+import org.sosy_lab.cpachecker.util.precisionstore.PrecisionStore;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
@@ -120,6 +128,7 @@ public class PredicatePrecisionBootstrapper implements StatisticsProvider {
   private final ShutdownNotifier shutdownNotifier;
   private final PathFormulaManager pathFormulaManager;
   private final PredicateAbstractionManager predicateAbstractionManager;
+  private final PrecisionStore precisionStore;
 
   private final KeyValueStatistics statistics = new KeyValueStatistics();
 
@@ -134,7 +143,8 @@ public class PredicatePrecisionBootstrapper implements StatisticsProvider {
       Specification specification,
       ShutdownNotifier shutdownNotifier,
       PathFormulaManager pathFormulaManager,
-      PredicateAbstractionManager predicateAbstractionManager)
+      PredicateAbstractionManager predicateAbstractionManager,
+      PrecisionStore precisionStore)
       throws InvalidConfigurationException {
     this.config = config;
     this.logger = logger;
@@ -147,6 +157,7 @@ public class PredicatePrecisionBootstrapper implements StatisticsProvider {
     this.shutdownNotifier = shutdownNotifier;
     this.pathFormulaManager = pathFormulaManager;
     this.predicateAbstractionManager = predicateAbstractionManager;
+    this.precisionStore = precisionStore;
 
     config.inject(this);
 
@@ -195,9 +206,61 @@ public class PredicatePrecisionBootstrapper implements StatisticsProvider {
       }
     }
 
+    if (precisionStore.isEnabled()) {
+      result = result.mergeWith(loadPredicatesFromStore());
+    }
+
     return result;
   }
 
+  /**
+   * Read the predicates of the last analysis from the persistent precision store. The store
+   * contains each predicate as SMT-LIB string, predicates for changed locations are already
+   * filtered out by the store.
+   */
+  private PredicatePrecision loadPredicatesFromStore() {
+    PrecisionStore.Entries entries = precisionStore.load();
+    Map<String, Optional<AbstractionPredicate>> parsedPredicates = new HashMap<>();
+    Function<String, Optional<AbstractionPredicate>> parser =
+        entry ->
+            parsedPredicates.computeIfAbsent(
+                entry,
+                e -> {
+                  try {
+                    return Optional.of(
+                        abstractionManager.makePredicate(formulaManagerView.parse(e)));
+                  } catch (IllegalArgumentException ex) {
+                    logger.logDebugException(ex, "Ignoring invalid predicate from store");
+                    return Optional.empty();
+                  }
+                });
+
+    ListMultimap<CFANode, AbstractionPredicate> localPredicates =
+        MultimapBuilder.treeKeys().arrayListValues().build();
+    ListMultimap<String, AbstractionPredicate> functionPredicates =
+        MultimapBuilder.treeKeys().arrayListValues().build();
+    Set<AbstractionPredicate> globalPredicates = new LinkedHashSet<>();
+    entries
+        .getLocalEntries()
+        .forEach((node, entry) -> parser.apply(entry).ifPresent(p -> localPredicates.put(node, p)));
+    entries
+        .getFunctionEntries()
+        .forEach(
+            (function, entry) ->
+                parser.apply(entry).ifPresent(p -> functionPredicates.put(function, p)));
+    entries
+        .getGlobalEntries()
+        .forEach(entry -> parser.apply(entry).ifPresent(globalPredicates::add));
+
+    statistics.addKeyValueStatistic(
+        "Predicates from precision store",
+        from(parsedPredicates.values()).filter(Optional::isPresent).size());
+    return PredicatePrecision.empty()
+        .addLocalPredicates(localPredicates.entries())
+        .addFunctionPredicates(functionPredicates.entries())
+        .addGlobalPredicates(globalPredicates);
+  }
+
   private PredicatePrecision parseInvariantsFromCorrectnessWitnessAsPredicates(Path pWitnessFile) {
     PredicatePrecision result = PredicatePrecision.empty();
     try {
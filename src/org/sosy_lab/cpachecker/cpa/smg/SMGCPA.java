@@ -41,7 +41,6 @@ import org.sosy_lab.cpachecker.core.counterexample.AssumptionToEdgeAllocator;
 import org.sosy_lab.cpachecker.core.counterexample.CFAPathWithAdditionalInfo;
 import org.sosy_lab.cpachecker.core.counterexample.ConcreteStatePath;
 import org.sosy_lab.cpachecker.core.defaults.AutomaticCPAFactory;
-import org.sosy_lab.cpachecker.core.defaults.DelegateAbstractDomain;
 import org.sosy_lab.cpachecker.core.defaults.MergeJoinOperator;
 import org.sosy_lab.cpachecker.core.defaults.MergeSepOperator;
 import org.sosy_lab.cpachecker.core.defaults.StopNeverOperator;
@@ -145,13 +144,20 @@ public class SMGCPA
 
   @Override
   public AbstractDomain getAbstractDomain() {
-    return DelegateAbstractDomain.<UnmodifiableSMGState>getInstance();
+    return new SMGAbstractDomain(stats);
   }
 
   @Override
   public TransferRelation getTransferRelation() {
     return new SMGTransferRelation(
-        logger, machineModel, exportOptions, kind, smgPredicateManager, options, shutdownNotifier);
+        logger,
+        machineModel,
+        exportOptions,
+        kind,
+        smgPredicateManager,
+        options,
+        shutdownNotifier,
+        stats);
   }
 
   @Override
@@ -211,6 +211,14 @@ public class SMGOptions {
           "Handle external variables with incomplete type (extern int array[]) as external allocation")
   private boolean handleIncompleteExternalVariableAsExternalAllocation = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Measure the bytes allocated by each transfer and report their average in the "
+              + "statistics. This queries the JVM after every transfer and is only supported "
+              + "by some JVMs.")
+  private boolean measureAllocatedBytes = false;
+
   public enum SMGExportLevel {
     NEVER,
     LEAF,
@@ -329,4 +337,8 @@ public class SMGOptions {
   public boolean isHandleUnknownDereferenceAsSafe() {
     return handleUnknownDereferenceAsSafe;
   }
+
+  public boolean isMeasureAllocatedBytes() {
+    return measureAllocatedBytes;
+  }
 }
@@ -1222,8 +1222,10 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
     SMGEdgeHasValue new_edge = new SMGEdgeHasValue(pSizeInBits, pOffset, pObject, pValue);
 
-    // Check if the edge is  not present already
-    SMGEdgeHasValueFilter filter = SMGEdgeHasValueFilter.objectFilter(pObject);
+    // Check if the edge is  not present already, only overlapping edges are relevant
+    SMGEdgeHasValueFilter filter =
+        SMGEdgeHasValueFilter.objectFilter(pObject)
+            .filterOverlappingWith(pOffset, pOffset + pSizeInBits);
 
     Set<SMGEdgeHasValue> edges = heap.getHVEdges(filter);
     if (edges.contains(new_edge)) {
@@ -1378,6 +1380,12 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
    */
   @Override
   public boolean isLessOrEqual(UnmodifiableSMGState reachedState) throws SMGInconsistentException {
+    return isLessOrEqual(reachedState, new SMGStatistics());
+  }
+
+  @Override
+  public boolean isLessOrEqual(UnmodifiableSMGState reachedState, SMGStatistics pStats)
+      throws SMGInconsistentException {
 
     if(!getErrorPredicateRelation().isEmpty() || !reachedState.getErrorPredicateRelation().isEmpty()) {
       return false;
@@ -1405,7 +1413,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       return s1.errorInfo.hasMemoryLeak() == s2.errorInfo.hasMemoryLeak();
 
     } else {
-      return SMGIsLessOrEqual.isLessOrEqual(reachedState.getHeap(), heap);
+      return SMGIsLessOrEqual.isLessOrEqual(reachedState.getHeap(), heap, pStats);
     }
   }
 
@@ -1705,8 +1713,12 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
     long targetRangeSize = pTargetOffset + copyRange;
 
-    SMGEdgeHasValueFilter filterSource = SMGEdgeHasValueFilter.objectFilter(pSource);
-    SMGEdgeHasValueFilter filterTarget = SMGEdgeHasValueFilter.objectFilter(pTarget);
+    SMGEdgeHasValueFilter filterSource =
+        SMGEdgeHasValueFilter.objectFilter(pSource)
+            .filterOverlappingWith(pSourceOffset, pSourceLastCopyBitOffset);
+    SMGEdgeHasValueFilter filterTarget =
+        SMGEdgeHasValueFilter.objectFilter(pTarget)
+            .filterOverlappingWith(pTargetOffset, targetRangeSize);
 
     // Remove all target edges in range
     for (SMGEdgeHasValue edge : getHVEdges(filterTarget)) {
@@ -24,27 +24,87 @@
 package org.sosy_lab.cpachecker.cpa.smg;
 
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
-import org.sosy_lab.cpachecker.cpa.smg.join.SMGIsLessOrEqual;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
 
 public class SMGStatistics implements Statistics {
 
+  // statistics of SMGIsLessOrEqual
+  public final ThreadSafeTimerContainer isLEQTimer =
+      new ThreadSafeTimerContainer("Time for joining SMGs");
+  public final ThreadSafeTimerContainer globalsTimer =
+      new ThreadSafeTimerContainer("Time for joining globals");
+  public final ThreadSafeTimerContainer stackTimer =
+      new ThreadSafeTimerContainer("Time for joining stacks");
+  public final ThreadSafeTimerContainer heapTimer =
+      new ThreadSafeTimerContainer("Time for joining heaps");
+  public final StatCounter fastRejections =
+      new StatCounter("Number of SMG comparisons rejected by fingerprint");
+  public final StatCounter fullChecks =
+      new StatCounter("Number of SMG comparisons checked completely");
+
   final StatCounter abstractions = new StatCounter("Number of abstraction computations");
   final StatTimer totalAbstraction = new StatTimer("Total time for abstraction computation");
+  final StatInt allocatedBytesPerTransfer =
+      new StatInt(StatKind.AVG, "Bytes allocated per transfer");
+
+  /**
+   * Holder for the bean that measures allocations of the current thread, such that the JVM is
+   * only queried if the measurement is enabled (cf. option cpa.smg.measureAllocatedBytes).
+   */
+  private static final class AllocationBean {
+
+    /** The bean, null if measuring allocations is not supported by the JVM. */
+    private static final com.sun.management.@Nullable ThreadMXBean INSTANCE = getAllocationBean();
+
+    private static com.sun.management.@Nullable ThreadMXBean getAllocationBean() {
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+          return bean;
+        }
+      }
+      return null;
+    }
+  }
+
+  /** Returns the number of bytes allocated by the current thread so far, or -1. */
+  static long getAllocatedBytesOfCurrentThread() {
+    return AllocationBean.INSTANCE == null
+        ? -1
+        : AllocationBean.INSTANCE.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /** Record the allocations of the current thread since the given (previously measured) value. */
+  void recordAllocationsSince(long pAllocatedBytesBefore) {
+    if (pAllocatedBytesBefore >= 0) {
+      long allocated = getAllocatedBytesOfCurrentThread() - pAllocatedBytesBefore;
+      allocatedBytesPerTransfer.setNextValue((int) Math.min(allocated, Integer.MAX_VALUE));
+    }
+  }
 
   @Override
   public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
-    put(pOut, 0, SMGIsLessOrEqual.isLEQTimer);
-    put(pOut, 1, SMGIsLessOrEqual.globalsTimer);
-    put(pOut, 1, SMGIsLessOrEqual.stackTimer);
-    put(pOut, 1, SMGIsLessOrEqual.heapTimer);
+    put(pOut, 0, isLEQTimer);
+    put(pOut, 1, globalsTimer);
+    put(pOut, 1, stackTimer);
+    put(pOut, 1, heapTimer);
+    put(pOut, 1, fastRejections);
+    put(pOut, 1, fullChecks);
     put(pOut, 0, abstractions);
     put(pOut, 0, totalAbstraction);
+    if (allocatedBytesPerTransfer.getValueCount() > 0) {
+      put(pOut, 0, allocatedBytesPerTransfer);
+    }
   }
 
   @Override
@@ -139,6 +139,8 @@ public class SMGTransferRelation
 
   private final SMGTransferRelationKind kind;
 
+  private final SMGStatistics stats;
+
   public SMGTransferRelation(
       LogManager pLogger,
       MachineModel pMachineModel,
@@ -146,7 +148,8 @@ public class SMGTransferRelation
       SMGTransferRelationKind pKind,
       SMGPredicateManager pSMGPredicateManager,
       SMGOptions pOptions,
-      ShutdownNotifier pShutdownNotifier) {
+      ShutdownNotifier pShutdownNotifier,
+      SMGStatistics pStats) {
     kind = pKind;
     logger = new LogManagerWithoutDuplicates(pLogger);
     machineModel = pMachineModel;
@@ -156,6 +159,22 @@ public class SMGTransferRelation
     options = pOptions;
     exportSMGOptions = pExportOptions;
     shutdownNotifier = pShutdownNotifier;
+    stats = pStats;
+  }
+
+  @Override
+  public Collection<SMGState> getAbstractSuccessorsForEdge(
+      final AbstractState abstractState, final Precision abstractPrecision, final CFAEdge cfaEdge)
+      throws CPATransferException, InterruptedException {
+    if (!options.isMeasureAllocatedBytes()) {
+      return super.getAbstractSuccessorsForEdge(abstractState, abstractPrecision, cfaEdge);
+    }
+    long allocatedBytesBefore = SMGStatistics.getAllocatedBytesOfCurrentThread();
+    try {
+      return super.getAbstractSuccessorsForEdge(abstractState, abstractPrecision, cfaEdge);
+    } finally {
+      stats.recordAllocationsSince(allocatedBytesBefore);
+    }
   }
 
   @Override
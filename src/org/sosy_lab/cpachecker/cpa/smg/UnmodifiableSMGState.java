@@ -133,9 +133,20 @@ public interface UnmodifiableSMGState extends LatticeAbstractState<UnmodifiableS
   @Override
   UnmodifiableSMGState join(UnmodifiableSMGState reachedState) throws SMGInconsistentException;
 
+  /**
+   * Computes whether this state is covered by the given state, without recording statistics (cf.
+   * {@link #isLessOrEqual(UnmodifiableSMGState, SMGStatistics)}).
+   */
   @Override
   boolean isLessOrEqual(UnmodifiableSMGState reachedState) throws SMGInconsistentException;
 
+  /**
+   * Computes whether this state is covered by the given state and records the time and number of
+   * the comparisons in the given statistics.
+   */
+  boolean isLessOrEqual(UnmodifiableSMGState reachedState, SMGStatistics pStats)
+      throws SMGInconsistentException;
+
   /**
    * Get the symbolic value, that represents the address pointing to the given memory with the given
    * offset, if it exists.
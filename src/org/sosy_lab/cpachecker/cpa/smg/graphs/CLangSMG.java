@@ -82,6 +82,9 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
    */
   private PersistentMap<String, SMGRegion> global_objects;
 
+  /** The fingerprint of the last computation, it might be outdated. */
+  private @Nullable SMGShapeFingerprint fingerprint = null;
+
   /** logger is always NULL, except for JUnit-tests */
   private static LogManager logger = null;
 
@@ -130,6 +133,7 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
     stack_objects = pHeap.stack_objects;
     heap_objects = pHeap.heap_objects;
     global_objects = pHeap.global_objects;
+    fingerprint = pHeap.fingerprint;
   }
 
   @Override
@@ -448,6 +452,29 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
     return global_objects;
   }
 
+  @Override
+  public SMGShapeFingerprint getShapeFingerprint() {
+    SMGShapeFingerprint result = fingerprint;
+    if (result == null
+        || !result.isComputedFrom(
+            getHasValueEdgeSet(),
+            getValidObjectSet(),
+            heap_objects,
+            global_objects,
+            stack_objects)) {
+      result =
+          SMGShapeFingerprint.of(
+              this,
+              getHasValueEdgeSet(),
+              getValidObjectSet(),
+              heap_objects,
+              global_objects,
+              stack_objects);
+      fingerprint = result;
+    }
+    return result;
+  }
+
   /**
    * Constant.
    *
@@ -115,6 +115,25 @@ public class CLangSMGTest {
     assertThat(smg_copy.getHVEdges(filter)).containsExactly(hv);
   }
 
+  @Test
+  public void CLangSMGShapeFingerprintTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    SMGRegion global = new SMGRegion(64, "global");
+    SMGValue val1 = SMGKnownExpValue.valueOf(1);
+    smg.addGlobalObject(global);
+    smg.addValue(val1);
+    SMGShapeFingerprint fingerprint = smg.getShapeFingerprint();
+
+    // the fingerprint is reused for unmodified copies
+    CLangSMG bigger = smg.copyOf();
+    assertThat(bigger.getShapeFingerprint()).isSameInstanceAs(fingerprint);
+
+    bigger.addHasValueEdge(new SMGEdgeHasValue(32, 0, global, val1));
+    assertThat(bigger.getShapeFingerprint()).isNotSameInstanceAs(smg.getShapeFingerprint());
+    assertThat(smg.getShapeFingerprint().maybeLessOrEqual(bigger.getShapeFingerprint())).isTrue();
+    assertThat(bigger.getShapeFingerprint().maybeLessOrEqual(smg.getShapeFingerprint())).isFalse();
+  }
+
   @Test
   public void CLangSMGaddHeapObjectTest() {
     CLangSMG smg = getNewCLangSMG64();
@@ -40,21 +40,80 @@ import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
 import org.sosy_lab.cpachecker.util.Pair;
 
 public final class PredRelation {
-  /** The Multimap is used as Bi-Map, i.e. each pair (K,V) is also inserted as pair (V,K). */
-  private final SetMultimap<Pair<SMGValue, SMGValue>, SymbolicRelation> smgValuesRelation =
-      HashMultimap.create();
 
-  private final SetMultimap<SMGValue, SMGValue> smgValuesDependency = HashMultimap.create();
-  private final SetMultimap<SMGValue, ExplicitRelation> smgExplicitValueRelation =
-      HashMultimap.create();
-  private final Map<SMGValue, Integer> smgValueSizeInBits = new HashMap<>();
+  /**
+   * The relations are shared between copies of a {@link PredRelation} until one of the copies is
+   * modified, because an SMG is copied in nearly every transfer, but its predicates change seldom.
+   */
+  private Relations relations = new Relations();
+
+  private static final class Relations {
+
+    /** The Multimap is used as Bi-Map, i.e. each pair (K,V) is also inserted as pair (V,K). */
+    private final SetMultimap<Pair<SMGValue, SMGValue>, SymbolicRelation> smgValuesRelation;
+
+    private final SetMultimap<SMGValue, SMGValue> smgValuesDependency;
+    private final SetMultimap<SMGValue, ExplicitRelation> smgExplicitValueRelation;
+    private final Map<SMGValue, Integer> smgValueSizeInBits;
+
+    /** Set as soon as more than one {@link PredRelation} references this instance. */
+    private boolean shared = false;
+
+    private Relations() {
+      smgValuesRelation = HashMultimap.create();
+      smgValuesDependency = HashMultimap.create();
+      smgExplicitValueRelation = HashMultimap.create();
+      smgValueSizeInBits = new HashMap<>();
+    }
+
+    private Relations(Relations pOther) {
+      smgValuesRelation = HashMultimap.create(pOther.smgValuesRelation);
+      smgValuesDependency = HashMultimap.create(pOther.smgValuesDependency);
+      smgExplicitValueRelation = HashMultimap.create(pOther.smgExplicitValueRelation);
+      smgValueSizeInBits = new HashMap<>(pOther.smgValueSizeInBits);
+    }
+
+    private void putAll(Relations pOther) {
+      smgValuesRelation.putAll(pOther.smgValuesRelation);
+      smgValuesDependency.putAll(pOther.smgValuesDependency);
+      smgExplicitValueRelation.putAll(pOther.smgExplicitValueRelation);
+      smgValueSizeInBits.putAll(pOther.smgValueSizeInBits);
+    }
+
+    private boolean isCompletelyEmpty() {
+      return smgValuesRelation.isEmpty()
+          && smgValuesDependency.isEmpty()
+          && smgExplicitValueRelation.isEmpty()
+          && smgValueSizeInBits.isEmpty();
+    }
+
+    private boolean containsValue(SMGValue pValue) {
+      return smgValuesDependency.containsKey(pValue)
+          || smgExplicitValueRelation.containsKey(pValue)
+          || smgValueSizeInBits.containsKey(pValue);
+    }
+  }
+
+  /** Returns the relations for modification, they are copied before if they are shared. */
+  private Relations modifiable() {
+    if (relations.shared) {
+      relations = new Relations(relations);
+    }
+    return relations;
+  }
 
   /** Copy PredRelation */
   public void putAll(PredRelation pPred) {
-    smgValuesRelation.putAll(pPred.smgValuesRelation);
-    smgValuesDependency.putAll(pPred.smgValuesDependency);
-    smgExplicitValueRelation.putAll(pPred.smgExplicitValueRelation);
-    smgValueSizeInBits.putAll(pPred.smgValueSizeInBits);
+    if (relations == pPred.relations) {
+      return;
+    }
+    if (relations.isCompletelyEmpty()) {
+      // copy on write: share the relations until one of both is modified
+      pPred.relations.shared = true;
+      relations = pPred.relations;
+    } else {
+      modifiable().putAll(pPred.relations);
+    }
   }
 
   public void addRelation(SMGSymbolicValue pOne, int pCType1,
@@ -72,22 +131,24 @@ public final class PredRelation {
   }
 
   private void addValueSize(SMGValue pValue, Integer pCType2) {
-    if (!smgValueSizeInBits.containsKey(pValue)) {
-      smgValueSizeInBits.put(pValue, pCType2);
+    if (!relations.smgValueSizeInBits.containsKey(pValue)) {
+      modifiable().smgValueSizeInBits.put(pValue, pCType2);
     }
   }
 
   public void addRelation(SMGValue pOne, SMGValue pTwo, BinaryOperator pOperator) {
     SymbolicRelation relation = new SymbolicRelation(pOne, pTwo, pOperator);
-    if (!smgValuesDependency.containsEntry(pOne, pTwo)) {
-      smgValuesRelation.put(Pair.of(pOne, pTwo), relation);
-      smgValuesRelation.put(Pair.of(pTwo, pOne), relation);
-      smgValuesDependency.put(pOne, pTwo);
-      smgValuesDependency.put(pTwo, pOne);
+    if (!relations.smgValuesDependency.containsEntry(pOne, pTwo)) {
+      Relations r = modifiable();
+      r.smgValuesRelation.put(Pair.of(pOne, pTwo), relation);
+      r.smgValuesRelation.put(Pair.of(pTwo, pOne), relation);
+      r.smgValuesDependency.put(pOne, pTwo);
+      r.smgValuesDependency.put(pTwo, pOne);
     } else {
-      if (!smgValuesRelation.containsEntry(Pair.of(pOne, pTwo), relation)) {
-        smgValuesRelation.put(Pair.of(pOne, pTwo), relation);
-        smgValuesRelation.put(Pair.of(pTwo, pOne), relation);
+      if (!relations.smgValuesRelation.containsEntry(Pair.of(pOne, pTwo), relation)) {
+        Relations r = modifiable();
+        r.smgValuesRelation.put(Pair.of(pOne, pTwo), relation);
+        r.smgValuesRelation.put(Pair.of(pTwo, pOne), relation);
       }
     }
   }
@@ -103,46 +164,54 @@ public final class PredRelation {
   public void addExplicitRelation(
       SMGValue pSymbolicValue, SMGExplicitValue pExplicitValue, BinaryOperator pOp) {
     ExplicitRelation relation = new ExplicitRelation(pSymbolicValue, pExplicitValue, pOp);
-    if (!smgExplicitValueRelation.containsEntry(pSymbolicValue, relation)) {
-      smgExplicitValueRelation.put(pSymbolicValue, relation);
+    if (!relations.smgExplicitValueRelation.containsEntry(pSymbolicValue, relation)) {
+      modifiable().smgExplicitValueRelation.put(pSymbolicValue, relation);
     }
   }
 
   public void removeValue(SMGValue pValue) {
-    for (SMGValue pOposit : smgValuesDependency.removeAll(pValue)) {
+    if (!relations.containsValue(pValue)) {
+      return; // avoid copying shared relations
+    }
+    Relations r = modifiable();
+    for (SMGValue pOposit : r.smgValuesDependency.removeAll(pValue)) {
 
-      smgValuesDependency.remove(pOposit, pValue);
+      r.smgValuesDependency.remove(pOposit, pValue);
 
-      smgValuesRelation.removeAll(Pair.of(pOposit, pValue));
-      smgValuesRelation.removeAll(Pair.of(pValue, pOposit));
+      r.smgValuesRelation.removeAll(Pair.of(pOposit, pValue));
+      r.smgValuesRelation.removeAll(Pair.of(pValue, pOposit));
     }
-    smgExplicitValueRelation.removeAll(pValue);
-    smgValueSizeInBits.remove(pValue);
+    r.smgExplicitValueRelation.removeAll(pValue);
+    r.smgValueSizeInBits.remove(pValue);
   }
 
   /** replace the old value with a fresh value. */
   public void replace(SMGValue fresh, SMGValue old) {
-    for (SMGValue relatedValue : smgValuesDependency.removeAll(old)) {
-      smgValuesDependency.remove(relatedValue, old);
-      smgValuesRelation.removeAll(Pair.of(old, relatedValue));
+    if (!relations.containsValue(old)) {
+      return; // avoid copying shared relations
+    }
+    Relations r = modifiable();
+    for (SMGValue relatedValue : r.smgValuesDependency.removeAll(old)) {
+      r.smgValuesDependency.remove(relatedValue, old);
+      r.smgValuesRelation.removeAll(Pair.of(old, relatedValue));
         //TODO: modify predicates on merge values
-      smgValuesRelation.removeAll(Pair.of(relatedValue, old));
+      r.smgValuesRelation.removeAll(Pair.of(relatedValue, old));
     }
-    for (ExplicitRelation explicitRelation: smgExplicitValueRelation.removeAll(old)) {
+    for (ExplicitRelation explicitRelation : r.smgExplicitValueRelation.removeAll(old)) {
       addExplicitRelation(fresh, explicitRelation.explicitValue, explicitRelation.getOperator());
       addValueSize(fresh, getSymbolicSize(old));
     }
-    smgValueSizeInBits.remove(old);
+    r.smgValueSizeInBits.remove(old);
   }
 
   public Integer getSymbolicSize(SMGValue pSymbolic) {
-    return smgValueSizeInBits.get(pSymbolic);
+    return relations.smgValueSizeInBits.get(pSymbolic);
   }
 
   /** Returns closure list of symbolic values which affects pRelation */
   public Set<SMGValue> closureDependencyFor(PredRelation pRelation) {
     Set<SMGValue> toAdd = new HashSet<>();
-    for (Entry<SMGValue, SMGValue> entry : pRelation.smgValuesDependency.entries()) {
+    for (Entry<SMGValue, SMGValue> entry : pRelation.relations.smgValuesDependency.entries()) {
       SMGValue key = entry.getKey();
       SMGValue value = entry.getValue();
       if (key.compareTo(value) > 0) {
@@ -155,7 +224,7 @@ public final class PredRelation {
       result.addAll(toAdd);
       Set<SMGValue> tempAdd = new HashSet<>();
       for (SMGValue symbolic : toAdd) {
-        tempAdd.addAll(smgValuesDependency.get(symbolic));
+        tempAdd.addAll(relations.smgValuesDependency.get(symbolic));
       }
       tempAdd.removeAll(result);
       toAdd = tempAdd;
@@ -164,12 +233,12 @@ public final class PredRelation {
   }
 
   public boolean isEmpty() {
-    return smgExplicitValueRelation.isEmpty() && smgValuesRelation.isEmpty();
+    return relations.smgExplicitValueRelation.isEmpty() && relations.smgValuesRelation.isEmpty();
   }
 
   @Override
   public int hashCode() {
-    return smgValuesRelation.hashCode();
+    return relations.smgValuesRelation.hashCode();
   }
 
 
@@ -179,43 +248,51 @@ public final class PredRelation {
       return false;
     }
     PredRelation other = (PredRelation) obj;
-    return other.smgValuesRelation != null && smgValuesRelation.equals(other.smgValuesRelation);
+    return relations == other.relations
+        || relations.smgValuesRelation.equals(other.relations.smgValuesRelation);
   }
 
   @Override
   public String toString() {
     return "PredRelation{" +
-        "smgValuesRelation=" + smgValuesRelation +
-        ", smgValuesDependency=" + smgValuesDependency +
-        ", smgExplicitValueRelation=" + smgExplicitValueRelation +
+        "smgValuesRelation=" + relations.smgValuesRelation +
+        ", smgValuesDependency=" + relations.smgValuesDependency +
+        ", smgExplicitValueRelation=" + relations.smgExplicitValueRelation +
         '}';
   }
 
   public Collection<ExplicitRelation> getExplicitRelations() {
-    return smgExplicitValueRelation.values();
+    return relations.smgExplicitValueRelation.values();
   }
 
   public Set<Entry<Pair<SMGValue, SMGValue>, SymbolicRelation>> getValuesRelations() {
-    return smgValuesRelation.entries();
+    return relations.smgValuesRelation.entries();
   }
 
   public boolean isLessOrEqual(PredRelation pPathPredicateRelation) {
-    if (smgValuesDependency.size() > pPathPredicateRelation.smgValuesDependency.size()) {
+    Relations other = pPathPredicateRelation.relations;
+    if (relations == other) {
+      return true;
+    }
+    if (relations.smgValuesDependency.size() > other.smgValuesDependency.size()) {
       return false;
     }
-    if (smgExplicitValueRelation.size() > pPathPredicateRelation.smgExplicitValueRelation.size()) {
+    if (relations.smgExplicitValueRelation.size() > other.smgExplicitValueRelation.size()) {
       return false;
     }
-    if (smgValuesRelation.size() > pPathPredicateRelation.smgValuesDependency.size()) {
+    if (relations.smgValuesRelation.size() > other.smgValuesDependency.size()) {
       return false;
     }
-    if (!pPathPredicateRelation.smgValuesDependency.entries().containsAll(smgValuesDependency.entries())) {
+    if (!other.smgValuesDependency.entries().containsAll(relations.smgValuesDependency.entries())) {
       return false;
     }
-    if (!pPathPredicateRelation.smgExplicitValueRelation.entries().containsAll(smgExplicitValueRelation.entries())) {
+    if (!other
+        .smgExplicitValueRelation
+        .entries()
+        .containsAll(relations.smgExplicitValueRelation.entries())) {
       return false;
     }
-    if (!pPathPredicateRelation.smgValuesRelation.entries().containsAll(smgValuesRelation.entries())) {
+    if (!other.smgValuesRelation.entries().containsAll(relations.smgValuesRelation.entries())) {
       return false;
     }
     return true;
@@ -330,8 +407,14 @@ public final class PredRelation {
   }
 
   public void clear() {
-    smgExplicitValueRelation.clear();
-    smgValuesDependency.clear();
-    smgValuesRelation.clear();
+    if (relations.smgExplicitValueRelation.isEmpty()
+        && relations.smgValuesDependency.isEmpty()
+        && relations.smgValuesRelation.isEmpty()) {
+      return; // avoid copying shared relations
+    }
+    Relations r = modifiable();
+    r.smgExplicitValueRelation.clear();
+    r.smgValuesDependency.clear();
+    r.smgValuesRelation.clear();
   }
 }
@@ -29,11 +29,10 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
@@ -337,6 +336,16 @@ public class SMG implements UnmodifiableSMG {
     neq = neq.addRelationAndCopy(pV1, pV2);
   }
 
+  /** Returns the has-value edges, only for checking whether they changed. */
+  final SMGHasValueEdges getHasValueEdgeSet() {
+    return hv_edges;
+  }
+
+  /** Returns the valid objects, only for checking whether they changed. */
+  final PersistentSet<SMGObject> getValidObjectSet() {
+    return validObjects;
+  }
+
   @Override
   public PredRelation getPathPredicateRelation() {
     return pathPredicate;
@@ -458,7 +467,7 @@ public class SMG implements UnmodifiableSMG {
   }
 
   /**
-   * Obtains a TreeMap offset to size signifying where the object bytes are nullified.
+   * Obtains a sorted map offset to size signifying where the object bytes are nullified.
    *
    * <p>Constant.
    *
@@ -472,44 +481,9 @@ public class SMG implements UnmodifiableSMG {
    *     object to NULL value
    */
   @Override
-  public TreeMap<Long, Integer> getNullEdgesMapOffsetToSizeForObject(SMGObject pObj) {
-
-    // first get all possible offsets with their size, sorted by starting point
-    SMGEdgeHasValueFilter nullValueFilter =
-        SMGEdgeHasValueFilter.objectFilter(pObj).filterHavingValue(SMGZeroValue.INSTANCE);
-    TreeMap<Long, Integer> offsetToSize = new TreeMap<>();
-    for (SMGEdgeHasValue edge : nullValueFilter.filter(hv_edges)) {
-      long offset = edge.getOffset();
-      int size = (int) edge.getSizeInBits();
-      Integer existingSize = offsetToSize.get(offset);
-      if (existingSize != null) {
-        size = Math.max(size, existingSize);
-      }
-      offsetToSize.put(offset, size);
-    }
-
-    // then filter out overlapping intervals of offsets
-    TreeMap<Long, Integer> resultOffsetToSize = new TreeMap<>();
-    if (!offsetToSize.isEmpty()) {
-      Iterator<Entry<Long, Integer>> offsetsIterator = offsetToSize.entrySet().iterator();
-      Entry<Long, Integer> entry = offsetsIterator.next();
-      long resultOffset = entry.getKey();
-      int resultSize = entry.getValue();
-      while (offsetsIterator.hasNext()) {
-        entry = offsetsIterator.next();
-        long nextOffset = entry.getKey();
-        int nextSize = entry.getValue();
-        if (nextOffset <= resultOffset + resultSize) {
-          resultSize = Math.toIntExact(Long.max(nextSize + nextOffset - resultOffset, resultSize));
-        } else {
-          resultOffsetToSize.put(resultOffset, resultSize);
-          resultOffset = nextOffset;
-          resultSize = nextSize;
-        }
-      }
-      resultOffsetToSize.put(resultOffset, resultSize);
-    }
-    return resultOffsetToSize;
+  public NavigableMap<Long, Integer> getNullEdgesMapOffsetToSizeForObject(SMGObject pObj) {
+    // the ranges are maintained by the edge set and only computed once per version of the object
+    return hv_edges.getNullRangesForObject(pObj);
   }
 
   /**
@@ -549,7 +523,8 @@ public class SMG implements UnmodifiableSMG {
   private boolean isCoveredByNullifiedBlocks(SMGObject pObject, long pOffset, long size) {
     long expectedMinClear = pOffset + size;
 
-    TreeMap<Long, Integer> nullEdgesOffsetToSize = getNullEdgesMapOffsetToSizeForObject(pObject);
+    NavigableMap<Long, Integer> nullEdgesOffsetToSize =
+        getNullEdgesMapOffsetToSizeForObject(pObject);
     Entry<Long, Integer> floorEntry = nullEdgesOffsetToSize.floorEntry(pOffset);
     return (floorEntry != null && floorEntry.getValue() + floorEntry.getKey() >= expectedMinClear);
   }
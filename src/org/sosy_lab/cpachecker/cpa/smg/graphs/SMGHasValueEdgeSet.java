@@ -23,54 +23,157 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
+import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterables;
+import java.util.Map.Entry;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
+import org.sosy_lab.common.collect.PersistentMap;
+import org.sosy_lab.common.collect.PersistentSortedMap;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGZeroValue;
 import org.sosy_lab.cpachecker.cpa.smg.util.PersistentMultimap;
 
+/**
+ * A persistent set of has-value-edges, indexed by their source object, their offsets within the
+ * object, and their (non-zero) values.
+ *
+ * <p>All indices are persistent and shared between copies, such that queries for an offset or an
+ * offset range within an object, and queries for a value, only need logarithmic time instead of
+ * scanning all edges. The merged null ranges of an object are computed at most once per version
+ * of the object's edges.
+ */
 public class SMGHasValueEdgeSet implements SMGHasValueEdges {
 
-  private final PersistentMultimap<SMGObject, SMGEdgeHasValue> map;
+  private final PersistentMap<SMGObject, ObjectEdges> map;
+
+  /**
+   * all edges with a non-zero value. Edges to ZERO are not indexed, because there are too many of
+   * them and nearly all queries for ZERO are restricted to a single object.
+   */
+  private final PersistentMultimap<SMGValue, SMGEdgeHasValue> byValue;
 
   public SMGHasValueEdgeSet() {
-    map = PersistentMultimap.of();
+    map = PathCopyingPersistentTreeMap.of();
+    byValue = PersistentMultimap.of();
   }
 
-  private SMGHasValueEdgeSet(PersistentMultimap<SMGObject, SMGEdgeHasValue> pMap) {
+  private SMGHasValueEdgeSet(
+      PersistentMap<SMGObject, ObjectEdges> pMap,
+      PersistentMultimap<SMGValue, SMGEdgeHasValue> pByValue) {
     map = pMap;
+    byValue = pByValue;
   }
 
   @Override
   public SMGHasValueEdgeSet removeAllEdgesOfObjectAndCopy(SMGObject obj) {
-    return new SMGHasValueEdgeSet(map.removeAndCopy(obj));
+    @Nullable ObjectEdges old = map.get(obj);
+    if (old == null) {
+      return this;
+    }
+    PersistentMultimap<SMGValue, SMGEdgeHasValue> newByValue = byValue;
+    for (SMGEdgeHasValue edge : old.edges) {
+      newByValue = removeFromValueIndex(newByValue, edge);
+    }
+    return new SMGHasValueEdgeSet(map.removeAndCopy(obj), newByValue);
   }
 
   @Override
   public SMGHasValueEdgeSet addEdgeAndCopy(SMGEdgeHasValue pEdge) {
-    return new SMGHasValueEdgeSet(map.putAndCopy(pEdge.getObject(), pEdge));
+    @Nullable ObjectEdges old = map.get(pEdge.getObject());
+    if (old == null) {
+      old = ObjectEdges.EMPTY;
+    } else if (old.edges.contains(pEdge)) {
+      return this;
+    }
+    PersistentMultimap<SMGValue, SMGEdgeHasValue> newByValue = byValue;
+    if (!isNullEdge(pEdge)) {
+      newByValue = newByValue.putAndCopy(pEdge.getValue(), pEdge);
+    }
+    return new SMGHasValueEdgeSet(
+        map.putAndCopy(pEdge.getObject(), old.addEdge(pEdge)), newByValue);
   }
 
   @Override
   public SMGHasValueEdgeSet removeEdgeAndCopy(SMGEdgeHasValue pEdge) {
-    PersistentMultimap<SMGObject, SMGEdgeHasValue> updated =
-        map.removeAndCopy(pEdge.getObject(), pEdge);
-    if (map == updated) {
+    @Nullable ObjectEdges old = map.get(pEdge.getObject());
+    if (old == null || !old.edges.contains(pEdge)) {
       return this;
-    } else {
-      return new SMGHasValueEdgeSet(updated);
     }
+    ObjectEdges updated = old.removeEdge(pEdge);
+    return new SMGHasValueEdgeSet(
+        updated.edges.isEmpty()
+            ? map.removeAndCopy(pEdge.getObject())
+            : map.putAndCopy(pEdge.getObject(), updated),
+        removeFromValueIndex(byValue, pEdge));
+  }
+
+  private static PersistentMultimap<SMGValue, SMGEdgeHasValue> removeFromValueIndex(
+      PersistentMultimap<SMGValue, SMGEdgeHasValue> pByValue, SMGEdgeHasValue pEdge) {
+    if (isNullEdge(pEdge)) {
+      return pByValue;
+    }
+    return pByValue.removeAndCopy(pEdge.getValue(), pEdge);
+  }
+
+  private static boolean isNullEdge(SMGEdgeHasValue pEdge) {
+    return pEdge.getValue().equals(SMGZeroValue.INSTANCE);
   }
 
   @Override
   public ImmutableSet<SMGEdgeHasValue> getHvEdges() {
-    return map.values();
+    return ImmutableSet.copyOf(Iterables.concat(Iterables.transform(map.values(), e -> e.edges)));
   }
 
   @Override
   public ImmutableSet<SMGEdgeHasValue> getEdgesForObject(SMGObject pObject) {
-    @Nullable ImmutableSet<SMGEdgeHasValue> edges = map.get(pObject);
-    return edges == null ? ImmutableSet.of() : edges;
+    @Nullable ObjectEdges edges = map.get(pObject);
+    return edges == null ? ImmutableSet.of() : edges.edges;
+  }
+
+  @Override
+  public ImmutableSet<SMGEdgeHasValue> getEdgesForObjectAtOffset(SMGObject pObject, long pOffset) {
+    @Nullable ObjectEdges edges = map.get(pObject);
+    if (edges == null) {
+      return ImmutableSet.of();
+    }
+    @Nullable ImmutableSet<SMGEdgeHasValue> atOffset = edges.byOffset.get(pOffset);
+    return atOffset == null ? ImmutableSet.of() : atOffset;
+  }
+
+  @Override
+  public Iterable<SMGEdgeHasValue> getOverlappingEdges(SMGObject pObject, long pStart, long pEnd) {
+    @Nullable ObjectEdges edges = map.get(pObject);
+    if (edges == null) {
+      return ImmutableSet.of();
+    }
+    // no edge starting before this offset can reach into the range
+    long lowerBound = pStart - edges.maxSizeInBits;
+    return FluentIterable.concat(
+            edges.byOffset.subMap(lowerBound, true, Math.max(pStart, pEnd), false).values())
+        .append(getEdgesForObjectAtOffset(pObject, pStart))
+        .filter(e -> e.overlapsWith(pStart, pEnd))
+        .toSet();
+  }
+
+  @Override
+  public ImmutableSet<SMGEdgeHasValue> getEdgesWithValue(SMGValue pValue) {
+    if (SMGZeroValue.INSTANCE.equals(pValue)) {
+      return FluentIterable.concat(Iterables.transform(map.values(), e -> e.edges))
+          .filter(e -> e.getValue().equals(pValue))
+          .toSet();
+    }
+    return byValue.get(pValue);
+  }
+
+  @Override
+  public ImmutableSortedMap<Long, Integer> getNullRangesForObject(SMGObject pObject) {
+    @Nullable ObjectEdges edges = map.get(pObject);
+    return edges == null ? ImmutableSortedMap.of() : edges.getNullRanges();
   }
 
   @Override
@@ -82,6 +185,7 @@ public class SMGHasValueEdgeSet implements SMGHasValueEdges {
   public boolean equals(Object pObj) {
     if (pObj instanceof SMGHasValueEdgeSet) {
       SMGHasValueEdgeSet other = (SMGHasValueEdgeSet) pObj;
+      // the value index is derived from the edges and need not be compared
       return map.equals(other.map);
     }
     return false;
@@ -91,4 +195,118 @@ public class SMGHasValueEdgeSet implements SMGHasValueEdges {
   public String toString() {
     return map.toString();
   }
-}
\ No newline at end of file
+
+  /** The immutable edges of a single object, together with an index over their offsets. */
+  private static final class ObjectEdges {
+
+    private static final ObjectEdges EMPTY =
+        new ObjectEdges(ImmutableSet.of(), PathCopyingPersistentTreeMap.of(), 0);
+
+    private final ImmutableSet<SMGEdgeHasValue> edges;
+    private final PersistentSortedMap<Long, ImmutableSet<SMGEdgeHasValue>> byOffset;
+
+    /** an upper bound for the size of all edges, used to limit range queries. */
+    private final long maxSizeInBits;
+
+    /** lazily computed merged intervals of all edges to ZERO, see {@link #getNullRanges()}. */
+    private @Nullable ImmutableSortedMap<Long, Integer> nullRanges = null;
+
+    private ObjectEdges(
+        ImmutableSet<SMGEdgeHasValue> pEdges,
+        PersistentSortedMap<Long, ImmutableSet<SMGEdgeHasValue>> pByOffset,
+        long pMaxSizeInBits) {
+      edges = pEdges;
+      byOffset = pByOffset;
+      maxSizeInBits = pMaxSizeInBits;
+    }
+
+    private ObjectEdges addEdge(SMGEdgeHasValue pEdge) {
+      @Nullable ImmutableSet<SMGEdgeHasValue> atOffset = byOffset.get(pEdge.getOffset());
+      ImmutableSet.Builder<SMGEdgeHasValue> builder = ImmutableSet.builder();
+      if (atOffset != null) {
+        builder.addAll(atOffset);
+      }
+      return new ObjectEdges(
+          ImmutableSet.<SMGEdgeHasValue>builder().addAll(edges).add(pEdge).build(),
+          byOffset.putAndCopy(pEdge.getOffset(), builder.add(pEdge).build()),
+          Math.max(maxSizeInBits, pEdge.getSizeInBits()));
+    }
+
+    private ObjectEdges removeEdge(SMGEdgeHasValue pEdge) {
+      ImmutableSet<SMGEdgeHasValue> atOffset =
+          FluentIterable.from(byOffset.get(pEdge.getOffset()))
+              .filter(e -> !e.equals(pEdge))
+              .toSet();
+      // the maximal size is kept as upper bound, it is only used for limiting range queries
+      return new ObjectEdges(
+          FluentIterable.from(edges).filter(e -> !e.equals(pEdge)).toSet(),
+          atOffset.isEmpty()
+              ? byOffset.removeAndCopy(pEdge.getOffset())
+              : byOffset.putAndCopy(pEdge.getOffset(), atOffset),
+          maxSizeInBits);
+    }
+
+    /**
+     * Returns the non-overlapping intervals (offset to size) covered by edges to ZERO, as
+     * described in {@link SMG#getNullEdgesMapOffsetToSizeForObject(SMGObject)}.
+     */
+    private ImmutableSortedMap<Long, Integer> getNullRanges() {
+      ImmutableSortedMap<Long, Integer> result = nullRanges;
+      if (result == null) {
+        result = computeNullRanges();
+        nullRanges = result; // benign race, the result is always the same
+      }
+      return result;
+    }
+
+    private ImmutableSortedMap<Long, Integer> computeNullRanges() {
+      ImmutableSortedMap.Builder<Long, Integer> builder = ImmutableSortedMap.naturalOrder();
+      boolean hasRange = false;
+      long resultOffset = 0;
+      long resultEnd = 0;
+      // the offsets are already sorted, we only need to merge overlapping and adjacent intervals
+      for (Entry<Long, ImmutableSet<SMGEdgeHasValue>> entry : byOffset.entrySet()) {
+        long offset = entry.getKey();
+        @Nullable Long end = null;
+        for (SMGEdgeHasValue edge : entry.getValue()) {
+          if (isNullEdge(edge)) {
+            long edgeEnd = offset + edge.getSizeInBits();
+            end = end == null ? edgeEnd : Math.max(end, edgeEnd);
+          }
+        }
+        if (end == null) {
+          continue; // no edge to ZERO at this offset
+        }
+        if (hasRange && offset <= resultEnd) {
+          resultEnd = Math.max(resultEnd, end);
+        } else {
+          if (hasRange) {
+            builder.put(resultOffset, Math.toIntExact(resultEnd - resultOffset));
+          }
+          hasRange = true;
+          resultOffset = offset;
+          resultEnd = end;
+        }
+      }
+      if (hasRange) {
+        builder.put(resultOffset, Math.toIntExact(resultEnd - resultOffset));
+      }
+      return builder.build();
+    }
+
+    @Override
+    public int hashCode() {
+      return edges.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      return pObj instanceof ObjectEdges && edges.equals(((ObjectEdges) pObj).edges);
+    }
+
+    @Override
+    public String toString() {
+      return edges.toString();
+    }
+  }
+}
@@ -24,8 +24,10 @@
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
 
 /** An immutable collection of has-value-edges. */
 public interface SMGHasValueEdges {
@@ -45,4 +47,22 @@ public interface SMGHasValueEdges {
 
   /** get all outgoing edges of an {@link SMGObject}, e.g., all values of this object. */
   ImmutableSet<SMGEdgeHasValue> getEdgesForObject(SMGObject pObject);
-}
\ No newline at end of file
+
+  /** get all outgoing edges of an {@link SMGObject} that start at the given offset. */
+  ImmutableSet<SMGEdgeHasValue> getEdgesForObjectAtOffset(SMGObject pObject, long pOffset);
+
+  /**
+   * get all outgoing edges of an {@link SMGObject} that overlap with the range from start
+   * (inclusive) to end (exclusive), see {@link SMGEdgeHasValue#overlapsWith(long, long)}.
+   */
+  Iterable<SMGEdgeHasValue> getOverlappingEdges(SMGObject pObject, long pStart, long pEnd);
+
+  /** get all edges of all {@link SMGObject}s that point to the given value. */
+  ImmutableSet<SMGEdgeHasValue> getEdgesWithValue(SMGValue pValue);
+
+  /**
+   * get the non-overlapping ranges (offset to size) of an {@link SMGObject} that are covered by
+   * edges to ZERO.
+   */
+  ImmutableSortedMap<Long, Integer> getNullRangesForObject(SMGObject pObject);
+}
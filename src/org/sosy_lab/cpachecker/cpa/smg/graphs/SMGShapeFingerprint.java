@@ -0,0 +1,176 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg.graphs;
+
+import java.util.Map.Entry;
+import org.sosy_lab.common.collect.PersistentMap;
+import org.sosy_lab.cpachecker.cfa.types.c.CVoidType;
+import org.sosy_lab.cpachecker.cpa.smg.CLangStackFrame;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValueFilter;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGRegion;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentSet;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentStack;
+
+/**
+ * A compact sketch of the shape of a {@link CLangSMG} that allows to reject most pairs of SMGs that
+ * are not less or equal without comparing the graphs.
+ *
+ * <p>The fingerprint is a Bloom filter over the facts that {@link
+ * org.sosy_lab.cpachecker.cpa.smg.join.SMGIsLessOrEqual} requires for the smaller SMG to be present
+ * in the greater SMG: the names of global and stack variables, the heap objects with their
+ * validity, and the has-value edges of all these objects. Objects are identified in the same way as
+ * in the full check (globals by name, stack variables by frame and name, heap objects by identity).
+ * If the facts of one SMG are a subset of the facts of another SMG, the same holds for the filters.
+ * Thus if the bits of one filter are not included in the other filter, the SMGs are not less or
+ * equal.
+ *
+ * <p>A fingerprint is immutable. It remembers the persistent components of the SMG it was computed
+ * for, such that the SMG can cheaply check whether its cached fingerprint is still up to date.
+ */
+public final class SMGShapeFingerprint {
+
+  private static final int WORDS = 8;
+  private static final int BITS_MASK = WORDS * 64 - 1;
+
+  private final long[] bits = new long[WORDS];
+  private int numberOfHasValueEdges = 0;
+
+  // the components of the SMG this fingerprint was computed from
+  private final SMGHasValueEdges hvEdges;
+  private final PersistentSet<SMGObject> validObjects;
+  private final PersistentSet<SMGObject> heapObjects;
+  private final PersistentMap<String, SMGRegion> globalObjects;
+  private final PersistentStack<CLangStackFrame> stackFrames;
+
+  private SMGShapeFingerprint(
+      SMGHasValueEdges pHvEdges,
+      PersistentSet<SMGObject> pValidObjects,
+      PersistentSet<SMGObject> pHeapObjects,
+      PersistentMap<String, SMGRegion> pGlobalObjects,
+      PersistentStack<CLangStackFrame> pStackFrames) {
+    hvEdges = pHvEdges;
+    validObjects = pValidObjects;
+    heapObjects = pHeapObjects;
+    globalObjects = pGlobalObjects;
+    stackFrames = pStackFrames;
+  }
+
+  static SMGShapeFingerprint of(
+      CLangSMG pSmg,
+      SMGHasValueEdges pHvEdges,
+      PersistentSet<SMGObject> pValidObjects,
+      PersistentSet<SMGObject> pHeapObjects,
+      PersistentMap<String, SMGRegion> pGlobalObjects,
+      PersistentStack<CLangStackFrame> pStackFrames) {
+    SMGShapeFingerprint fingerprint =
+        new SMGShapeFingerprint(
+            pHvEdges, pValidObjects, pHeapObjects, pGlobalObjects, pStackFrames);
+
+    for (Entry<String, SMGRegion> global : pGlobalObjects.entrySet()) {
+      fingerprint.addObject(pSmg, global.getValue(), mix(1, global.getKey().hashCode()));
+    }
+
+    int frameIndex = 0;
+    for (CLangStackFrame frame : pStackFrames) {
+      long frameKey =
+          mix(2, mix(frameIndex++, frame.getFunctionDeclaration().getOrigName().hashCode()));
+      fingerprint.add(frameKey);
+      if (!(frame.getFunctionDeclaration().getType().getReturnType().getCanonicalType()
+          instanceof CVoidType)) {
+        fingerprint.addObject(pSmg, frame.getReturnObject(), mix(frameKey, 0));
+      }
+      for (Entry<String, SMGRegion> local : frame.getVariables().entrySet()) {
+        fingerprint.addObject(pSmg, local.getValue(), mix(frameKey, local.getKey().hashCode()));
+      }
+    }
+
+    for (SMGObject heapObject : pHeapObjects) {
+      long objectKey = mix(3, heapObject.hashCode());
+      fingerprint.add(mix(objectKey, pValidObjects.contains(heapObject) ? 1 : 0));
+      fingerprint.addObject(pSmg, heapObject, objectKey);
+    }
+
+    return fingerprint;
+  }
+
+  private void addObject(CLangSMG pSmg, SMGObject pObject, long pObjectKey) {
+    add(pObjectKey);
+    for (SMGEdgeHasValue edge : pSmg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(pObject))) {
+      numberOfHasValueEdges++;
+      add(
+          mix(
+              mix(pObjectKey, edge.getOffset()),
+              mix(edge.getSizeInBits(), edge.getValue().hashCode())));
+    }
+  }
+
+  private void add(long pFact) {
+    // two bits per fact, taken from different parts of the hash
+    bits[(int) (pFact & BITS_MASK) >>> 6] |= 1L << pFact;
+    long second = pFact >>> 32;
+    bits[(int) (second & BITS_MASK) >>> 6] |= 1L << second;
+  }
+
+  /** A simple mixing function for combining hash values (based on MurmurHash3's finalizer). */
+  private static long mix(long pFirst, long pSecond) {
+    long h = pFirst * 0x9E3779B97F4A7C15L + pSecond;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  boolean isComputedFrom(
+      SMGHasValueEdges pHvEdges,
+      PersistentSet<SMGObject> pValidObjects,
+      PersistentSet<SMGObject> pHeapObjects,
+      PersistentMap<String, SMGRegion> pGlobalObjects,
+      PersistentStack<CLangStackFrame> pStackFrames) {
+    return hvEdges == pHvEdges
+        && validObjects == pValidObjects
+        && heapObjects == pHeapObjects
+        && globalObjects == pGlobalObjects
+        && stackFrames == pStackFrames;
+  }
+
+  /**
+   * Returns false if the SMG of this fingerprint is definitely not less or equal to the SMG of the
+   * other fingerprint, and true if it might be.
+   */
+  public boolean maybeLessOrEqual(SMGShapeFingerprint pOther) {
+    if (numberOfHasValueEdges > pOther.numberOfHasValueEdges) {
+      return false;
+    }
+    for (int i = 0; i < WORDS; i++) {
+      if ((bits[i] & ~pOther.bits[i]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
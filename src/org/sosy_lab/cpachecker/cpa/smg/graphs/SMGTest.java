@@ -25,12 +25,14 @@ package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
 import static com.google.common.truth.Truth.assertThat;
 
-import java.util.TreeMap;
+import java.util.NavigableMap;
 import org.junit.Before;
 import org.junit.Test;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValueFilter;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgePointsTo;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGNullObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
@@ -90,10 +92,51 @@ public class SMGTest {
     SMGEdgeHasValue hv = new SMGEdgeHasValue(mockTypeSize, 32, obj1, SMGZeroValue.INSTANCE);
     smg1.addHasValueEdge(hv);
 
-    TreeMap<Long, Integer> nullEdges = smg1.getNullEdgesMapOffsetToSizeForObject(obj1);
+    NavigableMap<Long, Integer> nullEdges = smg1.getNullEdgesMapOffsetToSizeForObject(obj1);
     assertThat(nullEdges).containsExactly(32L, 32);
   }
 
+  @Test
+  public void getMergedNullBytesForObjectTest() {
+    SMGObject obj = new SMGRegion(256, "object");
+    SMG smg1 = getNewSMG64();
+    smg1.addObject(obj);
+    smg1.addHasValueEdge(new SMGEdgeHasValue(16, 0, obj, SMGZeroValue.INSTANCE));
+    smg1.addHasValueEdge(new SMGEdgeHasValue(32, 8, obj, SMGZeroValue.INSTANCE));
+    smg1.addHasValueEdge(new SMGEdgeHasValue(16, 40, obj, SMGZeroValue.INSTANCE));
+    smg1.addHasValueEdge(new SMGEdgeHasValue(32, 128, obj, SMGZeroValue.INSTANCE));
+    smg1.addHasValueEdge(new SMGEdgeHasValue(32, 64, obj, val1));
+
+    assertThat(smg1.getNullEdgesMapOffsetToSizeForObject(obj)).containsExactly(0L, 56, 128L, 32);
+
+    SMG smg2 = smg1.copyOf();
+    smg2.removeHasValueEdge(new SMGEdgeHasValue(32, 8, obj, SMGZeroValue.INSTANCE));
+    assertThat(smg2.getNullEdgesMapOffsetToSizeForObject(obj))
+        .containsExactly(0L, 16, 40L, 16, 128L, 32);
+    assertThat(smg1.getNullEdgesMapOffsetToSizeForObject(obj)).containsExactly(0L, 56, 128L, 32);
+  }
+
+  @Test
+  public void indexedHasValueQueriesTest() {
+    SMGEdgeHasValue hv2has2at8 = new SMGEdgeHasValue(16, 8, obj2, val2);
+    smg.addHasValueEdge(hv2has2at8);
+
+    assertThat(smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj2).filterAtOffset(32)))
+        .containsExactly(hv2has1at4);
+    assertThat(
+            smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj2).filterOverlappingWith(20, 40)))
+        .containsExactly(hv2has2at0, hv2has2at8, hv2has1at4);
+    assertThat(
+            smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj2).filterOverlappingWith(32, 64)))
+        .containsExactly(hv2has1at4);
+    assertThat(smg.getHVEdges(SMGEdgeHasValueFilter.valueFilter(val2)))
+        .containsExactly(hv2has2at0, hv2has2at8);
+
+    smg.removeHasValueEdge(hv2has2at0);
+    assertThat(smg.getHVEdges(SMGEdgeHasValueFilter.valueFilter(val2)))
+        .containsExactly(hv2has2at8);
+  }
+
   @Test
   public void SMGConstructorTest() {
     SMG smg1 = getNewSMG64();
@@ -208,6 +251,27 @@ public class SMGTest {
     assertThat(smg1.getPTEdges()).doesNotContain(pt);
   }
 
+  @Test
+  public void predicateCopyOnWriteTest() {
+    SMGValue sym1 = SMGKnownSymValue.of();
+    SMGValue sym2 = SMGKnownSymValue.of();
+    smg.addValue(sym1);
+    smg.addValue(sym2);
+    smg.getPathPredicateRelation().addRelation(sym1, sym2, BinaryOperator.LESS_THAN);
+
+    SMG smg_copy = smg.copyOf();
+    assertThat(smg_copy.getPathPredicateRelation()).isEqualTo(smg.getPathPredicateRelation());
+
+    // modifying the copy must not change the original and vice versa
+    smg_copy.removeValue(sym1);
+    assertThat(smg_copy.getPathPredicateRelation().isEmpty()).isTrue();
+    assertThat(smg.getPathPredicateRelation().isEmpty()).isFalse();
+
+    smg.getPathPredicateRelation().addRelation(sym2, val1, BinaryOperator.EQUALS);
+    assertThat(smg_copy.getPathPredicateRelation().isEmpty()).isTrue();
+    assertThat(smg.getPathPredicateRelation().getValuesRelations()).hasSize(4);
+  }
+
   @Test
   public void validityTest() {
     assertThat(smg.isObjectValid(SMGNullObject.INSTANCE)).isFalse();
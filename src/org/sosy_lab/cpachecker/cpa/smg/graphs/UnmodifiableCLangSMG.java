@@ -59,6 +59,12 @@ public interface UnmodifiableCLangSMG extends UnmodifiableSMG {
 
   PersistentMap<String, SMGRegion> getGlobalObjects();
 
+  /**
+   * Returns a fingerprint of the shape of this SMG for fast coverage checks. It is computed lazily
+   * and cached until the SMG is modified.
+   */
+  SMGShapeFingerprint getShapeFingerprint();
+
   /**
    * return the FunctionReturn-object for the most recent function call, i.e., from the top-level
    * stackframe.
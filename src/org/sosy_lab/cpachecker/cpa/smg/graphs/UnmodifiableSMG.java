@@ -23,8 +23,8 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
+import java.util.NavigableMap;
 import java.util.Set;
-import java.util.TreeMap;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
@@ -74,7 +74,7 @@ public interface UnmodifiableSMG {
 
   MachineModel getMachineModel();
 
-  TreeMap<Long, Integer> getNullEdgesMapOffsetToSizeForObject(SMGObject pObj);
+  NavigableMap<Long, Integer> getNullEdgesMapOffsetToSizeForObject(SMGObject pObj);
 
   boolean isPointer(SMGValue value);
 
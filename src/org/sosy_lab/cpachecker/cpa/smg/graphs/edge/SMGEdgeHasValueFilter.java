@@ -26,7 +26,6 @@ package org.sosy_lab.cpachecker.cpa.smg.graphs.edge;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
-import java.util.Set;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.SMGHasValueEdges;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
@@ -42,6 +41,8 @@ public class SMGEdgeHasValueFilter {
   private boolean valueComplement = false;
   private Long offset = null;
   private long sizeInBits = -1;
+  private Long overlapStart = null;
+  private long overlapEnd = -1;
 
   @VisibleForTesting
   public SMGEdgeHasValueFilter filterByObject(SMGObject pObject) {
@@ -72,6 +73,13 @@ public class SMGEdgeHasValueFilter {
     return this;
   }
 
+  /** only match edges that overlap with the range from start (inclusive) to end (exclusive). */
+  public SMGEdgeHasValueFilter filterOverlappingWith(long pStart, long pEnd) {
+    overlapStart = pStart;
+    overlapEnd = pEnd;
+    return this;
+  }
+
   public boolean holdsFor(SMGEdgeHasValue pEdge) {
     if (object != null && object != pEdge.getObject()) {
       return false;
@@ -93,13 +101,24 @@ public class SMGEdgeHasValueFilter {
       return false;
     }
 
+    if (overlapStart != null && !pEdge.overlapsWith(overlapStart, overlapEnd)) {
+      return false;
+    }
+
     return true;
   }
 
   public Iterable<SMGEdgeHasValue> filter(SMGHasValueEdges pEdges) {
-    Set<SMGEdgeHasValue> filtered;
-    if (object != null) {
+    // use the most selective index of the edges, the remaining criteria are checked afterwards
+    Iterable<SMGEdgeHasValue> filtered;
+    if (object != null && offset != null) {
+      filtered = pEdges.getEdgesForObjectAtOffset(object, offset);
+    } else if (object != null && overlapStart != null) {
+      filtered = pEdges.getOverlappingEdges(object, overlapStart, overlapEnd);
+    } else if (object != null) {
       filtered = pEdges.getEdgesForObject(object);
+    } else if (value != null && !valueComplement) {
+      filtered = pEdges.getEdgesWithValue(value);
     } else {
       filtered = pEdges.getHvEdges();
     }
@@ -32,6 +32,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import org.sosy_lab.cpachecker.cfa.types.c.CVoidType;
 import org.sosy_lab.cpachecker.cpa.smg.CLangStackFrame;
+import org.sosy_lab.cpachecker.cpa.smg.SMGStatistics;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.UnmodifiableCLangSMG;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValueFilter;
@@ -40,7 +41,6 @@ import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGRegion;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
 import org.sosy_lab.cpachecker.cpa.smg.util.PersistentSet;
-import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
 import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
 /**
@@ -49,25 +49,19 @@ import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWra
  */
 public class SMGIsLessOrEqual {
 
-  public static final ThreadSafeTimerContainer isLEQTimer =
-      new ThreadSafeTimerContainer("Time for joining SMGs");
-  public static final ThreadSafeTimerContainer globalsTimer =
-      new ThreadSafeTimerContainer("Time for joining globals");
-  public static final ThreadSafeTimerContainer stackTimer =
-      new ThreadSafeTimerContainer("Time for joining stacks");
-  public static final ThreadSafeTimerContainer heapTimer =
-      new ThreadSafeTimerContainer("Time for joining heaps");
-
   private SMGIsLessOrEqual() {} // Utility class.
 
   /**
    * Checks, if smg2 is less or equal to smg1.
    *
+   * @param pStats the statistics of the analysis, the timers and counters of this check are
+   *     updated.
    * @return true, iff smg1 is less or equal to smg2, false otherwise.
    */
-  public static boolean isLessOrEqual(UnmodifiableCLangSMG pSMG1, UnmodifiableCLangSMG pSMG2) {
+  public static boolean isLessOrEqual(
+      UnmodifiableCLangSMG pSMG1, UnmodifiableCLangSMG pSMG2, SMGStatistics pStats) {
 
-    TimerWrapper timer = isLEQTimer.getNewTimer();
+    TimerWrapper timer = pStats.isLEQTimer.getNewTimer();
     timer.start();
     try {
 
@@ -85,7 +79,14 @@ public class SMGIsLessOrEqual {
         return false;
       }
 
-      TimerWrapper gt = globalsTimer.getNewTimer();
+      // cheap necessary condition, avoids the following comparison of the graphs in most cases
+      if (!pSMG1.getShapeFingerprint().maybeLessOrEqual(pSMG2.getShapeFingerprint())) {
+        pStats.fastRejections.inc();
+        return false;
+      }
+      pStats.fullChecks.inc();
+
+      TimerWrapper gt = pStats.globalsTimer.getNewTimer();
       gt.start();
       try {
         if (!maybeGlobalsLessOrEqual(pSMG1, pSMG2)) {
@@ -95,7 +96,7 @@ public class SMGIsLessOrEqual {
         gt.stop();
       }
 
-      TimerWrapper st = stackTimer.getNewTimer();
+      TimerWrapper st = pStats.stackTimer.getNewTimer();
       st.start();
       try {
         if (!maybeStackLessOrEqual(pSMG1, pSMG2)) {
@@ -105,7 +106,7 @@ public class SMGIsLessOrEqual {
         st.stop();
       }
 
-      TimerWrapper ht = heapTimer.getNewTimer();
+      TimerWrapper ht = pStats.heapTimer.getNewTimer();
       ht.start();
       try {
         if (!maybeHeapLessOrEqual(pSMG1, pSMG2)) {
@@ -35,6 +35,7 @@ import org.sosy_lab.cpachecker.cpa.smg.SMGExportDotOption;
 import org.sosy_lab.cpachecker.cpa.smg.SMGOptions;
 import org.sosy_lab.cpachecker.cpa.smg.SMGPredicateManager;
 import org.sosy_lab.cpachecker.cpa.smg.SMGState;
+import org.sosy_lab.cpachecker.cpa.smg.SMGStatistics;
 import org.sosy_lab.cpachecker.cpa.smg.SMGTransferRelation;
 import org.sosy_lab.cpachecker.cpa.smg.SMGTransferRelationKind;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
@@ -58,7 +59,8 @@ public class SMGStrongestPostOperator {
             pKind,
             pSMGPredicateManager,
             pOptions,
-            pShutdownNotifier);
+            pShutdownNotifier,
+            new SMGStatistics());
   }
 
   public Collection<SMGState> getStrongestPost(
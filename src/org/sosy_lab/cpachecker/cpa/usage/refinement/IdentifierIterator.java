@@ -69,7 +69,9 @@ import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 
 
 @Options(prefix="cpa.usage")
-public class IdentifierIterator extends WrappedConfigurableRefinementBlock<ReachedSet, SingleIdentifier> implements Refiner {
+public class IdentifierIterator
+    extends WrappedConfigurableRefinementBlock<ReachedSet, SingleIdentifier>
+    implements Refiner, AutoCloseable {
 
   private class Stats implements Statistics {
 
@@ -115,6 +117,9 @@ public class IdentifierIterator extends WrappedConfigurableRefinementBlock<Reach
 
   private final Map<SingleIdentifier, AdjustablePrecision> precisionMap = new HashMap<>();
 
+  /** The container of the last refined reached set, closed together with the refiner. */
+  private UsageContainer lastContainer = null;
+
   public IdentifierIterator(ConfigurableRefinementBlock<SingleIdentifier> pWrapper, Configuration config,
       ConfigurableProgramAnalysis pCpa, BAMTransferRelation pTransfer) throws InvalidConfigurationException {
     super(pWrapper);
@@ -144,6 +149,7 @@ public class IdentifierIterator extends WrappedConfigurableRefinementBlock<Reach
 
     UsageReachedSet uReached = (UsageReachedSet) pReached;
     UsageContainer container = uReached.getUsageContainer();
+    lastContainer = container;
     Set<SingleIdentifier> processedUnsafes = new HashSet<>();
 
     logger.log(Level.INFO, ("Perform US refinement: " + i++));
@@ -258,4 +264,11 @@ public class IdentifierIterator extends WrappedConfigurableRefinementBlock<Reach
   public boolean performRefinement(ReachedSet pReached) throws CPAException, InterruptedException {
     return performBlockRefinement(pReached).isTrue();
   }
+
+  @Override
+  public void close() {
+    if (lastContainer != null) {
+      lastContainer.close();
+    }
+  }
 }
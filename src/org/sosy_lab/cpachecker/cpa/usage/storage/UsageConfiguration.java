@@ -46,8 +46,28 @@ public final class UsageConfiguration {
       secure = true)
   private String intLockName = null;
 
+  @Option(
+      name = "unsafedetector.parallel",
+      description =
+          "detect unsafes of different identifiers in parallel, "
+              + "the usages of every identifier are still processed by a single thread",
+      secure = true)
+  private boolean parallelDetection = false;
+
+  @Option(
+      name = "unsafedetector.numberOfThreads",
+      description =
+          "number of threads for parallel unsafe detection, positive values match exactly, "
+              + "with -1 we use the number of available cores of the machine automatically.",
+      secure = true)
+  private int numberOfThreads = -1;
+
   public UsageConfiguration(Configuration config) throws InvalidConfigurationException {
     config.inject(this);
+    if (numberOfThreads <= 0 && numberOfThreads != -1) {
+      throw new InvalidConfigurationException(
+          "number of threads for unsafe detection can only be a positive number or -1.");
+    }
   }
 
   boolean printOnlyTrueUnsafes() {
@@ -65,4 +85,15 @@ public final class UsageConfiguration {
   String getIntLockName() {
     return intLockName;
   }
+
+  boolean parallelDetection() {
+    return parallelDetection;
+  }
+
+  int getNumberOfThreads() {
+    if (numberOfThreads > 0) {
+      return numberOfThreads;
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
 }
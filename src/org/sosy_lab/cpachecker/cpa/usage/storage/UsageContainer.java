@@ -41,6 +41,10 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cpa.lock.LockState;
@@ -56,8 +60,18 @@ import org.sosy_lab.cpachecker.util.statistics.StatInt;
 import org.sosy_lab.cpachecker.util.statistics.StatKind;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
-public class UsageContainer {
+/**
+ * The container of all usages and unsafes.
+ *
+ * <p>In parallel mode, the passes over all unrefined identifiers are partitioned by identifier
+ * between the threads of a pool. Every point set is accessed by exactly one thread during such a
+ * pass, and the maps of identifiers are not modified, thus no concurrent collections are needed.
+ * The pool has to be released with {@link #close()}, afterwards all passes are sequential.
+ */
+public class UsageContainer implements AutoCloseable {
   private final SortedMap<SingleIdentifier, UnrefinedUsagePointSet> unrefinedIds;
   private final SortedMap<SingleIdentifier, RefinedUsagePointSet> refinedIds;
   private final SortedMap<SingleIdentifier, RefinedUsagePointSet> failedIds;
@@ -77,6 +91,17 @@ public class UsageContainer {
   private final StatTimer resetTimer = new StatTimer("Time for reseting unsafes");
   private final StatTimer copyTimer = new StatTimer("Time for filling global container");
   private final StatTimer emptyEffectsTimer = new StatTimer("Time for coping usages");
+  private final StatTimer detectionTimer = new StatTimer("Time for unsafe detection");
+  private final ThreadSafeTimerContainer identifierDetectionTimer =
+      new ThreadSafeTimerContainer("Time for unsafe detection per identifier");
+  /** One timer of {@link #identifierDetectionTimer} for each thread that detects unsafes. */
+  private final ThreadLocal<TimerWrapper> identifierDetectionTimers =
+      ThreadLocal.withInitial(identifierDetectionTimer::getNewTimer);
+
+  /** Pool for the identifier-partitioned processing, only created in parallel mode. */
+  private ForkJoinPool pool = null;
+
+  private boolean closed = false;
 
   int unsafeUsages = -1;
   int totalIds = 0;
@@ -218,25 +243,70 @@ public class UsageContainer {
     return uset;
   }
 
+  /**
+   * Apply the action to every unrefined identifier. In parallel mode the identifiers are
+   * partitioned between the threads of the pool, so the action must not touch point sets of other
+   * identifiers.
+   */
+  private void forEachUnrefinedId(BiConsumer<SingleIdentifier, UnrefinedUsagePointSet> action) {
+    if (isParallel()) {
+      if (pool == null) {
+        pool = new ForkJoinPool(config.getNumberOfThreads());
+      }
+      pool.submit(
+              () ->
+                  unrefinedIds
+                      .entrySet()
+                      .parallelStream()
+                      .forEach(e -> action.accept(e.getKey(), e.getValue())))
+          .join();
+    } else {
+      unrefinedIds.forEach(action);
+    }
+  }
+
+  private boolean isParallel() {
+    return config.parallelDetection() && !closed;
+  }
+
+  /** Release the threads of the parallel mode, the container stays usable. */
+  @Override
+  public void close() {
+    closed = true;
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+
   private void calculateUnsafesIfNecessary() {
     if (unsafeUsages == -1) {
+      detectionTimer.start();
       processedUnsafes.clear();
-      unsafeUsages = 0;
-      Set<SingleIdentifier> toDelete = new HashSet<>();
-
-      for (Entry<SingleIdentifier, UnrefinedUsagePointSet> entry : unrefinedIds.entrySet()) {
-        UnrefinedUsagePointSet tmpList = entry.getValue();
-        if (detector.isUnsafe(tmpList)) {
-          unsafeUsages += tmpList.size();
-        } else {
-          SingleIdentifier id = entry.getKey();
-          toDelete.add(id);
-          falseUnsafes.add(id);
-        }
-      }
+      AtomicInteger usages = new AtomicInteger(0);
+      Set<SingleIdentifier> toDelete =
+          isParallel() ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+
+      forEachUnrefinedId(
+          (id, tmpList) -> {
+            TimerWrapper timer = identifierDetectionTimers.get();
+            timer.start();
+            try {
+              if (detector.isUnsafe(tmpList)) {
+                usages.addAndGet(tmpList.size());
+              } else {
+                toDelete.add(id);
+              }
+            } finally {
+              timer.stop();
+            }
+          });
+      falseUnsafes.addAll(toDelete);
       toDelete.forEach(this::removeIdFromCaches);
 
+      unsafeUsages = usages.get();
       refinedIds.forEach((id, list) -> unsafeUsages += list.size());
+      detectionTimer.stop();
 
       if (initialSet == null) {
         assert refinedIds.isEmpty();
@@ -311,14 +381,13 @@ public class UsageContainer {
   public void resetUnrefinedUnsafes() {
     resetTimer.start();
     unsafeUsages = -1;
-    unrefinedIds.values()
-      .forEach(UnrefinedUsagePointSet::reset);
+    forEachUnrefinedId((id, uset) -> uset.reset());
     logger.log(Level.FINE, "Unsafes are reseted");
     resetTimer.stop();
   }
 
   public void removeState(final UsageState pUstate) {
-    unrefinedIds.forEach((id, uset) -> uset.remove(pUstate));
+    forEachUnrefinedId((id, uset) -> uset.remove(pUstate));
     logger.log(Level.ALL, "All unsafes related to key state " + pUstate + " were removed from reached set");
   }
 
@@ -399,7 +468,11 @@ public class UsageContainer {
         .put(failedUsages)
         .put(resetTimer)
         .put(copyTimer)
-        .put(emptyEffectsTimer);
+        .put(emptyEffectsTimer)
+        .put(detectionTimer)
+        .put(
+            "Time for unsafe detection per identifier",
+            identifierDetectionTimer.prettyFormat());
   }
 
   public Set<SingleIdentifier> getProcessedUnsafes() {
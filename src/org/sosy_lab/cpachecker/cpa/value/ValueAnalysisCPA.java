@@ -74,6 +74,7 @@ import org.sosy_lab.cpachecker.cpa.value.symbolic.SymbolicValueAnalysisPrecision
 import org.sosy_lab.cpachecker.cpa.value.symbolic.SymbolicValueAnalysisPrecisionAdjustment.SymbolicStatistics;
 import org.sosy_lab.cpachecker.cpa.value.symbolic.SymbolicValueAssigner;
 import org.sosy_lab.cpachecker.util.StateToFormulaWriter;
+import org.sosy_lab.cpachecker.util.precisionstore.PrecisionStore;
 import org.sosy_lab.cpachecker.util.states.MemoryLocation;
 import org.sosy_lab.cpachecker.util.states.MemoryLocationValueHandler;
 
@@ -113,6 +114,7 @@ public class ValueAnalysisCPA extends AbstractCPA
 
   private VariableTrackingPrecision precision;
   private final ValueAnalysisCPAStatistics statistics;
+  private final PrecisionStore precisionStore;
   private final StateToFormulaWriter writer;
 
   private final Configuration config;
@@ -140,6 +142,7 @@ public class ValueAnalysisCPA extends AbstractCPA
 
     config.inject(this, ValueAnalysisCPA.class);
 
+    precisionStore      = new PrecisionStore(config, logger, cfa, "values");
     precision           = initializePrecision(config, cfa);
     statistics          = new ValueAnalysisCPAStatistics(this, config);
     writer = new StateToFormulaWriter(config, logger, shutdownNotifier, cfa);
@@ -211,6 +214,33 @@ public class ValueAnalysisCPA extends AbstractCPA
     return mapping;
   }
 
+  /**
+   * Read the tracked variables of the last analysis from the persistent precision store. This is
+   * only done for refinable precisions, a static precision tracks all variables anyway. Variables
+   * of function or global scopes are bound to the entry of the function or the program, this is
+   * sufficient for scoped precisions, which do not distinguish locations.
+   */
+  private Multimap<CFANode, MemoryLocation> restoreMappingFromStore(CFA pCfa) {
+    Multimap<CFANode, MemoryLocation> mapping = HashMultimap.create();
+    PrecisionStore.Entries entries = precisionStore.load();
+    entries
+        .getLocalEntries()
+        .forEach((node, entry) -> mapping.put(node, MemoryLocation.valueOf(entry)));
+    entries
+        .getFunctionEntries()
+        .forEach(
+            (function, entry) ->
+                mapping.put(pCfa.getFunctionHead(function), MemoryLocation.valueOf(entry)));
+    for (String entry : entries.getGlobalEntries()) {
+      mapping.put(pCfa.getMainFunction(), MemoryLocation.valueOf(entry));
+    }
+    return mapping;
+  }
+
+  PrecisionStore getPrecisionStore() {
+    return precisionStore;
+  }
+
   private CFANode getDefaultLocation(Map<Integer, CFANode> idToCfaNode) {
     return idToCfaNode.values().iterator().next();
   }
@@ -229,6 +259,11 @@ public class ValueAnalysisCPA extends AbstractCPA
     if (initialPrecisionFile == null && !refineablePrecisionSet) {
       precision = VariableTrackingPrecision.createRefineablePrecision(config, precision);
       refineablePrecisionSet = true;
+
+      // start with the precision of the last analysis, if available
+      if (precisionStore.isEnabled()) {
+        precision = precision.withIncrement(restoreMappingFromStore(cfa));
+      }
     }
   }
 
@@ -302,6 +337,7 @@ public class ValueAnalysisCPA extends AbstractCPA
   @Override
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     pStatsCollection.add(statistics);
+    pStatsCollection.add(precisionStore);
     pStatsCollection.add(precisionAdjustmentStatistics);
     if (symbolicStats != null) {
       pStatsCollection.add(symbolicStats);
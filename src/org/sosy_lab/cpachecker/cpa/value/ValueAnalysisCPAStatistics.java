@@ -23,11 +23,16 @@
  */
 package org.sosy_lab.cpachecker.cpa.value;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import org.sosy_lab.common.configuration.Configuration;
@@ -36,12 +41,14 @@ import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.io.IO;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.defaults.precision.VariableTrackingPrecision;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.precisionstore.PrecisionStore;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatInt;
 import org.sosy_lab.cpachecker.util.statistics.StatKind;
@@ -71,6 +78,17 @@ public class ValueAnalysisCPAStatistics implements Statistics {
     return "ValueAnalysisCPA";
   }
 
+  @Override
+  public Map<String, Object> getSnapshot() {
+    return ImmutableMap.of(
+        "Number of iterations",
+        iterations.sum(),
+        assumptions.getTitle(),
+        assumptions.getValue(),
+        deterministicAssumptions.getTitle(),
+        deterministicAssumptions.getValue());
+  }
+
   @Override
   public void printStatistics(PrintStream out, Result result, UnmodifiableReachedSet reached) {
     StatInt numberOfVariables = new StatInt(StatKind.AVG, "Number of variables per state");
@@ -98,6 +116,13 @@ public class ValueAnalysisCPAStatistics implements Statistics {
         .put("Level of Determinism", getCurrentLevelOfDeterminism() + "%");
   }
 
+  @Override
+  public void writeOutputFiles(Result pResult, UnmodifiableReachedSet pReached) {
+    if (cpa.getPrecisionStore().isStoringEnabled()) {
+      storePrecision(pReached);
+    }
+  }
+
   /**
    * This method exports the precision to file.
    *
@@ -113,6 +138,44 @@ public class ValueAnalysisCPAStatistics implements Statistics {
     }
   }
 
+  /**
+   * This method writes the precision into the persistent precision store. The precision is
+   * converted from its serialization, which is also used for exporting it to a file.
+   *
+   * @param reached the set of reached states.
+   */
+  private void storePrecision(UnmodifiableReachedSet reached) {
+    VariableTrackingPrecision consolidatedPrecision =
+        VariableTrackingPrecision.joinVariableTrackingPrecisionsInReachedSet(reached);
+    StringWriter serializedPrecision = new StringWriter();
+    try {
+      consolidatedPrecision.serialize(serializedPrecision);
+    } catch (IOException e) {
+      throw new AssertionError(e); // StringWriter does not throw
+    }
+
+    Map<String, CFANode> nodes = Maps.uniqueIndex(cpa.getCFA().getAllNodes(), CFANode::toString);
+    PrecisionStore.Entries entries = new PrecisionStore.Entries();
+    CFANode location = null;
+    String function = null;
+    for (String line :
+        Splitter.on('\n').omitEmptyStrings().split(serializedPrecision.toString())) {
+      if (line.startsWith("#")) {
+        continue;
+      } else if (line.endsWith(":")) {
+        String scope = line.substring(0, line.length() - 1);
+        location = nodes.get(scope);
+        function = location == null && !scope.equals("*") ? scope : null;
+      } else if (location != null) {
+        entries.addLocal(location, line);
+      } else if (function != null) {
+        entries.addFunction(function, line);
+      } else {
+        entries.addGlobal(line);
+      }
+    }
+    cpa.getPrecisionStore().store(entries);
+  }
 
   void incrementIterations() {
     iterations.increment();
@@ -73,8 +73,12 @@ public class ValueAnalysisGlobalRefiner extends ValueAnalysisRefiner {
     final Configuration config = valueAnalysisCpa.getConfiguration();
     final CFA cfa = valueAnalysisCpa.getCFA();
 
+    final StrongestPostOperatorFactory strongestPostOpFactory =
+        () ->
+            new ValueAnalysisStrongestPostOperator(
+                logger, Configuration.defaultConfiguration(), cfa);
     final StrongestPostOperator<ValueAnalysisState> strongestPostOp =
-        new ValueAnalysisStrongestPostOperator(logger, Configuration.defaultConfiguration(), cfa);
+        strongestPostOpFactory.create();
 
     final ValueAnalysisFeasibilityChecker checker =
         new ValueAnalysisFeasibilityChecker(strongestPostOp, logger, cfa, config);
@@ -82,6 +86,7 @@ public class ValueAnalysisGlobalRefiner extends ValueAnalysisRefiner {
     return new ValueAnalysisGlobalRefiner(
         checker,
         strongestPostOp,
+        strongestPostOpFactory,
         new ValueAnalysisPrefixProvider(
             logger, cfa, config, valueAnalysisCpa.getShutdownNotifier()),
         new PrefixSelector(cfa.getVarClassification(), cfa.getLoopStructure()),
@@ -94,6 +99,7 @@ public class ValueAnalysisGlobalRefiner extends ValueAnalysisRefiner {
   ValueAnalysisGlobalRefiner(
       final ValueAnalysisFeasibilityChecker pFeasibilityChecker,
       final StrongestPostOperator<ValueAnalysisState> pStrongestPostOperator,
+      final StrongestPostOperatorFactory pStrongestPostOperatorFactory,
       final GenericPrefixProvider<ValueAnalysisState> pPrefixProvider,
       final PrefixSelector pPrefixSelector,
       final Configuration pConfig,
@@ -103,6 +109,7 @@ public class ValueAnalysisGlobalRefiner extends ValueAnalysisRefiner {
 
     super(pFeasibilityChecker,
         pStrongestPostOperator,
+        pStrongestPostOperatorFactory,
         new SortingPathExtractor(pPrefixProvider,
             pPrefixSelector,
             pLogger,
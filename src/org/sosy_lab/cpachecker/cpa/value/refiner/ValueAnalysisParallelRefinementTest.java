@@ -0,0 +1,108 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value.refiner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Splitter;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.core.defaults.precision.VariableTrackingPrecision;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+public class ValueAnalysisParallelRefinementTest {
+
+  private static final String CONFIG_FILE = "config/valueAnalysis-Cegar-GlobalRefiner.properties";
+
+  private static final String PROGRAM =
+      "test/programs/simple/explicit/independentTargets_true-unreach-call.c";
+
+  private static final Pattern PARALLEL_PATHS_PATTERN =
+      Pattern.compile("^Number of error paths interpolated in parallel:\\s+(\\d+)");
+
+  private static TestResults verify(int pThreads, int pMaxRefinements) throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .loadFromFile(CONFIG_FILE)
+            .setOption("specification", "config/specification/sv-comp-reachability.spc")
+            .setOption("cpa.value.refinement.interpolation.threads", Integer.toString(pThreads))
+            .setOption("cegar.maxIterations", Integer.toString(pMaxRefinements))
+            .build();
+    return CPATestRunner.run(config, PROGRAM);
+  }
+
+  private static VariableTrackingPrecision getPrecision(TestResults pResults) {
+    VariableTrackingPrecision precision =
+        VariableTrackingPrecision.joinVariableTrackingPrecisionsInReachedSet(
+            pResults.getCheckerResult().getReached());
+    assertThat(precision).isNotNull();
+    return precision;
+  }
+
+  private static int getParallelPaths(TestResults pResults) {
+    ByteArrayOutputStream statistics = new ByteArrayOutputStream();
+    @SuppressWarnings("checkstyle:IllegalInstantiation") // ok for statistics
+    PrintStream out = new PrintStream(statistics, true, StandardCharsets.UTF_8);
+    pResults.getCheckerResult().printStatistics(out);
+    for (String line : Splitter.on('\n').split(statistics.toString(StandardCharsets.UTF_8))) {
+      Matcher matcher = PARALLEL_PATHS_PATTERN.matcher(line.trim());
+      if (matcher.find()) {
+        return Integer.parseInt(matcher.group(1));
+      }
+    }
+    return 0;
+  }
+
+  @Test
+  public void testSamePrecisionIncrement() throws Exception {
+    // the sequential refiner needs one refinement per target (one for each of a, b, and c),
+    // the parallel refiner interpolates the paths to all three targets in its first refinement
+    TestResults sequential = verify(1, 3);
+    TestResults parallel = verify(3, 1);
+
+    assertThat(getParallelPaths(sequential)).isEqualTo(0);
+    assertThat(getParallelPaths(parallel)).isEqualTo(3);
+    VariableTrackingPrecision sequentialPrecision = getPrecision(sequential);
+    assertThat(sequentialPrecision.isEmpty()).isFalse();
+    assertThat(getPrecision(parallel).tracksTheSameVariablesAs(sequentialPrecision)).isTrue();
+  }
+
+  @Test
+  public void testSameResult() throws Exception {
+    TestResults sequential = verify(1, -1);
+    TestResults parallel = verify(3, -1);
+
+    sequential.assertIsSafe();
+    parallel.assertIsSafe();
+    assertThat(getPrecision(parallel).tracksTheSameVariablesAs(getPrecision(sequential)))
+        .isTrue();
+  }
+}
@@ -42,6 +42,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.logging.Level;
@@ -78,9 +79,11 @@ import org.sosy_lab.cpachecker.util.CPAs;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.Precisions;
 import org.sosy_lab.cpachecker.util.refinement.GenericPrefixProvider;
+import org.sosy_lab.cpachecker.util.refinement.FeasibilityChecker;
 import org.sosy_lab.cpachecker.util.refinement.GenericRefiner;
 import org.sosy_lab.cpachecker.util.refinement.InterpolationTree;
 import org.sosy_lab.cpachecker.util.refinement.PathExtractor;
+import org.sosy_lab.cpachecker.util.refinement.PathInterpolator;
 import org.sosy_lab.cpachecker.util.refinement.StrongestPostOperator;
 import org.sosy_lab.cpachecker.util.states.MemoryLocation;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
@@ -137,6 +140,12 @@ public class ValueAnalysisRefiner
 
   private final ShutdownNotifier shutdownNotifier;
 
+  private final Configuration config;
+
+  private final CFA cfa;
+
+  private final StrongestPostOperatorFactory strongestPostOperatorFactory;
+
   // Statistics
   private final StatCounter rootRelocations = new StatCounter("Number of root relocations");
   private final StatCounter repeatedRefinements = new StatCounter("Number of similar, repeated refinements");
@@ -146,6 +155,15 @@ public class ValueAnalysisRefiner
     return AbstractARGBasedRefiner.forARGBasedRefiner(create0(pCpa), pCpa);
   }
 
+  /**
+   * Creates the strongest-post operators of a refiner. The refiner itself and each worker for
+   * parallel interpolation get their own operator, because the operators are not thread-safe.
+   */
+  @FunctionalInterface
+  interface StrongestPostOperatorFactory {
+    StrongestPostOperator<ValueAnalysisState> create() throws InvalidConfigurationException;
+  }
+
   public static ARGBasedRefiner create0(final ConfigurableProgramAnalysis pCpa)
       throws InvalidConfigurationException {
     final ValueAnalysisCPA valueAnalysisCpa =
@@ -157,8 +175,10 @@ public class ValueAnalysisRefiner
     final Configuration config = valueAnalysisCpa.getConfiguration();
     final CFA cfa = valueAnalysisCpa.getCFA();
 
+    final StrongestPostOperatorFactory strongestPostOpFactory =
+        () -> new ValueAnalysisStrongestPostOperator(logger, config, cfa);
     final StrongestPostOperator<ValueAnalysisState> strongestPostOp =
-        new ValueAnalysisStrongestPostOperator(logger, config, cfa);
+        strongestPostOpFactory.create();
 
     final ValueAnalysisFeasibilityChecker checker =
         new ValueAnalysisFeasibilityChecker(strongestPostOp, logger, cfa, config);
@@ -169,6 +189,7 @@ public class ValueAnalysisRefiner
 
     return new ValueAnalysisRefiner(checker,
         strongestPostOp,
+        strongestPostOpFactory,
         new PathExtractor(logger, config),
         prefixProvider,
         config,
@@ -180,6 +201,7 @@ public class ValueAnalysisRefiner
   ValueAnalysisRefiner(
       final ValueAnalysisFeasibilityChecker pFeasibilityChecker,
       final StrongestPostOperator<ValueAnalysisState> pStrongestPostOperator,
+      final StrongestPostOperatorFactory pStrongestPostOperatorFactory,
       final PathExtractor pPathExtractor,
       final GenericPrefixProvider<ValueAnalysisState> pPrefixProvider,
       final Configuration pConfig, final LogManager pLogger,
@@ -201,6 +223,30 @@ public class ValueAnalysisRefiner
     checker = pFeasibilityChecker;
     concreteErrorPathAllocator = new ValueAnalysisConcreteErrorPathAllocator(pConfig, logger, pCfa.getMachineModel());
     shutdownNotifier = pShutdownNotifier;
+    config = pConfig;
+    cfa = pCfa;
+    strongestPostOperatorFactory = pStrongestPostOperatorFactory;
+  }
+
+  @Override
+  protected Optional<
+          Pair<FeasibilityChecker<ValueAnalysisState>, PathInterpolator<ValueAnalysisInterpolant>>>
+      createIndependentInterpolator() throws InvalidConfigurationException {
+    // the transfer relation of the strongest-post operator is not thread-safe
+    final StrongestPostOperator<ValueAnalysisState> strongestPostOp =
+        strongestPostOperatorFactory.create();
+    final ValueAnalysisFeasibilityChecker feasibilityChecker =
+        new ValueAnalysisFeasibilityChecker(strongestPostOp, logger, cfa, config);
+    final PathInterpolator<ValueAnalysisInterpolant> interpolator =
+        new ValueAnalysisPathInterpolator(
+            feasibilityChecker,
+            strongestPostOp,
+            new ValueAnalysisPrefixProvider(logger, cfa, config, shutdownNotifier),
+            config,
+            logger,
+            shutdownNotifier,
+            cfa);
+    return Optional.of(Pair.of(feasibilityChecker, interpolator));
   }
 
   @Override
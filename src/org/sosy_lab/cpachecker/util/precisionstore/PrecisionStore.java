@@ -0,0 +1,377 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.precisionstore;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.io.IO;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * A persistent and versioned store for precisions. The precision of an analysis is loaded from the
+ * latest version in the input store at startup and written as a new version into the output store
+ * after the analysis. Both stores are usually the same directory.
+ * Location-specific entries are keyed by {@link StableLocationKeys}, such that a precision can be
+ * reused for a changed version of the program: entries for unchanged locations are reused,
+ * entries for changed or removed locations are invalidated.
+ *
+ * <p>The store does not interpret the entries, every analysis serializes its precision into
+ * single-line strings. There is one file per analysis (component) and version.
+ */
+@Options(prefix = "precisionStore")
+public class PrecisionStore implements Statistics {
+
+  @Option(
+    secure = true,
+    description =
+        "directory of a persistent store for precisions from which the precision is loaded at"
+            + " startup, such that a precision of an earlier version of the program is reused"
+  )
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path inputDirectory = null;
+
+  @Option(
+    secure = true,
+    description =
+        "directory of a persistent store for precisions into which the precision is written as a"
+            + " new version after the analysis (relative paths are resolved against the output"
+            + " directory, so use an absolute path to keep the store across runs)"
+  )
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private @Nullable Path outputDirectory = null;
+
+  @Option(secure = true, description = "number of versions that are kept in the precision store")
+  @IntegerOption(min = 1)
+  private int maxVersions = 5;
+
+  private static final String FORMAT_HEADER = "# CPAchecker precision store, format 1";
+  private static final String LOCATION_SCOPE = "[location ";
+  private static final String FUNCTION_SCOPE = "[function ";
+  private static final String GLOBAL_SCOPE = "[global]";
+
+  /** The entries of a precision, separated by their scope. */
+  public static class Entries {
+
+    private final SetMultimap<CFANode, String> localEntries = LinkedHashMultimap.create();
+    private final SetMultimap<String, String> functionEntries = LinkedHashMultimap.create();
+    private final Set<String> globalEntries = new LinkedHashSet<>();
+
+    public void addLocal(CFANode pNode, String pEntry) {
+      localEntries.put(pNode, pEntry);
+    }
+
+    public void addFunction(String pFunctionName, String pEntry) {
+      functionEntries.put(pFunctionName, pEntry);
+    }
+
+    public void addGlobal(String pEntry) {
+      globalEntries.add(pEntry);
+    }
+
+    public SetMultimap<CFANode, String> getLocalEntries() {
+      return localEntries;
+    }
+
+    public SetMultimap<String, String> getFunctionEntries() {
+      return functionEntries;
+    }
+
+    public Set<String> getGlobalEntries() {
+      return globalEntries;
+    }
+
+    public boolean isEmpty() {
+      return localEntries.isEmpty() && functionEntries.isEmpty() && globalEntries.isEmpty();
+    }
+  }
+
+  private final LogManager logger;
+  private final CFA cfa;
+  private final String fileName;
+  private final String component;
+
+  private @Nullable StableLocationKeys locationKeys = null;
+
+  /** the version that is written by this run. */
+  private final int newVersion;
+
+  /** the version that was loaded, if any. */
+  private OptionalInt loadedVersion = OptionalInt.empty();
+
+  private final StatCounter reusedEntries = new StatCounter("Reused entries");
+  private final StatCounter invalidatedEntries = new StatCounter("Invalidated entries");
+  private final StatCounter storedEntries = new StatCounter("Stored entries");
+
+  /**
+   * Create a store for the precision of one analysis.
+   *
+   * @param pComponent the name of the analysis, it is used as file name within the store.
+   */
+  public PrecisionStore(Configuration pConfig, LogManager pLogger, CFA pCfa, String pComponent)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+    cfa = pCfa;
+    component = pComponent;
+    fileName = pComponent + ".txt";
+
+    int latestVersion = 0;
+    if (isStoringEnabled()) {
+      try {
+        latestVersion = getVersions(outputDirectory, true).stream().findFirst().orElse(0);
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not access precision store");
+      }
+    }
+    newVersion = latestVersion + 1;
+  }
+
+  public boolean isLoadingEnabled() {
+    return inputDirectory != null;
+  }
+
+  public boolean isStoringEnabled() {
+    return outputDirectory != null;
+  }
+
+  private StableLocationKeys getLocationKeys() {
+    if (locationKeys == null) {
+      locationKeys = new StableLocationKeys(cfa);
+    }
+    return locationKeys;
+  }
+
+  /**
+   * Load the entries of the latest version in the store that contains a precision of this
+   * component. Entries for locations or functions that do not exist in the current program are
+   * invalidated and not returned.
+   */
+  public Entries load() {
+    Entries result = new Entries();
+    if (!isLoadingEnabled()) {
+      return result;
+    }
+
+    List<String> lines = null;
+    try {
+      for (int version : getVersions(inputDirectory, true)) {
+        Path file = inputDirectory.resolve(Integer.toString(version)).resolve(fileName);
+        if (Files.isReadable(file)) {
+          lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+          if (!lines.isEmpty() && lines.get(0).equals(FORMAT_HEADER)) {
+            loadedVersion = OptionalInt.of(version);
+            break;
+          }
+          logger.log(Level.INFO, "Ignoring precision store file with unknown format", file);
+          lines = null;
+        }
+      }
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not read precision from store");
+      return result;
+    }
+    if (lines == null) {
+      logger.log(Level.INFO, "Precision store contains no precision for", component);
+      return result;
+    }
+
+    Collection<CFANode> currentNodes = null;
+    String currentFunction = null;
+    boolean currentGlobal = false;
+    for (String line : lines.subList(1, lines.size())) {
+      if (line.isEmpty()) {
+        continue;
+      } else if (line.startsWith(LOCATION_SCOPE) && line.endsWith("]")) {
+        String key = line.substring(LOCATION_SCOPE.length(), line.length() - 1);
+        currentNodes = getLocationKeys().getNodes(key);
+        currentFunction = null;
+        currentGlobal = false;
+      } else if (line.startsWith(FUNCTION_SCOPE) && line.endsWith("]")) {
+        String function = line.substring(FUNCTION_SCOPE.length(), line.length() - 1);
+        currentNodes = null;
+        currentFunction = cfa.getFunctionHead(function) == null ? null : function;
+        currentGlobal = false;
+      } else if (line.equals(GLOBAL_SCOPE)) {
+        currentNodes = null;
+        currentFunction = null;
+        currentGlobal = true;
+      } else if (currentNodes != null && !currentNodes.isEmpty()) {
+        reusedEntries.inc();
+        for (CFANode node : currentNodes) {
+          result.addLocal(node, line);
+        }
+      } else if (currentFunction != null) {
+        reusedEntries.inc();
+        result.addFunction(currentFunction, line);
+      } else if (currentGlobal) {
+        reusedEntries.inc();
+        result.addGlobal(line);
+      } else {
+        invalidatedEntries.inc();
+      }
+    }
+
+    logger.log(
+        Level.INFO,
+        "Loaded precision for",
+        component,
+        "from version",
+        loadedVersion.getAsInt(),
+        "of the precision store,",
+        reusedEntries.getValue(),
+        "entries reused and",
+        invalidatedEntries.getValue(),
+        "invalidated.");
+    return result;
+  }
+
+  /**
+   * Write the given entries as a new version into the store. Line breaks within entries are
+   * replaced by spaces. Old versions are removed from the store.
+   */
+  public void store(Entries pEntries) {
+    if (!isStoringEnabled()) {
+      return;
+    }
+
+    try {
+      // all components of one analysis write into the same new version
+      Path file = outputDirectory.resolve(Integer.toString(newVersion)).resolve(fileName);
+
+      try (Writer w = IO.openOutputFile(file, StandardCharsets.UTF_8)) {
+        w.append(FORMAT_HEADER).append('\n');
+        for (Entry<CFANode, Collection<String>> scope :
+            pEntries.getLocalEntries().asMap().entrySet()) {
+          w.append(LOCATION_SCOPE).append(getLocationKeys().getKey(scope.getKey())).append("]\n");
+          writeEntries(w, scope.getValue());
+        }
+        for (Entry<String, Collection<String>> scope :
+            pEntries.getFunctionEntries().asMap().entrySet()) {
+          w.append(FUNCTION_SCOPE).append(scope.getKey()).append("]\n");
+          writeEntries(w, scope.getValue());
+        }
+        if (!pEntries.getGlobalEntries().isEmpty()) {
+          w.append(GLOBAL_SCOPE).append('\n');
+          writeEntries(w, pEntries.getGlobalEntries());
+        }
+      }
+
+      for (int oldVersion : getVersions(outputDirectory, false)) {
+        if (oldVersion <= newVersion - maxVersions) {
+          MoreFiles.deleteRecursively(
+              outputDirectory.resolve(Integer.toString(oldVersion)),
+              RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+      }
+      logger.log(
+          Level.INFO,
+          "Stored",
+          storedEntries.getValue(),
+          "entries of the precision for",
+          component,
+          "as version",
+          newVersion,
+          "of the precision store.");
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write precision to store");
+    }
+  }
+
+  private void writeEntries(Writer pWriter, Collection<String> pEntries) throws IOException {
+    for (String entry : pEntries) {
+      pWriter.append(entry.replace('\n', ' ').replace('\r', ' ')).append('\n');
+      storedEntries.inc();
+    }
+  }
+
+  /**
+   * Returns the numbers of all versions in the given store, sorted ascending or descending.
+   */
+  private static List<Integer> getVersions(Path pDirectory, boolean pDescending)
+      throws IOException {
+    List<Integer> versions = new ArrayList<>();
+    if (!Files.isDirectory(pDirectory)) {
+      return versions;
+    }
+    try (DirectoryStream<Path> content = Files.newDirectoryStream(pDirectory)) {
+      for (Path path : content) {
+        String name = path.getFileName().toString();
+        if (Files.isDirectory(path) && name.matches("[1-9][0-9]*")) {
+          versions.add(Integer.parseInt(name));
+        }
+      }
+    }
+    versions.sort(pDescending ? (a, b) -> Integer.compare(b, a) : Integer::compare);
+    return versions;
+  }
+
+  /**
+   * Prints the statistics of loading the precision. The precision is stored only when the output
+   * files are written after the statistics are printed, so the number of stored entries is logged
+   * instead.
+   */
+  @Override
+  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+    StatisticsWriter.writingStatisticsTo(pOut)
+        .put("Loaded version", loadedVersion.isPresent() ? loadedVersion.getAsInt() : "none")
+        .put(reusedEntries)
+        .put(invalidatedEntries);
+  }
+
+  @Override
+  public @Nullable String getName() {
+    return isLoadingEnabled() ? "Precision store (" + component + ")" : null;
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.precisionstore;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.converters.FileTypeConverter;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.precisionstore.PrecisionStore.Entries;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class PrecisionStoreTest {
+
+  private static final String[] PROGRAM = {
+    "int g;",
+    "void f() {",
+    "  int x;",
+    "  x = 1;",
+    "  g = x;",
+    "}",
+    "int main() {",
+    "  int y;",
+    "  y = 2;",
+    "  f();",
+    "  return 0;",
+    "}"
+  };
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final LogManager logger = LogManager.createTestLogManager();
+  private Path storeDirectory;
+
+  @Before
+  public void setUp() {
+    storeDirectory = tempFolder.getRoot().toPath().resolve("store");
+  }
+
+  private PrecisionStore createStore(CFA pCfa, int pMaxVersions)
+      throws InvalidConfigurationException {
+    return createStore(pCfa, pMaxVersions, storeDirectory, storeDirectory);
+  }
+
+  private PrecisionStore createStore(
+      CFA pCfa, int pMaxVersions, Path pInputDirectory, Path pOutputDirectory)
+      throws InvalidConfigurationException {
+    FileTypeConverter fileTypeConverter =
+        FileTypeConverter.create(
+            Configuration.builder()
+                .setOption("rootDirectory", tempFolder.getRoot().toString())
+                .build());
+    Configuration config =
+        Configuration.builder()
+            .addConverter(FileOption.class, fileTypeConverter)
+            .setOption("precisionStore.inputDirectory", pInputDirectory.toAbsolutePath().toString())
+            .setOption(
+                "precisionStore.outputDirectory", pOutputDirectory.toAbsolutePath().toString())
+            .setOption("precisionStore.maxVersions", Integer.toString(pMaxVersions))
+            .build();
+    return new PrecisionStore(config, logger, pCfa, "test");
+  }
+
+  private static CFA makeCFA(String... pLines) throws Exception {
+    return TestDataTools.makeCFA(pLines);
+  }
+
+  /** Returns the unique node in front of the statement with the given code. */
+  private static CFANode nodeBefore(CFA pCfa, String pStatement) {
+    return FluentIterable.from(pCfa.getAllNodes())
+        .filter(
+            n ->
+                CFAUtils.leavingEdges(n)
+                    .transform(CFAEdge::getRawStatement)
+                    .contains(pStatement))
+        .toList()
+        .get(0);
+  }
+
+  private static Entries createEntries(CFA pCfa) {
+    Entries entries = new Entries();
+    entries.addLocal(nodeBefore(pCfa, "x = 1;"), "local x");
+    entries.addLocal(nodeBefore(pCfa, "y = 2;"), "local y");
+    entries.addFunction("f", "function f");
+    entries.addFunction("removed", "function removed");
+    entries.addGlobal("global");
+    return entries;
+  }
+
+  @Test
+  public void testStoreAndReload() throws Exception {
+    CFA cfa = makeCFA(PROGRAM);
+    createStore(cfa, 5).store(createEntries(cfa));
+
+    Entries loaded = createStore(cfa, 5).load();
+
+    assertThat(loaded.getLocalEntries().asMap())
+        .containsExactly(
+            nodeBefore(cfa, "x = 1;"), ImmutableSet.of("local x"),
+            nodeBefore(cfa, "y = 2;"), ImmutableSet.of("local y"));
+    // entries of functions that do not exist in the program are invalidated
+    assertThat(loaded.getFunctionEntries().asMap()).containsExactly("f", ImmutableSet.of("function f"));
+    assertThat(loaded.getGlobalEntries()).containsExactly("global");
+  }
+
+  @Test
+  public void testEmptyStore() throws Exception {
+    Entries loaded = createStore(makeCFA(PROGRAM), 5).load();
+    assertThat(loaded.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void testVersions() throws Exception {
+    CFA cfa = makeCFA(PROGRAM);
+    createStore(cfa, 2).store(createEntries(cfa));
+    assertThat(Files.isDirectory(storeDirectory.resolve("1"))).isTrue();
+
+    Entries second = new Entries();
+    second.addGlobal("second");
+    createStore(cfa, 2).store(second);
+    createStore(cfa, 2).store(second);
+
+    // only the two latest versions are kept, and the latest one is loaded
+    assertThat(Files.exists(storeDirectory.resolve("1"))).isFalse();
+    assertThat(Files.isDirectory(storeDirectory.resolve("2"))).isTrue();
+    assertThat(Files.isDirectory(storeDirectory.resolve("3"))).isTrue();
+    assertThat(createStore(cfa, 2).load().getGlobalEntries()).containsExactly("second");
+  }
+
+  @Test
+  public void testSeparateInputAndOutput() throws Exception {
+    CFA cfa = makeCFA(PROGRAM);
+    createStore(cfa, 5).store(createEntries(cfa));
+    Path otherDirectory = tempFolder.getRoot().toPath().resolve("other");
+
+    PrecisionStore store = createStore(cfa, 5, storeDirectory, otherDirectory);
+    assertThat(store.load().getGlobalEntries()).containsExactly("global");
+    Entries second = new Entries();
+    second.addGlobal("second");
+    store.store(second);
+
+    // the input store is not modified, and the output store starts with its own first version
+    assertThat(Files.exists(storeDirectory.resolve("2"))).isFalse();
+    assertThat(Files.isDirectory(otherDirectory.resolve("1"))).isTrue();
+    assertThat(createStore(cfa, 5, otherDirectory, otherDirectory).load().getGlobalEntries())
+        .containsExactly("second");
+  }
+
+  @Test
+  public void testUnknownFormatIsIgnored() throws Exception {
+    CFA cfa = makeCFA(PROGRAM);
+    createStore(cfa, 5).store(createEntries(cfa));
+
+    // a newer version written in a format that this version does not understand
+    writeFile(storeDirectory.resolve("2").resolve("test.txt"), "# format 2\n[global]\nnewer\n");
+
+    Entries loaded = createStore(cfa, 5).load();
+    assertThat(loaded.getGlobalEntries()).containsExactly("global");
+  }
+
+  @Test
+  public void testOnlyUnknownFormat() throws Exception {
+    writeFile(storeDirectory.resolve("1").resolve("test.txt"), "# format 2\n[global]\nnewer\n");
+
+    assertThat(createStore(makeCFA(PROGRAM), 5).load().isEmpty()).isTrue();
+  }
+
+  @Test
+  public void testKeysAreStableAcrossCFARebuilds() throws Exception {
+    CFA cfa1 = makeCFA(PROGRAM);
+    CFA cfa2 = makeCFA(PROGRAM);
+    StableLocationKeys keys1 = new StableLocationKeys(cfa1);
+    StableLocationKeys keys2 = new StableLocationKeys(cfa2);
+
+    for (String statement : new String[] {"x = 1;", "g = x;", "y = 2;", "return 0;"}) {
+      String key = keys1.getKey(nodeBefore(cfa1, statement));
+      assertThat(keys2.getKey(nodeBefore(cfa2, statement))).isEqualTo(key);
+      assertThat(keys2.getNodes(key)).contains(nodeBefore(cfa2, statement));
+    }
+  }
+
+  @Test
+  public void testReloadForChangedProgram() throws Exception {
+    CFA cfa = makeCFA(PROGRAM);
+    createStore(cfa, 5).store(createEntries(cfa));
+
+    // change the code of main, but not the code of f
+    String[] changedProgram = PROGRAM.clone();
+    changedProgram[8] = "  y = 3;";
+    CFA changedCfa = makeCFA(changedProgram);
+
+    Entries loaded = createStore(changedCfa, 5).load();
+    assertThat(loaded.getLocalEntries().asMap())
+        .containsExactly(nodeBefore(changedCfa, "x = 1;"), ImmutableSet.of("local x"));
+    assertThat(loaded.getFunctionEntries().keySet()).containsExactly("f");
+  }
+
+  private static void writeFile(Path pFile, String pContent) throws IOException {
+    Files.createDirectories(pFile.getParent());
+    Files.write(pFile, pContent.getBytes(StandardCharsets.UTF_8));
+  }
+}
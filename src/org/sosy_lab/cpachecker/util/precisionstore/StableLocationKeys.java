@@ -0,0 +1,103 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.precisionstore;
+
+import static com.google.common.collect.FluentIterable.from;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+
+/**
+ * Keys for CFA nodes that do not depend on node numbers and thus survive small changes of the
+ * program. A key consists of the function name, the source line relative to the start of the
+ * function, and a hash of the source code of the adjacent edges. Changing the code at a location
+ * changes its key, changing code elsewhere (even in the same function, as long as no lines are
+ * inserted above it) does not.
+ *
+ * <p>Keys are not necessarily unique, e.g., for several nodes without code at the same line. Such
+ * nodes share their key.
+ */
+final class StableLocationKeys {
+
+  private final ImmutableMap<CFANode, String> keys;
+  private final ImmutableSetMultimap<String, CFANode> nodes;
+
+  StableLocationKeys(CFA pCfa) {
+    ImmutableMap.Builder<CFANode, String> keyBuilder = ImmutableMap.builder();
+    ImmutableSetMultimap.Builder<String, CFANode> nodeBuilder = ImmutableSetMultimap.builder();
+    for (CFANode node : pCfa.getAllNodes()) {
+      FunctionEntryNode entry = pCfa.getFunctionHead(node.getFunctionName());
+      int functionStart = entry == null ? 0 : entry.getFileLocation().getStartingLineNumber();
+      String key = computeKey(node, functionStart);
+      keyBuilder.put(node, key);
+      nodeBuilder.put(key, node);
+    }
+    keys = keyBuilder.build();
+    nodes = nodeBuilder.build();
+  }
+
+  private static String computeKey(CFANode pNode, int pFunctionStart) {
+    int line =
+        CFAUtils.allLeavingEdges(pNode)
+            .append(CFAUtils.allEnteringEdges(pNode))
+            .transform(e -> e.getFileLocation().getStartingLineNumber())
+            .filter(l -> l > 0)
+            .first()
+            .or(pFunctionStart);
+
+    Hasher hasher = Hashing.murmur3_32().newHasher();
+    hashEdges(hasher, CFAUtils.allLeavingEdges(pNode));
+    hasher.putChar('|');
+    hashEdges(hasher, CFAUtils.allEnteringEdges(pNode));
+
+    return pNode.getFunctionName() + ":" + (line - pFunctionStart) + ":" + hasher.hash();
+  }
+
+  private static void hashEdges(Hasher pHasher, Iterable<CFAEdge> pEdges) {
+    // edge order depends on the construction of the CFA, so sort the code first
+    for (String code :
+        from(pEdges).transform(e -> e.getEdgeType() + " " + e.getRawStatement()).toSortedList(
+            String::compareTo)) {
+      pHasher.putString(code, StandardCharsets.UTF_8).putChar('\n');
+    }
+  }
+
+  String getKey(CFANode pNode) {
+    return keys.get(pNode);
+  }
+
+  /** Returns all nodes of the current CFA with the given key, or an empty set. */
+  ImmutableSet<CFANode> getNodes(String pKey) {
+    return nodes.get(pKey);
+  }
+}
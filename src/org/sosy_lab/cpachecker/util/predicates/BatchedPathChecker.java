@@ -0,0 +1,287 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Checks the feasibility of several ARG paths with a single SMT query stack.
+ *
+ * <p>Paths to different target states often share long prefixes. Instead of building and solving
+ * the formula of each path from scratch, the paths are organized in a prefix tree, which is
+ * traversed depth-first with one incremental prover: the formula of each step (from one ARG state
+ * of a path to the next one) is built and pushed only once for all paths that share it, and popped
+ * after all these paths were checked. The solver is queried at the end of each path and at each
+ * branching of the tree, such that all paths below an infeasible prefix are infeasible without
+ * further queries. If only one feasible path is needed, the traversal can stop at the first
+ * feasible path, such that the remaining paths are not solved at all.
+ */
+public final class BatchedPathChecker implements Statistics {
+
+  /**
+   * Builds the formula for a single step of a path. The returned formula has to contain only the
+   * constraints of this step, with SSA indices continuing the given SSA map.
+   */
+  @FunctionalInterface
+  public interface StepFormulaBuilder {
+    PathFormula buildStepFormula(ARGState pFrom, ARGState pTo, SSAMap pSsa, PointerTargetSet pPts)
+        throws CPATransferException, InterruptedException;
+  }
+
+  /** A node of the prefix tree, i.e., a position that is reached by at least one path. */
+  private static final class PrefixNode {
+    private final ARGState state;
+    private final Map<ARGState, PrefixNode> children = new LinkedHashMap<>();
+
+    /** Indices of the paths that end at this node. */
+    private final List<Integer> endingPaths = new ArrayList<>(1);
+
+    private PrefixNode(ARGState pState) {
+      state = pState;
+    }
+
+    /** Whether the solver needs to be queried after the step to this node was asserted. */
+    private boolean needsCheck() {
+      return !endingPaths.isEmpty() || children.size() > 1;
+    }
+  }
+
+  /** A node on the current path of the depth-first traversal, with its SSA map and PTS. */
+  private static final class Frame {
+    private final PrefixNode node;
+    private final SSAMap ssa;
+    private final PointerTargetSet pts;
+    private final Iterator<PrefixNode> remainingChildren;
+
+    private Frame(PrefixNode pNode, SSAMap pSsa, PointerTargetSet pPts) {
+      node = pNode;
+      ssa = pSsa;
+      pts = pPts;
+      remainingChildren = pNode.children.values().iterator();
+    }
+  }
+
+  private final Supplier<ProverEnvironment> proverFactory;
+  private final ShutdownNotifier shutdownNotifier;
+  private final StepFormulaBuilder stepFormulaBuilder;
+
+  private final StatCounter checkedPaths = new StatCounter("Number of checked paths");
+  private final StatCounter feasiblePaths = new StatCounter("Number of feasible paths");
+  private final StatInt pathSteps = new StatInt(StatKind.SUM, "Number of steps of checked paths");
+  private final StatCounter assertedSteps = new StatCounter("Number of asserted step formulas");
+  private final StatCounter satChecks = new StatCounter("Number of satisfiability checks");
+  private final StatTimer formulaTime = new StatTimer("Time for building step formulas");
+  private final StatTimer solverTime = new StatTimer("Time for satisfiability checks");
+
+  public BatchedPathChecker(
+      Solver pSolver, ShutdownNotifier pShutdownNotifier, StepFormulaBuilder pStepFormulaBuilder) {
+    this(pSolver::newProverEnvironment, pShutdownNotifier, pStepFormulaBuilder);
+  }
+
+  @VisibleForTesting
+  BatchedPathChecker(
+      Supplier<ProverEnvironment> pProverFactory,
+      ShutdownNotifier pShutdownNotifier,
+      StepFormulaBuilder pStepFormulaBuilder) {
+    proverFactory = pProverFactory;
+    shutdownNotifier = pShutdownNotifier;
+    stepFormulaBuilder = pStepFormulaBuilder;
+  }
+
+  /**
+   * Check the feasibility of the given paths. All paths start at the given root state, i.e., the
+   * first step of each path is the one from the root to its first state.
+   *
+   * @param pRoot the common root of all paths
+   * @param pSsa the SSA map to start the first step with
+   * @param pPts the pointer-target set to start the first step with
+   * @param pPaths the paths to check, each given as its list of ARG states
+   * @return for each path (in the given order) whether it is feasible
+   */
+  public ImmutableList<Boolean> checkPaths(
+      ARGState pRoot, SSAMap pSsa, PointerTargetSet pPts, List<List<ARGState>> pPaths)
+      throws CPATransferException, SolverException, InterruptedException {
+    return ImmutableList.copyOf(checkPaths(pRoot, pSsa, pPts, pPaths, false));
+  }
+
+  /**
+   * Check the feasibility of the given paths like {@link #checkPaths(ARGState, SSAMap,
+   * PointerTargetSet, List)}, but optionally stop as soon as a feasible path is found. The paths
+   * are checked in the order of a depth-first traversal of their prefix tree, so the feasible path
+   * that is found first is not necessarily the first feasible path of the given list.
+   *
+   * @param pStopAtFirstFeasible whether to stop checking paths after the first feasible path (and
+   *     all paths that end at the same state) was found
+   * @return for each path (in the given order) whether it is feasible, or null if the path was not
+   *     checked because the check stopped before
+   */
+  public List<@Nullable Boolean> checkPaths(
+      ARGState pRoot,
+      SSAMap pSsa,
+      PointerTargetSet pPts,
+      List<List<ARGState>> pPaths,
+      boolean pStopAtFirstFeasible)
+      throws CPATransferException, SolverException, InterruptedException {
+    PrefixNode root = buildPrefixTree(pRoot, pPaths);
+    @Nullable Boolean[] feasible = new Boolean[pPaths.size()];
+
+    try (ProverEnvironment prover = proverFactory.get()) {
+      Deque<Frame> stack = new ArrayDeque<>();
+      stack.push(new Frame(root, pSsa, pPts));
+
+      while (!stack.isEmpty()) {
+        shutdownNotifier.shutdownIfNecessary();
+        Frame frame = stack.peek();
+        if (!frame.remainingChildren.hasNext()) {
+          stack.pop();
+          if (frame.node != root) {
+            prover.pop();
+          }
+          continue;
+        }
+
+        PrefixNode child = frame.remainingChildren.next();
+        formulaTime.start();
+        PathFormula step;
+        try {
+          step =
+              stepFormulaBuilder.buildStepFormula(
+                  frame.node.state, child.state, frame.ssa, frame.pts);
+        } finally {
+          formulaTime.stop();
+        }
+        prover.push(step.getFormula());
+        assertedSteps.inc();
+
+        if (child.needsCheck() && isUnsat(prover)) {
+          // all paths with this prefix are infeasible
+          markSubtreeInfeasible(child, feasible);
+          prover.pop();
+          continue;
+        }
+        for (int path : child.endingPaths) {
+          feasible[path] = true;
+          checkedPaths.inc();
+          feasiblePaths.inc();
+        }
+        if (pStopAtFirstFeasible && !child.endingPaths.isEmpty()) {
+          break;
+        }
+        stack.push(new Frame(child, step.getSsa(), step.getPointerTargetSet()));
+      }
+    }
+
+    return Collections.unmodifiableList(Arrays.asList(feasible));
+  }
+
+  private PrefixNode buildPrefixTree(ARGState pRoot, List<List<ARGState>> pPaths) {
+    PrefixNode root = new PrefixNode(pRoot);
+    for (int i = 0; i < pPaths.size(); i++) {
+      List<ARGState> path = pPaths.get(i);
+      checkArgument(!path.isEmpty(), "cannot check an empty path");
+      PrefixNode node = root;
+      for (ARGState state : path) {
+        node = node.children.computeIfAbsent(state, PrefixNode::new);
+      }
+      node.endingPaths.add(i);
+      pathSteps.setNextValue(path.size());
+    }
+    return root;
+  }
+
+  private boolean isUnsat(ProverEnvironment pProver) throws SolverException, InterruptedException {
+    satChecks.inc();
+    solverTime.start();
+    try {
+      return pProver.isUnsat();
+    } finally {
+      solverTime.stop();
+    }
+  }
+
+  private void markSubtreeInfeasible(PrefixNode pNode, @Nullable Boolean[] pResults) {
+    Deque<PrefixNode> waitlist = new ArrayDeque<>();
+    waitlist.push(pNode);
+    while (!waitlist.isEmpty()) {
+      PrefixNode node = waitlist.pop();
+      for (int path : node.endingPaths) {
+        pResults[path] = false;
+        checkedPaths.inc();
+      }
+      waitlist.addAll(node.children.values());
+    }
+  }
+
+  @Override
+  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+    StatisticsWriter.writingStatisticsTo(pOut)
+        .put(checkedPaths)
+        .put(feasiblePaths)
+        .put(pathSteps)
+        .put(assertedSteps)
+        .put(
+            "Number of step formulas saved by shared prefixes",
+            pathSteps.getValueSum() - assertedSteps.getValue())
+        .put(satChecks)
+        .put(formulaTime)
+        .put(solverTime);
+  }
+
+  @Override
+  public String getName() {
+    return "Batched path checking";
+  }
+}
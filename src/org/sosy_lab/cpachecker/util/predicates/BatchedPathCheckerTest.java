@@ -0,0 +1,158 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+
+public class BatchedPathCheckerTest extends SolverViewBasedTest0 {
+
+  /** The constraint of the step to each state. */
+  private final Map<ARGState, BooleanFormula> constraints = new HashMap<>();
+
+  /** The steps for which a formula was built, in order. */
+  private final List<ImmutableList<ARGState>> builtSteps = new ArrayList<>();
+
+  private ARGState newState(BooleanFormula pConstraint) {
+    ARGState state = new ARGState(null, null);
+    constraints.put(state, pConstraint);
+    return state;
+  }
+
+  private PathFormula buildStepFormula(
+      ARGState pFrom, ARGState pTo, SSAMap pSsa, PointerTargetSet pPts) {
+    builtSteps.add(ImmutableList.of(pFrom, pTo));
+    return new PathFormula(constraints.get(pTo), pSsa, pPts, 1);
+  }
+
+  @Test
+  public void testSharedPrefixes() throws Exception {
+    IntegerFormula x = imgrv.makeVariable("x");
+    ARGState root = new ARGState(null, null);
+    ARGState positive = newState(imgrv.greaterThan(x, imgrv.makeNumber(0)));
+    ARGState large = newState(imgrv.greaterThan(x, imgrv.makeNumber(5)));
+    ARGState small = newState(imgrv.lessThan(x, imgrv.makeNumber(3)));
+    ARGState negative = newState(imgrv.lessThan(x, imgrv.makeNumber(0)));
+    ARGState belowNegative1 = newState(bmgrv.makeTrue());
+    ARGState belowNegative2 = newState(bmgrv.makeTrue());
+    ARGState seven = newState(imgrv.equal(x, imgrv.makeNumber(7)));
+
+    List<List<ARGState>> paths =
+        ImmutableList.of(
+            // infeasible only in its last step
+            ImmutableList.of(positive, large, small),
+            // a prefix of the first path
+            ImmutableList.of(positive, large),
+            // two paths below the infeasible prefix (positive, negative)
+            ImmutableList.of(positive, negative, belowNegative1),
+            ImmutableList.of(positive, negative, belowNegative2),
+            // a path that shares no step with the others
+            ImmutableList.of(seven));
+
+    ProverEnvironment prover =
+        mock(ProverEnvironment.class, delegatesTo(solver.newProverEnvironment()));
+    BatchedPathChecker checker =
+        new BatchedPathChecker(
+            () -> prover, ShutdownNotifier.createDummy(), this::buildStepFormula);
+
+    ImmutableList<Boolean> feasibility =
+        checker.checkPaths(
+            root, SSAMap.emptySSAMap(), PointerTargetSet.emptyPointerTargetSet(), paths);
+
+    assertThat(feasibility).containsExactly(false, true, false, false, true).inOrder();
+
+    // each shared step is built once, and nothing is built below the infeasible prefix
+    assertThat(builtSteps)
+        .containsExactly(
+            ImmutableList.of(root, positive),
+            ImmutableList.of(positive, large),
+            ImmutableList.of(large, small),
+            ImmutableList.of(positive, negative),
+            ImmutableList.of(root, seven))
+        .inOrder();
+
+    verify(prover, times(builtSteps.size())).push(any());
+    verify(prover, times(builtSteps.size())).pop();
+    verify(prover).close();
+  }
+
+  @Test
+  public void testStopAtFirstFeasible() throws Exception {
+    IntegerFormula x = imgrv.makeVariable("x");
+    ARGState root = new ARGState(null, null);
+    ARGState positive = newState(imgrv.greaterThan(x, imgrv.makeNumber(0)));
+    ARGState negative = newState(imgrv.lessThan(x, imgrv.makeNumber(0)));
+    ARGState large = newState(imgrv.greaterThan(x, imgrv.makeNumber(5)));
+    ARGState small = newState(imgrv.lessThan(x, imgrv.makeNumber(3)));
+    ARGState zero = newState(imgrv.equal(x, imgrv.makeNumber(0)));
+
+    List<List<ARGState>> paths =
+        ImmutableList.of(
+            // infeasible
+            ImmutableList.of(positive, negative),
+            // the first feasible path
+            ImmutableList.of(positive, large),
+            // feasible, but not checked
+            ImmutableList.of(positive, small),
+            ImmutableList.of(zero));
+
+    BatchedPathChecker checker =
+        new BatchedPathChecker(
+            solver::newProverEnvironment, ShutdownNotifier.createDummy(), this::buildStepFormula);
+
+    List<Boolean> feasibility =
+        checker.checkPaths(
+            root, SSAMap.emptySSAMap(), PointerTargetSet.emptyPointerTargetSet(), paths, true);
+
+    assertThat(feasibility).containsExactly(false, true, null, null).inOrder();
+
+    // no formula is built for the paths after the first feasible one
+    assertThat(builtSteps)
+        .containsExactly(
+            ImmutableList.of(root, positive),
+            ImmutableList.of(positive, negative),
+            ImmutableList.of(positive, large))
+        .inOrder();
+  }
+}
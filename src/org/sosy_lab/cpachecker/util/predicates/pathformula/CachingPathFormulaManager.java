@@ -41,6 +41,8 @@ import org.sosy_lab.cpachecker.exceptions.UnrecognizedCFAEdgeException;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCodeException;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+import org.sosy_lab.cpachecker.util.resources.MemoryPressureGovernor;
+import org.sosy_lab.cpachecker.util.resources.MemoryPressureGovernor.CacheShedding;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.Model.ValueAssignment;
@@ -69,6 +71,9 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   private final PathFormula emptyFormula;
 
+  // signals when the caches should be cleared because the heap is nearly full
+  private final CacheShedding cacheShedding = MemoryPressureGovernor.newCacheShedding();
+
   public CachingPathFormulaManager(PathFormulaManager pDelegate) {
     delegate = pDelegate;
     emptyFormula = delegate.makeEmptyPathFormula();
@@ -77,6 +82,7 @@ public class CachingPathFormulaManager implements PathFormulaManager {
   @Override
   public Pair<PathFormula, ErrorConditions> makeAndWithErrorConditions(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
 
+    clearCachesIfRequested();
     final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
     Pair<PathFormula, ErrorConditions> result = andFormulaWithConditionsCache.get(formulaCacheKey);
     if (result == null) {
@@ -94,6 +100,7 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public PathFormula makeAnd(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
+    clearCachesIfRequested();
     final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
     PathFormula result = andFormulaCache.get(formulaCacheKey);
     if (result == null) {
@@ -114,6 +121,7 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public PathFormula makeOr(PathFormula pF1, PathFormula pF2) throws InterruptedException {
+    clearCachesIfRequested();
     final Pair<PathFormula, PathFormula> formulaCacheKey = Pair.of(pF1, pF2);
 
     PathFormula result = orFormulaCache.get(formulaCacheKey);
@@ -138,6 +146,7 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public PathFormula makeEmptyPathFormula(PathFormula pOldFormula) {
+    clearCachesIfRequested();
     PathFormula result = emptyFormulaCache.get(pOldFormula);
     if (result == null) {
       result = delegate.makeEmptyPathFormula(pOldFormula);
@@ -203,6 +212,12 @@ public class CachingPathFormulaManager implements PathFormulaManager {
     return delegate.getBranchingPredicateValuesFromModel(pModel);
   }
 
+  private void clearCachesIfRequested() {
+    if (cacheShedding.isRequested()) {
+      clearCaches();
+    }
+  }
+
   @Override
   public void clearCaches() {
     andFormulaWithConditionsCache.clear();
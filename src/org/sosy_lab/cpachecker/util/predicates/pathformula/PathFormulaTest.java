@@ -31,6 +31,7 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.lang.reflect.Constructor;
 import org.junit.Before;
 import org.junit.Test;
+import org.sosy_lab.common.collect.MapsDifference;
 import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
 import org.sosy_lab.common.collect.PersistentLinkedList;
 import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
@@ -148,6 +149,28 @@ public class PathFormulaTest {
     assertThat(builder.getFreshIndex("c")).isEqualTo(16);
   }
 
+  @Test
+  public void testSSAInterning() {
+    SSAMap ssa1 =
+        builder.setIndex("a", CNumericTypes.INT, 1).setIndex("b", CNumericTypes.INT, 2).build();
+    SSAMap ssa2 =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("b", CNumericTypes.INT, 2)
+            .setIndex("a", CNumericTypes.INT, 1)
+            .build();
+    SSAMap ssa3 = ssa1.builder().setIndex("a", CNumericTypes.INT, 3).build();
+
+    assertThat(ssa2).isSameInstanceAs(ssa1);
+    assertThat(ssa3).isNotEqualTo(ssa1);
+    assertThat(SSAMap.merge(ssa1, ssa2, MapsDifference.ignoreMapsDifference()))
+        .isSameInstanceAs(ssa1);
+    assertThat(SSAMap.merge(ssa1, ssa3, MapsDifference.ignoreMapsDifference()))
+        .isSameInstanceAs(ssa3);
+    assertThat(ssa1.withDefault(0)).isNotEqualTo(ssa1);
+    assertThat(ssa1.withDefault(0)).isSameInstanceAs(ssa2.withDefault(0));
+  }
+
   @Test
   public void testSSAExceptionMonotone() {
     builder.setIndex("a", CNumericTypes.INT, 2);
@@ -28,6 +28,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.base.Equivalence;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import java.io.Serializable;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Map;
@@ -48,11 +50,17 @@ import org.sosy_lab.cpachecker.cfa.types.c.CTypes;
 /**
  * Maps a variable name to its latest "SSA index", that should be used when
  * referring to that variable.
+ *
+ * <p>All instances are interned, i.e., equal SSAMaps are represented by the same object.
+ * Thus equality checks of SSAMaps (e.g., in the keys of the caches of path formulas) are mostly
+ * identity checks, and the persistent maps of equal SSAMaps are shared.
  */
 public class SSAMap implements Serializable {
 
   private static final long serialVersionUID = 7618801653203679876L;
 
+  private static final Interner<SSAMap> interner = Interners.newWeakInterner();
+
   // Default value for the default value
   private static final int DEFAULT_DEFAULT_IDX = -1;
 
@@ -182,7 +190,7 @@ public class SSAMap implements Serializable {
         return ssa;
       }
 
-      ssa = new SSAMap(vars, freshValueProvider, varsHashCode, varTypes, ssa.defaultValue);
+      ssa = intern(new SSAMap(vars, freshValueProvider, varsHashCode, varTypes, ssa.defaultValue));
       return ssa;
     }
 
@@ -195,11 +203,11 @@ public class SSAMap implements Serializable {
     }
   }
 
-  private static final SSAMap EMPTY_SSA_MAP = new SSAMap(
+  private static final SSAMap EMPTY_SSA_MAP = intern(new SSAMap(
       PathCopyingPersistentTreeMap.of(),
       new FreshValueProvider(),
       0,
-      PathCopyingPersistentTreeMap.of());
+      PathCopyingPersistentTreeMap.of()));
 
   /**
    * Returns an empty immutable SSAMap.
@@ -209,7 +217,12 @@ public class SSAMap implements Serializable {
   }
 
   public SSAMap withDefault(final int pDefaultValue) {
-    return new SSAMap(this.vars, this.freshValueProvider, this.varsHashCode, this.varTypes, pDefaultValue);
+    if (pDefaultValue == defaultValue) {
+      return this;
+    }
+    return intern(
+        new SSAMap(
+            this.vars, this.freshValueProvider, this.varsHashCode, this.varTypes, pDefaultValue));
   }
 
   /**
@@ -227,14 +240,21 @@ public class SSAMap implements Serializable {
     // We don't bother checking the vars set for emptiness, because this will
     // probably never be the case on a merge.
 
+    // Because SSAMaps are interned, their components are shared whenever possible,
+    // so the identity checks succeed often.
+
     checkArgument(s1.defaultValue == s2.defaultValue);
-    PersistentSortedMap<String, Integer> vars;
-    FreshValueProvider freshValueProvider;
-    int defaultIndex;
-    if (s1.vars == s2.vars && s1.freshValueProvider == s2.freshValueProvider) {
+    if (s1 == s2 || (s1.vars == s2.vars && s1.freshValueProvider == s2.freshValueProvider)) {
       // both are absolutely identical
       return s1;
+    }
 
+    final PersistentSortedMap<String, Integer> vars;
+    final int varsHashCode;
+    if (s1.vars == s2.vars) {
+      // there are no differences, only the fresh values need to be merged
+      vars = s1.vars;
+      varsHashCode = s1.varsHashCode;
     } else {
       vars =
           PersistentSortedMaps.merge(
@@ -243,19 +263,34 @@ public class SSAMap implements Serializable {
               Equivalence.equals(),
               PersistentSortedMaps.getMaximumMergeConflictHandler(),
               collectDifferences);
-      freshValueProvider = s1.freshValueProvider.merge(s2.freshValueProvider);
-      defaultIndex = s1.defaultValue;
+      varsHashCode = 0; // recompute
+    }
+
+    final FreshValueProvider freshValueProvider =
+        s1.freshValueProvider == s2.freshValueProvider
+            ? s1.freshValueProvider
+            : s1.freshValueProvider.merge(s2.freshValueProvider);
+
+    final PersistentSortedMap<String, CType> varTypes;
+    if (s1.varTypes == s2.varTypes) {
+      varTypes = s1.varTypes;
+    } else {
+      varTypes =
+          PersistentSortedMaps.merge(
+              s1.varTypes,
+              s2.varTypes,
+              CTypes.canonicalTypeEquivalence(),
+              TYPE_CONFLICT_CHECKER,
+              MapsDifference.ignoreMapsDifference());
     }
 
-    PersistentSortedMap<String, CType> varTypes =
-        PersistentSortedMaps.merge(
-            s1.varTypes,
-            s2.varTypes,
-            CTypes.canonicalTypeEquivalence(),
-            TYPE_CONFLICT_CHECKER,
-            MapsDifference.ignoreMapsDifference());
+    return intern(new SSAMap(vars, freshValueProvider, varsHashCode, varTypes, s1.defaultValue));
+  }
 
-    return new SSAMap(vars, freshValueProvider, 0, varTypes, defaultIndex);
+  private static SSAMap intern(SSAMap pSsa) {
+    SSAMap result = interner.intern(pSsa);
+    result.interned = true;
+    return result;
   }
 
   private final PersistentSortedMap<String, Integer> vars;
@@ -265,6 +300,13 @@ public class SSAMap implements Serializable {
   // Cache hashCode of potentially big map
   private final int varsHashCode;
 
+  /**
+   * Whether this instance is the canonical representative of its equivalence class. Two different
+   * canonical instances are never equal. This flag is only an optimization for {@link #equals}, thus
+   * a missing or outdated value is harmless.
+   */
+  private transient boolean interned = false;
+
   private SSAMap(PersistentSortedMap<String, Integer> vars,
                  FreshValueProvider freshValueProvider,
                  int varsHashCode,
@@ -346,10 +388,22 @@ public class SSAMap implements Serializable {
       return false;
     } else {
       SSAMap other = (SSAMap)obj;
+      if (interned && other.interned) {
+        // both are canonical instances
+        return false;
+      }
       // Do a few cheap checks before the expensive ones.
+      // The types and the default value are compared, too,
+      // such that interning does not replace a map by a different one.
       return varsHashCode == other.varsHashCode
+          && defaultValue == other.defaultValue
           && vars.equals(other.vars)
-          && freshValueProvider.equals(other.freshValueProvider);
+          && freshValueProvider.equals(other.freshValueProvider)
+          && varTypes.equals(other.varTypes);
     }
   }
+
+  private Object readResolve() {
+    return intern(this);
+  }
 }
@@ -0,0 +1,214 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing;
+
+import static com.google.common.collect.FluentIterable.from;
+import static org.sosy_lab.common.collect.PersistentSortedMaps.merge;
+
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
+import org.sosy_lab.common.collect.PersistentLinkedList;
+import org.sosy_lab.common.collect.PersistentList;
+import org.sosy_lab.common.collect.PersistentSortedMap;
+
+/**
+ * The persistent set of tracked pointer targets, grouped by the name of their region (the
+ * memory-access UF).
+ *
+ * <p>Additionally to the plain list of targets per region, the targets are indexed by their base
+ * and offset, such that the targets of a pattern with known base can be retrieved without
+ * checking all targets of the region. Both representations are persistent and are always updated
+ * together.
+ */
+@javax.annotation.concurrent.Immutable // cannot prove deep immutability
+final class PointerTargetIndex {
+
+  private static final PointerTargetIndex EMPTY =
+      new PointerTargetIndex(PathCopyingPersistentTreeMap.of(), PathCopyingPersistentTreeMap.of());
+
+  // all targets of a region in the order of their addition
+  private final PersistentSortedMap<String, PersistentList<PointerTarget>> targets;
+
+  // the same targets, sorted by base and offset
+  private final PersistentSortedMap<
+          String, PersistentSortedMap<Location, PersistentList<PointerTarget>>>
+      locations;
+
+  private PointerTargetIndex(
+      PersistentSortedMap<String, PersistentList<PointerTarget>> pTargets,
+      PersistentSortedMap<String, PersistentSortedMap<Location, PersistentList<PointerTarget>>>
+          pLocations) {
+    targets = pTargets;
+    locations = pLocations;
+  }
+
+  static PointerTargetIndex empty() {
+    return EMPTY;
+  }
+
+  static PointerTargetIndex copyOf(Map<String, ? extends List<PointerTarget>> pTargets) {
+    PointerTargetIndex result = EMPTY;
+    for (Map.Entry<String, ? extends List<PointerTarget>> entry : pTargets.entrySet()) {
+      for (PointerTarget target : entry.getValue()) {
+        result = result.with(entry.getKey(), target);
+      }
+    }
+    return result;
+  }
+
+  boolean isEmpty() {
+    return targets.isEmpty();
+  }
+
+  /** Returns the plain list of targets per region. */
+  PersistentSortedMap<String, PersistentList<PointerTarget>> asMap() {
+    return targets;
+  }
+
+  /** Returns an index that additionally contains the given target in the given region. */
+  PointerTargetIndex with(String pRegion, PointerTarget pTarget) {
+    Location location = new Location(pTarget.getBase(), pTarget.getOffset());
+    PersistentSortedMap<Location, PersistentList<PointerTarget>> regionLocations =
+        locations.getOrDefault(pRegion, PathCopyingPersistentTreeMap.of());
+    PersistentList<PointerTarget> atLocation =
+        regionLocations.getOrDefault(location, PersistentLinkedList.of());
+    return new PointerTargetIndex(
+        targets.putAndCopy(pRegion, getAllTargets(pRegion).with(pTarget)),
+        locations.putAndCopy(
+            pRegion, regionLocations.putAndCopy(location, atLocation.with(pTarget))));
+  }
+
+  PersistentList<PointerTarget> getAllTargets(String pRegion) {
+    return targets.getOrDefault(pRegion, PersistentLinkedList.of());
+  }
+
+  /**
+   * Returns all targets of the given region with the given base and an offset between the given
+   * bounds (both inclusive).
+   */
+  Iterable<PointerTarget> getTargets(
+      String pRegion, String pBase, long pFromOffset, long pToOffset) {
+    PersistentSortedMap<Location, PersistentList<PointerTarget>> regionLocations =
+        locations.get(pRegion);
+    if (regionLocations == null || pFromOffset > pToOffset) {
+      return ImmutableList.of();
+    }
+    return concat(
+        regionLocations
+            .subMap(
+                new Location(pBase, pFromOffset), true, new Location(pBase, pToOffset), true)
+            .values());
+  }
+
+  /**
+   * Returns all targets of the given region that do not have the given base or whose offset is not
+   * between the given bounds (both inclusive).
+   */
+  Iterable<PointerTarget> getTargetsOutside(
+      String pRegion, String pBase, long pFromOffset, long pToOffset) {
+    PersistentSortedMap<Location, PersistentList<PointerTarget>> regionLocations =
+        locations.get(pRegion);
+    if (regionLocations == null) {
+      return ImmutableList.of();
+    }
+    if (pFromOffset > pToOffset) {
+      return getAllTargets(pRegion);
+    }
+    return Iterables.concat(
+        concat(regionLocations.headMap(new Location(pBase, pFromOffset), false).values()),
+        concat(regionLocations.tailMap(new Location(pBase, pToOffset), false).values()));
+  }
+
+  private static Iterable<PointerTarget> concat(
+      Collection<PersistentList<PointerTarget>> pTargetLists) {
+    return from(pTargetLists).transformAndConcat(list -> list);
+  }
+
+  /** Returns the union of two indices. */
+  static PointerTargetIndex union(PointerTargetIndex pIndex1, PointerTargetIndex pIndex2) {
+    if (pIndex1 == pIndex2) {
+      return pIndex1;
+    }
+    return new PointerTargetIndex(
+        merge(
+            pIndex1.targets,
+            pIndex2.targets,
+            (region, list1, list2) -> PointerTargetSetManager.mergeLists(list1, list2)),
+        merge(
+            pIndex1.locations,
+            pIndex2.locations,
+            (region, locations1, locations2) ->
+                merge(
+                    locations1,
+                    locations2,
+                    (location, list1, list2) -> PointerTargetSetManager.mergeLists(list1, list2))));
+  }
+
+  /** The key of the index, targets are ordered by base first and by offset second. */
+  private static final class Location implements Comparable<Location> {
+
+    private final String base;
+    private final long offset;
+
+    private Location(String pBase, long pOffset) {
+      base = pBase;
+      offset = pOffset;
+    }
+
+    @Override
+    public int compareTo(Location pOther) {
+      return ComparisonChain.start()
+          .compare(base, pOther.base)
+          .compare(offset, pOther.offset)
+          .result();
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (this == pObj) {
+        return true;
+      }
+      if (!(pObj instanceof Location)) {
+        return false;
+      }
+      Location other = (Location) pObj;
+      return offset == other.offset && base.equals(other.base);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * base.hashCode() + Long.hashCode(offset);
+    }
+
+    @Override
+    public String toString() {
+      return base + "+" + offset;
+    }
+  }
+}
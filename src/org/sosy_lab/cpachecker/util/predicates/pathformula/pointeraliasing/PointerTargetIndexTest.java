@@ -0,0 +1,141 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing;
+
+import static com.google.common.collect.FluentIterable.from;
+import static com.google.common.base.Predicates.not;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.c.CArrayType;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cfa.types.c.CType;
+
+/**
+ * Tests that the index-based retrieval of the (non-)matching targets of a pattern gives the same
+ * result as checking the pattern on all targets of a region.
+ */
+public class PointerTargetIndexTest {
+
+  private static final String REGION = "int";
+  private static final String OTHER_REGION = "char";
+
+  private static final CType ARRAY = new CArrayType(false, false, CNumericTypes.INT, null);
+  private static final CType OTHER_ARRAY = new CArrayType(false, false, CNumericTypes.CHAR, null);
+
+  private static PointerTargetIndex createIndex() {
+    PointerTargetIndex index = PointerTargetIndex.empty();
+    for (String base : ImmutableList.of("a", "b", "c")) {
+      for (long offset = 0; offset < 16; offset += 4) {
+        index = index.with(REGION, new PointerTarget(base, ARRAY, 0, offset));
+        // same offset, but split differently between container and proper offset
+        index = index.with(REGION, new PointerTarget(base, null, offset, 0));
+        index = index.with(OTHER_REGION, new PointerTarget(base, OTHER_ARRAY, 0, offset));
+      }
+    }
+    // a target that is contained twice
+    index = index.with(REGION, new PointerTarget("b", ARRAY, 0, 4));
+    return index;
+  }
+
+  private static ImmutableList<Predicate<PointerTarget>> createPatterns() {
+    return ImmutableList.of(
+        // exact patterns
+        PointerTargetPattern.forBase("b"),
+        new PointerTargetPattern("b", ARRAY, 0L, 8L),
+        new PointerTargetPattern("b", null, 8L, 0L),
+        new PointerTargetPattern("b", OTHER_ARRAY, 0L, 8L),
+        new PointerTargetPattern("a", null, 0L, 12L),
+        new PointerTargetPattern("c", null, 0L, 100L),
+        new PointerTargetPattern("d", null, 0L, 0L),
+        // semi-exact patterns (without base)
+        new PointerTargetPattern(null, null, 0L, 4L),
+        new PointerTargetPattern(null, ARRAY, 0L, 8L),
+        // patterns with base, but unknown offset
+        new PointerTargetPattern("b", null, null, null),
+        new PointerTargetPattern("b", ARRAY, null, 0L),
+        new PointerTargetPattern("c", null, 4L, null),
+        // patterns without base and offset
+        PointerTargetPattern.any(),
+        new PointerTargetPattern(null, ARRAY, null, null),
+        // range patterns
+        PointerTargetPattern.forRange("b", 0, 8),
+        PointerTargetPattern.forRange("b", 4, 1),
+        PointerTargetPattern.forRange("b", 2, 4),
+        PointerTargetPattern.forRange("a", 12, 100),
+        PointerTargetPattern.forRange("c", -4, 8),
+        PointerTargetPattern.forRange("d", 0, 8),
+        // empty range (end == start)
+        PointerTargetPattern.forRange("b", 4, 0),
+        PointerTargetPattern.forRange("b", 0, 0));
+  }
+
+  @Test
+  public void testMatchingTargets() {
+    PointerTargetIndex index = createIndex();
+    for (String region : ImmutableList.of(REGION, OTHER_REGION, "unknown")) {
+      for (Predicate<PointerTarget> pattern : createPatterns()) {
+        assertWithMessage("matching targets of %s in region %s", pattern, region)
+            .that(PointerTargetPattern.getMatchingTargets(index, region, pattern))
+            .containsExactlyElementsIn(from(index.getAllTargets(region)).filter(pattern));
+      }
+    }
+  }
+
+  @Test
+  public void testNonMatchingTargets() {
+    PointerTargetIndex index = createIndex();
+    for (String region : ImmutableList.of(REGION, OTHER_REGION, "unknown")) {
+      for (Predicate<PointerTarget> pattern : createPatterns()) {
+        assertWithMessage("non-matching targets of %s in region %s", pattern, region)
+            .that(PointerTargetPattern.getNonMatchingTargets(index, region, pattern))
+            .containsExactlyElementsIn(from(index.getAllTargets(region)).filter(not(pattern)));
+      }
+    }
+  }
+
+  @Test
+  public void testUnion() {
+    PointerTargetIndex index1 =
+        PointerTargetIndex.empty()
+            .with(REGION, new PointerTarget("a", null, 0, 0))
+            .with(REGION, new PointerTarget("b", null, 4, 0));
+    PointerTargetIndex index2 =
+        PointerTargetIndex.empty()
+            .with(REGION, new PointerTarget("b", null, 4, 0))
+            .with(REGION, new PointerTarget("b", null, 8, 0));
+    PointerTargetIndex union = PointerTargetIndex.union(index1, index2);
+
+    for (Predicate<PointerTarget> pattern : createPatterns()) {
+      assertWithMessage("matching targets of %s in union", pattern)
+          .that(PointerTargetPattern.getMatchingTargets(union, REGION, pattern))
+          .containsExactlyElementsIn(from(union.getAllTargets(REGION)).filter(pattern));
+      assertWithMessage("non-matching targets of %s in union", pattern)
+          .that(PointerTargetPattern.getNonMatchingTargets(union, REGION, pattern))
+          .containsExactlyElementsIn(from(union.getAllTargets(REGION)).filter(not(pattern)));
+    }
+  }
+}
@@ -24,8 +24,12 @@
 package org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Predicates.not;
+import static com.google.common.collect.FluentIterable.from;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
 import java.io.Serializable;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.ast.c.CLeftHandSide;
@@ -36,7 +40,8 @@ import org.sosy_lab.cpachecker.exceptions.UnrecognizedCodeException;
 
 class PointerTargetPattern implements Serializable, Predicate<PointerTarget> {
 
-  private PointerTargetPattern(
+  @VisibleForTesting
+  PointerTargetPattern(
       @Nullable String pBase,
       @Nullable CType pContainerType,
       @Nullable Long pProperOffset,
@@ -124,6 +129,63 @@ class PointerTargetPattern implements Serializable, Predicate<PointerTarget> {
     return new PointerTarget(base, containerType, properOffset, containerOffset);
   }
 
+  /**
+   * Returns all targets of the given region that match the given pattern. If the pattern
+   * restricts the base of the targets, only the targets of this base with matching offsets are
+   * retrieved from the index, otherwise all targets of the region are checked.
+   */
+  static Iterable<PointerTarget> getMatchingTargets(
+      final PointerTargetIndex targets,
+      final String region,
+      final Predicate<PointerTarget> pattern) {
+    if (pattern instanceof PointerTargetPattern && ((PointerTargetPattern) pattern).base != null) {
+      final PointerTargetPattern p = (PointerTargetPattern) pattern;
+      return from(targets.getTargets(region, p.base, p.getMinOffset(), p.getMaxOffset()))
+          .filter(p::matches);
+    } else if (pattern instanceof RangePointerTargetPattern
+        && ((RangePointerTargetPattern) pattern).base != null) {
+      final RangePointerTargetPattern p = (RangePointerTargetPattern) pattern;
+      // all targets in the index range match
+      return targets.getTargets(region, p.base, p.startOffset, p.endOffset - 1);
+    } else {
+      return from(targets.getAllTargets(region)).filter(pattern);
+    }
+  }
+
+  /**
+   * Returns all targets of the given region that do not match the given pattern. This is
+   * the complement of {@link #getMatchingTargets(PointerTargetIndex, String, Predicate)}, but
+   * targets outside of the index range of the pattern are not checked individually.
+   */
+  static Iterable<PointerTarget> getNonMatchingTargets(
+      final PointerTargetIndex targets,
+      final String region,
+      final Predicate<PointerTarget> pattern) {
+    if (pattern instanceof PointerTargetPattern && ((PointerTargetPattern) pattern).base != null) {
+      final PointerTargetPattern p = (PointerTargetPattern) pattern;
+      return Iterables.concat(
+          targets.getTargetsOutside(region, p.base, p.getMinOffset(), p.getMaxOffset()),
+          from(targets.getTargets(region, p.base, p.getMinOffset(), p.getMaxOffset()))
+              .filter(not(p::matches)));
+    } else if (pattern instanceof RangePointerTargetPattern
+        && ((RangePointerTargetPattern) pattern).base != null) {
+      final RangePointerTargetPattern p = (RangePointerTargetPattern) pattern;
+      return targets.getTargetsOutside(region, p.base, p.startOffset, p.endOffset - 1);
+    } else {
+      return from(targets.getAllTargets(region)).filter(not(pattern));
+    }
+  }
+
+  /** The smallest offset of a target that can match this pattern. */
+  private long getMinOffset() {
+    return isSemiExact() ? containerOffset + properOffset : Long.MIN_VALUE;
+  }
+
+  /** The largest offset of a target that can match this pattern. */
+  private long getMaxOffset() {
+    return isSemiExact() ? containerOffset + properOffset : Long.MAX_VALUE;
+  }
+
   private final @Nullable String base;
   private final @Nullable CType containerType;
   private final @Nullable Long properOffset;
@@ -61,7 +61,7 @@ public final class PointerTargetSet implements Serializable {
   }
 
   PersistentList<PointerTarget> getAllTargets(final String regionName) {
-    return targets.getOrDefault(regionName, PersistentLinkedList.of());
+    return targets.getAllTargets(regionName);
   }
 
   public static PointerTargetSet emptyPointerTargetSet() {
@@ -115,7 +115,7 @@ public final class PointerTargetSet implements Serializable {
       final PersistentSortedMap<String, CType> bases,
       final PersistentSortedMap<CompositeField, Boolean> fields,
       final PersistentList<Pair<String, DeferredAllocation>> deferredAllocations,
-      final PersistentSortedMap<String, PersistentList<PointerTarget>> targets,
+      final PointerTargetIndex targets,
       final PersistentList<Formula> pHighestAllocatedAddresess,
       final int pAllocationCount) {
     this.bases = bases;
@@ -156,7 +156,7 @@ public final class PointerTargetSet implements Serializable {
     return deferredAllocations;
   }
 
-  PersistentSortedMap<String, PersistentList<PointerTarget>> getTargets() {
+  PointerTargetIndex getTargets() {
     return targets;
   }
 
@@ -177,7 +177,7 @@ public final class PointerTargetSet implements Serializable {
           PathCopyingPersistentTreeMap.of(),
           PathCopyingPersistentTreeMap.of(),
           PersistentLinkedList.of(),
-          PathCopyingPersistentTreeMap.of(),
+          PointerTargetIndex.empty(),
           PersistentLinkedList.of(),
           0);
 
@@ -203,7 +203,8 @@ public final class PointerTargetSet implements Serializable {
   // for all values of i from this map).
   // This means that when a location is not present in this map,
   // its value is not tracked and might get lost.
-  private final PersistentSortedMap<String, PersistentList<PointerTarget>> targets;
+  // The targets are additionally indexed by base and offset for pattern queries.
+  private final PointerTargetIndex targets;
 
   private final PersistentList<Formula> highestAllocatedAddresses;
 
@@ -241,7 +242,7 @@ public final class PointerTargetSet implements Serializable {
       bases = pts.bases;
       fields = pts.fields;
       this.deferredAllocations = new ArrayList<>(pts.deferredAllocations);
-      this.targets = new HashMap<>(Maps.transformValues(pts.targets, ArrayList::new));
+      this.targets = new HashMap<>(Maps.transformValues(pts.targets.asMap(), ArrayList::new));
       FormulaManagerView mgr = GlobalInfo.getInstance().getPredicateFormulaManagerView();
       highestAllocatedAddresses =
           new ArrayList<>(
@@ -260,8 +261,7 @@ public final class PointerTargetSet implements Serializable {
           bases,
           fields,
           PersistentLinkedList.copyOf(deferredAllocations),
-          PathCopyingPersistentTreeMap.copyOf(
-              Maps.transformValues(this.targets, PersistentLinkedList::copyOf)),
+          PointerTargetIndex.copyOf(this.targets),
           highestAllocatedAddressesFormulas,
           allocationCount);
     }
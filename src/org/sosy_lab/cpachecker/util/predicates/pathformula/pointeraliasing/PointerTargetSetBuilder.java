@@ -23,7 +23,6 @@
  */
 package org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing;
 
-import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.FluentIterable.from;
 import static java.util.stream.Collectors.toCollection;
 import static org.sosy_lab.common.collect.Collections3.transformedImmutableSetCopy;
@@ -139,7 +138,7 @@ public interface PointerTargetSetBuilder {
     private PersistentSortedMap<String, CType> bases;
     private PersistentSortedMap<CompositeField, Boolean> fields;
     private PersistentList<Pair<String, DeferredAllocation>> deferredAllocations;
-    private PersistentSortedMap<String, PersistentList<PointerTarget>> targets;
+    private PointerTargetIndex targets;
     private PersistentList<Formula> highestAllocatedAddresses;
     private int allocationCount;
 
@@ -425,7 +424,7 @@ public interface PointerTargetSetBuilder {
         return true; // The field has already been added
       }
 
-      final PersistentSortedMap<String, PersistentList<PointerTarget>> oldTargets = targets;
+      final PointerTargetIndex oldTargets = targets;
       for (final PersistentSortedMap.Entry<String, CType> baseEntry : bases.entrySet()) {
         addTargets(baseEntry.getKey(), baseEntry.getValue(), 0, 0, field);
       }
@@ -734,7 +733,7 @@ public interface PointerTargetSetBuilder {
      */
     @Override
     public PersistentList<PointerTarget> getAllTargets(final MemoryRegion region) {
-      return targets.getOrDefault(regionMgr.getPointerAccessName(region), PersistentLinkedList.of());
+      return targets.getAllTargets(regionMgr.getPointerAccessName(region));
     }
 
     /**
@@ -747,7 +746,8 @@ public interface PointerTargetSetBuilder {
     @Override
     public Iterable<PointerTarget> getMatchingTargets(
         final MemoryRegion region, final Predicate<PointerTarget> pattern) {
-      return from(getAllTargets(region)).filter(pattern);
+      return PointerTargetPattern.getMatchingTargets(
+          targets, regionMgr.getPointerAccessName(region), pattern);
     }
 
     /**
@@ -760,7 +760,8 @@ public interface PointerTargetSetBuilder {
     @Override
     public Iterable<PointerTarget> getNonMatchingTargets(
         final MemoryRegion region, final Predicate<PointerTarget> pattern) {
-      return from(getAllTargets(region)).filter(not(pattern));
+      return PointerTargetPattern.getNonMatchingTargets(
+          targets, regionMgr.getPointerAccessName(region), pattern);
     }
 
     /**
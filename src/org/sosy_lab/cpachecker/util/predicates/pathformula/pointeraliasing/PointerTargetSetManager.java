@@ -49,7 +49,6 @@ import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.collect.CopyOnWriteSortedMap;
 import org.sosy_lab.common.collect.MapsDifference;
 import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
-import org.sosy_lab.common.collect.PersistentLinkedList;
 import org.sosy_lab.common.collect.PersistentList;
 import org.sosy_lab.common.collect.PersistentSortedMap;
 import org.sosy_lab.common.collect.PersistentSortedMaps;
@@ -325,9 +324,8 @@ class PointerTargetSetManager {
             });
     shutdownNotifier.shutdownIfNecessary();
 
-    PersistentSortedMap<String, PersistentList<PointerTarget>> mergedTargets =
-        merge(
-            pts1.getTargets(), pts2.getTargets(), (key, list1, list2) -> mergeLists(list1, list2));
+    PointerTargetIndex mergedTargets =
+        PointerTargetIndex.union(pts1.getTargets(), pts2.getTargets());
     shutdownNotifier.shutdownIfNecessary();
 
     // Targets is always the cross product of bases and fields.
@@ -537,14 +535,14 @@ class PointerTargetSetManager {
    * @return The targets map together with all the added targets.
    */
   @CheckReturnValue
-  PersistentSortedMap<String, PersistentList<PointerTarget>> addToTargets(
+  PointerTargetIndex addToTargets(
       final String base,
       final @Nullable MemoryRegion region,
       final CType cType,
       final @Nullable CType containerType,
       final long properOffset,
       final long containerOffset,
-      PersistentSortedMap<String, PersistentList<PointerTarget>> targets,
+      PointerTargetIndex targets,
       final PersistentSortedMap<CompositeField, Boolean> fields) {
     checkIsSimplified(cType);
     /* Remove assertion: it fails on a correct code (gcc compiles it)
@@ -591,13 +589,9 @@ class PointerTargetSetManager {
         newRegion = regionMgr.makeMemoryRegion(cType);
       }
       String regionName = regionMgr.getPointerAccessName(newRegion);
-      PersistentList<PointerTarget> targetsForRegion =
-          targets.getOrDefault(regionName, PersistentLinkedList.of());
       targets =
-          targets.putAndCopy(
-              regionName,
-              targetsForRegion.with(
-                  new PointerTarget(base, containerType, properOffset, containerOffset)));
+          targets.with(
+              regionName, new PointerTarget(base, containerType, properOffset, containerOffset));
     }
 
     return targets;
@@ -613,8 +607,8 @@ class PointerTargetSetManager {
    * @return A map of existing targets
    */
   @CheckReturnValue
-  private PersistentSortedMap<String, PersistentList<PointerTarget>> addAllTargets(
-      PersistentSortedMap<String, PersistentList<PointerTarget>> targets,
+  private PointerTargetIndex addAllTargets(
+      PointerTargetIndex targets,
       final PersistentSortedMap<String, CType> bases,
       final PersistentSortedMap<CompositeField, Boolean> fields) {
     for (final Map.Entry<String, CType> entry : bases.entrySet()) {
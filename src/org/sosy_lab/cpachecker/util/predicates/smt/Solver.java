@@ -48,6 +48,10 @@ import org.sosy_lab.cpachecker.util.predicates.interpolation.SeparateInterpolati
 import org.sosy_lab.cpachecker.util.predicates.ufCheckingProver.UFCheckingBasicProverEnvironment.UFCheckingProverOptions;
 import org.sosy_lab.cpachecker.util.predicates.ufCheckingProver.UFCheckingInterpolatingProverEnvironment;
 import org.sosy_lab.cpachecker.util.predicates.ufCheckingProver.UFCheckingProverEnvironment;
+import org.sosy_lab.cpachecker.util.resources.MemoryPressureGovernor;
+import org.sosy_lab.cpachecker.util.resources.MemoryPressureGovernor.CacheShedding;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents.SolverQueryEvent;
 import org.sosy_lab.java_smt.SolverContextFactory;
 import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
 import org.sosy_lab.java_smt.api.BooleanFormula;
@@ -125,6 +129,9 @@ public final class Solver implements AutoCloseable {
   private final Map<Object, Map<Set<BooleanFormula>, Boolean>>
       groupedUnsatCache = new HashMap<>();
 
+  /** Signals when the caches should be cleared because the heap is nearly full. */
+  private final CacheShedding cacheShedding = MemoryPressureGovernor.newCacheShedding();
+
   private final LogManager logger;
 
   // stats
@@ -369,6 +376,7 @@ public final class Solver implements AutoCloseable {
       trivialSatChecks++;
       return true;
     }
+    clearCachesIfRequested();
     Boolean result = unsatCache.get(f);
     if (result != null) {
       cachedSatChecks++;
@@ -376,6 +384,7 @@ public final class Solver implements AutoCloseable {
     }
 
     solverTime.start();
+    SolverQueryEvent event = AnalysisEvents.begin(SolverQueryEvent::new);
     try {
       result = isUnsatUncached(f);
 
@@ -384,6 +393,7 @@ public final class Solver implements AutoCloseable {
 
     } finally {
       solverTime.stop();
+      AnalysisEvents.commit(event, Boolean.TRUE.equals(result));
     }
   }
 
@@ -399,10 +409,14 @@ public final class Solver implements AutoCloseable {
   public boolean isUnsat(Set<BooleanFormula> constraints, Object cacheKey)
       throws InterruptedException, SolverException {
     solverTime.start();
+    SolverQueryEvent event = AnalysisEvents.begin(SolverQueryEvent::new);
+    boolean unsat = false;
     try {
-      return isUnsat0(constraints, cacheKey);
+      unsat = isUnsat0(constraints, cacheKey);
+      return unsat;
     } finally {
       solverTime.stop();
+      AnalysisEvents.commit(event, unsat);
     }
   }
 
@@ -410,6 +424,7 @@ public final class Solver implements AutoCloseable {
       throws InterruptedException, SolverException {
     satChecks++;
 
+    clearCachesIfRequested();
     Map<Set<BooleanFormula>, Boolean> stored = groupedUnsatCache.get(cacheKey);
     if (stored != null) {
       for (Entry<Set<BooleanFormula>, Boolean> isUnsatResults : stored
@@ -492,6 +507,13 @@ public final class Solver implements AutoCloseable {
     }
   }
 
+  private void clearCachesIfRequested() {
+    if (cacheShedding.isRequested()) {
+      unsatCache.clear();
+      groupedUnsatCache.clear();
+    }
+  }
+
   private boolean isUnsatUncached(BooleanFormula f) throws SolverException, InterruptedException {
     try (ProverEnvironment prover = newProverEnvironment()) {
       prover.push(f);
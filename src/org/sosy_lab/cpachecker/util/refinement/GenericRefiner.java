@@ -23,18 +23,34 @@
  */
 package org.sosy_lab.cpachecker.util.refinement;
 
+import static com.google.common.collect.FluentIterable.from;
+
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.errorprone.annotations.ForOverride;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -55,6 +71,7 @@ import org.sosy_lab.cpachecker.cpa.arg.path.ARGPath;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.RefinementFailedException;
 import org.sosy_lab.cpachecker.exceptions.RefinementFailedException.Reason;
+import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatInt;
 import org.sosy_lab.cpachecker.util.statistics.StatKind;
@@ -72,7 +89,7 @@ import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
  */
 @Options(prefix = "cpa.value.refinement")
 public abstract class GenericRefiner<S extends ForgetfulState<?>, I extends Interpolant<S, I>>
-    implements ARGBasedRefiner, StatisticsProvider {
+    implements ARGBasedRefiner, StatisticsProvider, AutoCloseable {
 
   @Option(secure = true, description = "when to export the interpolation tree"
       + "\nNEVER:   never export the interpolation tree"
@@ -110,6 +127,16 @@ public abstract class GenericRefiner<S extends ForgetfulState<?>, I extends Inte
       + " e.g., for supporting counterexample checks")
   private boolean addAssumptionsToCex = true;
 
+  @Option(
+      secure = true,
+      name = "interpolation.threads",
+      description =
+          "number of threads for interpolating the error paths to several target states in"
+              + " parallel, which requires global refinement (cegar.globalRefinement)."
+              + " The value 1 disables parallel interpolation.")
+  @IntegerOption(min = 1)
+  private int interpolationThreads = 1;
+
   protected final LogManager logger;
 
   private final PathInterpolator<I> interpolator;
@@ -122,10 +149,21 @@ public abstract class GenericRefiner<S extends ForgetfulState<?>, I extends Inte
 
   private Set<Integer> previousErrorPathIds = new HashSet<>();
 
+  // created on the first refinement that could interpolate several error paths
+  private @Nullable ImmutableList<Pair<FeasibilityChecker<S>, PathInterpolator<I>>>
+      interpolationWorkers = null;
+  private @Nullable ExecutorService interpolationPool = null;
+
   // statistics
   private final StatCounter refinementCounter = new StatCounter("Number of refinements");
   private final StatInt numberOfTargets = new StatInt(StatKind.SUM, "Number of targets found");
   private final StatTimer refinementTime = new StatTimer("Time for completing refinement");
+  private final StatInt parallelPaths =
+      new StatInt(StatKind.SUM, "Number of error paths interpolated in parallel");
+  private final StatCounter skippedFeasiblePaths =
+      new StatCounter("Number of feasible error paths skipped");
+  private final StatTimer parallelInterpolationTime =
+      new StatTimer("Time for parallel interpolation");
 
   public GenericRefiner(
       final FeasibilityChecker<S> pFeasibilityChecker,
@@ -198,7 +236,12 @@ public abstract class GenericRefiner<S extends ForgetfulState<?>, I extends Inte
     CounterexampleInfo cex = isPathFeasible(targetPathToUse);
 
     if (cex.isSpurious()) {
-      refineUsingInterpolants(pReached, obtainInterpolants(targetPathToUse));
+      List<ARGPath> furtherPaths = getFurtherTargetPaths(pReached, targetPathToUse);
+      refineUsingInterpolants(
+          pReached,
+          furtherPaths.isEmpty()
+              ? obtainInterpolants(targetPathToUse)
+              : obtainInterpolantsInParallel(targetPathToUse, furtherPaths));
     }
 
     refinementTime.stop();
@@ -225,6 +268,208 @@ public abstract class GenericRefiner<S extends ForgetfulState<?>, I extends Inte
     return interpolationTree;
   }
 
+  /**
+   * Returns the paths to the other target states, which are interpolated in parallel to the given
+   * path, or an empty list if parallel interpolation is disabled or not possible.
+   */
+  private List<ARGPath> getFurtherTargetPaths(ARGReachedSet pReached, ARGPath pTargetPath)
+      throws CPAException {
+    if (interpolationThreads <= 1 || getInterpolationWorkers().isEmpty()) {
+      return ImmutableList.of();
+    }
+
+    // the interpolation tree for several paths follows the first parent of each state,
+    // so the given path (which may come from another analysis) needs to do the same
+    ARGState target = pTargetPath.getLastState();
+    if (!ARGUtils.getOnePathTo(target).asStatesList().equals(pTargetPath.asStatesList())) {
+      return ImmutableList.of();
+    }
+
+    return pathExtractor.getTargetPaths(
+        from(pathExtractor.getTargetStates(pReached)).filter(s -> !s.equals(target)).toList());
+  }
+
+  /**
+   * Interpolate the given path in this thread, and the further paths with the interpolation
+   * workers in parallel. Further paths that are feasible are skipped, they will be reported by
+   * one of the next refinements. The interpolants of all spurious paths are merged into a single
+   * interpolation tree, such that they result in a single precision increment.
+   */
+  private InterpolationTree<S, I> obtainInterpolantsInParallel(
+      ARGPath pTargetPath, List<ARGPath> pFurtherPaths)
+      throws CPAException, InterruptedException {
+    parallelInterpolationTime.start();
+
+    // written by the workers at distinct positions, published by Future.get()
+    final List<Map<ARGState, I>> results =
+        new ArrayList<>(Collections.nCopies(pFurtherPaths.size(), null));
+    final AtomicInteger nextPath = new AtomicInteger(0);
+    final Set<Thread> runningWorkers = ConcurrentHashMap.newKeySet();
+
+    List<Future<?>> futures = new ArrayList<>(interpolationWorkers.size());
+    for (Pair<FeasibilityChecker<S>, PathInterpolator<I>> worker : interpolationWorkers) {
+      futures.add(
+          interpolationPool.submit(
+              () -> {
+                runningWorkers.add(Thread.currentThread());
+                try {
+                  interpolatePaths(worker, pFurtherPaths, nextPath, results);
+                } finally {
+                  runningWorkers.remove(Thread.currentThread());
+                }
+                return null;
+              }));
+    }
+
+    List<ARGPath> spuriousPaths = new ArrayList<>();
+    List<Map<ARGState, I>> interpolants = new ArrayList<>();
+    boolean completed = false;
+    try {
+      spuriousPaths.add(pTargetPath);
+      interpolants.add(
+          interpolator.performInterpolation(
+              pTargetPath, interpolantManager.createInitialInterpolant()));
+
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      completed = true;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, CPAException.class);
+      Throwables.throwIfInstanceOf(cause, InterruptedException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new AssertionError("unexpected exception during interpolation", cause);
+    } finally {
+      if (!completed) {
+        stopWorkers(futures, nextPath, pFurtherPaths.size(), runningWorkers);
+      }
+      parallelInterpolationTime.stop();
+    }
+
+    for (int i = 0; i < pFurtherPaths.size(); i++) {
+      if (results.get(i) == null) {
+        skippedFeasiblePaths.inc();
+      } else {
+        spuriousPaths.add(pFurtherPaths.get(i));
+        interpolants.add(results.get(i));
+      }
+    }
+    parallelPaths.setNextValue(spuriousPaths.size());
+    logger.log(Level.FINEST, "interpolated", spuriousPaths.size(), "error paths in parallel");
+
+    InterpolationTree<S, I> interpolationTree = createInterpolationTree(spuriousPaths);
+    interpolants.forEach(interpolationTree::addInterpolants);
+    exportTree(interpolationTree, "FINAL");
+    return interpolationTree;
+  }
+
+  /**
+   * Stop the workers after an exception and wait until they are finished. The interpolators of the
+   * workers are not thread-safe, so no task may use them anymore when the next refinement starts.
+   * Cancelling the futures would not wait for running tasks, so instead the remaining paths are
+   * withdrawn and the running tasks are interrupted.
+   */
+  private void stopWorkers(
+      List<Future<?>> pFutures,
+      AtomicInteger pNextPath,
+      int pNumberOfPaths,
+      Set<Thread> pRunningWorkers) {
+    pNextPath.set(pNumberOfPaths);
+    pRunningWorkers.forEach(Thread::interrupt);
+    for (Future<?> future : pFutures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        // another exception is already propagated
+        logger.logDebugException(e.getCause(), "Interpolation worker failed after abort");
+      }
+    }
+  }
+
+  /**
+   * Interpolate paths with the given worker until there are none left. The result for a feasible
+   * path is null.
+   */
+  private void interpolatePaths(
+      Pair<FeasibilityChecker<S>, PathInterpolator<I>> pWorker,
+      List<ARGPath> pPaths,
+      AtomicInteger pNextPath,
+      List<Map<ARGState, I>> pResults)
+      throws CPAException, InterruptedException {
+    int i;
+    while ((i = pNextPath.getAndIncrement()) < pPaths.size()) {
+      ARGPath path = pPaths.get(i);
+      if (!pWorker.getFirst().isFeasible(path)) {
+        pResults.set(
+            i,
+            pWorker
+                .getSecond()
+                .performInterpolation(path, interpolantManager.createInitialInterpolant()));
+      }
+    }
+  }
+
+  private List<Pair<FeasibilityChecker<S>, PathInterpolator<I>>> getInterpolationWorkers()
+      throws CPAException {
+    if (interpolationWorkers == null) {
+      ImmutableList.Builder<Pair<FeasibilityChecker<S>, PathInterpolator<I>>> workers =
+          ImmutableList.builder();
+      try {
+        // this thread is used for interpolation, too
+        for (int i = 1; i < interpolationThreads; i++) {
+          Optional<Pair<FeasibilityChecker<S>, PathInterpolator<I>>> worker =
+              createIndependentInterpolator();
+          if (!worker.isPresent()) {
+            logger.log(
+                Level.WARNING,
+                getClass().getSimpleName(),
+                "does not support parallel interpolation, interpolating sequentially.");
+            interpolationWorkers = ImmutableList.of();
+            return interpolationWorkers;
+          }
+          workers.add(worker.orElseThrow());
+        }
+      } catch (InvalidConfigurationException e) {
+        throw new CPAException("Could not create interpolators for parallel interpolation", e);
+      }
+      interpolationWorkers = workers.build();
+      interpolationPool =
+          Executors.newFixedThreadPool(
+              interpolationWorkers.size(),
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("refinement-interpolation-%d")
+                  .build());
+    }
+    return interpolationWorkers;
+  }
+
+  /** Stop the threads for parallel interpolation. */
+  @Override
+  public void close() {
+    if (interpolationPool != null) {
+      // each refinement waits for its tasks, so none is running anymore
+      interpolationPool.shutdownNow();
+      interpolationPool = null;
+      interpolationWorkers = null;
+    }
+  }
+
+  /**
+   * Create a feasibility checker and a path interpolator that are independent of the ones of this
+   * refiner (and of those returned by other calls of this method), such that they can be used by
+   * another thread for parallel interpolation.
+   *
+   * @return the checker and the interpolator, or an empty result if parallel interpolation is not
+   *     supported
+   */
+  @ForOverride
+  protected Optional<Pair<FeasibilityChecker<S>, PathInterpolator<I>>>
+      createIndependentInterpolator() throws InvalidConfigurationException {
+    return Optional.empty();
+  }
+
   /**
    * This method creates the interpolation tree.
    */
@@ -336,6 +581,13 @@ public abstract class GenericRefiner<S extends ForgetfulState<?>, I extends Inte
     writer.put(refinementCounter)
         .put(numberOfTargets)
         .put(refinementTime);
+    if (interpolationThreads > 1) {
+      writer
+          .beginLevel()
+          .put(parallelInterpolationTime)
+          .put(parallelPaths)
+          .put(skippedFeasiblePaths);
+    }
     printAdditionalStatistics(pOut, pResult, pReached); //hook
   }
 
@@ -0,0 +1,297 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.resources;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+
+/**
+ * This class reacts on heap pressure, i.e., on a heap that is still nearly full after a garbage
+ * collection. It listens for the notifications that the JVM sends after each garbage collection
+ * and compares the heap usage after the collection with two configurable thresholds:
+ *
+ * <ul>
+ *   <li>If the cache threshold is exceeded, all caches that are registered via {@link
+ *       #newCacheShedding()} are asked to clear themselves. This happens once each time the heap
+ *       usage rises above the threshold.
+ *   <li>If the stop threshold is exceeded by the memory that is still used in the old generation
+ *       after it was last collected, the analysis is stopped via the {@link ShutdownManager}, such
+ *       that it terminates with result UNKNOWN and prints its statistics instead of running into
+ *       an {@link OutOfMemoryError}. The usage of the old generation is taken from the collection
+ *       usage of the tenured memory pools, which the JVM updates for every collector (including
+ *       concurrent collectors that never report a "major" collection), and is checked after each
+ *       garbage collection.
+ * </ul>
+ *
+ * The caches are not cleared by this class itself, because they are not thread-safe. Instead,
+ * each cache polls its {@link CacheShedding} instance when it is accessed by its owning thread.
+ */
+@Options(prefix = "limits.memory.heap")
+public final class MemoryPressureGovernor implements NotificationListener {
+
+  @Option(
+    secure = true,
+    description =
+        "Clear the caches of the analysis if more than this percentage of the maximum heap size"
+            + " is still used after a garbage collection (-1 to disable)."
+  )
+  @IntegerOption(min = -1, max = 100)
+  private int cacheThreshold = -1;
+
+  @Option(
+    secure = true,
+    description =
+        "Stop the analysis if more than this percentage of the maximum heap size is still used"
+            + " in the old generation after it was last collected (-1 to disable)."
+  )
+  @IntegerOption(min = -1, max = 100)
+  private int stopThreshold = -1;
+
+  /** Number of requests for clearing caches so far, polled by {@link CacheShedding}. */
+  private static final AtomicInteger sheddingRequests = new AtomicInteger(0);
+
+  private final LogManager logger;
+  private final ShutdownManager shutdownManager;
+  private final ImmutableList<NotificationEmitter> collectors;
+  private final ImmutableSet<String> heapPools;
+  private final ImmutableList<MemoryPoolMXBean> tenuredPools;
+  private final long maxHeap;
+
+  // only accessed by the thread that delivers the notifications
+  private boolean aboveCacheThreshold = false;
+
+  @VisibleForTesting
+  MemoryPressureGovernor(
+      Configuration pConfig, LogManager pLogger, ShutdownManager pShutdownManager, long pMaxHeap)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+    shutdownManager = checkNotNull(pShutdownManager);
+
+    if (cacheThreshold >= 0 && stopThreshold >= 0 && cacheThreshold >= stopThreshold) {
+      throw new InvalidConfigurationException(
+          "The heap threshold for clearing caches ("
+              + cacheThreshold
+              + "%) needs to be lower than the heap threshold for stopping the analysis ("
+              + stopThreshold
+              + "%).");
+    }
+
+    ImmutableList.Builder<NotificationEmitter> emitters = ImmutableList.builder();
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof NotificationEmitter) {
+        emitters.add((NotificationEmitter) collector);
+      }
+    }
+    collectors = emitters.build();
+
+    ImmutableSet.Builder<String> pools = ImmutableSet.builder();
+    ImmutableList.Builder<MemoryPoolMXBean> tenured = ImmutableList.builder();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pools.add(pool.getName());
+        // Eden and survivor spaces do not support usage thresholds, only tenured pools do.
+        if (pool.isUsageThresholdSupported() && pool.isCollectionUsageThresholdSupported()) {
+          tenured.add(pool);
+        }
+      }
+    }
+    heapPools = pools.build();
+    tenuredPools = tenured.build();
+    maxHeap = pMaxHeap;
+  }
+
+  /**
+   * Create an instance of this class from some configuration options. The returned instance is
+   * not started yet.
+   */
+  public static MemoryPressureGovernor fromConfiguration(
+      Configuration pConfig, LogManager pLogger, ShutdownManager pShutdownManager)
+      throws InvalidConfigurationException {
+    return new MemoryPressureGovernor(
+        pConfig, pLogger, pShutdownManager, Runtime.getRuntime().maxMemory());
+  }
+
+  /** Start listening for garbage collections, if any threshold is set. May be called only once. */
+  public void start() {
+    if (cacheThreshold < 0 && stopThreshold < 0) {
+      return;
+    }
+    if (collectors.isEmpty() || maxHeap == Long.MAX_VALUE) {
+      logger.log(
+          Level.WARNING,
+          "Your Java VM does not support observing the heap usage after garbage collections,"
+              + " heap thresholds disabled.");
+      return;
+    }
+    collectors.forEach(c -> c.addNotificationListener(this, null, null));
+  }
+
+  /** Stop listening for garbage collections (without triggering any action). */
+  public void cancel() {
+    for (NotificationEmitter collector : collectors) {
+      try {
+        collector.removeNotificationListener(this);
+      } catch (ListenerNotFoundException e) {
+        // not started
+      }
+    }
+  }
+
+  @Override
+  public void handleNotification(Notification pNotification, Object pHandback) {
+    if (!pNotification
+        .getType()
+        .equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+      return;
+    }
+    GarbageCollectionNotificationInfo info =
+        GarbageCollectionNotificationInfo.from((CompositeData) pNotification.getUserData());
+
+    long used = 0;
+    Map<String, MemoryUsage> usageAfterGc = info.getGcInfo().getMemoryUsageAfterGc();
+    for (Entry<String, MemoryUsage> pool : usageAfterGc.entrySet()) {
+      if (heapPools.contains(pool.getKey())) {
+        used += pool.getValue().getUsed();
+      }
+    }
+
+    // After a minor collection, the old generation may still contain a lot of garbage,
+    // so we stop the analysis only if even the last collection of the old generation
+    // could not free enough memory. This is independent of the kind of the current collection,
+    // because not all collectors report their old-generation collections as "major".
+    long tenuredUsed = used;
+    if (!tenuredPools.isEmpty()) {
+      tenuredUsed = 0;
+      for (MemoryPoolMXBean pool : tenuredPools) {
+        MemoryUsage collectionUsage = pool.getCollectionUsage();
+        if (collectionUsage != null) {
+          tenuredUsed += collectionUsage.getUsed();
+        }
+      }
+    }
+
+    handleCollection(used, tenuredUsed);
+  }
+
+  /**
+   * Compare the heap usage after a garbage collection with the thresholds.
+   *
+   * @param pUsed the used heap memory after the current garbage collection
+   * @param pTenuredUsed the used memory of the old generation after it was last collected
+   */
+  @VisibleForTesting
+  void handleCollection(long pUsed, long pTenuredUsed) {
+    if (stopThreshold >= 0 && isAbove(pTenuredUsed, stopThreshold)) {
+      shutdownManager.requestShutdown(
+          String.format(
+              "The heap-memory limit of %d%% of %d MB was exceeded (%d MB in use after garbage"
+                  + " collection).",
+              stopThreshold, toMB(maxHeap), toMB(pTenuredUsed)));
+      cancel();
+      return;
+    }
+
+    if (cacheThreshold >= 0) {
+      boolean above = isAbove(pUsed, cacheThreshold);
+      if (above && !aboveCacheThreshold) {
+        sheddingRequests.incrementAndGet();
+        logger.log(
+            Level.INFO,
+            "Heap usage after garbage collection is",
+            toMB(pUsed),
+            "MB of",
+            toMB(maxHeap),
+            "MB, clearing caches.");
+      }
+      aboveCacheThreshold = above;
+    }
+  }
+
+  private boolean isAbove(long pUsed, int pPercentage) {
+    return pUsed * 100 > maxHeap * pPercentage;
+  }
+
+  private static long toMB(long pBytes) {
+    return pBytes >> 20;
+  }
+
+  /**
+   * Create a new {@link CacheShedding} instance for a cache. Requests for clearing caches that
+   * happened before this method was called are not reported by the new instance.
+   */
+  public static CacheShedding newCacheShedding() {
+    return new CacheShedding();
+  }
+
+  /**
+   * Tracks the requests for clearing caches for a single cache owner. Instances are not
+   * thread-safe, they should be polled by the thread that uses the cache whenever the cache is
+   * accessed.
+   */
+  public static final class CacheShedding {
+
+    private int seenRequests = sheddingRequests.get();
+
+    private CacheShedding() {}
+
+    /**
+     * Check whether the cache should be cleared. Returns true at most once per request, thus the
+     * caller needs to clear its cache if this method returns true.
+     */
+    public boolean isRequested() {
+      int requests = sheddingRequests.get();
+      if (requests != seenRequests) {
+        seenRequests = requests;
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.resources;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import javax.management.Notification;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.util.resources.MemoryPressureGovernor.CacheShedding;
+
+public class MemoryPressureGovernorTest {
+
+  private static final long MAX_HEAP = 1000L << 20;
+
+  private final ShutdownManager shutdownManager = ShutdownManager.create();
+
+  private MemoryPressureGovernor createGovernor(int pCacheThreshold, int pStopThreshold)
+      throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder()
+            .setOption("limits.memory.heap.cacheThreshold", Integer.toString(pCacheThreshold))
+            .setOption("limits.memory.heap.stopThreshold", Integer.toString(pStopThreshold))
+            .build();
+    return new MemoryPressureGovernor(
+        config, LogManager.createTestLogManager(), shutdownManager, MAX_HEAP);
+  }
+
+  private static long percentOfHeap(int pPercentage) {
+    return MAX_HEAP / 100 * pPercentage;
+  }
+
+  @Test
+  public void testCacheSheddingOncePerRequest() throws InvalidConfigurationException {
+    MemoryPressureGovernor governor = createGovernor(50, -1);
+    CacheShedding shedding = MemoryPressureGovernor.newCacheShedding();
+    assertThat(shedding.isRequested()).isFalse();
+
+    governor.handleCollection(percentOfHeap(60), 0);
+    assertThat(shedding.isRequested()).isTrue();
+    assertThat(shedding.isRequested()).isFalse();
+
+    // still above the threshold, no new request
+    governor.handleCollection(percentOfHeap(70), 0);
+    assertThat(shedding.isRequested()).isFalse();
+
+    // dropping below and rising above the threshold again leads to a new request
+    governor.handleCollection(percentOfHeap(40), 0);
+    assertThat(shedding.isRequested()).isFalse();
+    governor.handleCollection(percentOfHeap(60), 0);
+    assertThat(shedding.isRequested()).isTrue();
+    assertThat(shedding.isRequested()).isFalse();
+
+    assertThat(shutdownManager.getNotifier().shouldShutdown()).isFalse();
+  }
+
+  @Test
+  public void testCacheSheddingIgnoresEarlierRequests() throws InvalidConfigurationException {
+    MemoryPressureGovernor governor = createGovernor(50, -1);
+    governor.handleCollection(percentOfHeap(60), 0);
+
+    CacheShedding shedding = MemoryPressureGovernor.newCacheShedding();
+    assertThat(shedding.isRequested()).isFalse();
+
+    governor.handleCollection(percentOfHeap(40), 0);
+    governor.handleCollection(percentOfHeap(60), 0);
+    assertThat(shedding.isRequested()).isTrue();
+  }
+
+  @Test
+  public void testStopThreshold() throws InvalidConfigurationException {
+    MemoryPressureGovernor governor = createGovernor(50, 90);
+
+    // a heap full of garbage that can still be collected from the old generation
+    governor.handleCollection(percentOfHeap(95), percentOfHeap(80));
+    assertThat(shutdownManager.getNotifier().shouldShutdown()).isFalse();
+
+    governor.handleCollection(percentOfHeap(95), percentOfHeap(92));
+    assertThat(shutdownManager.getNotifier().shouldShutdown()).isTrue();
+  }
+
+  @Test
+  public void testStopThresholdAfterMinorCollection() throws InvalidConfigurationException {
+    GcInfo gcInfo = null;
+    String collectorName = null;
+    System.gc();
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof com.sun.management.GarbageCollectorMXBean) {
+        GcInfo lastGcInfo = ((com.sun.management.GarbageCollectorMXBean) collector).getLastGcInfo();
+        if (lastGcInfo != null) {
+          gcInfo = lastGcInfo;
+          collectorName = collector.getName();
+        }
+      }
+    }
+    assume().withMessage("no garbage collection was observed").that(gcInfo).isNotNull();
+
+    // any live object in the heap exceeds a threshold of 0%
+    MemoryPressureGovernor governor = createGovernor(-1, 0);
+    GarbageCollectionNotificationInfo info =
+        new GarbageCollectionNotificationInfo(
+            collectorName, "end of minor GC", "Allocation Failure", gcInfo);
+    Notification notification =
+        new Notification(
+            GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION, this, 1);
+    notification.setUserData(info.toCompositeData(null));
+
+    governor.handleNotification(notification, null);
+    assertThat(shutdownManager.getNotifier().shouldShutdown()).isTrue();
+  }
+
+  @Test
+  public void testOtherNotificationsAreIgnored() throws InvalidConfigurationException {
+    MemoryPressureGovernor governor = createGovernor(-1, 0);
+    governor.handleNotification(new Notification("other", this, 1), null);
+    assertThat(shutdownManager.getNotifier().shouldShutdown()).isFalse();
+  }
+}
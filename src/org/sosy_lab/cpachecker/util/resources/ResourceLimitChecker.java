@@ -177,6 +177,23 @@ public final class ResourceLimitChecker {
     return new ResourceLimitChecker(shutdownManager, ImmutableList.of());
   }
 
+  /**
+   * Create an instance of this class with specific CPU time limit for the given thread only. This
+   * is useful if several analyses with separate limits run in parallel. The returned instance is
+   * not started yet.
+   */
+  public static ResourceLimitChecker createThreadCpuTimeLimitChecker(
+      LogManager logger, ShutdownManager shutdownManager, TimeSpan cpuTime, Thread thread) {
+
+    if (cpuTime.compareTo(TimeSpan.empty()) <= 0) {
+      return new ResourceLimitChecker(shutdownManager, ImmutableList.of());
+    }
+
+    ResourceLimit cpuTimeLimitChecker = ThreadCpuTimeLimit.fromNowOn(cpuTime, thread);
+    logger.log(Level.FINE, "Using " + cpuTimeLimitChecker.getName());
+    return new ResourceLimitChecker(shutdownManager, ImmutableList.of(cpuTimeLimitChecker));
+  }
+
   @Options(prefix="limits")
   private static class ResourceLimitOptions {
 
@@ -0,0 +1,222 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.statistics;
+
+import java.util.function.Supplier;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+
+/**
+ * Java Flight Recorder events for the hot paths of the analysis, i.e., the operators of the CPA
+ * algorithm, SMT queries, abstraction computations, and refinements.
+ *
+ * <p>In contrast to the aggregated timers of the statistics, these events contain the duration of
+ * every single operation together with the CFA location, such that slow locations and solver
+ * outliers can be analyzed offline, e.g., with JDK Mission Control. The events are only created
+ * if enabled with the option {@code statistics.jfrEvents}, and they are only recorded if a flight
+ * recording is running (e.g., started with {@code -XX:StartFlightRecording}).
+ *
+ * <p>Usage: <code>
+ * TransferEvent event = AnalysisEvents.begin(TransferEvent::new);
+ * ... // the operation
+ * AnalysisEvents.commit(event, state);
+ * </code>
+ */
+@Options(prefix = "statistics")
+public final class AnalysisEvents {
+
+  @Option(
+      secure = true,
+      name = "jfrEvents",
+      description =
+          "Create Java Flight Recorder events for the transfer relation, merge, stop, precision"
+              + " adjustment, SMT queries, abstraction computations, and refinements. The events"
+              + " are only recorded if a flight recording is running, e.g., started with the JVM"
+              + " option -XX:StartFlightRecording.")
+  private boolean enabled = false;
+
+  // global, because the events are emitted from places without access to the configuration
+  private static volatile boolean eventsEnabled = false;
+
+  private AnalysisEvents() {}
+
+  /** Enable or disable the creation of events according to the given configuration. */
+  public static void configure(Configuration pConfig) throws InvalidConfigurationException {
+    AnalysisEvents options = new AnalysisEvents();
+    pConfig.inject(options);
+    eventsEnabled = options.enabled;
+  }
+
+  public static boolean isEnabled() {
+    return eventsEnabled;
+  }
+
+  /**
+   * Create and begin a new event, if events are enabled.
+   *
+   * @return the new event, or null if events are disabled
+   */
+  public static <T extends Event> @Nullable T begin(Supplier<T> pFactory) {
+    if (!eventsEnabled) {
+      return null;
+    }
+    T event = pFactory.get();
+    event.begin();
+    return event;
+  }
+
+  /** End the given event and commit it with the location of the given state. */
+  public static void commit(@Nullable LocatedEvent pEvent, @Nullable AbstractState pState) {
+    if (pEvent == null) {
+      return;
+    }
+    pEvent.end();
+    // shouldCommit() is false if the event is not recorded or below the threshold
+    if (pEvent.shouldCommit()) {
+      pEvent.location = pState == null ? null : describe(AbstractStates.extractLocation(pState));
+      pEvent.commit();
+    }
+  }
+
+  /** End the given event and commit it with the given result. */
+  public static void commit(@Nullable SolverQueryEvent pEvent, boolean pUnsat) {
+    if (pEvent == null) {
+      return;
+    }
+    pEvent.end();
+    if (pEvent.shouldCommit()) {
+      pEvent.unsat = pUnsat;
+      pEvent.commit();
+    }
+  }
+
+  /** End the given event and commit it with the given location and size of the precision. */
+  public static void commit(
+      @Nullable AbstractionEvent pEvent, @Nullable CFANode pLocation, int pPredicates) {
+    if (pEvent == null) {
+      return;
+    }
+    pEvent.end();
+    if (pEvent.shouldCommit()) {
+      pEvent.location = describe(pLocation);
+      pEvent.predicates = pPredicates;
+      pEvent.commit();
+    }
+  }
+
+  /** End the given event and commit it with the given refiner and result. */
+  public static void commit(
+      @Nullable RefinementEvent pEvent, String pRefiner, boolean pSuccessful) {
+    if (pEvent == null) {
+      return;
+    }
+    pEvent.end();
+    if (pEvent.shouldCommit()) {
+      pEvent.refiner = pRefiner;
+      pEvent.successful = pSuccessful;
+      pEvent.commit();
+    }
+  }
+
+  private static @Nullable String describe(@Nullable CFANode pLocation) {
+    if (pLocation == null) {
+      return null;
+    }
+    return pLocation.getFunctionName() + ":" + pLocation;
+  }
+
+  /**
+   * Base class for events of CPA operators on an abstract state at a CFA location. The events do
+   * not name a CPA, because the CPA algorithm only calls the operators of the top-level CPA and the
+   * time of a composite operator cannot be attributed to one of its component CPAs.
+   */
+  @Category({"CPAchecker", "CPA Algorithm"})
+  public abstract static class LocatedEvent extends Event {
+
+    @Label("CFA Location")
+    @Description("The function and the CFA node of the abstract state")
+    @Nullable String location;
+  }
+
+  @Name("org.sosy_lab.cpachecker.Transfer")
+  @Label("Transfer Relation")
+  public static final class TransferEvent extends LocatedEvent {}
+
+  @Name("org.sosy_lab.cpachecker.PrecisionAdjustment")
+  @Label("Precision Adjustment")
+  public static final class PrecisionAdjustmentEvent extends LocatedEvent {}
+
+  @Name("org.sosy_lab.cpachecker.Merge")
+  @Label("Merge")
+  public static final class MergeEvent extends LocatedEvent {}
+
+  @Name("org.sosy_lab.cpachecker.Stop")
+  @Label("Stop")
+  public static final class StopEvent extends LocatedEvent {}
+
+  @Name("org.sosy_lab.cpachecker.SolverQuery")
+  @Label("SMT Query")
+  @Description("A satisfiability check of Solver.isUnsat that is not trivial")
+  @Category({"CPAchecker", "Solver"})
+  public static final class SolverQueryEvent extends Event {
+
+    @Label("Unsatisfiable")
+    boolean unsat;
+  }
+
+  @Name("org.sosy_lab.cpachecker.Abstraction")
+  @Label("Abstraction Computation")
+  @Category({"CPAchecker", "Predicate Analysis"})
+  public static final class AbstractionEvent extends Event {
+
+    @Label("CFA Location")
+    @Nullable String location;
+
+    @Label("Number of Predicates")
+    int predicates;
+  }
+
+  @Name("org.sosy_lab.cpachecker.Refinement")
+  @Label("Refinement")
+  @Category({"CPAchecker", "CEGAR"})
+  public static final class RefinementEvent extends Event {
+
+    @Label("Refiner")
+    @Nullable String refiner;
+
+    @Label("Successful")
+    boolean successful;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.statistics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.FluentIterable;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents.RefinementEvent;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents.SolverQueryEvent;
+import org.sosy_lab.cpachecker.util.statistics.AnalysisEvents.TransferEvent;
+
+public class AnalysisEventsTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @After
+  public void disableEvents() throws InvalidConfigurationException {
+    AnalysisEvents.configure(Configuration.defaultConfiguration());
+  }
+
+  private static void configure(boolean pEnabled) throws InvalidConfigurationException {
+    AnalysisEvents.configure(
+        Configuration.builder()
+            .setOption("statistics.jfrEvents", Boolean.toString(pEnabled))
+            .build());
+  }
+
+  /** Emit one event of each kind while a flight recording is running and return the events. */
+  private List<RecordedEvent> recordEvents() throws Exception {
+    Path file = tempFolder.newFile("recording.jfr").toPath();
+    try (Recording recording = new Recording()) {
+      recording.enable(TransferEvent.class).withoutThreshold();
+      recording.enable(SolverQueryEvent.class).withoutThreshold();
+      recording.enable(RefinementEvent.class).withoutThreshold();
+      recording.start();
+
+      AnalysisEvents.commit(AnalysisEvents.begin(TransferEvent::new), null);
+      AnalysisEvents.commit(AnalysisEvents.begin(SolverQueryEvent::new), true);
+      AnalysisEvents.commit(AnalysisEvents.begin(RefinementEvent::new), "TestRefiner", false);
+
+      recording.stop();
+      recording.dump(file);
+    }
+    return RecordingFile.readAllEvents(file);
+  }
+
+  private static List<String> eventNames(List<RecordedEvent> pEvents) {
+    return FluentIterable.from(pEvents).transform(e -> e.getEventType().getName()).toList();
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    configure(false);
+    assertThat(AnalysisEvents.isEnabled()).isFalse();
+    assertThat(AnalysisEvents.begin(TransferEvent::new)).isNull();
+
+    assertThat(eventNames(recordEvents()))
+        .containsNoneOf(
+            "org.sosy_lab.cpachecker.Transfer",
+            "org.sosy_lab.cpachecker.SolverQuery",
+            "org.sosy_lab.cpachecker.Refinement");
+  }
+
+  @Test
+  public void testEnabled() throws Exception {
+    configure(true);
+    assertThat(AnalysisEvents.isEnabled()).isTrue();
+
+    List<RecordedEvent> events = recordEvents();
+    assertThat(eventNames(events))
+        .containsAtLeast(
+            "org.sosy_lab.cpachecker.Transfer",
+            "org.sosy_lab.cpachecker.SolverQuery",
+            "org.sosy_lab.cpachecker.Refinement");
+
+    for (RecordedEvent event : events) {
+      switch (event.getEventType().getName()) {
+        case "org.sosy_lab.cpachecker.Transfer":
+          assertThat(event.getString("location")).isNull();
+          break;
+        case "org.sosy_lab.cpachecker.SolverQuery":
+          assertThat(event.getBoolean("unsat")).isTrue();
+          break;
+        case "org.sosy_lab.cpachecker.Refinement":
+          assertThat(event.getString("refiner")).isEqualTo("TestRefiner");
+          assertThat(event.getBoolean("successful")).isFalse();
+          break;
+        default:
+          // other events of the JVM
+      }
+    }
+  }
+}
@@ -0,0 +1,32 @@
+extern int __VERIFIER_nondet_int(void);
+extern void __VERIFIER_error(void);
+
+int counter = 0;
+
+void increment() {
+  counter++;
+}
+
+int square(int x) {
+  return x * x;
+}
+
+int constant() {
+  return 42;
+}
+
+int main() {
+  int x = __VERIFIER_nondet_int();
+  increment();
+  if (constant() != 42) {
+    __VERIFIER_error();
+  }
+  if (x == 3 && square(x) != 9) {
+    __VERIFIER_error();
+  }
+  increment();
+  if (counter != 2) {
+    __VERIFIER_error();
+  }
+  return 0;
+}
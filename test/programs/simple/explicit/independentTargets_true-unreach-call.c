@@ -0,0 +1,27 @@
+extern int __VERIFIER_nondet_int(void);
+extern void __VERIFIER_error(void);
+
+int main() {
+  int a = 0;
+  int b = 0;
+  int c = 0;
+  int choice = __VERIFIER_nondet_int();
+
+  if (choice == 1) {
+    a = 1;
+    if (a != 1) {
+      __VERIFIER_error();
+    }
+  } else if (choice == 2) {
+    b = 2;
+    if (b != 2) {
+      __VERIFIER_error();
+    }
+  } else {
+    c = 3;
+    if (c != 3) {
+      __VERIFIER_error();
+    }
+  }
+  return 0;
+}